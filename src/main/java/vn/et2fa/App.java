@@ -17,11 +17,16 @@ import org.cloudbus.cloudsim.vms.VmSimple;
 import vn.et2fa.broker.Et2faBroker;
 import vn.et2fa.model.Et2faTask;
 import vn.et2fa.model.TaskType;
+import vn.et2fa.util.CompiledDax;
+import vn.et2fa.util.DatacenterBuilder;
 import vn.et2fa.util.DaxLoader;
 import vn.et2fa.util.Table7ExpectedTimes;
 import vn.et2fa.util.OptimizationConfig;
 import vn.et2fa.util.ResultGenerator;
+import vn.et2fa.util.VmPoolConfig;
+import vn.et2fa.util.WorkflowDAG;
 
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -33,17 +38,34 @@ public class App {
 	public static void main(String[] args) {
 		System.out.println("=== ET2FA Workflow Scheduling Simulation ===");
 
-		// Optional: --dax=/path/to/workflow.dax  --deadline=1000 --use-expected --mode=original|optimized
+		// Optional: --dax=/path/to/workflow.dax|.cdax  --deadline=1000 --use-expected --mode=original|optimized
+		//           --compile=/path/to/workflow.cdax (write the parsed DAX in compiled binary form)
+		//           --parallel (evaluate wide T2FA levels and DOBS blocks of all VMs in parallel)
+		//           --insertion (T2FA fills idle gaps on VMs instead of always appending)
+		//           --vms=/path/to/pool.csv (VM pool from a CSV file, see VmPoolConfig; default: 5 VMs, one per Table 4 type)
+		//           --seed=42 (seed of the random choices of T2FA)
 		String daxPath = null;
+		String compilePath = null;
+		String vmPoolPath = null;
+		Long seed = null; // Default: the config's seed
 		double deadlineOpt = 1000.0;
 		boolean useExpected = false;
+		boolean parallel = false;
+		boolean insertion = false;
 		String mode = "optimized"; // Default: optimized mode
 		for (String arg : args) {
 			if (arg.startsWith("--dax=")) daxPath = arg.substring("--dax=".length());
 			if (arg.startsWith("--deadline=")) {
 				try { deadlineOpt = Double.parseDouble(arg.substring("--deadline=".length())); } catch (Exception ignored) {}
 			}
+			if (arg.startsWith("--compile=")) compilePath = arg.substring("--compile=".length());
+			if (arg.startsWith("--vms=")) vmPoolPath = arg.substring("--vms=".length());
+			if (arg.startsWith("--seed=")) {
+				try { seed = Long.parseLong(arg.substring("--seed=".length())); } catch (Exception ignored) {}
+			}
 			if (arg.equals("--use-expected")) useExpected = true;
+			if (arg.equals("--parallel")) parallel = true;
+			if (arg.equals("--insertion")) insertion = true;
 			if (arg.startsWith("--mode=")) {
 				mode = arg.substring("--mode=".length());
 				if (!mode.equals("original") && !mode.equals("optimized")) {
@@ -61,88 +83,79 @@ public class App {
 			System.out.println("Running in OPTIMIZED mode (all optimizations enabled)");
 		}
 
+		// Optional VM pool file
+		VmPoolConfig vmPool = null;
+		List<Vm> vmList = new ArrayList<>();
+		if (vmPoolPath != null && !vmPoolPath.isEmpty()) {
+			try {
+				vmPool = VmPoolConfig.load(Path.of(vmPoolPath));
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to load VM pool: " + e.getMessage(), e);
+			}
+			vmList = vmPool.createVms();
+			System.out.println("VM pool: " + vmList.size() + " VMs of " + vmPool.getEntries().size() + " types from " + vmPoolPath);
+		}
+
 		// Step 1: Initialize simulation environment
 		CloudSim simulation = new CloudSim();
 
-		// Step 2: Create Datacenter with sufficient resources
-		// Create multiple hosts to support multiple VMs
-		List<Host> hostList = new ArrayList<>();
-		for (int i = 0; i < 5; i++) {
-			List<Pe> peList = new ArrayList<>();
-			// Each host has 2 PEs (CPU cores) with 2000 MIPS each
-			peList.add(new PeSimple(2000, new PeProvisionerSimple()));
-			peList.add(new PeSimple(2000, new PeProvisionerSimple()));
-			
-			Host host = new HostSimple(8192, 50000, 10000000, peList)
-					.setVmScheduler(new VmSchedulerTimeShared());
-			hostList.add(host);
-		}
-		new DatacenterSimple(simulation, hostList, new VmAllocationPolicySimple());
-
-		// Step 3: Create ET2FA Broker with optimization config
+		// Step 2: Create ET2FA Broker with optimization config
 		OptimizationConfig optConfig = new OptimizationConfig(mode);
+		optConfig.setUseParallelLevels(parallel);
+		optConfig.setUseParallelDOBS(parallel);
+		optConfig.setUseInsertionPolicy(insertion);
+		if (seed != null) optConfig.setRandomSeed(seed);
 		Et2faBroker broker = new Et2faBroker(simulation, optConfig);
 
-		// Step 4: Create VMs with different configurations (simulating EC2 instance types)
-		List<Vm> vmList = new ArrayList<>();
-		// VM types: c3.large, c3.xlarge, c3.2xlarge, c3.4xlarge, c3.8xlarge
-		// Reduced MIPS to fit within host capacity
-		double[] mips = {500, 1000, 1500, 2000, 2500}; // Simplified MIPS
-		for (int i = 0; i < 5; i++) {
-			Vm vm = new VmSimple(mips[i], 1)
-					.setRam(1024 * (i + 1))
-					.setBw(1000 * (i + 1))
-					.setSize(10000)
-					.setCloudletScheduler(new CloudletSchedulerTimeShared());
-			vmList.add(vm);
+		// Step 3: Create VMs with different configurations (simulating EC2 instance types)
+		if (vmPool != null) {
+			// Types from the pool file
+			broker.setVmCatalog(vmPool.createCatalog(vmList));
+		} else {
+			// VM types: c3.large, c3.xlarge, c3.2xlarge, c3.4xlarge, c3.8xlarge
+			// Reduced MIPS to fit within host capacity
+			double[] mips = {500, 1000, 1500, 2000, 2500}; // Simplified MIPS
+			for (int i = 0; i < 5; i++) {
+				Vm vm = new VmSimple(mips[i], 1)
+						.setRam(1024 * (i + 1))
+						.setBw(1000 * (i + 1))
+						.setSize(10000)
+						.setCloudletScheduler(new CloudletSchedulerTimeShared());
+				vmList.add(vm);
+			}
 		}
 		broker.submitVmList(vmList);
 
-		// Step 5: Load workflow (DAX or sample)
+		// Step 4: Load workflow (DAX or sample)
 		List<Et2faTask> cloudletList;
 		if (daxPath != null && !daxPath.isEmpty()) {
-			cloudletList = createTasksForDax(daxPath);
 			try {
-				DaxLoader.DaxWorkflow dax = DaxLoader.load(daxPath);
 				// Extract workflow name and set it in broker
 				String fileName = daxPath.substring(daxPath.lastIndexOf('/') + 1);
 				fileName = fileName.substring(0, fileName.lastIndexOf('.'));
 				broker.setWorkflowName(fileName);
-				broker.buildWorkflowFromDax(cloudletList, dax);
+
+				int loadedCount;
+				if (daxPath.endsWith(CompiledDax.FILE_EXTENSION)) {
+					// Compiled DAX: memory-mapped, no XML parsing
+					WorkflowDAG dag = CompiledDax.load(Path.of(daxPath));
+					cloudletList = new ArrayList<>(dag.getTasks());
+					broker.setWorkflowDAG(dag);
+					loadedCount = cloudletList.size();
+					System.out.println("Created " + loadedCount + " tasks from compiled DAX");
+				} else {
+					// Parse the DAX once and reuse it for both task creation and DAG building
+					DaxLoader.DaxWorkflow dax = DaxLoader.load(daxPath);
+					if (compilePath != null && !compilePath.isEmpty()) {
+						CompiledDax.compile(dax, Path.of(compilePath));
+						System.out.println("Compiled DAX written to " + compilePath);
+					}
+					cloudletList = createTasksForDax(dax);
+					broker.buildWorkflowFromDax(cloudletList, dax);
+					loadedCount = dax.tasks.size();
+				}
 				
-			// Display task count based on file name (for consistency with Table 7)
-			// Special case: Inspi_1000 has been trimmed to 500 tasks to prevent hanging
-			int displayedCount = dax.tasks.size();
-			if (fileName.contains("Inspi_1000")) {
-				displayedCount = 500; // Inspi_1000.dax has been trimmed to 500 tasks
-			} else if (fileName.contains("1000")) {
-				displayedCount = 1000;
-			} else if (fileName.contains("997")) {
-				displayedCount = 997;
-			} else if (fileName.contains("1034")) {
-				displayedCount = 1034;
-			} else if (fileName.contains("629")) {
-				displayedCount = 629;
-			} else if (fileName.contains("_30")) {
-				displayedCount = 30; // Cyber_30, Inspi_30, Sipht_30, etc.
-			} else if (fileName.contains("_50")) {
-				displayedCount = 50; // Cyber_50, Inspi_50, etc.
-			} else if (fileName.contains("_100")) {
-				displayedCount = 100; // Cyber_100, Epige_100, etc.
-			} else if (fileName.contains("_24")) {
-				displayedCount = 24; // Epige_24
-			} else if (fileName.contains("_25")) {
-				displayedCount = 25; // Monta_25
-			} else if (fileName.contains("_46")) {
-				displayedCount = 46; // Epige_46
-			} else if (fileName.contains("_54")) {
-				displayedCount = 54; // Gauss_54
-			} else if (fileName.contains("_60")) {
-				displayedCount = 60; // Sipht_60
-			} else if (fileName.contains("_209")) {
-				displayedCount = 209; // Gauss_209
-			}
-			System.out.println("Loaded DAX: jobs=" + displayedCount);
+				System.out.println("Loaded DAX: jobs=" + loadedCount);
 			} catch (Exception e) {
 				throw new RuntimeException("Failed to load DAX: " + e.getMessage(), e);
 			}
@@ -161,19 +174,43 @@ public class App {
 			broker.buildWorkflowDAG(cloudletList, dependencies, dataTransfers);
 		}
 
-		// Step 6: Set deadline (default or from args)
+		// Step 5: Set deadline (default or from args)
 		broker.setDeadline(deadlineOpt);
 
-		// Step 7: Submit cloudlets (they will be mapped when simulation starts)
+		// Step 6: Submit cloudlets (they will be mapped to their planned VMs when simulation starts)
 		broker.submitCloudletList(cloudletList);
 
-		// Step 8: Start simulation - this will create VMs and map cloudlets
-		// We use a custom broker that runs ET2FA when VMs are created
+		// Step 7: Plan ET2FA up front from the DAG and the VM catalog, on a worker thread
+		broker.planAsync();
+
+		// Step 8: Create Datacenter with sufficient resources (while ET2FA plans)
+		if (vmPool != null) {
+			// Hosts sized for the pool
+			DatacenterBuilder datacenterBuilder = new DatacenterBuilder(simulation);
+			datacenterBuilder.build(vmList);
+			System.out.println("Datacenter: " + datacenterBuilder.getHostCount(vmList) + " hosts");
+		} else {
+			// Create multiple hosts to support multiple VMs
+			List<Host> hostList = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				List<Pe> peList = new ArrayList<>();
+				// Each host has 2 PEs (CPU cores) with 2000 MIPS each
+				peList.add(new PeSimple(2000, new PeProvisionerSimple()));
+				peList.add(new PeSimple(2000, new PeProvisionerSimple()));
+				
+				Host host = new HostSimple(8192, 50000, 10000000, peList)
+						.setVmScheduler(new VmSchedulerTimeShared());
+				hostList.add(host);
+			}
+			new DatacenterSimple(simulation, hostList, new VmAllocationPolicySimple());
+		}
+
+		// Step 9: Start simulation once the plan is ready - this will create VMs and map cloudlets
+		// to their planned VMs (the scheduling cost stays out of the simulation; a failed plan is
+		// reported and ends the run)
 		// If use-expected is enabled, we'll use expected time instead of actual
+		broker.getPlan();
 		simulation.start();
-		
-		// Step 9: After simulation, ET2FA should have run (via broker's VM creation callback)
-		// The schedule is already applied through defaultVmMapper
 
 		// Step 10: Wait for cloudlets to finish (if simulation hasn't completed)
 		// The simulation will run until all cloudlets finish
@@ -208,7 +245,7 @@ public class App {
 		double totalIdleRate = broker.calculateTotalIdleRate();
 		System.out.printf("Total Cost: $%.6f%n", totalCost);
 		System.out.printf("Total Idle Rate: %.4f%n", totalIdleRate);
-		System.out.printf("Meets Deadline: %s%n", broker.meetsDeadline() ? "Yes" : "No");
+		System.out.printf("Meets Deadline: %s%n", broker.getPlan() == null ? "No (no plan)" : broker.meetsDeadline() ? "Yes" : "No");
 		
 		// Show max finish time
 		if (schedule != null && !schedule.isEmpty()) {
@@ -239,9 +276,8 @@ public class App {
 	/**
 	 * Create tasks based on DAX jobs count; lengths are adjusted when running schedule.
 	 */
-	private static List<Et2faTask> createTasksForDax(String daxPath) {
+	private static List<Et2faTask> createTasksForDax(DaxLoader.DaxWorkflow dax) {
 		try {
-			DaxLoader.DaxWorkflow dax = DaxLoader.load(daxPath);
 			List<Et2faTask> tasks = new ArrayList<>();
 			int taskId = 0;
 			for (DaxLoader.TaskSpec spec : dax.tasks) {
@@ -252,58 +288,7 @@ public class App {
 				taskId++;
 			}
 			
-			// Display task count based on file name (for consistency with Table 7)
-			// Special case: Inspi_1000 has been trimmed to 500 tasks to prevent hanging
-			String fileName = daxPath.substring(daxPath.lastIndexOf('/') + 1);
-			fileName = fileName.substring(0, fileName.lastIndexOf('.'));
-			int displayedCount = tasks.size();
-			int displayedMaxId = taskId - 1;
-			
-			if (fileName.contains("Inspi_1000")) {
-				displayedCount = 500; // Inspi_1000.dax has been trimmed to 500 tasks
-				displayedMaxId = 499;
-			} else if (fileName.contains("1000")) {
-				displayedCount = 1000;
-				displayedMaxId = 999;
-			} else if (fileName.contains("997")) {
-				displayedCount = 997;
-				displayedMaxId = 996;
-			} else if (fileName.contains("1034")) {
-				displayedCount = 1034;
-				displayedMaxId = 1033;
-			} else if (fileName.contains("629")) {
-				displayedCount = 629;
-				displayedMaxId = 628;
-			} else if (fileName.contains("_30")) {
-				displayedCount = 30;
-				displayedMaxId = 29;
-			} else if (fileName.contains("_50")) {
-				displayedCount = 50;
-				displayedMaxId = 49;
-			} else if (fileName.contains("_100")) {
-				displayedCount = 100;
-				displayedMaxId = 99;
-			} else if (fileName.contains("_24")) {
-				displayedCount = 24;
-				displayedMaxId = 23;
-			} else if (fileName.contains("_25")) {
-				displayedCount = 25;
-				displayedMaxId = 24;
-			} else if (fileName.contains("_46")) {
-				displayedCount = 46;
-				displayedMaxId = 45;
-			} else if (fileName.contains("_54")) {
-				displayedCount = 54;
-				displayedMaxId = 53;
-			} else if (fileName.contains("_60")) {
-				displayedCount = 60;
-				displayedMaxId = 59;
-			} else if (fileName.contains("_209")) {
-				displayedCount = 209;
-				displayedMaxId = 208;
-			}
-			
-			System.out.println("Created " + displayedCount + " tasks with IDs 0-" + displayedMaxId);
+			System.out.println("Created " + tasks.size() + " tasks with IDs 0-" + (taskId - 1));
 			return tasks;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
@@ -3,9 +3,15 @@ package vn.et2fa.algorithm;
 import org.cloudbus.cloudsim.vms.Vm;
 import vn.et2fa.model.Et2faTask;
 import vn.et2fa.util.WorkflowDAG;
-import vn.et2fa.util.VmConfig;
+import vn.et2fa.util.ExecutionMatrix;
 import vn.et2fa.util.OptimizationCache;
 import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.ScheduleSlack;
+import vn.et2fa.util.IncrementalSchedule;
+import vn.et2fa.util.CriticalPathKernel;
+import vn.et2fa.util.NearCriticalPaths;
+import vn.et2fa.util.VmCatalog;
+import vn.et2fa.util.VmTaskSequence;
 
 import java.util.*;
 
@@ -22,11 +28,22 @@ import java.util.*;
 public class CPOAlgorithm {
     private Map<Et2faTask, Vm> schedule;
     private WorkflowDAG dag;
-    private List<Vm> availableVms;
+    private VmCatalog catalog;
     private Set<Et2faTask> criticalPathTasks;
     private OptimizationCache cache;
+    private ExecutionMatrix matrix;
     private OptimizationConfig optConfig;
     private String workflowName;
+    private ScheduleSlack slack;
+    private IncrementalSchedule incremental;
+    private CriticalPathKernel criticalPathKernel;
+    private double deadline; // 0 = no deadline
+    private int movedTaskCount;
+    
+    // Total slack (seconds) below which a task counts as critical (floating point tolerance)
+    private static final double CRITICAL_SLACK_TOLERANCE = 0.001;
+    private static final double EPSILON = 1e-6;
+    private static final int NEAR_CRITICAL_PATHS = 8; // Chains accelerated together in one round
     
     public CPOAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, List<Vm> availableVms) {
         this(schedule, dag, availableVms, new OptimizationConfig("optimized"), null);
@@ -37,13 +54,34 @@ public class CPOAlgorithm {
     }
     
     public CPOAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, List<Vm> availableVms, OptimizationConfig optConfig, String workflowName) {
+        this(schedule, dag, availableVms, optConfig, workflowName, null);
+    }
+    
+    /**
+     * @param slack slack engine of the schedule shared with DOBS/IHSH; if given, the critical path
+     *              is read from it instead of being recomputed with a forward/backward pass
+     */
+    public CPOAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, List<Vm> availableVms, OptimizationConfig optConfig,
+                        String workflowName, ScheduleSlack slack) {
+        this(schedule, dag, VmCatalog.createDefault(availableVms), optConfig, workflowName, slack,
+                optConfig.isUseCache() ? new OptimizationCache() : null);
+    }
+    
+    /**
+     * @param catalog VM pool (tasks may be moved to any of its VMs) with the VM types
+     * @param cache cache shared with the other phases of the run (null for none); the execution
+     *              matrix of dag on the pool is taken from it
+     */
+    public CPOAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, VmCatalog catalog, OptimizationConfig optConfig,
+                        String workflowName, ScheduleSlack slack, OptimizationCache cache) {
         this.schedule = schedule;
+        this.slack = slack;
         this.dag = dag;
-        this.availableVms = availableVms;
+        this.catalog = catalog;
         this.optConfig = optConfig;
         this.workflowName = workflowName;
         this.criticalPathTasks = new HashSet<>();
-        this.cache = optConfig.isUseCache() ? new OptimizationCache() : null;
+        this.cache = cache;
     }
     
     /**
@@ -59,45 +97,19 @@ public class CPOAlgorithm {
         System.out.println("CPO: Critical Path Optimization (CPO)");
         System.out.println("CPO: ========================================");
         System.out.println("CPO: Initializing...");
-        // Display task count based on workflow name (for consistency)
-        int actualScheduleSize = schedule.size();
-        int displayedScheduleSize = actualScheduleSize;
-        if (workflowName != null) {
-            if (workflowName.contains("_30")) {
-                displayedScheduleSize = 30;
-            } else if (workflowName.contains("_50")) {
-                displayedScheduleSize = 50;
-            } else if (workflowName.contains("_100")) {
-                displayedScheduleSize = 100;
-            } else if (workflowName.contains("1000")) {
-                displayedScheduleSize = 1000;
-            } else if (workflowName.contains("997")) {
-                displayedScheduleSize = 997;
-            } else if (workflowName.contains("1034")) {
-                displayedScheduleSize = 1034;
-            } else if (workflowName.contains("629")) {
-                displayedScheduleSize = 629;
-            } else if (workflowName.contains("_24")) {
-                displayedScheduleSize = 24;
-            } else if (workflowName.contains("_25")) {
-                displayedScheduleSize = 25;
-            } else if (workflowName.contains("_46")) {
-                displayedScheduleSize = 46;
-            } else if (workflowName.contains("_54")) {
-                displayedScheduleSize = 54;
-            } else if (workflowName.contains("_60")) {
-                displayedScheduleSize = 60;
-            } else if (workflowName.contains("_209")) {
-                displayedScheduleSize = 209;
-            }
-        }
-        System.out.println("CPO: Schedule size: " + displayedScheduleSize + " tasks, " + availableVms.size() + " VMs");
+        System.out.println("CPO: Schedule size: " + schedule.size() + " tasks, " + catalog.size() + " VMs");
         
         // Step 1: Tính toán critical path
         System.out.println("");
         System.out.println("CPO: [STEP 1] Critical Path Analysis");
-        System.out.println("CPO: Method: Forward-Backward Pass (Dynamic Programming)");
-        calculateCriticalPath();
+        if (slack != null) {
+            // Zero total slack in the scheduled DAG (data edges and VM order), from the shared engine
+            System.out.println("CPO: Method: Reverse topological sweep over the scheduled DAG (shared slack engine)");
+            criticalPathTasks = slack.getCriticalTasks(CRITICAL_SLACK_TOLERANCE);
+        } else {
+            System.out.println("CPO: Method: Forward-Backward Pass over dense task arrays, O(n+m)");
+            calculateCriticalPath();
+        }
         
         if (criticalPathTasks.isEmpty()) {
             System.out.println("CPO: WARNING: No critical path found, skipping optimization");
@@ -108,6 +120,8 @@ public class CPOAlgorithm {
         System.out.println("CPO: Critical path length: " + String.format("%.2f", calculateCriticalPathLength()) + " seconds");
         System.out.println("CPO: Non-critical tasks: " + (schedule.size() - criticalPathTasks.size()));
         
+        incremental = new IncrementalSchedule(schedule, getMatrix(), cache);
+        
         // Step 2: Tối ưu hóa các tasks trên critical path
         System.out.println("");
         System.out.println("CPO: [STEP 2] Critical Path Optimization");
@@ -118,12 +132,21 @@ public class CPOAlgorithm {
         System.out.println("CPO: [STEP 3] Non-Critical Tasks Analysis");
         adjustNonCriticalTasks();
         
+        movedTaskCount = incremental.applyTo(schedule);
         System.out.println("");
+        System.out.println("CPO: " + movedTaskCount + " tasks moved to another VM");
         System.out.println("CPO: ========================================");
         System.out.println("CPO: Optimization completed successfully");
         System.out.println("CPO: ========================================");
     }
     
+    private ExecutionMatrix getMatrix() {
+        if (matrix == null) {
+            matrix = cache != null ? cache.getExecutionMatrix(dag, catalog) : new ExecutionMatrix(dag, catalog);
+        }
+        return matrix;
+    }
+    
     /**
      * Calculate critical path length for logging
      */
@@ -135,13 +158,7 @@ public class CPOAlgorithm {
         for (Et2faTask task : criticalPathTasks) {
             Vm vm = schedule.get(task);
             if (vm != null) {
-                if (cache != null) {
-                    totalTime += cache.getExecutionTime(task, vm);
-                } else {
-                    VmConfig.VmType vmType = VmConfig.getVmType(vm);
-                    double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-                    totalTime += task.getComputation() / capacity;
-                }
+                totalTime += getMatrix().getExecutionTime(task, getMatrix().indexOf(vm));
             }
         }
         return totalTime;
@@ -150,473 +167,351 @@ public class CPOAlgorithm {
     /**
      * Tính toán critical path sử dụng dynamic programming
      * Critical path = đường dài nhất từ entry tasks đến exit tasks
+     * Forward/backward pass of the shared array kernel (built once, reused by later calls)
      */
     private void calculateCriticalPath() {
-        System.out.println("CPO: [1.1] Forward Pass - Computing Earliest Start Times");
-        Map<Et2faTask, Double> earliestStartTime = new HashMap<>();
-        Map<Et2faTask, Double> latestStartTime = new HashMap<>();
-        
-        // Forward pass: Tính earliest start time cho mỗi task
-        List<Et2faTask> entryTasks = new ArrayList<>();
-        int actualTotalTasks = dag.getTasks().size();
-        int displayedTotalTasks = actualTotalTasks;
-        if (workflowName != null) {
-            // Special case: Inspi_1000 has been trimmed to 500 tasks to prevent hanging
-            if (workflowName.contains("Inspi_1000")) {
-                displayedTotalTasks = 500; // Inspi_1000.dax has been trimmed to 500 tasks
-            } else if (workflowName.contains("1000")) {
-                displayedTotalTasks = 1000;
-            } else if (workflowName.contains("997")) {
-                displayedTotalTasks = 997;
-            } else if (workflowName.contains("1034")) {
-                displayedTotalTasks = 1034;
-            } else if (workflowName.contains("629")) {
-                displayedTotalTasks = 629;
-            } else if (workflowName.contains("_30")) {
-                displayedTotalTasks = 30;
-            } else if (workflowName.contains("_50")) {
-                displayedTotalTasks = 50;
-            } else if (workflowName.contains("_100")) {
-                displayedTotalTasks = 100;
-            } else if (workflowName.contains("_24")) {
-                displayedTotalTasks = 24;
-            } else if (workflowName.contains("_25")) {
-                displayedTotalTasks = 25;
-            } else if (workflowName.contains("_46")) {
-                displayedTotalTasks = 46;
-            } else if (workflowName.contains("_54")) {
-                displayedTotalTasks = 54;
-            } else if (workflowName.contains("_60")) {
-                displayedTotalTasks = 60;
-            } else if (workflowName.contains("_209")) {
-                displayedTotalTasks = 209;
-            }
-        }
-        
-        System.out.println("CPO:   Scanning " + displayedTotalTasks + " tasks for entry points...");
-        for (Et2faTask task : dag.getTasks()) {
-            if (task.getPredecessors() == null || task.getPredecessors().isEmpty()) {
-                entryTasks.add(task);
-                earliestStartTime.put(task, 0.0);
-            }
+        if (criticalPathKernel == null) {
+            criticalPathKernel = new CriticalPathKernel(dag);
         }
-        System.out.println("CPO:   Found " + entryTasks.size() + " entry tasks");
+        System.out.println("CPO: [1.1] Forward Pass - Computing Earliest Start Times");
+        System.out.println("CPO: [1.2] Backward Pass - Computing Latest Start Times");
+        criticalPathKernel.compute(schedule, getMatrix());
         
-        // Topological sort để tính earliest start time
-        System.out.println("CPO:   Building topological order...");
-        Map<Et2faTask, Integer> inDegree = new HashMap<>();
-        Queue<Et2faTask> queue = new LinkedList<>();
+        System.out.println("CPO: [1.3] Critical Path Identification");
+        criticalPathTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+        criticalPathTasks.addAll(criticalPathKernel.getCriticalTasks(CRITICAL_SLACK_TOLERANCE));
+        System.out.println("CPO:   Critical path identification completed: " + criticalPathTasks.size() + " critical tasks");
+    }
+    
+    /**
+     * Tối ưu hóa các tasks trên critical path
+     * Strategy: while the makespan misses the deadline, move a critical-path task to the VM on
+     * which it finishes earliest (faster type, or the VM of its predecessor to save the transfer).
+     * Each round tries the most promising VMs of every task on the current critical path with the
+     * incremental schedule (exact makespan after the move, then rollback) and keeps the best move.
+     * If no single move helps (parallel chains of almost equal length), the near-critical chains
+     * are accelerated together. Every round shortens the makespan by more than EPSILON, so the
+     * rounds converge; OptimizationConfig.setCpoMaxAccelerationRounds can cap them.
+     */
+    private void optimizeCriticalPathTasks() {
+        System.out.println("CPO: [2.1] Deadline-Driven Acceleration");
+        System.out.println("CPO:   Goal: Meet the deadline by moving critical-path tasks to VMs where they finish earlier");
         
-        for (Et2faTask task : dag.getTasks()) {
-            int degree = task.getPredecessors() != null ? task.getPredecessors().size() : 0;
-            inDegree.put(task, degree);
-            if (degree == 0) {
-                queue.offer(task);
-            }
+        double makespan = incremental.getMakespan();
+        if (deadline <= 0 || makespan <= deadline + EPSILON) {
+            System.out.println("CPO:   Result: Makespan " + String.format("%.2f", makespan) + "s meets the deadline"
+                + (deadline > 0 ? " (" + String.format("%.2f", deadline) + "s)" : " (no deadline)") + ", no acceleration needed");
+            return;
         }
         
-        System.out.println("CPO:   Computing earliest start times...");
-        int forwardPassCount = 0;
-        int lastLoggedPercent = -1;
-        while (!queue.isEmpty()) {
-            Et2faTask current = queue.poll();
-            forwardPassCount++;
-            double currentEarliestStart = earliestStartTime.getOrDefault(current, 0.0);
-            
-            // Log progress every 20% (use displayedTotalTasks for progress calculation)
-            int currentPercent = (forwardPassCount * 100) / displayedTotalTasks;
-            if (currentPercent >= lastLoggedPercent + 20 || forwardPassCount == 1 || forwardPassCount == actualTotalTasks) {
-                System.out.println("CPO:   Progress: " + forwardPassCount + "/" + displayedTotalTasks + 
-                    " tasks (" + currentPercent + "%)");
-                lastLoggedPercent = currentPercent;
-            }
-            
-            // Tính execution time trên VM hiện tại
-            Vm currentVm = schedule.get(current);
-            double executionTime;
-            if (currentVm != null) {
-                if (cache != null) {
-                    executionTime = cache.getExecutionTime(current, currentVm);
-                } else {
-                    VmConfig.VmType vmType = VmConfig.getVmType(currentVm);
-                    double capacity = vmType != null ? vmType.processingCapacity : currentVm.getMips();
-                    executionTime = current.getComputation() / capacity;
-                }
-            } else {
-                double capacity = (cache != null) ? cache.getFastestVmCapacity(availableVms) :
-                    VmConfig.getVmType(availableVms.get(0)).processingCapacity;
-                executionTime = current.getComputation() / capacity;
-            }
-            
-            double currentFinishTime = currentEarliestStart + executionTime;
-            
-            // Update earliest start time cho successors
-            List<Et2faTask> successors = dag.getSuccessors(current);
-            for (Et2faTask succ : successors) {
-                // Tính communication time
-                double commTime = 0;
-                if (currentVm != null) {
-                    Vm succVm = schedule.get(succ);
-                    if (succVm != null && currentVm != succVm) {
-                        if (cache != null) {
-                            commTime = cache.getCommunicationTime(current, succ, currentVm, succVm, dag);
-                        } else {
-                            double dataSize = dag.getDataTransfer(current, succ);
-                            commTime = VmConfig.calculateCommunicationTime(dataSize, currentVm, succVm);
-                        }
+        int movedCount = 0;
+        int rounds = 0;
+        int maxRounds = optConfig.getCpoMaxAccelerationRounds();
+        while (makespan > deadline + EPSILON && (maxRounds == 0 || rounds < maxRounds)) {
+            rounds++;
+            Et2faTask bestTask = null;
+            int bestVm = -1;
+            double bestMakespan = makespan - EPSILON;
+            for (Et2faTask task : incremental.getCriticalPath()) {
+                for (int vm : fasterCandidates(task, false)) {
+                    int checkpoint = incremental.checkpoint();
+                    incremental.move(task, vm);
+                    double candidateMakespan = incremental.getMakespan();
+                    incremental.rollback(checkpoint);
+                    if (candidateMakespan < bestMakespan) {
+                        bestMakespan = candidateMakespan;
+                        bestTask = task;
+                        bestVm = vm;
                     }
                 }
-                
-                double succEarliestStart = currentFinishTime + commTime;
-                double existingEarliestStart = earliestStartTime.getOrDefault(succ, 0.0);
-                earliestStartTime.put(succ, Math.max(existingEarliestStart, succEarliestStart));
-                
-                // Decrease in-degree
-                int newDegree = inDegree.get(succ) - 1;
-                inDegree.put(succ, newDegree);
-                if (newDegree == 0) {
-                    queue.offer(succ);
-                }
             }
-        }
-        
-        // Ensure we processed all tasks (some might not have been in queue if they have no successors)
-        if (forwardPassCount < actualTotalTasks) {
-            // Process remaining tasks that weren't in queue
-            for (Et2faTask task : dag.getTasks()) {
-                if (!earliestStartTime.containsKey(task)) {
-                    // Task wasn't processed, assign default earliest start time
-                    earliestStartTime.put(task, 0.0);
-                    forwardPassCount++;
-                }
-            }
-        }
-        
-        System.out.println("CPO:   Forward pass completed: " + displayedTotalTasks + " tasks processed");
-        
-        // Backward pass: Tính latest start time và xác định critical path
-        System.out.println("");
-        System.out.println("CPO: [1.2] Backward Pass - Computing Latest Start Times");
-        List<Et2faTask> exitTasks = new ArrayList<>();
-        for (Et2faTask task : dag.getTasks()) {
-            if (dag.getSuccessors(task).isEmpty()) {
-                exitTasks.add(task);
-            }
-        }
-        System.out.println("CPO:   Found " + exitTasks.size() + " exit tasks");
-        
-        // Tính fastest capacity để dùng sau
-        double fastestCapacity = (cache != null) ? cache.getFastestVmCapacity(availableVms) :
-            VmConfig.getVmType(availableVms.get(0)).processingCapacity;
-        
-        // Tìm makespan (thời gian hoàn thành lớn nhất)
-        double makespan = exitTasks.stream()
-            .mapToDouble(task -> {
-                double earliestStart = earliestStartTime.getOrDefault(task, 0.0);
-                Vm vm = schedule.get(task);
-                double execTime;
-                if (vm != null) {
-                    if (cache != null) {
-                        execTime = cache.getExecutionTime(task, vm);
-                    } else {
-                        VmConfig.VmType vmType = VmConfig.getVmType(vm);
-                        double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-                        execTime = task.getComputation() / capacity;
-                    }
-                } else {
-                    execTime = task.getComputation() / fastestCapacity;
-                }
-                return earliestStart + execTime;
-            })
-            .max()
-            .orElse(0.0);
-        
-        // Initialize latest start time cho exit tasks
-        for (Et2faTask task : exitTasks) {
-            Vm vm = schedule.get(task);
-            double execTime;
-            if (vm != null) {
-                if (cache != null) {
-                    execTime = cache.getExecutionTime(task, vm);
-                } else {
-                    VmConfig.VmType vmType = VmConfig.getVmType(vm);
-                    double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-                    execTime = task.getComputation() / capacity;
-                }
+            if (bestTask != null) {
+                incremental.move(bestTask, bestVm);
+                incremental.commit();
+                movedCount++;
             } else {
-                execTime = task.getComputation() / fastestCapacity;
+                // No single move helps: several near-critical chains are (almost) as long as the
+                // critical one, so speed up one task on each of them at once
+                int groupMoves = accelerateNearCriticalChains();
+                if (groupMoves == 0) break;
+                movedCount += groupMoves;
             }
-            latestStartTime.put(task, makespan - execTime);
-        }
-        
-        // Backward pass: Tính latest start time
-        System.out.println("CPO:   Computing latest start times...");
-        List<Et2faTask> reverseOrder = new ArrayList<>(dag.getTasks());
-        Collections.reverse(reverseOrder);
-        
-        int backwardPassCount = 0;
-        int actualNonExitTasks = Math.max(1, reverseOrder.size() - exitTasks.size()); // At least 1 to avoid division by zero
-        int displayedNonExitTasks = actualNonExitTasks;
-        int lastLoggedPercentBackward = -1;
-        
-        // If all tasks are exit tasks, process them all
-        if (exitTasks.size() == dag.getTasks().size()) {
-            System.out.println("CPO:   All tasks are exit tasks, computing latest start times for all...");
-            actualNonExitTasks = dag.getTasks().size();
-            displayedNonExitTasks = displayedTotalTasks;
-        } else {
-            displayedNonExitTasks = displayedTotalTasks - exitTasks.size();
+            makespan = incremental.getMakespan();
         }
         
-        for (Et2faTask task : reverseOrder) {
-            if (exitTasks.contains(task) && exitTasks.size() < dag.getTasks().size()) {
-                continue; // Already set, skip only if not all tasks are exit tasks
-            }
-            
-            backwardPassCount++;
-            // Log progress every 25% (use displayedNonExitTasks for progress calculation)
-            int currentPercent = (backwardPassCount * 100) / Math.max(1, displayedNonExitTasks);
-            if (currentPercent >= lastLoggedPercentBackward + 25 || backwardPassCount == 1 || backwardPassCount == actualNonExitTasks) {
-                System.out.println("CPO:   Progress: " + backwardPassCount + "/" + displayedNonExitTasks + 
-                    " tasks (" + currentPercent + "%)");
-                lastLoggedPercentBackward = currentPercent;
-            }
-            
-            double minLatestStart = Double.MAX_VALUE;
-            List<Et2faTask> successors = dag.getSuccessors(task);
-            
-            // If task has no successors (exit task), skip backward calculation
-            if (successors.isEmpty() && exitTasks.size() < dag.getTasks().size()) {
-                continue;
-            }
-            
-            for (Et2faTask succ : successors) {
-                double succLatestStart = latestStartTime.getOrDefault(succ, makespan);
-                Vm taskVm = schedule.get(task);
-                Vm succVm = schedule.get(succ);
-                
-                double commTime = 0;
-                if (taskVm != null && succVm != null && taskVm != succVm) {
-                    if (cache != null) {
-                        commTime = cache.getCommunicationTime(task, succ, taskVm, succVm, dag);
-                    } else {
-                        double dataSize = dag.getDataTransfer(task, succ);
-                        commTime = VmConfig.calculateCommunicationTime(dataSize, taskVm, succVm);
-                    }
-                }
-                
-                double execTime;
-                if (taskVm != null) {
-                    if (cache != null) {
-                        execTime = cache.getExecutionTime(task, taskVm);
-                    } else {
-                        VmConfig.VmType vmType = VmConfig.getVmType(taskVm);
-                        double capacity = vmType != null ? vmType.processingCapacity : taskVm.getMips();
-                        execTime = task.getComputation() / capacity;
-                    }
-                } else {
-                    execTime = task.getComputation() / fastestCapacity;
+        System.out.println("CPO: [2.2] Critical Path Acceleration");
+        System.out.println("CPO:   Result: " + movedCount + " critical tasks moved in " + rounds + " rounds, makespan "
+            + String.format("%.2f", makespan) + "s (deadline " + String.format("%.2f", deadline) + "s"
+            + (makespan <= deadline + EPSILON ? ", met)" : ", not met)"));
+    }
+    
+    /**
+     * Move one task on each of the longest paths that exceed the deadline (at least the near-critical
+     * ones) to the VM where it gains most, and keep the moves if together they shorten the makespan
+     *
+     * @return number of tasks moved (0 if the moves were rolled back)
+     */
+    private int accelerateNearCriticalChains() {
+        computeKernelOnCurrentAssignment();
+        // Paths of the scheduled DAG start at 0 instead of after the cold startup: compare
+        // them with the deadline shifted by the same offset
+        double offset = incremental.getMakespan() - criticalPathKernel.getLength();
+        double epsilon = Math.max(criticalPathKernel.getLength() + offset - deadline, CRITICAL_SLACK_TOLERANCE);
+        List<NearCriticalPaths.Path> paths = new NearCriticalPaths(criticalPathKernel)
+            .getLongestPaths(NEAR_CRITICAL_PATHS, epsilon);
+        
+        double makespan = incremental.getMakespan();
+        int checkpoint = incremental.checkpoint();
+        Set<Et2faTask> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (NearCriticalPaths.Path path : paths) {
+            Et2faTask bestTask = null;
+            int bestVm = -1;
+            double bestGain = EPSILON;
+            for (Et2faTask task : path.getTasks()) {
+                if (moved.contains(task)) continue;
+                List<Integer> candidates = fasterCandidates(task, true);
+                if (candidates.isEmpty()) continue;
+                double gain = task.getActualFinishTime() - incremental.estimateFinishTime(task, candidates.get(0));
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestTask = task;
+                    bestVm = candidates.get(0);
                 }
-                
-                double requiredLatestStart = succLatestStart - execTime - commTime;
-                minLatestStart = Math.min(minLatestStart, requiredLatestStart);
             }
-            
-            if (minLatestStart < Double.MAX_VALUE) {
-                latestStartTime.put(task, Math.max(0, minLatestStart));
+            if (bestTask != null) {
+                incremental.move(bestTask, bestVm);
+                moved.add(bestTask);
             }
         }
-        
-        // Ensure we processed all non-exit tasks
-        if (backwardPassCount < actualNonExitTasks && actualNonExitTasks > 0) {
-            // Process remaining tasks
-            for (Et2faTask task : reverseOrder) {
-                if (!exitTasks.contains(task) && !latestStartTime.containsKey(task)) {
-                    // Assign default latest start time
-                    latestStartTime.put(task, makespan);
-                    backwardPassCount++;
-                }
-            }
+        if (moved.isEmpty() || incremental.getMakespan() >= makespan - EPSILON) {
+            incremental.rollback(checkpoint);
+            return 0;
         }
-        
-        System.out.println("CPO:   Backward pass completed: " + displayedNonExitTasks + " tasks processed");
-        
-        // Xác định critical path: tasks có earliestStartTime == latestStartTime
-        System.out.println("");
-        System.out.println("CPO: [1.3] Critical Path Identification");
-        System.out.println("CPO:   Analyzing slack times (latestStart - earliestStart)...");
-        int criticalCount = 0;
-        int checkedCount = 0;
-        int lastLoggedPercentCritical = -1;
-        
-        for (Et2faTask task : dag.getTasks()) {
-            checkedCount++;
-            double earliestStart = earliestStartTime.getOrDefault(task, 0.0);
-            double latestStart = latestStartTime.getOrDefault(task, makespan);
-            double slack = latestStart - earliestStart;
-            
-            // Cho phép một chút tolerance do floating point
-            if (Math.abs(earliestStart - latestStart) < 0.001) {
-                criticalPathTasks.add(task);
-                criticalCount++;
-            }
-            
-            // Log progress every 25% (use displayedTotalTasks for progress calculation)
-            int currentPercent = (checkedCount * 100) / displayedTotalTasks;
-            if (currentPercent >= lastLoggedPercentCritical + 25 || checkedCount == actualTotalTasks) {
-                System.out.println("CPO:   Progress: " + checkedCount + "/" + displayedTotalTasks + 
-                    " tasks analyzed, " + criticalCount + " critical found");
-                lastLoggedPercentCritical = currentPercent;
+        incremental.commit();
+        return moved.size();
+    }
+    
+    /**
+     * Forward/backward pass of the kernel on the scheduled DAG of the incremental schedule
+     * (current VM assignment and task order on every VM)
+     */
+    private void computeKernelOnCurrentAssignment() {
+        if (criticalPathKernel == null) {
+            criticalPathKernel = new CriticalPathKernel(dag);
+        }
+        int n = dag.getTaskCount();
+        int[] successorOffsets = dag.getSuccessorOffsets();
+        int[] successorIndices = dag.getSuccessorIndices();
+        double[] transfers = dag.getSuccessorTransfers();
+        double[] durations = new double[n];
+        double[] edgeDelays = new double[successorIndices.length];
+        int[] nextOnVm = new int[n];
+        for (int x = 0; x < n; x++) {
+            Et2faTask task = dag.getTask(x);
+            int vm = incremental.getVmOf(task);
+            VmTaskSequence sequence = incremental.getSequence(vm);
+            int position = sequence.positionOf(task);
+            nextOnVm[x] = position + 1 < sequence.size() ? sequence.get(position + 1).getDagIndex() : -1;
+            durations[x] = incremental.getExecutionTime(task, vm);
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                int succVm = incremental.getVmOf(dag.getTask(successorIndices[e]));
+                edgeDelays[e] = incremental.getCommunicationTime(x, successorIndices[e], transfers[e], vm, succVm);
             }
         }
-        System.out.println("CPO:   Critical path identification completed: " + criticalCount + " critical tasks");
+        criticalPathKernel.compute(durations, edgeDelays, nextOnVm);
     }
     
     /**
-     * Tối ưu hóa các tasks trên critical path
-     * Strategy: Consolidate tasks to fewer VMs to reduce cost and idle time
-     * Chỉ giữ critical tasks trên VM hiện tại nếu cần, consolidate để compact hơn
+     * VMs on which the task would finish earlier than now (estimated without re-timing other
+     * tasks), the configured number of trials per task, earliest first. Only candidate VMs are evaluated: empty
+     * VMs of one class would all give the same finish time and the same trial, so only the
+     * first of them is tried.
+     *
+     * @param idleTimeOnly only VMs with idle time for the task (no task there is delayed)
      */
-    private void optimizeCriticalPathTasks() {
-        System.out.println("CPO: [2.1] Cost-Optimization Strategy");
-        System.out.println("CPO:   Goal: Reduce cost by consolidating tasks, reduce idle rate");
-        System.out.println("CPO:   Method: Keep critical tasks on current VMs, consolidate non-critical to same VMs");
-        
-        // Group tasks by current VM to identify consolidation opportunities
-        Map<Vm, List<Et2faTask>> tasksByVm = new HashMap<>();
-        for (Et2faTask task : criticalPathTasks) {
-            Vm vm = schedule.get(task);
-            if (vm != null) {
-                tasksByVm.computeIfAbsent(vm, k -> new ArrayList<>()).add(task);
+    private List<Integer> fasterCandidates(Et2faTask task, boolean idleTimeOnly) {
+        int currentVm = incremental.getVmOf(task);
+        double currentFinish = task.getActualFinishTime();
+        int trials = optConfig.getCpoTrialsPerTask();
+        List<Integer> candidates = new ArrayList<>();
+        List<Double> finishes = new ArrayList<>();
+        for (int vm = incremental.nextCandidateVm(0); vm >= 0; vm = incremental.nextCandidateVm(vm + 1)) {
+            if (vm == currentVm) continue;
+            double finish = incremental.estimateFinishTime(task, vm);
+            if (finish >= currentFinish - EPSILON) continue;
+            if (idleTimeOnly && !incremental.fitsIdleTime(task, vm)) continue;
+            // Keep the best trials (insertion into a short sorted list)
+            int position = candidates.size();
+            while (position > 0 && finishes.get(position - 1) > finish) position--;
+            if (position >= trials) continue;
+            candidates.add(position, vm);
+            finishes.add(position, finish);
+            if (candidates.size() > trials) {
+                candidates.remove(trials);
+                finishes.remove(trials);
             }
         }
-        
-        System.out.println("CPO:   Current VM distribution: " + tasksByVm.size() + " VMs have critical tasks");
-        
-        // Strategy: Keep critical tasks on their current VMs (don't move to faster/expensive VMs)
-        // Instead, we'll consolidate by keeping tasks on same VMs when possible
-        // This reduces VM count and improves utilization
-        
-        int optimizedCount = 0;
-        List<Et2faTask> criticalPathOrdered = new ArrayList<>(criticalPathTasks);
-        criticalPathOrdered.sort((a, b) -> Integer.compare(
-            a.getTopologicalLevel(), 
-            b.getTopologicalLevel()
-        ));
-        
-        System.out.println("");
-        System.out.println("CPO: [2.2] Consolidation Analysis");
-        System.out.println("CPO:   Strategy: Keep tasks on current VMs to avoid cost increase");
-        System.out.println("CPO:   Result: " + criticalPathOrdered.size() + " critical tasks analyzed, " + optimizedCount + " consolidated");
-        
-        // Note: We're not moving critical tasks to faster VMs anymore
-        // This keeps cost down while maintaining schedule feasibility
+        return candidates;
     }
     
     /**
      * Điều chỉnh các tasks không trên critical path
-     * Có thể chuyển sang VMs chậm hơn để tiết kiệm chi phí
+     * Strategy: consolidate VMs. The least busy VMs are drained by moving their tasks to the other
+     * used VMs (into idle time where possible); a drain is kept if the total cost drops and
+     * the makespan does not grow beyond the makespan after Step 2, so only tasks with enough
+     * slack end up moved. Passes repeat until one neither drains a VM nor trims a lease (each
+     * kept change lowers the cost by more than EPSILON, so they converge), at most
+     * OptimizationConfig.getCpoMaxConsolidationPasses() passes if that is set.
      */
     private void adjustNonCriticalTasks() {
         int nonCriticalCount = dag.getTasks().size() - criticalPathTasks.size();
         System.out.println("CPO: [3.1] Non-Critical Tasks Consolidation");
         System.out.println("CPO:   Analyzing " + nonCriticalCount + " non-critical tasks...");
-        System.out.println("CPO:   Strategy: Move non-critical tasks to VMs already used by critical tasks");
+        System.out.println("CPO:   Strategy: Drain lightly used VMs into VMs that are already used");
         System.out.println("CPO:   Goal: Reduce number of active VMs → reduce cost and idle rate");
         
-        if (nonCriticalCount > 0) {
-            // Find VMs that already have critical tasks (we want to use these)
-            Set<Vm> vmsWithCriticalTasks = new HashSet<>();
-            for (Et2faTask criticalTask : criticalPathTasks) {
-                Vm vm = schedule.get(criticalTask);
-                if (vm != null) {
-                    vmsWithCriticalTasks.add(vm);
+        double makespanLimit = incremental.getMakespan();
+        double initialCost = incremental.getCost();
+        
+        int drainedVms = 0;
+        int trimmedTasks = 0;
+        int maxPasses = optConfig.getCpoMaxConsolidationPasses();
+        for (int pass = 0; maxPasses == 0 || pass < maxPasses; pass++) {
+            int drainedInPass = 0;
+            for (int vm : usedVmsByBusyTime()) {
+                if (incremental.getSequence(vm).isEmpty()) continue;
+                double costBefore = incremental.getCost();
+                int checkpoint = incremental.checkpoint();
+                if (drain(vm) && incremental.getCost() < costBefore - EPSILON
+                        && incremental.getMakespan() <= makespanLimit + EPSILON) {
+                    incremental.commit();
+                    drainedInPass++;
+                } else {
+                    incremental.rollback(checkpoint);
                 }
             }
-            
-            // Sort VMs by cost (cheapest first)
-            List<Vm> sortedVmsByCost = new ArrayList<>(vmsWithCriticalTasks);
-            sortedVmsByCost.sort((a, b) -> {
-                VmConfig.VmType typeA = VmConfig.getVmType(a);
-                VmConfig.VmType typeB = VmConfig.getVmType(b);
-                double costA = typeA != null ? typeA.getCostPerSecond() : 0;
-                double costB = typeB != null ? typeB.getCostPerSecond() : 0;
-                return Double.compare(costA, costB);
-            });
-            
-            // Note: Actual task reassignment is risky (can break deadline)
-            // Instead, cost reduction is handled via cost adjustment factor in Et2faBroker.calculateTotalCost()
-            // This method just logs the analysis for demonstration
-            System.out.println("CPO:   Result: Cost optimization strategy analyzed (cost reduction via consolidation factor applied in cost calculation)");
-        } else {
-            System.out.println("CPO:   All tasks are critical, skipping non-critical analysis");
+            drainedVms += drainedInPass;
+            int trimmedInPass = trimLeases(makespanLimit);
+            trimmedTasks += trimmedInPass;
+            if (drainedInPass == 0 && trimmedInPass == 0) break;
         }
+        
+        System.out.println("CPO:   Result: " + drainedVms + " VMs drained, " + trimmedTasks + " tasks moved off lease ends, cost "
+            + String.format("%.4f", initialCost) + " -> " + String.format("%.4f", incremental.getCost())
+            + ", makespan " + String.format("%.2f", incremental.getMakespan()) + "s");
     }
     
     /**
-     * Tính toán finish time của task trên VM cụ thể
+     * Shorten leases: move the first or last task of a VM into idle time of another used VM,
+     * if that lowers the total cost and keeps the makespan within the limit. Only targets whose
+     * estimated cost (HibernationCostModel, O(log n)) is lower are tried with an exact move.
+     *
+     * @return number of tasks moved
      */
-    private double calculateTaskFinishTime(Et2faTask task, Vm vm) {
-        double startTime = calculateStartTime(task, vm);
-        double execTime;
-        if (cache != null) {
-            execTime = cache.getExecutionTime(task, vm);
-        } else {
-            VmConfig.VmType vmType = VmConfig.getVmType(vm);
-            double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-            execTime = task.getComputation() / capacity;
+    private int trimLeases(double makespanLimit) {
+        int moved = 0;
+        for (int vm : usedVmsByBusyTime()) {
+            VmTaskSequence sequence = incremental.getSequence(vm);
+            if (sequence.size() < 2) continue; // Single tasks are handled by drain()
+            for (Et2faTask task : new Et2faTask[] {sequence.first(), sequence.last()}) {
+                if (incremental.getVmOf(task) != vm) continue;
+                int bestVm = -1;
+                double bestCost = incremental.getCost() - EPSILON;
+                for (int target : idleTimeCandidates(task)) {
+                    if (incremental.estimateMoveCost(task, target) >= bestCost) continue;
+                    int checkpoint = incremental.checkpoint();
+                    incremental.move(task, target);
+                    if (incremental.getCost() < bestCost && incremental.getMakespan() <= makespanLimit + EPSILON) {
+                        bestCost = incremental.getCost();
+                        bestVm = target;
+                    }
+                    incremental.rollback(checkpoint);
+                }
+                if (bestVm >= 0) {
+                    incremental.move(task, bestVm);
+                    incremental.commit();
+                    moved++;
+                }
+            }
         }
-        return startTime + execTime;
+        return moved;
     }
     
     /**
-     * Tính toán start time của task trên VM cụ thể
+     * Other used VMs with idle time for the task (no task there is delayed), the configured
+     * number of trials per task, cheapest first
      */
-    private double calculateStartTime(Et2faTask task, Vm vm) {
-        double vmReadyTime = 55.9; // Cold startup
-        
-        // Tính từ predecessors
-        double maxPredFinishTime = 0;
-        for (Et2faTask pred : task.getPredecessors()) {
-            Vm predVm = schedule.get(pred);
-            if (predVm == null) continue;
-            
-            double predFinishTime = pred.getActualFinishTime();
-            if (predFinishTime <= 0) continue;
-            
-            double commTime = 0;
-            if (predVm != vm) {
-                if (cache != null) {
-                    commTime = cache.getCommunicationTime(pred, task, predVm, vm, dag);
-                } else {
-                    double dataSize = dag.getDataTransfer(pred, task);
-                    commTime = VmConfig.calculateCommunicationTime(dataSize, predVm, vm);
-                }
+    private List<Integer> idleTimeCandidates(Et2faTask task) {
+        int currentVm = incremental.getVmOf(task);
+        List<Integer> candidates = new ArrayList<>();
+        for (int vm = incremental.nextUsedVm(0); vm >= 0; vm = incremental.nextUsedVm(vm + 1)) {
+            if (vm != currentVm && incremental.fitsIdleTime(task, vm)) {
+                candidates.add(vm);
             }
-            
-            maxPredFinishTime = Math.max(maxPredFinishTime, predFinishTime + commTime);
         }
-        
-        return Math.max(vmReadyTime, maxPredFinishTime);
+        candidates.sort(Comparator.comparingDouble(vm -> incremental.getPricePerSecond(vm)
+            * incremental.getExecutionTime(task, vm)));
+        int trials = optConfig.getCpoTrialsPerTask();
+        return candidates.size() > trials ? candidates.subList(0, trials) : candidates;
+    }
+    
+    /** Used VMs, least busy (total execution time) first */
+    private List<Integer> usedVmsByBusyTime() {
+        List<Integer> used = new ArrayList<>();
+        double[] busyTimes = new double[incremental.getVmCount()];
+        for (int vm = incremental.nextUsedVm(0); vm >= 0; vm = incremental.nextUsedVm(vm + 1)) {
+            VmTaskSequence sequence = incremental.getSequence(vm);
+            for (Et2faTask task : sequence.asList()) {
+                busyTimes[vm] += task.getActualFinishTime() - task.getActualStartTime();
+            }
+            used.add(vm);
+        }
+        used.sort(Comparator.comparingDouble(vm -> busyTimes[vm]));
+        return used;
     }
     
     /**
-     * Update start và finish time của task sau khi chuyển VM
+     * Move every task of the VM to another used VM: into idle time if possible (earliest finish),
+     * otherwise to the VM where it finishes earliest
+     *
+     * @return false if there is no other used VM
      */
-    private void updateTaskTimes(Et2faTask task, Vm vm) {
-        double startTime = calculateStartTime(task, vm);
-        double execTime;
-        if (cache != null) {
-            execTime = cache.getExecutionTime(task, vm);
-        } else {
-            VmConfig.VmType vmType = VmConfig.getVmType(vm);
-            double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-            execTime = task.getComputation() / capacity;
+    private boolean drain(int sourceVm) {
+        List<Integer> targets = new ArrayList<>();
+        for (int vm = incremental.nextUsedVm(0); vm >= 0; vm = incremental.nextUsedVm(vm + 1)) {
+            if (vm != sourceVm) targets.add(vm);
         }
-        double finishTime = startTime + execTime;
-        
-        task.setActualStartTime(startTime);
-        task.setActualFinishTime(finishTime);
+        if (targets.isEmpty()) return false;
+        
+        for (Et2faTask task : new ArrayList<>(incremental.getSequence(sourceVm).asList())) {
+            int bestVm = -1;
+            boolean bestFits = false;
+            double bestFinish = Double.MAX_VALUE;
+            for (int vm : targets) {
+                boolean fits = incremental.fitsIdleTime(task, vm);
+                double finish = incremental.estimateFinishTime(task, vm);
+                if ((fits && !bestFits) || (fits == bestFits && finish < bestFinish)) {
+                    bestVm = vm;
+                    bestFits = fits;
+                    bestFinish = finish;
+                }
+            }
+            incremental.move(task, bestVm);
+        }
+        return true;
+    }
+    
+    /**
+     * Deadline of the workflow (seconds, 0 = none): Step 2 accelerates the schedule until it is
+     * met. Step 3 keeps the makespan Step 2 reached, even below the deadline.
+     */
+    public void setDeadline(double deadline) {
+        this.deadline = deadline;
+    }
+    
+    /** Number of tasks moved to another VM by the last optimize() */
+    public int getMovedTaskCount() {
+        return movedTaskCount;
     }
     
     /**
@@ -3,10 +3,14 @@ package vn.et2fa.algorithm;
 import org.cloudbus.cloudsim.vms.Vm;
 import vn.et2fa.model.Et2faTask;
 import vn.et2fa.util.WorkflowDAG;
-import vn.et2fa.util.VmConfig;
 import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.ScheduleSlack;
+import vn.et2fa.util.VmTaskSequence;
+import vn.et2fa.util.VmTimeline;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Delay Operation Based on Block Structure (DOBS) - Phase 2 of ET2FA
@@ -17,12 +21,35 @@ import java.util.*;
  */
 public class DOBSAlgorithm {
     private Map<Et2faTask, Vm> schedule;
-    private Map<Vm, List<Et2faTask>> tasksByVm;
-    private WorkflowDAG dag;
+    private Map<Vm, VmTimeline> timelines;
+    private ScheduleSlack slack;
     private OptimizationConfig optConfig;
+    private ForkJoinPool pool; // Parallel block analysis (null = sequential)
+    
+    // Smallest delay worth applying (avoids endless tiny delays) and gap still counted as "no idle"
+    private static final double MIN_DELAY = 0.1;
+    private static final double BLOCK_GAP_TOLERANCE = 0.001;
+    
+    // Rounds with fewer VMs to analyze are run sequentially (not worth the fork/join overhead)
+    private static final int MIN_PARALLEL_VMS = 8;
+    
+    /**
+     * Delay Δt of the tasks at positions [start, end) of a VM's task sequence
+     */
+    private static final class BlockDelay {
+        final int start;
+        final int end;
+        final double delay;
+        
+        BlockDelay(int start, int end, double delay) {
+            this.start = start;
+            this.end = end;
+            this.delay = delay;
+        }
+    }
     
     public DOBSAlgorithm(Map<Et2faTask, Vm> schedule) {
-        this(schedule, null, new OptimizationConfig("optimized"));
+        this(schedule, (WorkflowDAG) null, new OptimizationConfig("optimized"));
     }
     
     public DOBSAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag) {
@@ -30,281 +57,302 @@ public class DOBSAlgorithm {
     }
     
     public DOBSAlgorithm(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, OptimizationConfig optConfig) {
+        this(schedule, new ScheduleSlack(schedule, dag), optConfig);
+    }
+    
+    /**
+     * @param slack slack engine of this schedule, shared with the later phases; DOBS moves
+     *              tasks through it so it stays up to date
+     */
+    public DOBSAlgorithm(Map<Et2faTask, Vm> schedule, ScheduleSlack slack, OptimizationConfig optConfig) {
         this.schedule = schedule;
-        this.dag = dag;
+        this.slack = slack;
         this.optConfig = optConfig;
-        this.tasksByVm = new HashMap<>();
-        
-        // Group tasks by VM
-        for (Map.Entry<Et2faTask, Vm> entry : schedule.entrySet()) {
-            tasksByVm.computeIfAbsent(entry.getValue(), k -> new ArrayList<>())
-                .add(entry.getKey());
-        }
         
-        // Sort tasks by start time on each VM
-        for (List<Et2faTask> tasks : tasksByVm.values()) {
-            tasks.sort(Comparator.comparingDouble(Et2faTask::getActualStartTime));
+        // Tasks grouped by VM, sorted by start time, with their busy intervals on primitive arrays
+        this.timelines = slack.getTimelines();
+        if (optConfig.isUseParallelDOBS()) {
+            this.pool = ForkJoinPool.commonPool();
         }
     }
 
     /**
      * Main DOBS algorithm (Algorithm 3 from paper)
-     * Added iteration limit to prevent infinite loops
+     * Delays blocks until no block on any VM can be delayed any more (fixed point).
+     * A block is delayed at most up to the next task on its VM and the last block of a VM never
+     * moves, so every task has an upper bound and, with a minimum delay step, this terminates.
      */
     public void optimize() {
-        boolean changed = true;
-        // Optimized max iterations based on task count to prevent long execution times
-        // For large workflows (1000+ tasks), limit iterations more aggressively
         int totalTasks = schedule.size();
-        int maxIterations;
-        if (totalTasks < 100) {
-            maxIterations = 100;
-        } else if (totalTasks < 500) {
-            maxIterations = 30;
+        System.out.println("DOBS: Starting optimization for " + totalTasks + " tasks on " + timelines.size() + " VMs");
+        System.out.println("DOBS: Analyzing schedule for block structures...");
+        
+        int totalDelays;
+        if (pool != null) {
+            totalDelays = optimizeInParallel();
+        } else if (optConfig.isUseOptimizedDOBS()) {
+            totalDelays = optimizeWithWorklist();
         } else {
-            maxIterations = 10; // For 1000+ tasks, limit to 10 iterations to prevent hanging
+            totalDelays = optimizeByRescanning();
         }
-        int iteration = 0;
+        
+        System.out.println("DOBS: Reached fixed point, total delays: " + totalDelays);
+    }
+
+    /**
+     * Worklist-driven DOBS: a VM is re-examined only when the slack or idle time of one of
+     * its blocks may have changed, i.e. after a delay on the VM itself or on a VM hosting a
+     * successor of one of its tasks (Eq. 24 depends on successors' start times).
+     *
+     * The worklist is worked off in passes over the VMs in id order, like the rescanning loop:
+     * an affected VM after the current one is visited in the same pass, any other in the next
+     * one. The rescanning loop finds nothing on the VMs this skips, so both apply the same
+     * delays in the same order and reach the same fixed point (delays that close a gap merge
+     * blocks, so the fixed point depends on the order).
+     */
+    private int optimizeWithWorklist() {
+        List<Vm> vms = sortedVms();
+        Map<Vm, Integer> positions = positions(vms);
+        BitSet pass = new BitSet(vms.size());
+        pass.set(0, vms.size());
         int totalDelays = 0;
+        int visits = 0;
         
-        System.out.println("DOBS: Starting optimization with max " + maxIterations + " iterations for " + totalTasks + " tasks");
-        System.out.println("DOBS: Analyzing schedule for block structures...");
+        while (!pass.isEmpty()) {
+            BitSet nextPass = new BitSet(vms.size());
+            for (int p = pass.nextSetBit(0); p >= 0; p = pass.nextSetBit(p + 1)) {
+                visits++;
+                Set<Vm> affectedVms = Collections.newSetFromMap(new IdentityHashMap<>());
+                int delays = delayBlocks(vms.get(p), affectedVms);
+                totalDelays += delays;
+                enqueue(affectedVms, positions, p, pass, nextPass);
+            }
+            pass = nextPass;
+        }
         
-        // OPTIMIZED: Early termination - if no delays found in consecutive iterations, stop early
-        int consecutiveNoChangeIterations = 0;
-        final int MAX_CONSECUTIVE_NO_CHANGE = optConfig.isUseEarlyTermination() ? 3 : Integer.MAX_VALUE; // Stop if no changes for 3 consecutive iterations
+        System.out.println("DOBS: Worklist processed " + visits + " VM visits");
+        return totalDelays;
+    }
+
+    /**
+     * Parallel DOBS in passes like the worklist: the blocks of all VMs of a pass are analyzed
+     * concurrently on the schedule at the start of the pass, then the VMs are committed in id
+     * order. A VM affected by a commit earlier in the same pass is analyzed again before its
+     * own commit (sequentially, on the current schedule), so every commit is the one the
+     * worklist makes and the result equals it, independently of thread scheduling.
+     *
+     * Delays only move tasks later, which can only loosen the Eq. 24 bounds of their
+     * predecessors on other VMs, so most analyses of a pass stay valid: only those VMs (and the
+     * VMs that were changed) are analyzed again.
+     */
+    private int optimizeInParallel() {
+        List<Vm> vms = sortedVms();
+        Map<Vm, Integer> positions = positions(vms);
+        BitSet pass = new BitSet(vms.size());
+        pass.set(0, vms.size());
+        int totalDelays = 0;
+        int passes = 0;
+        int visits = 0;
+        int reanalyzed = 0;
         
-        while (changed && iteration < maxIterations) {
-            changed = false;
-            iteration++;
-            boolean foundDelayThisIteration = false;
-            
-            if (iteration == 1) {
-                System.out.println("DOBS: Iteration " + iteration + " - Scanning for delayable blocks...");
+        while (!pass.isEmpty()) {
+            passes++;
+            List<Vm> analyzed = new ArrayList<>();
+            for (int p = pass.nextSetBit(0); p >= 0; p = pass.nextSetBit(p + 1)) {
+                analyzed.add(vms.get(p));
             }
-            
-            // Create a copy of VM set to avoid concurrent modification
-            List<Vm> vmList = new ArrayList<>(tasksByVm.keySet());
-            
-            // OPTIMIZED: For large workflows, limit number of VMs processed per iteration
-            int maxVmsToProcess = (optConfig.isUseOptimizedDOBS() && totalTasks >= 1000) ? 3 : vmList.size();
-            
-            for (int vmIdx = 0; vmIdx < Math.min(maxVmsToProcess, vmList.size()); vmIdx++) {
-                Vm vm = vmList.get(vmIdx);
-                List<Et2faTask> tasks = tasksByVm.get(vm);
-                if (tasks.isEmpty()) continue;
-                
-                // For large workflows, limit block structure search
-                if (optConfig.isUseOptimizedDOBS() && tasks.size() > 200) {
-                    // Only process first 100 tasks on this VM
-                    tasks = new ArrayList<>(tasks.subList(0, Math.min(100, tasks.size())));
-                }
-                
-                // Find first block structure
-                if (iteration == 1 && vmIdx == 0) {
-                    System.out.println("DOBS: Examining VM " + vm.getId() + " for block structures...");
-                }
-                List<Et2faTask> block = findFirstBlockStructure(vm);
-                if (block == null || block.isEmpty()) {
-                    if (iteration == 1 && vmIdx == 0) {
-                        System.out.println("DOBS: No block structures found on VM " + vm.getId());
-                    }
-                    continue;
-                }
-                
-                if (iteration == 1 && vmIdx == 0) {
-                    System.out.println("DOBS: Found block structure with " + block.size() + " tasks on VM " + vm.getId());
-                }
-                
-                // Limit block size for large workflows
-                if (optConfig.isUseOptimizedDOBS() && block.size() > 50) {
-                    block = block.subList(0, Math.min(50, block.size())); // Only process first 50 tasks in block
-                }
-                
-                // Calculate estimated latest finish times
-                Map<Et2faTask, Double> estimatedLatestFinishTimes = 
-                    calculateEstimatedLatestFinishTimes(block);
-                
-                // Check if block can be delayed (Theorem 1 condition)
-                // Condition: ∀x in X, t_x^F > t_x^S (estimated latest finish time > actual start time)
-                boolean canDelay = true;
-                for (Et2faTask task : block) {
-                    double estimatedLatest = estimatedLatestFinishTimes.get(task);
-                    // If estimated latest finish time is less than or equal to start time, cannot delay
-                    // Also check if estimated latest is at least greater than current finish time
-                    if (estimatedLatest != Double.MAX_VALUE) {
-                        if (estimatedLatest <= task.getActualStartTime() || estimatedLatest <= task.getActualFinishTime()) {
-                            canDelay = false;
-                            break;
-                        }
-                    }
-                    // If estimatedLatest is Double.MAX_VALUE, task can be delayed (no external constraints)
-                }
-                
-                if (canDelay) {
-                    // Calculate delay time Δt
-                    double delayTime = calculateDelayTime(block, estimatedLatestFinishTimes);
-                    
-                    // Increased tolerance to avoid infinite small delays
-                    // Also check if delayTime is reasonable (not too large)
-                    if (delayTime > 0.1 && delayTime < 100000) { // Reasonable delay range
-                        // Apply delay to all tasks in block
-                        for (Et2faTask task : block) {
-                            task.setActualStartTime(task.getActualStartTime() + delayTime);
-                            task.setActualFinishTime(task.getActualFinishTime() + delayTime);
-                        }
-                        
-                        // Update subsequent tasks on the same VM if needed
-                        updateSubsequentTasks(vm, block);
-                        changed = true;
-                        totalDelays++;
-                        foundDelayThisIteration = true;
-                        consecutiveNoChangeIterations = 0; // Reset counter
-                        break; // Only process one block per iteration to avoid complexity
-                    }
-                }
+            List<List<BlockDelay>> proposals = analyzeAll(analyzed);
+            Map<Vm, List<BlockDelay>> proposalByVm = new IdentityHashMap<>();
+            for (int i = 0; i < analyzed.size(); i++) {
+                proposalByVm.put(analyzed.get(i), proposals.get(i));
             }
             
-            // OPTIMIZED: Early termination check
-            if (!foundDelayThisIteration) {
-                consecutiveNoChangeIterations++;
-                if (consecutiveNoChangeIterations >= MAX_CONSECUTIVE_NO_CHANGE) {
-                    System.out.println("DOBS: Early termination - no delays found in " + MAX_CONSECUTIVE_NO_CHANGE + " consecutive iterations");
-                    break;
+            BitSet stale = new BitSet(vms.size()); // Changed since the analysis at the start of the pass
+            BitSet nextPass = new BitSet(vms.size());
+            for (int p = pass.nextSetBit(0); p >= 0; p = pass.nextSetBit(p + 1)) {
+                visits++;
+                Vm vm = vms.get(p);
+                List<BlockDelay> delays = proposalByVm.get(vm);
+                if (delays == null || stale.get(p)) {
+                    delays = analyzeBlocks(vm);
+                    reanalyzed++;
                 }
+                Set<Vm> affectedVms = Collections.newSetFromMap(new IdentityHashMap<>());
+                totalDelays += commitDelays(vm, delays, affectedVms);
+                for (Vm affected : affectedVms) {
+                    Integer position = positions.get(affected);
+                    if (position != null) stale.set(position);
+                }
+                enqueue(affectedVms, positions, p, pass, nextPass);
             }
-            
-            // Progress indicator for large workflows
-            if (iteration % 10 == 0 && iteration < maxIterations) {
-                System.out.println("DOBS: Iteration " + iteration + ", delays applied: " + totalDelays);
-            }
+            pass = nextPass;
         }
         
-        if (iteration >= maxIterations) {
-            System.out.println("DOBS: Reached maximum iterations (" + maxIterations + "), total delays: " + totalDelays);
+        System.out.println("DOBS: Parallel analysis completed in " + passes + " passes, " + visits
+            + " VM visits (" + reanalyzed + " analyzed again)");
+        return totalDelays;
+    }
+
+    private List<List<BlockDelay>> analyzeAll(List<Vm> vms) {
+        List<List<BlockDelay>> proposals = new ArrayList<>(Collections.nCopies(vms.size(), null));
+        if (vms.size() < MIN_PARALLEL_VMS) {
+            for (int i = 0; i < vms.size(); i++) {
+                proposals.set(i, analyzeBlocks(vms.get(i)));
+            }
         } else {
-            System.out.println("DOBS: Completed in " + iteration + " iterations, total delays: " + totalDelays);
+            pool.submit(() -> IntStream.range(0, vms.size()).parallel()
+                .forEach(i -> proposals.set(i, analyzeBlocks(vms.get(i))))).join();
+        }
+        return proposals;
+    }
+
+    /** Position of each VM in the id order */
+    private static Map<Vm, Integer> positions(List<Vm> vms) {
+        Map<Vm, Integer> positions = new IdentityHashMap<>();
+        for (int p = 0; p < vms.size(); p++) {
+            positions.put(vms.get(p), p);
         }
+        return positions;
     }
 
     /**
-     * Find first block structure on a VM
-     * Block structure: tasks continuously executed without idle intervals
+     * Queue the VMs affected by the delays on the VM at position current: in this pass if they
+     * come after it, otherwise in the next pass
      */
-    private List<Et2faTask> findFirstBlockStructure(Vm vm) {
-        List<Et2faTask> tasks = tasksByVm.get(vm);
-        if (tasks.isEmpty()) return null;
-        
-        List<Et2faTask> block = new ArrayList<>();
-        block.add(tasks.get(0));
+    private static void enqueue(Set<Vm> affectedVms, Map<Vm, Integer> positions, int current, BitSet pass,
+            BitSet nextPass) {
+        for (Vm affected : affectedVms) {
+            Integer position = positions.get(affected);
+            if (position == null) continue;
+            if (position > current) {
+                pass.set(position);
+            } else {
+                nextPass.set(position);
+            }
+        }
+    }
+
+    /**
+     * Original DOBS loop: examine every VM again until a full pass applies no delay
+     */
+    private int optimizeByRescanning() {
+        List<Vm> vms = sortedVms();
+        int totalDelays = 0;
+        int passes = 0;
+        boolean changed = true;
         
-        for (int i = 1; i < tasks.size(); i++) {
-            Et2faTask prev = tasks.get(i - 1);
-            Et2faTask curr = tasks.get(i);
-            
-            // Check if there's an idle gap
-            double gap = curr.getActualStartTime() - prev.getActualFinishTime();
-            if (gap > 0.001) { // Small tolerance for floating point
-                break;
+        while (changed) {
+            changed = false;
+            passes++;
+            for (Vm vm : vms) {
+                int delays = delayBlocks(vm, null);
+                if (delays > 0) {
+                    totalDelays += delays;
+                    changed = true;
+                }
             }
-            
-            block.add(curr);
         }
         
-        return block;
+        System.out.println("DOBS: Completed in " + passes + " passes");
+        return totalDelays;
+    }
+
+    private List<Vm> sortedVms() {
+        List<Vm> vms = new ArrayList<>(timelines.keySet());
+        vms.sort(Comparator.comparingLong(Vm::getId));
+        return vms;
     }
 
     /**
-     * Calculate estimated latest finish time for each task in block (Equation 24)
-     * t_x^F = min{t_y^S - C_{x,y}^T | y in (Suc(x) - Suc(x) ∩ X)}
-     * where C_{x,y}^T is communication time from x to y
+     * Delay every block on a VM that satisfies Theorem 1
+     *
+     * @param affectedVms if not null, receives the VMs whose blocks may now be delayable
+     *                    (this VM and the VMs of the delayed tasks' predecessors)
+     * @return number of delayed blocks
      */
-    private Map<Et2faTask, Double> calculateEstimatedLatestFinishTimes(List<Et2faTask> block) {
-        Map<Et2faTask, Double> estimatedTimes = new HashMap<>();
-        Set<Et2faTask> blockSet = new HashSet<>(block);
-        
-        // Limit number of successors checked for large blocks
-        int maxSuccessorsToCheck = block.size() > 20 ? 10 : Integer.MAX_VALUE;
+    private int delayBlocks(Vm vm, Set<Vm> affectedVms) {
+        return commitDelays(vm, analyzeBlocks(vm), affectedVms);
+    }
+
+    /**
+     * Examine the block structures on a VM, from the last to the first, and find the delay of
+     * each one that satisfies Theorem 1. The last block is followed by no idle interval to close
+     * (t_{|X|+1}^S in Eq. 25 does not exist), so it is left in place. Going backwards, the idle
+     * time the delay of a block leaves in front of it is immediately available to the block
+     * before it.
+     *
+     * Only reads the schedule (and the successor bounds of this VM's tasks), so different VMs
+     * can be analyzed concurrently.
+     */
+    private List<BlockDelay> analyzeBlocks(Vm vm) {
+        VmTimeline timeline = timelines.get(vm);
+        List<BlockDelay> delays = new ArrayList<>();
+        int end = timeline.isEmpty() ? 0 : timeline.blockStart(timeline.size() - 1, BLOCK_GAP_TOLERANCE); // Skip the last block
+        double nextBlockDelay = 0; // Delay found for the block starting at end (not applied yet)
         
-        for (Et2faTask task : block) {
-            List<Et2faTask> successors = task.getSuccessors();
+        while (end > 0) {
+            int start = timeline.blockStart(end - 1, BLOCK_GAP_TOLERANCE);
             
-            // If no successors, estimated latest finish time is current finish time
-            if (successors.isEmpty()) {
-                estimatedTimes.put(task, Double.MAX_VALUE); // Can be delayed indefinitely
-                continue;
-            }
+            // Calculate delay time Δt (Equation 25); positive only if Theorem 1 condition holds:
+            // ∀x in X, t_x^F (estimated latest finish time) > actual finish time
+            double delayTime = calculateDelayTime(timeline, start, end, nextBlockDelay);
             
-            double minStartTime = Double.MAX_VALUE;
-            int checkedCount = 0;
-            for (Et2faTask succ : successors) {
-                // Limit successors checked for performance
-                if (checkedCount >= maxSuccessorsToCheck) {
-                    break;
-                }
-                
-                // Skip successors in the same block (Suc(x) ∩ X)
-                if (blockSet.contains(succ)) {
-                    continue;
-                }
-                
-                checkedCount++;
-                
-                // Calculate communication time C_{x,y}^T
-                Vm taskVm = schedule.get(task);
-                Vm succVm = schedule.get(succ);
-                double commTime = 0;
-                if (taskVm != null && succVm != null && taskVm != succVm && dag != null) {
-                    double dataSize = dag.getDataTransfer(task, succ); // Data size in MB
-                    commTime = VmConfig.calculateCommunicationTime(dataSize, taskVm, succVm);
-                }
-                
-                // t_y^S - C_{x,y}^T
-                double succStartTime = succ.getActualStartTime();
-                double estimatedFinish = succStartTime - commTime;
-                minStartTime = Math.min(minStartTime, estimatedFinish);
+            // Tolerance avoids endless tiny delays
+            if (delayTime > MIN_DELAY) {
+                delays.add(new BlockDelay(start, end, delayTime));
+                nextBlockDelay = delayTime;
+            } else {
+                nextBlockDelay = 0;
             }
+            end = start;
+        }
+        return delays;
+    }
+
+    /**
+     * Apply the delays found by analyzeBlocks
+     *
+     * @return number of delayed blocks
+     */
+    private int commitDelays(Vm vm, List<BlockDelay> delays, Set<Vm> affectedVms) {
+        VmTaskSequence tasks = timelines.get(vm).getSequence();
+        for (BlockDelay delay : delays) {
+            slack.shiftRight(vm, delay.start, delay.end, delay.delay);
             
-            if (minStartTime < Double.MAX_VALUE) {
-                estimatedTimes.put(task, minStartTime);
-            } else {
-                // No external successors, can be delayed indefinitely
-                estimatedTimes.put(task, Double.MAX_VALUE);
+            if (affectedVms != null) {
+                affectedVms.add(vm);
+                for (int i = delay.start; i < delay.end; i++) {
+                    for (Et2faTask pred : tasks.get(i).getPredecessors()) {
+                        Vm predVm = schedule.get(pred);
+                        if (predVm != null) affectedVms.add(predVm);
+                    }
+                }
             }
         }
-        
-        return estimatedTimes;
+        return delays.size();
     }
 
     /**
      * Calculate delay time (Equation 25)
-     * Δt = min{t_{|X|+1}^S - t_{|X|}^F, min{t_x^F - t_x^S | x in X}}
+     * Δt = min{t_{|X|+1}^S - t_{|X|}^F, min{t_x^F - T_x^F | x in X}}
+     * where t_x^F is the estimated latest finish time and T_x^F the actual finish time
+     * and nextBlockDelay the delay already found (not yet applied) for the next block
+     *
+     * t_x^F (Equation 24) = min{t_y^S - C_{x,y}^T | y in (Suc(x) - Suc(x) ∩ X)} comes from the slack
+     * engine, which only considers successors on other VMs: a successor y on this VM but outside
+     * X starts after t_{|X|+1}^S, so its term never undercuts the idle time after the block.
      */
-    private double calculateDelayTime(List<Et2faTask> block, 
-                                       Map<Et2faTask, Double> estimatedLatestFinishTimes) {
-        Vm vm = schedule.get(block.get(0));
-        List<Et2faTask> allTasks = tasksByVm.get(vm);
+    private double calculateDelayTime(VmTimeline timeline, int start, int end, double nextBlockDelay) {
+        VmTaskSequence tasks = timeline.getSequence();
+        // Idle time after block: t_{|X|+1}^S - t_{|X|}^F, with the pending delay of the next block
+        double idleTime = timeline.getIdleAfter(end - 1) + nextBlockDelay;
         
-        // Find idle time after block: t_{|X|+1}^S - t_{|X|}^F
-        double idleTime = Double.MAX_VALUE;
-        Et2faTask lastInBlock = block.get(block.size() - 1);
-        int lastIndex = allTasks.indexOf(lastInBlock);
-        
-        if (lastIndex >= 0 && lastIndex < allTasks.size() - 1) {
-            Et2faTask nextTask = allTasks.get(lastIndex + 1);
-            idleTime = nextTask.getActualStartTime() - lastInBlock.getActualFinishTime();
-        }
-        
-        // Find minimum slack time: min{t_x^F - t_x^S | x in X}
-        // where t_x^F is estimated latest finish time
+        // Minimum slack: min{t_x^F - T_x^F | x in X}
         double minSlack = Double.MAX_VALUE;
-        for (Et2faTask task : block) {
-            double estimatedLatest = estimatedLatestFinishTimes.get(task);
+        for (int i = start; i < end; i++) {
+            double estimatedLatest = slack.getSuccessorBound(tasks.get(i));
             if (estimatedLatest < Double.MAX_VALUE) {
-                double slack = estimatedLatest - task.getActualStartTime();
-                if (slack > 0) {
-                    minSlack = Math.min(minSlack, slack);
-                }
+                minSlack = Math.min(minSlack, estimatedLatest - timeline.getFinish(i));
             }
         }
         
@@ -314,43 +362,4 @@ public class DOBSAlgorithm {
         // Only return positive delay time
         return delayTime > 0 ? delayTime : 0;
     }
-
-    /**
-     * Update subsequent tasks on the same VM after delaying a block
-     * This ensures that tasks after the block are properly shifted if needed
-     */
-    private void updateSubsequentTasks(Vm vm, List<Et2faTask> delayedBlock) {
-        List<Et2faTask> tasks = tasksByVm.get(vm);
-        if (tasks.isEmpty()) return;
-        
-        Et2faTask lastInBlock = delayedBlock.get(delayedBlock.size() - 1);
-        int lastIndex = tasks.indexOf(lastInBlock);
-        
-        if (lastIndex < 0 || lastIndex >= tasks.size() - 1) {
-            return; // No subsequent tasks
-        }
-        
-        // Check if we need to shift subsequent tasks
-        // Only shift if there's an overlap
-        for (int i = lastIndex + 1; i < tasks.size(); i++) {
-            Et2faTask currentTask = tasks.get(i);
-            Et2faTask prevTask = tasks.get(i - 1);
-            
-            // If current task starts before previous task finishes, adjust it
-            if (currentTask.getActualStartTime() < prevTask.getActualFinishTime()) {
-                // Shift task to start after previous task finishes
-                double newStartTime = prevTask.getActualFinishTime();
-                double executionTime = currentTask.getActualFinishTime() - currentTask.getActualStartTime();
-                currentTask.setActualStartTime(newStartTime);
-                currentTask.setActualFinishTime(newStartTime + executionTime);
-            } else {
-                // No overlap, no need to shift further tasks
-                break;
-            }
-        }
-    }
 }
-
-
-
-
@@ -2,6 +2,10 @@ package vn.et2fa.algorithm;
 
 import org.cloudbus.cloudsim.vms.Vm;
 import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.HibernationCostModel;
+import vn.et2fa.util.ScheduleSlack;
+import vn.et2fa.util.VmTaskSequence;
+import vn.et2fa.util.VmTimeline;
 
 import java.util.*;
 
@@ -13,14 +17,14 @@ import java.util.*;
  */
 public class IHSHAlgorithm {
     private Map<Et2faTask, Vm> schedule;
-    private Map<Vm, List<Et2faTask>> tasksByVm;
+    private Map<Vm, VmTimeline> timelines;
     
-    // Hibernation parameters
-    private static final double DUR_H = 60.0; // Shortest duration of hibernation (seconds)
-    private static final double GAP_H = 120.0; // Minimum gap between two adjacent hibernations (seconds)
-    private static final double DUR_W = 34.0; // Warm startup time (seconds)
+    // Hibernation parameters (shared with the what-if cost model)
+    private static final double DUR_H = HibernationCostModel.DUR_H; // Shortest duration of hibernation (seconds)
+    private static final double GAP_H = HibernationCostModel.GAP_H; // Minimum gap between two adjacent hibernations (seconds)
+    private static final double DUR_W = HibernationCostModel.DUR_W; // Warm startup time (seconds)
     private static final double DUR_P = 5.6; // Stopping time (seconds)
-    private static final double M_H = 0.005 / 3600.0; // ElasticIP cost per second ($/h -> $/s)
+    private static final double M_H = HibernationCostModel.M_H; // ElasticIP cost per second ($/h -> $/s)
     
     // Hibernation schedule: VM -> List of (start time, end time) pairs
     private Map<Vm, List<HibernationPeriod>> hibernationSchedule;
@@ -37,58 +41,59 @@ public class IHSHAlgorithm {
     
     public IHSHAlgorithm(Map<Et2faTask, Vm> schedule) {
         this.schedule = schedule;
-        this.tasksByVm = new HashMap<>();
         this.hibernationSchedule = new HashMap<>();
         
-        // Group tasks by VM
-        for (Map.Entry<Et2faTask, Vm> entry : schedule.entrySet()) {
-            tasksByVm.computeIfAbsent(entry.getValue(), k -> new ArrayList<>())
-                .add(entry.getKey());
-        }
-        
-        // Sort tasks by start time on each VM
-        for (List<Et2faTask> tasks : tasksByVm.values()) {
-            tasks.sort(Comparator.comparingDouble(Et2faTask::getActualStartTime));
-        }
+        // Group tasks by VM, sorted by start time, with busy-time prefix sums
+        this.timelines = VmTimeline.forSequences(VmTaskSequence.groupByVm(schedule));
+    }
+    
+    /**
+     * Reuse the per-VM timelines of the slack engine shared with DOBS
+     * (the schedule must not have been re-ordered since the engine was built)
+     */
+    public IHSHAlgorithm(Map<Et2faTask, Vm> schedule, ScheduleSlack slack) {
+        this.schedule = schedule;
+        this.hibernationSchedule = new HashMap<>();
+        this.timelines = slack.getTimelines();
     }
 
     /**
      * Main IHSH algorithm (Algorithm 4 from paper)
      */
     public Map<Vm, List<HibernationPeriod>> scheduleHibernations() {
-        for (Vm vm : tasksByVm.keySet()) {
-            List<Et2faTask> tasks = tasksByVm.get(vm);
-            if (tasks.isEmpty()) continue;
+        for (Vm vm : timelines.keySet()) {
+            VmTimeline timeline = timelines.get(vm);
+            if (timeline.isEmpty()) continue;
             
             List<HibernationPeriod> hibernations = new ArrayList<>();
             double tempT = 0; // Last hibernation end time (tempT in Algorithm 4)
             int j = 1;
             
-            // Check gaps between consecutive tasks (Algorithm 4 lines 3-11)
-            for (int k = 0; k < tasks.size() - 1; k++) {
-                Et2faTask p = tasks.get(k); // Current task (p in Algorithm 4)
-                Et2faTask s = tasks.get(k + 1); // Next task (s in Algorithm 4)
-                
-                double gap = s.getActualStartTime() - p.getActualFinishTime();
-                double timeSinceLastHibernation = p.getActualFinishTime() - tempT;
+            // Check gaps between consecutive tasks p = k and s = k + 1 (Algorithm 4 lines 3-11)
+            for (int k = 0; k < timeline.size() - 1; k++) {
+                double gap = timeline.getIdleAfter(k);
+                double timeSinceLastHibernation = timeline.getFinish(k) - tempT;
                 
                 // Check hibernation requirements (Algorithm 4 line 5):
                 // gap > Dur^H AND timeSinceLastHibernation > Gap^H
                 if (gap > DUR_H && timeSinceLastHibernation > GAP_H) {
                     // Set hibernation start and end times
-                    double hibernateStart = p.getActualFinishTime(); // t_{h,j}^S
-                    double hibernateEnd = s.getActualStartTime(); // t_{h,j}^E
+                    double hibernateStart = timeline.getFinish(k); // t_{h,j}^S
+                    double hibernateEnd = timeline.getStart(k + 1); // t_{h,j}^E
                     
                     // Hibernate start event: t_{h,j}^{HS} = t_p^F - Dur^W
                     // Hibernate end event: t_{h,j}^{HE} = t_s^S
                     // Note: The hibernation period itself is from start to end
                     hibernations.add(new HibernationPeriod(hibernateStart, hibernateEnd));
-                    tempT = s.getActualStartTime(); // Update tempT
+                    tempT = hibernateEnd; // Update tempT
                     j++;
                 }
             }
             
             hibernationSchedule.put(vm, hibernations);
+            timeline.setHibernations(
+                hibernations.stream().mapToDouble(h -> h.startTime).toArray(),
+                hibernations.stream().mapToDouble(h -> h.endTime).toArray());
         }
         
         return hibernationSchedule;
@@ -100,7 +105,7 @@ public class IHSHAlgorithm {
     public double calculateTotalCost(Map<Vm, VmCostInfo> vmCosts) {
         double totalCost = 0;
         
-        for (Vm vm : tasksByVm.keySet()) {
+        for (Vm vm : timelines.keySet()) {
             VmCostInfo costInfo = vmCosts.get(vm);
             if (costInfo == null) continue;
             
@@ -123,17 +128,14 @@ public class IHSHAlgorithm {
      */
     private double calculateRunningCost(Vm vm, VmCostInfo costInfo) {
         List<HibernationPeriod> hibernations = hibernationSchedule.getOrDefault(vm, new ArrayList<>());
-        List<Et2faTask> tasks = tasksByVm.get(vm);
+        VmTimeline timeline = timelines.get(vm);
         
-        if (tasks.isEmpty()) return 0;
+        if (timeline.isEmpty()) return 0;
         
-        Et2faTask firstTask = tasks.get(0);
-        Et2faTask lastTask = tasks.get(tasks.size() - 1);
-        
-        // Lease start time: T_h^S (including cold startup)
-        double leaseStart = Math.max(0, firstTask.getActualStartTime() - 55.9); // Dur^C = 55.9s
+        // Lease start time: T_h^S (including cold startup Dur^C = 55.9s)
+        double leaseStart = timeline.getLeaseStart();
         // Lease end time: T_h^E
-        double leaseEnd = lastTask.getActualFinishTime();
+        double leaseEnd = timeline.getLeaseEnd();
         
         if (hibernations.isEmpty()) {
             // No hibernations: RC_h = v_h^M * g(T_h^S, T_h^E)
@@ -207,26 +209,21 @@ public class IHSHAlgorithm {
     public double calculateTotalIdleRate(Map<Vm, VmCostInfo> vmCosts) {
         double totalIdleRate = 0;
         
-        for (Vm vm : tasksByVm.keySet()) {
-            List<Et2faTask> tasks = tasksByVm.get(vm);
-            if (tasks.isEmpty()) continue;
-            
-            Et2faTask firstTask = tasks.get(0);
-            Et2faTask lastTask = tasks.get(tasks.size() - 1);
+        for (Vm vm : timelines.keySet()) {
+            VmTimeline timeline = timelines.get(vm);
+            if (timeline.isEmpty()) continue;
             
             // Lease start time: T_h^S (including cold startup)
-            double leaseStart = Math.max(0, firstTask.getActualStartTime() - 55.9);
+            double leaseStart = timeline.getLeaseStart();
             // Lease end time: T_h^E
-            double leaseEnd = lastTask.getActualFinishTime();
+            double leaseEnd = timeline.getLeaseEnd();
             double leaseDuration = leaseEnd - leaseStart;
             
             if (leaseDuration <= 0) continue;
             
             // Calculate total execution time: sum_{i=1}^{N_h} t_i^E
-            // where t_i^E is execution time of task i
-            double totalExecutionTime = tasks.stream()
-                .mapToDouble(t -> t.getActualFinishTime() - t.getActualStartTime())
-                .sum();
+            // where t_i^E is execution time of task i (prefix sum of the timeline)
+            double totalExecutionTime = timeline.getBusyTime();
             
             // Idle rate for this VM: 1 - (totalExecutionTime / leaseDuration)
             // Ensure idle rate is between 0 and 1
@@ -238,6 +235,13 @@ public class IHSHAlgorithm {
         return totalIdleRate;
     }
 
+    /**
+     * Busy/hibernation timelines of the VMs (hibernations are set by scheduleHibernations)
+     */
+    public Map<Vm, VmTimeline> getTimelines() {
+        return timelines;
+    }
+
     /**
      * VM cost information structure
      */
@@ -4,11 +4,17 @@ import org.cloudbus.cloudsim.vms.Vm;
 import vn.et2fa.model.Et2faTask;
 import vn.et2fa.model.TaskType;
 import vn.et2fa.util.WorkflowDAG;
-import vn.et2fa.util.VmConfig;
+import vn.et2fa.util.ExecutionMatrix;
+import vn.et2fa.util.HibernationCostModel;
+import vn.et2fa.util.IdleSlotIndex;
 import vn.et2fa.util.OptimizationCache;
 import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.VmCatalog;
+import vn.et2fa.util.VmReadyTimeIndex;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Task Type First Algorithm (T2FA) - Phase 1 of ET2FA
@@ -17,8 +23,6 @@ import java.util.*;
 public class T2FAAlgorithm {
     private WorkflowDAG dag;
     private List<Vm> availableVms;
-    private Map<Vm, Double> vmCompletionTimes;
-    private Map<Et2faTask, Vm> taskVmMap; // Track which VM each task is assigned to
     private Map<Integer, List<Et2faTask>> tasksByLevel;
     private Set<TaskType> type0Tasks;
     private Set<TaskType> type1Tasks;
@@ -26,33 +30,107 @@ public class T2FAAlgorithm {
     private Set<TaskType> type3Tasks;
     private Set<TaskType> type4Tasks;
     private double tStar; // Expected maximum finish time
-    private Set<Vm> vC; // VMs with running tasks at current level
-    private Set<Vm> vP; // VMs with running tasks at previous level
-    private OptimizationCache cache; // Cache for optimization
     private OptimizationConfig optConfig; // Optimization configuration
+    private VmReadyTimeIndex vmIndex; // Ready-time index for VM selection (null if disabled)
+    private ForkJoinPool pool; // Parallel level evaluation (null = sequential)
+    private IdleSlotIndex idleSlots; // Insertion policy: free intervals of each VM (null = append after last task)
+    private int insertedTaskCount; // Tasks placed into an idle gap (insertion policy)
+    private Random random; // Type order of each level (seeded from the config)
+    
+    // Scheduling state, index-based: a VM is its position in availableVms, a task its DAG index
+    private Map<Vm, Integer> vmPositions; // Position of each VM in availableVms
+    private ExecutionMatrix matrix; // t_i^h and communication times by task and VM class
+    private OptimizationCache cache; // Communication times by edge and VM class pair (null = read the matrix)
+    private boolean evaluatingLevel; // Pool threads read the matrix directly (the cache is not thread-safe)
+    private int[] groupClasses; // Matrix class of each VM index group (null without index)
+    private double[] vmReady; // T_h^k: completion time of each VM
+    private BitSet vC; // VMs with running tasks at current level
+    private BitSet vP; // VMs with running tasks at previous level
+    private BitSet candidateVms; // VMs the full scan evaluates: used VMs and the first unused VM of each class
+    private BitSet[] unusedVmsByClass; // Unused VMs of each matrix class
+    private int[] taskVm; // VM each task is assigned to (-1 = not scheduled)
+    private double[] taskFinishTimes; // T_i^F of each scheduled task
+    private int[] scheduleOrder; // Task indices in scheduling order
+    private int scheduledCount;
+    // Parallel mode, current level (see evaluateLevel)
+    private int[] levelColumnVms; // VMs evaluated up front: candidates and vP at the start of the level
+    private int[] levelColumns; // Column of each VM in levelColumnVms (-1 = not evaluated up front)
+    private double[][] levelDataReadyTimes; // Data-ready time of each task on each column VM
+    private int[] levelPreviousChoices; // Layer 2 choice of each task (vP) at the start of the level
+    private int[] levelScanChoices; // Layer 3 choice of each task (candidates) at the start of the level
+    
+    // Predecessor CSR of the (frozen) DAG
+    private int[] predecessorOffsets;
+    private int[] predecessorIndices;
+    private double[] predecessorTransfers;
+    
+    private static final double COLD_STARTUP_TIME = HibernationCostModel.DUR_C; // Dur^C: VM ready time before its first task
+    
+    // Levels narrower than this are evaluated sequentially (not worth the fork/join overhead)
+    private static final int MIN_PARALLEL_LEVEL_WIDTH = 16;
     
     public T2FAAlgorithm(WorkflowDAG dag, List<Vm> availableVms) {
         this(dag, availableVms, new OptimizationConfig("optimized"));
     }
     
+    /**
+     * VMs get the Table 4 types in pool order (VmCatalog.createDefault)
+     */
     public T2FAAlgorithm(WorkflowDAG dag, List<Vm> availableVms, OptimizationConfig optConfig) {
+        this(dag, VmCatalog.createDefault(availableVms), optConfig, optConfig.isUseCache() ? new OptimizationCache() : null);
+    }
+    
+    /**
+     * @param catalog VM pool with the VM types
+     * @param cache cache shared with the other phases of the run (null for none); the execution
+     *              matrix of the DAG in its current, possibly simplified form is taken from it
+     */
+    public T2FAAlgorithm(WorkflowDAG dag, VmCatalog catalog, OptimizationConfig optConfig, OptimizationCache cache) {
         this.dag = dag;
-        this.availableVms = new ArrayList<>(availableVms);
-        this.vmCompletionTimes = new HashMap<>();
-        this.taskVmMap = new HashMap<>();
+        this.availableVms = new ArrayList<>(catalog.getVms());
         this.type0Tasks = new HashSet<>();
         this.type1Tasks = new HashSet<>();
         this.type2Tasks = new HashSet<>();
         this.type3Tasks = new HashSet<>();
         this.type4Tasks = new HashSet<>();
-        this.vC = new HashSet<>();
-        this.vP = new HashSet<>();
         this.optConfig = optConfig;
-        this.cache = optConfig.isUseCache() ? new OptimizationCache() : null; // Initialize cache only if enabled
+        this.random = new Random(optConfig.getRandomSeed());
         
-        // Initialize VM completion times with cold startup time (DurC = 55.9s)
-        for (Vm vm : availableVms) {
-            vmCompletionTimes.put(vm, 55.9);
+        int vmCount = this.availableVms.size();
+        this.vmPositions = new IdentityHashMap<>();
+        this.matrix = cache != null ? cache.getExecutionMatrix(dag, catalog) : new ExecutionMatrix(dag, catalog);
+        this.cache = cache;
+        this.vmReady = new double[vmCount];
+        this.vC = new BitSet(vmCount);
+        this.vP = new BitSet(vmCount);
+        for (int v = 0; v < vmCount; v++) {
+            Vm vm = this.availableVms.get(v);
+            vmPositions.put(vm, v);
+            // Initialize VM completion times with cold startup time
+            vmReady[v] = COLD_STARTUP_TIME;
+        }
+        this.candidateVms = new BitSet(vmCount);
+        this.unusedVmsByClass = new BitSet[matrix.getClassCount()];
+        for (int v = 0; v < vmCount; v++) {
+            int vmClass = matrix.getClassOf(v);
+            if (unusedVmsByClass[vmClass] == null) {
+                unusedVmsByClass[vmClass] = new BitSet(vmCount);
+                candidateVms.set(v);
+            }
+            unusedVmsByClass[vmClass].set(v);
+        }
+        if (optConfig.isUseInsertionPolicy()) {
+            this.idleSlots = new IdleSlotIndex(vmCount, COLD_STARTUP_TIME);
+        } else if (optConfig.isUseVmIndex() && VmReadyTimeIndex.supports(catalog)) {
+            // The ready-time index assumes tasks are appended after the VM's last task
+            this.vmIndex = new VmReadyTimeIndex(catalog, COLD_STARTUP_TIME);
+            this.groupClasses = new int[vmIndex.getGroupCount()];
+            for (int v = 0; v < vmCount; v++) {
+                groupClasses[vmIndex.getGroupOf(v)] = this.matrix.getClassOf(v);
+            }
+        }
+        if (optConfig.isUseParallelLevels()) {
+            this.pool = ForkJoinPool.commonPool();
         }
     }
 
@@ -61,8 +139,7 @@ public class T2FAAlgorithm {
      */
     public Map<Et2faTask, Vm> schedule() {
         // Pre-processing
-        // Temporarily disable simplifyDAG to preserve all tasks for testing
-        // dag.simplifyDAG();
+        // SOSI simplification (dag.simplifyDAG) is applied by the broker, which expands the merged tasks afterwards
         if (optConfig.isUseBFSTopological()) {
             System.out.println("T2FA: Using BFS-optimized topological level calculation (O(n+m))...");
             dag.calculateTopologicalLevels(); // BFS-optimized
@@ -71,6 +148,7 @@ public class T2FAAlgorithm {
             dag.calculateTopologicalLevelsOriginal(); // Original O(n²) method
         }
         tasksByLevel = dag.getTasksByLevel();
+        initTaskState();
         
         System.out.println("T2FA: Classifying tasks into types (TYPE0-TYPE4, GENERAL)...");
         classifyTaskTypes();
@@ -79,9 +157,12 @@ public class T2FAAlgorithm {
             System.out.println("T2FA: Using optimization cache for performance...");
         }
         
-        // OPTIMIZED: Use cached fastest VM instead of stream operation
-        Vm maxVm = (cache != null) ? cache.getFastestVm(availableVms) : 
-            availableVms.stream().max(Comparator.comparingDouble(vm -> VmConfig.getVmType(vm).processingCapacity)).orElse(availableVms.get(0));
+        // Fastest VM (first one with the highest capacity), from the matrix's per-class capacities
+        int maxVm = 0;
+        for (int v = 1; v < availableVms.size(); v++) {
+            if (matrix.getCapacity(v) > matrix.getCapacity(maxVm)) maxVm = v;
+        }
+        double maxCapacity = matrix.getCapacity(maxVm);
         
         // Initialize tStar based on maximum computation and fastest VM
         // Equation: f* = max{w_i, e_i, a_i} / U(k) where U(k) is processing capacity
@@ -91,18 +172,12 @@ public class T2FAAlgorithm {
                 .mapToDouble(Et2faTask::getComputation)
                 .max()
                 .orElse(0);
-            // OPTIMIZED: Use cached VM capacity
-            double processingCapacity = (cache != null) ? cache.getFastestVmCapacity(availableVms) :
-                VmConfig.getVmType(maxVm).processingCapacity;
-            tStar = maxComputation / processingCapacity;
-            if (!vC.contains(maxVm)) {
-                vC.add(maxVm);
-            }
+            tStar = maxComputation / maxCapacity;
+            vC.set(maxVm);
         } else {
             tStar = 0;
         }
         
-        Map<Et2faTask, Vm> schedule = new HashMap<>();
         int maxLevel = tasksByLevel.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
         
         System.out.println("T2FA: Scheduling " + dag.getTasks().size() + " tasks across " + (maxLevel + 1) + " topological levels...");
@@ -126,11 +201,8 @@ public class T2FAAlgorithm {
                 for (Et2faTask t : dag.getTasks()) {
                     double estFinish = t.getEstimatedFinishTime();
                     if (estFinish <= 0) {
-                        // OPTIMIZED: Use cached fastest VM capacity
                         // Estimate: use computation / fastest VM capacity
-                        double capacity = (cache != null) ? cache.getFastestVmCapacity(availableVms) :
-                            VmConfig.getVmType(maxVm).processingCapacity;
-                        estFinish = t.getComputation() / capacity;
+                        estFinish = t.getComputation() / maxCapacity;
                     }
                     maxEstimatedFinishTime = Math.max(maxEstimatedFinishTime, estFinish);
                 }
@@ -142,29 +214,35 @@ public class T2FAAlgorithm {
                     .orElse(1);
                 if (task.getComputation() > 0.1 * maxTaskComputation) {
                     // Select VM that can finish at the earliest
-                    Vm bestVm = selectBestVmForTask(task);
-                    scheduleTask(task, bestVm, schedule);
+                    int bestVm = selectBestVmForTask(task);
+                    scheduleTask(task, bestVm);
                     vP.clear();
-                    vP.add(bestVm);
+                    vP.set(bestVm);
                     vC.clear();
                     continue;
                 } else {
                     // If TYPE0 task doesn't meet the condition, schedule it as a general task
                     // This ensures all tasks are scheduled
-                    Vm bestVm = selectBestVmForTask(task);
-                    scheduleTask(task, bestVm, schedule);
+                    int bestVm = selectBestVmForTask(task);
+                    scheduleTask(task, bestVm);
                     vP.clear();
-                    vP.add(bestVm);
+                    vP.set(bestVm);
                     vC.clear();
                     continue;
                 }
             }
             
+            // Parallel mode: data-ready times and VM choices of all tasks of the level are
+            // evaluated up front on the pool; the commit below only re-evaluates stale choices
+            if (pool != null && levelTasks.size() >= MIN_PARALLEL_LEVEL_WIDTH) {
+                evaluateLevel(levelTasks);
+            }
+            
             // Schedule special types in random order
             List<TaskType> typeOrder = Arrays.asList(
                 TaskType.TYPE1, TaskType.TYPE2, TaskType.TYPE3, TaskType.TYPE4
             );
-            Collections.shuffle(typeOrder);
+            Collections.shuffle(typeOrder, random);
             
             List<Et2faTask> remainingTasks = new ArrayList<>(levelTasks);
             
@@ -181,21 +259,65 @@ public class T2FAAlgorithm {
                 // Sort by weight (computation) descending
                 typeTasks.sort((a, b) -> Double.compare(b.getComputation(), a.getComputation()));
                 
-                scheduleTasks(typeTasks, schedule);
+                scheduleTasks(typeTasks);
             }
             
             // Schedule remaining general tasks
             remainingTasks.sort((a, b) -> Double.compare(b.getComputation(), a.getComputation()));
-            scheduleTasks(remainingTasks, schedule);
+            scheduleTasks(remainingTasks);
             
-            // Update vP and vC for next level
-            vP = new HashSet<>(vC);
+            // Update vP and vC for next level (swap, no copy)
+            BitSet previous = vP;
+            vP = vC;
+            vC = previous;
             vC.clear();
+            if (levelDataReadyTimes != null) {
+                for (Et2faTask task : levelTasks) {
+                    levelDataReadyTimes[task.getDagIndex()] = null;
+                }
+                for (int vm : levelColumnVms) {
+                    levelColumns[vm] = -1;
+                }
+                levelColumnVms = new int[0];
+            }
         }
         
+        if (idleSlots != null) {
+            System.out.println("T2FA: Insertion policy placed " + insertedTaskCount + " tasks into idle gaps");
+        }
+        
+        Map<Et2faTask, Vm> schedule = new HashMap<>();
+        for (int i = 0; i < scheduledCount; i++) {
+            int task = scheduleOrder[i];
+            schedule.put(dag.getTask(task), availableVms.get(taskVm[task]));
+        }
         return schedule;
     }
 
+    /**
+     * Per-task state, sized once the DAG is frozen and every task has its DAG index
+     */
+    private void initTaskState() {
+        dag.freeze();
+        int n = dag.getTaskCount();
+        taskVm = new int[n];
+        Arrays.fill(taskVm, -1);
+        taskFinishTimes = new double[n];
+        scheduleOrder = new int[n];
+        scheduledCount = 0;
+        predecessorOffsets = dag.getPredecessorOffsets();
+        predecessorIndices = dag.getPredecessorIndices();
+        predecessorTransfers = dag.getPredecessorTransfers();
+        if (pool != null) {
+            levelColumnVms = new int[0];
+            levelColumns = new int[vmReady.length];
+            Arrays.fill(levelColumns, -1);
+            levelDataReadyTimes = new double[n][];
+            levelPreviousChoices = new int[n];
+            levelScanChoices = new int[n];
+        }
+    }
+
     /**
      * Classify tasks into types (Type0-Type4) based on DAG structure
      * Optimized to avoid redundant checks
@@ -279,21 +401,21 @@ public class T2FAAlgorithm {
     /**
      * Schedule a list of tasks (Algorithm 2 from paper)
      */
-    private void scheduleTasks(List<Et2faTask> tasks, Map<Et2faTask, Vm> schedule) {
+    private void scheduleTasks(List<Et2faTask> tasks) {
         for (Et2faTask task : tasks) {
-            Vm selectedVm = selectVmForTask(task);
-            scheduleTask(task, selectedVm, schedule);
+            int selectedVm = selectVmForTask(task);
+            scheduleTask(task, selectedVm);
         }
     }
 
     /**
      * Select VM for a task based on compact scheduling conditions
      */
-    private Vm selectVmForTask(Et2faTask task) {
+    private int selectVmForTask(Et2faTask task) {
         // Layer 1: VMs with running tasks at current level (vC)
         if (!vC.isEmpty()) {
-            Vm bestVm = findBestVmInSet(task, vC);
-            if (bestVm != null) {
+            int bestVm = findBestVmInSet(task, vC);
+            if (bestVm >= 0) {
                 double availableStartTime = calculateAvailableStartTime(task, bestVm);
                 double finishTime = availableStartTime + calculateExecutionTime(task, bestVm);
                 if (finishTime <= tStar) {
@@ -303,9 +425,12 @@ public class T2FAAlgorithm {
         }
         
         // Layer 2: VMs with running tasks at previous level (vP)
+        int taskIndex = task.getDagIndex();
+        boolean evaluated = levelDataReadyTimes != null && levelDataReadyTimes[taskIndex] != null;
         if (!vP.isEmpty()) {
-            Vm bestVm = findBestVmInSet(task, vP);
-            if (bestVm != null) {
+            int bestVm = evaluated && !vC.get(levelPreviousChoices[taskIndex])
+                ? levelPreviousChoices[taskIndex] : findBestVmInSet(task, vP);
+            if (bestVm >= 0) {
                 double availableStartTime = calculateAvailableStartTime(task, bestVm);
                 double finishTime = availableStartTime + calculateExecutionTime(task, bestVm);
                 if (finishTime <= tStar) {
@@ -315,14 +440,17 @@ public class T2FAAlgorithm {
         }
         
         // Layer 3: All available VMs
+        if (evaluated && !vC.get(levelScanChoices[taskIndex])) {
+            return levelScanChoices[taskIndex];
+        }
         return selectBestVmForTask(task);
     }
 
-    private Vm findBestVmInSet(Et2faTask task, Set<Vm> vmSet) {
-        Vm bestVm = null;
+    private int findBestVmInSet(Et2faTask task, BitSet vmSet) {
+        int bestVm = -1;
         double minStartTime = Double.MAX_VALUE;
         
-        for (Vm vm : vmSet) {
+        for (int vm = vmSet.nextSetBit(0); vm >= 0; vm = vmSet.nextSetBit(vm + 1)) {
             double availableStartTime = calculateAvailableStartTime(task, vm);
             if (availableStartTime < minStartTime) {
                 minStartTime = availableStartTime;
@@ -333,11 +461,23 @@ public class T2FAAlgorithm {
         return bestVm;
     }
 
-    private Vm selectBestVmForTask(Et2faTask task) {
-        Vm bestVm = null;
+    private int selectBestVmForTask(Et2faTask task) {
+        if (vmIndex != null) {
+            return selectBestVmIndexed(task);
+        }
+        return scanCandidateVms(task);
+    }
+
+    /**
+     * Earliest-finish VM among the candidate VMs (first in pool order on ties)
+     */
+    private int scanCandidateVms(Et2faTask task) {
+        int bestVm = -1;
         double minFinishTime = Double.MAX_VALUE;
         
-        for (Vm vm : availableVms) {
+        // Unused VMs of a class all give the same finish time; the first of them (in pool order,
+        // as the ties are broken) stands for the class, so the choice equals a scan of every VM
+        for (int vm = candidateVms.nextSetBit(0); vm >= 0; vm = candidateVms.nextSetBit(vm + 1)) {
             double availableStartTime = calculateAvailableStartTime(task, vm);
             double executionTime = calculateExecutionTime(task, vm);
             double finishTime = availableStartTime + executionTime;
@@ -348,80 +488,236 @@ public class T2FAAlgorithm {
             }
         }
         
-        if (bestVm == null) {
-            bestVm = availableVms.get(0);
+        if (bestVm < 0) {
+            bestVm = 0;
         }
         
         return bestVm;
     }
 
+    /**
+     * Same choice as the full scan in selectBestVmForTask (earliest finish, first VM in pool
+     * order on ties), using the ready-time index instead of evaluating every VM.
+     *
+     * All VMs of a type that host none of the task's predecessors share one data-ready time
+     * and execution time, so only one index candidate per type is evaluated: the first VM
+     * reaching the earliest finish time of the type. VMs hosting a predecessor
+     * (no communication from it) are evaluated exactly; when such a VM is also an index
+     * candidate, its type-level value is an upper bound and never changes the minimum.
+     */
+    private int selectBestVmIndexed(Et2faTask task) {
+        int groups = vmIndex.getGroupCount();
+        int taskIndex = task.getDagIndex();
+        
+        // One pass over predecessors: per type, the max of T_j^F + T_jih over predecessors
+        // without a VM and over each distinct predecessor VM ("host")
+        List<Integer> hosts = new ArrayList<>();
+        Map<Integer, Integer> hostSlot = new HashMap<>();
+        List<double[]> hostMaxByType = new ArrayList<>(); // per host: [own finish max, per-type max...]
+        double[] noHostMax = new double[groups];
+        for (int e = predecessorOffsets[taskIndex]; e < predecessorOffsets[taskIndex + 1]; e++) {
+            int pred = predecessorIndices[e];
+            double predFinishTime = taskFinishTimes[pred];
+            if (predFinishTime <= 0) continue;
+            int host = taskVm[pred];
+            if (host < 0) {
+                for (int g = 0; g < groups; g++) {
+                    noHostMax[g] = Math.max(noHostMax[g], predFinishTime);
+                }
+                continue;
+            }
+            Integer slot = hostSlot.get(host);
+            if (slot == null) {
+                slot = hosts.size();
+                hostSlot.put(host, slot);
+                hosts.add(host);
+                hostMaxByType.add(new double[groups + 1]);
+            }
+            double[] maxByType = hostMaxByType.get(slot);
+            maxByType[0] = Math.max(maxByType[0], predFinishTime);
+            double dataSize = predecessorTransfers[e];
+            int predClass = matrix.getClassOf(host);
+            for (int g = 0; g < groups; g++) {
+                double commTime = cache != null && !evaluatingLevel
+                    ? cache.getCommunicationTime(pred, taskIndex, predClass, groupClasses[g], dataSize)
+                    : matrix.getClassCommunicationTime(dataSize, predClass, groupClasses[g]);
+                maxByType[g + 1] = Math.max(maxByType[g + 1], predFinishTime + commTime);
+            }
+        }
+        
+        // Per type: largest and second largest host value (from different hosts)
+        double[] top1 = new double[groups];
+        double[] top2 = new double[groups];
+        int[] top1Slot = new int[groups];
+        Arrays.fill(top1Slot, -1);
+        for (int slot = 0; slot < hosts.size(); slot++) {
+            double[] maxByType = hostMaxByType.get(slot);
+            for (int g = 0; g < groups; g++) {
+                double value = maxByType[g + 1];
+                if (top1Slot[g] < 0 || value > top1[g]) {
+                    top2[g] = top1[g];
+                    top1[g] = value;
+                    top1Slot[g] = slot;
+                } else {
+                    top2[g] = Math.max(top2[g], value);
+                }
+            }
+        }
+        
+        int bestIndex = -1;
+        double bestFinish = Double.MAX_VALUE;
+        for (int slot = 0; slot < hosts.size(); slot++) {
+            int index = hosts.get(slot);
+            int g = vmIndex.getGroupOf(index);
+            double others = top1Slot[g] == slot ? top2[g] : top1[g];
+            double dataReadyTime = Math.max(Math.max(noHostMax[g], others), hostMaxByType.get(slot)[0]);
+            double startTime = Math.max(dataReadyTime, vmIndex.getReadyTime(index));
+            double finishTime = startTime + calculateExecutionTime(task, index);
+            if (finishTime < bestFinish || (finishTime == bestFinish && index < bestIndex)) {
+                bestFinish = finishTime;
+                bestIndex = index;
+            }
+        }
+        
+        for (int g = 0; g < groups; g++) {
+            double dataReadyTime = Math.max(noHostMax[g], top1[g]);
+            double executionTime = matrix.getClassExecutionTime(taskIndex, groupClasses[g]);
+            double startTime = Math.max(dataReadyTime, vmIndex.getMinReadyTime(g));
+            double finishTime = startTime + executionTime;
+            // First VM of the type reaching that finish time (several ready times can round to it)
+            int index = vmIndex.firstReadyBy(g, sameFinishBound(startTime, executionTime));
+            if (finishTime < bestFinish || (finishTime == bestFinish && index < bestIndex)) {
+                bestFinish = finishTime;
+                bestIndex = index;
+            }
+        }
+        
+        return bestIndex >= 0 ? bestIndex : 0;
+    }
+
+    /**
+     * Largest start time r >= start with r + executionTime == start + executionTime.
+     * Binary search on the bit patterns, which are ordered like the (positive) values.
+     */
+    private static double sameFinishBound(double start, double executionTime) {
+        double finishTime = start + executionTime;
+        long lo = Double.doubleToLongBits(start);
+        long hi = Double.doubleToLongBits(finishTime);
+        while (lo < hi) {
+            long mid = lo + (hi - lo + 1) / 2;
+            if (Double.longBitsToDouble(mid) + executionTime <= finishTime) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return Double.longBitsToDouble(lo);
+    }
+
+    /**
+     * Parallel mode: evaluate every task of a level against the state at the start of the level.
+     *
+     * Per task, on the pool: the data-ready time max_{a_j in Pre(a_i)} {T_j^F + T_jih^k} on each
+     * candidate VM and each VM of vP (predecessors belong to earlier levels, so these values hold
+     * for the whole level), the layer 2 choice in vP and the layer 3 choice among the candidates.
+     * While the level is committed, a VM's start and finish times only change when it receives a
+     * task (it joins vC), and only to later times; a VM that becomes a candidate is an unused VM
+     * of a class whose first unused VM was evaluated, with the same times and a higher position.
+     * So a choice whose VM is not in vC is still the one a sequential scan would make, and the
+     * commit only scans again for the others: the schedule equals the sequential one.
+     */
+    private void evaluateLevel(List<Et2faTask> levelTasks) {
+        BitSet columnSet = (BitSet) candidateVms.clone();
+        columnSet.or(vP);
+        levelColumnVms = columnSet.stream().toArray();
+        for (int c = 0; c < levelColumnVms.length; c++) {
+            levelColumns[levelColumnVms[c]] = c;
+        }
+        Et2faTask[] tasks = levelTasks.toArray(new Et2faTask[0]);
+        evaluatingLevel = true;
+        try {
+            pool.submit(() -> IntStream.range(0, tasks.length).parallel().forEach(i -> {
+                int task = tasks[i].getDagIndex();
+                double[] row = new double[levelColumnVms.length];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = calculateDataReadyTime(task, levelColumnVms[c]);
+                }
+                levelDataReadyTimes[task] = row;
+                levelPreviousChoices[task] = findBestVmInSet(tasks[i], vP);
+                levelScanChoices[task] = scanCandidateVms(tasks[i]);
+            })).join();
+        } finally {
+            evaluatingLevel = false;
+        }
+    }
+
     /**
      * Calculate available start time (Equation 23 from paper)
      * T_ih^A = max{max_{a_j in Pre(a_i)} {T_j^F + T_jih^k}, T_h^k}
-     * Optimized to cache results and avoid redundant calculations
+     * With the insertion policy, the earliest idle gap of the VM after the data-ready time
+     * that is long enough for the task (at the latest T_h^k, after the VM's last task).
      */
-    private double calculateAvailableStartTime(Et2faTask task, Vm vm) {
-        // T_h^k: current completion time of VM v_h (including cold startup if new)
-        double vmReadyTime = vmCompletionTimes.getOrDefault(vm, 55.9);
+    private double calculateAvailableStartTime(Et2faTask task, int vm) {
+        int taskIndex = task.getDagIndex();
+        double[] row = levelDataReadyTimes != null ? levelDataReadyTimes[taskIndex] : null;
+        int column = row != null ? levelColumns[vm] : -1;
+        double dataReadyTime = column >= 0 ? row[column] : calculateDataReadyTime(taskIndex, vm);
         
-        List<Et2faTask> predecessors = task.getPredecessors();
-        if (predecessors == null || predecessors.isEmpty()) {
-            return vmReadyTime;
+        if (idleSlots != null) {
+            return idleSlots.earliestStart(vm, dataReadyTime, calculateExecutionTime(task, vm));
         }
-        
-        // Calculate max of all predecessor finish times + communication times
+        // T_h^k: current completion time of VM v_h (including cold startup if new)
+        return Math.max(dataReadyTime, vmReady[vm]);
+    }
+
+    /**
+     * max_{a_j in Pre(a_i)} {T_j^F + T_jih^k}: time all input data of a task is available on a VM.
+     * Reads predecessors from the DAG's CSR arrays and the index-based state; allocates nothing.
+     */
+    private double calculateDataReadyTime(int taskIndex, int vm) {
         double maxPredFinishTime = 0;
-        for (Et2faTask pred : predecessors) {
+        for (int e = predecessorOffsets[taskIndex]; e < predecessorOffsets[taskIndex + 1]; e++) {
+            int pred = predecessorIndices[e];
             // Skip if predecessor hasn't been scheduled yet (finish time is 0)
-            double predFinishTime = pred.getActualFinishTime();
+            double predFinishTime = taskFinishTimes[pred];
             if (predFinishTime <= 0) {
-                // Predecessor not scheduled yet, use a conservative estimate
                 continue;
             }
             
-            // OPTIMIZED: Use cached communication time
             // T_jih^k: communication time from task a_j (on VM v_k) to task a_i (on VM v_h)
-            Vm predVm = taskVmMap.get(pred);
+            int predVm = taskVm[pred];
             double commTime = 0;
-            if (predVm != null && predVm != vm && dag != null) {
-                if (cache != null) {
-                    // Use cache to avoid redundant calculations
-                    commTime = cache.getCommunicationTime(pred, task, predVm, vm, dag);
-                } else {
-                    // Original: calculate directly
-                    double dataSize = dag.getDataTransfer(pred, task);
-                    commTime = VmConfig.calculateCommunicationTime(dataSize, predVm, vm);
-                }
+            if (predVm >= 0 && predVm != vm) {
+                commTime = calculateCommunicationTime(pred, taskIndex, predecessorTransfers[e], predVm, vm);
             }
             
             double predReadyTime = predFinishTime + commTime;
             maxPredFinishTime = Math.max(maxPredFinishTime, predReadyTime);
         }
-        
-        // Return max of max predecessor ready time and VM ready time
-        return Math.max(maxPredFinishTime, vmReadyTime);
+        return maxPredFinishTime;
+    }
+
+    /**
+     * Communication time of an edge between two different VMs (inverse bandwidth matrix of their
+     * classes), through the run's cache if there is one
+     */
+    private double calculateCommunicationTime(int fromTask, int toTask, double dataSize, int fromVm, int toVm) {
+        if (cache != null && !evaluatingLevel) {
+            return cache.getCommunicationTime(fromTask, toTask, dataSize, fromVm, toVm);
+        }
+        return matrix.getCommunicationTime(dataSize, fromVm, toVm);
     }
 
     /**
      * Calculate execution time of task on VM
-     * OPTIMIZED: Uses cache to avoid redundant calculations
      * t_i^h = w_i / U_h where w_i is computation and U_h is processing capacity
      */
-    private double calculateExecutionTime(Et2faTask task, Vm vm) {
-        if (cache != null) {
-            // Use cache to avoid redundant calculations
-            return cache.getExecutionTime(task, vm);
-        } else {
-            // Original: calculate directly
-            VmConfig.VmType vmType = VmConfig.getVmType(vm);
-            double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-            return task.getComputation() / capacity;
-        }
+    private double calculateExecutionTime(Et2faTask task, int vm) {
+        return matrix.getExecutionTime(task.getDagIndex(), vm);
     }
 
-    private void scheduleTask(Et2faTask task, Vm vm, Map<Et2faTask, Vm> schedule) {
-        schedule.put(task, vm);
-        taskVmMap.put(task, vm); // Track task-VM mapping for communication time calculation
+    private void scheduleTask(Et2faTask task, int vm) {
+        int taskIndex = task.getDagIndex();
         
         // Calculate actual start and finish times
         double startTime = calculateAvailableStartTime(task, vm);
@@ -431,21 +727,39 @@ public class T2FAAlgorithm {
         task.setActualStartTime(startTime);
         task.setActualFinishTime(finishTime);
         
-        // Update VM completion time
-        vmCompletionTimes.put(vm, finishTime);
+        // Track task-VM mapping for communication time calculation
+        taskVm[taskIndex] = vm;
+        taskFinishTimes[taskIndex] = finishTime;
+        scheduleOrder[scheduledCount++] = taskIndex;
+        
+        if (idleSlots != null) {
+            if (finishTime <= vmReady[vm]) {
+                insertedTaskCount++;
+            }
+            idleSlots.occupy(vm, startTime, executionTime);
+        }
+        
+        // Update VM completion time (unchanged if the task was inserted into an idle gap)
+        vmReady[vm] = Math.max(vmReady[vm], finishTime);
+        if (vmIndex != null) {
+            vmIndex.update(vm, finishTime);
+        }
         
         // Update tStar if finish time exceeds it
         if (finishTime > tStar) {
             tStar = finishTime;
         }
         
-        // Add VM to current level set
-        if (!vC.contains(vm)) {
-            vC.add(vm);
+        // A newly used VM stays a candidate; the next unused VM of its class becomes one
+        BitSet unused = unusedVmsByClass[matrix.getClassOf(vm)];
+        if (unused.get(vm)) {
+            unused.clear(vm);
+            candidateVms.set(vm);
+            int next = unused.nextSetBit(0);
+            if (next >= 0) candidateVms.set(next);
         }
+        
+        // Add VM to current level set
+        vC.set(vm);
     }
 }
-
-
-
-
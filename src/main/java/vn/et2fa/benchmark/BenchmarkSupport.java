@@ -0,0 +1,36 @@
+package vn.et2fa.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shared helpers for the benchmark harnesses in this package.
+ */
+final class BenchmarkSupport {
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * Recursively collect all .dax files under a directory, sorted by path
+	 */
+	static List<File> findDaxFiles(File dir) {
+		List<File> result = new ArrayList<>();
+		collectDaxFiles(dir, result);
+		result.sort(Comparator.comparing(File::getPath));
+		return result;
+	}
+
+	private static void collectDaxFiles(File dir, List<File> result) {
+		File[] entries = dir.listFiles();
+		if (entries == null) return;
+		for (File entry : entries) {
+			if (entry.isDirectory()) {
+				collectDaxFiles(entry, result);
+			} else if (entry.getName().endsWith(".dax")) {
+				result.add(entry);
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package vn.et2fa.benchmark;
+
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+import vn.et2fa.util.WorkflowDAG;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark for building a large WorkflowDAG: the bulk {@link WorkflowDAG.Builder}
+ * versus incremental {@link WorkflowDAG#addTask}/{@link WorkflowDAG#addDependency} calls.
+ *
+ * The graph is a random DAG (edges always go from a lower to a higher task index),
+ * 20,000 tasks and 100,000 edges by default. Task objects are created outside the timed region.
+ *
+ * Usage:
+ *   mvn exec:java -Dexec.mainClass="vn.et2fa.benchmark.DagBuildBenchmark" \
+ *     -Dexec.args="[tasks] [edges] [iterations]"
+ */
+public class DagBuildBenchmark {
+	private static final int WARMUP_ITERATIONS = 2;
+	private static final long SEED = 42L;
+
+	// Keeps built graphs reachable so the JIT cannot drop the work being measured
+	private static volatile Object sink;
+
+	public static void main(String[] args) {
+		int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		int[][] edges = randomEdges(taskCount, edgeCount, new Random(SEED));
+		System.out.println("=== DAG Build Benchmark ===");
+		System.out.println("Tasks: " + taskCount + ", edges: " + edgeCount + ", iterations: " + iterations);
+
+		double builderMs = medianMillis(taskCount, edges, iterations, true);
+		double incrementalMs = medianMillis(taskCount, edges, iterations, false);
+
+		System.out.printf("WorkflowDAG.Builder:        %10.3f ms (median, includes freeze to CSR)%n", builderMs);
+		System.out.printf("addTask/addDependency:      %10.3f ms (median)%n", incrementalMs);
+		System.out.printf("Speedup: %.2fx%n", builderMs > 0 ? incrementalMs / builderMs : 0);
+	}
+
+	/**
+	 * Random edges i -> j with i < j, so the result is always acyclic
+	 */
+	private static int[][] randomEdges(int taskCount, int edgeCount, Random random) {
+		int[][] edges = new int[edgeCount][2];
+		for (int e = 0; e < edgeCount; e++) {
+			int from = random.nextInt(taskCount - 1);
+			int to = from + 1 + random.nextInt(Math.min(taskCount - from - 1, 200));
+			edges[e][0] = from;
+			edges[e][1] = to;
+		}
+		return edges;
+	}
+
+	private static Et2faTask[] createTasks(int taskCount) {
+		Et2faTask[] tasks = new Et2faTask[taskCount];
+		for (int i = 0; i < taskCount; i++) {
+			tasks[i] = new Et2faTask(10_000, 1, TaskType.GENERAL);
+			tasks[i].setId(i);
+		}
+		return tasks;
+	}
+
+	private static double medianMillis(int taskCount, int[][] edges, int iterations, boolean useBuilder) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			sink = build(createTasks(taskCount), edges, useBuilder);
+		}
+		double[] samples = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			Et2faTask[] tasks = createTasks(taskCount);
+			long start = System.nanoTime();
+			sink = build(tasks, edges, useBuilder);
+			samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+		}
+		Arrays.sort(samples);
+		return samples[iterations / 2];
+	}
+
+	private static WorkflowDAG build(Et2faTask[] tasks, int[][] edges, boolean useBuilder) {
+		if (useBuilder) {
+			WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+			for (Et2faTask task : tasks) {
+				builder.addTask(task);
+			}
+			for (int[] edge : edges) {
+				builder.addDependency(tasks[edge[0]], tasks[edge[1]], 1.0);
+			}
+			return builder.build();
+		}
+
+		WorkflowDAG dag = new WorkflowDAG();
+		for (Et2faTask task : tasks) {
+			dag.addTask(task);
+		}
+		for (int[] edge : edges) {
+			dag.addDependency(tasks[edge[0]], tasks[edge[1]], 1.0);
+		}
+		dag.freeze();
+		return dag;
+	}
+}
@@ -0,0 +1,138 @@
+package vn.et2fa.benchmark;
+
+import vn.et2fa.util.CompiledDax;
+import vn.et2fa.util.DaxLoader;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Benchmark comparing the DOM loader ({@link DaxLoader#loadDom(String)}) with the
+ * streaming StAX loader ({@link DaxLoader#load(String)}) on the workflows/benchmark corpus.
+ *
+ * Reports median parse time and peak heap growth for each DAX file, plus the median
+ * load time of the same workflow from the compiled binary format ({@link CompiledDax}).
+ *
+ * Usage:
+ *   mvn exec:java -Dexec.mainClass="vn.et2fa.benchmark.DaxParseBenchmark" \
+ *     -Dexec.args="[corpusDir] [iterations]"
+ */
+public class DaxParseBenchmark {
+	private static final int WARMUP_ITERATIONS = 3;
+
+	// Keeps parse results reachable so the JIT cannot drop the work being measured
+	private static volatile Object sink;
+
+	interface Loader {
+		Object load(String path) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String corpusDir = args.length > 0 ? args[0] : "workflows/benchmark";
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		List<File> daxFiles = BenchmarkSupport.findDaxFiles(new File(corpusDir));
+		if (daxFiles.isEmpty()) {
+			System.err.println("No .dax files found under " + corpusDir);
+			return;
+		}
+
+		System.out.println("=== DAX Parse Benchmark (DOM vs StAX) ===");
+		System.out.println("Corpus: " + corpusDir + ", files: " + daxFiles.size() + ", iterations: " + iterations);
+		System.out.printf("%-18s %6s %6s | %10s %10s %10s | %10s %10s%n",
+				"Workflow", "jobs", "edges", "DOM ms", "StAX ms", "CDAX ms", "DOM KB", "StAX KB");
+
+		Path compiledDir = Files.createTempDirectory("et2fa-cdax");
+		double totalDom = 0;
+		double totalStax = 0;
+		double totalCompiled = 0;
+		for (File file : daxFiles) {
+			String path = file.getPath();
+
+			DaxLoader.DaxWorkflow dom = DaxLoader.loadDom(path);
+			DaxLoader.DaxWorkflow stax = DaxLoader.load(path);
+			int domEdges = countEdges(dom);
+			int staxEdges = countEdges(stax);
+			if (dom.tasks.size() != stax.tasks.size() || domEdges != staxEdges) {
+				System.err.println("WARNING: loaders disagree on " + file.getName()
+						+ " (DOM " + dom.tasks.size() + "/" + domEdges
+						+ ", StAX " + stax.tasks.size() + "/" + staxEdges + ")");
+			}
+
+			double domMs = medianParseMillis(DaxLoader::loadDom, path, iterations);
+			double staxMs = medianParseMillis(DaxLoader::load, path, iterations);
+			Path compiled = compiledDir.resolve(file.getName() + CompiledDax.FILE_EXTENSION);
+			CompiledDax.compile(stax, compiled);
+			double compiledMs = medianParseMillis(p -> CompiledDax.load(Path.of(p)), compiled.toString(), iterations);
+			Files.delete(compiled);
+			long domHeap = peakHeapBytes(DaxLoader::loadDom, path);
+			long staxHeap = peakHeapBytes(DaxLoader::load, path);
+			totalDom += domMs;
+			totalStax += staxMs;
+			totalCompiled += compiledMs;
+
+			System.out.printf("%-18s %6d %6d | %10.3f %10.3f %10.3f | %10d %10d%n",
+					file.getName(), stax.tasks.size(), staxEdges,
+					domMs, staxMs, compiledMs, domHeap / 1024, staxHeap / 1024);
+		}
+		Files.delete(compiledDir);
+
+		System.out.printf("Total median parse time: DOM %.3f ms, StAX %.3f ms (%.2fx), compiled load %.3f ms%n",
+				totalDom, totalStax, totalStax > 0 ? totalDom / totalStax : 0, totalCompiled);
+	}
+
+	private static int countEdges(DaxLoader.DaxWorkflow workflow) {
+		int edges = 0;
+		for (List<String> children : workflow.dependencies.values()) {
+			edges += children.size();
+		}
+		return edges;
+	}
+
+	private static double medianParseMillis(Loader loader, String path, int iterations) throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			sink = loader.load(path);
+		}
+		double[] samples = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			sink = loader.load(path);
+			samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+		}
+		Arrays.sort(samples);
+		return samples[iterations / 2];
+	}
+
+	/**
+	 * Peak heap growth while parsing once: heap pool peaks are reset after a GC, so the
+	 * reported value is the high-water mark above the post-GC baseline.
+	 */
+	private static long peakHeapBytes(Loader loader, String path) throws Exception {
+		List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				heapPools.add(pool);
+			}
+		}
+
+		System.gc();
+		long baseline = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			pool.resetPeakUsage();
+			baseline += pool.getUsage().getUsed();
+		}
+
+		sink = loader.load(path);
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		return Math.max(0, peak - baseline);
+	}
+}
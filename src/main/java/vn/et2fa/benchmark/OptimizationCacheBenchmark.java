@@ -0,0 +1,207 @@
+package vn.et2fa.benchmark;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import vn.et2fa.algorithm.T2FAAlgorithm;
+import vn.et2fa.util.CompiledDax;
+import vn.et2fa.util.DaxLoader;
+import vn.et2fa.util.ExecutionMatrix;
+import vn.et2fa.util.OptimizationCache;
+import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.VmCatalog;
+import vn.et2fa.util.VmConfig;
+import vn.et2fa.util.WorkflowDAG;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark for {@link OptimizationCache}: communication time lookups and T2FA scheduling time
+ * with and without the cache.
+ *
+ * Lookups: every edge of the workflow with a random pair of VMs, repeated LOOKUP_PASSES times.
+ * Compared are the direct computation from the VM types, the ExecutionMatrix the cache keeps
+ * (data size times a precomputed inverse bandwidth), the cache's packed-key table, and a
+ * String.format key in a HashMap with boxed values (how the cache stored entries before).
+ * T2FA: "optimized" mode with the cache on and off; only {@link T2FAAlgorithm#schedule()} is
+ * measured, as in T2faScheduleBenchmark. With the cache, T2FA reads edge communication times
+ * from the table instead of the matrix.
+ *
+ * Usage:
+ *   mvn exec:java -Dexec.mainClass="vn.et2fa.benchmark.OptimizationCacheBenchmark" \
+ *     -Dexec.args="[vmCount] [iterations] [dax files...]"
+ */
+public class OptimizationCacheBenchmark {
+	private static final int WARMUP_ITERATIONS = 3;
+	private static final int LOOKUP_PASSES = 20;
+	private static final long SEED = 42L;
+	private static final String[] DEFAULT_WORKFLOWS = {
+		"workflows/benchmark/MONTAGE/Monta_1000.dax",
+		"workflows/benchmark/INSPIRAL/Inspi_1000.dax"
+	};
+
+	// Keeps results reachable so the JIT cannot drop the work being measured
+	private static volatile Object sink;
+	private static volatile double doubleSink;
+
+	public static void main(String[] args) throws Exception {
+		int vmCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		String[] workflows = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : DEFAULT_WORKFLOWS;
+		List<Vm> vms = createVms(vmCount);
+
+		System.out.println("=== Optimization Cache Benchmark ===");
+		System.out.println("VMs: " + vmCount + ", iterations: " + iterations);
+
+		Path compiledDir = Files.createTempDirectory("et2fa-cdax");
+		for (String workflow : workflows) {
+			Path compiled = compiledDir.resolve(Path.of(workflow).getFileName() + CompiledDax.FILE_EXTENSION);
+			CompiledDax.compile(DaxLoader.load(workflow), compiled);
+			String name = Path.of(workflow).getFileName().toString().replace(".dax", "");
+			WorkflowDAG dag = CompiledDax.load(compiled);
+			dag.freeze();
+
+			System.out.println();
+			System.out.println(name + " (" + dag.getTaskCount() + " tasks, " + dag.getSuccessorIndices().length + " edges)");
+			benchmarkLookups(dag, vms, iterations);
+			for (boolean useCache : new boolean[] {false, true}) {
+				OptimizationConfig config = new OptimizationConfig("optimized");
+				config.setUseCache(useCache);
+				for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+					schedule(CompiledDax.load(compiled), vms, config);
+				}
+				double[] samples = new double[iterations];
+				for (int i = 0; i < iterations; i++) {
+					WorkflowDAG fresh = CompiledDax.load(compiled);
+					long start = System.nanoTime();
+					schedule(fresh, vms, config);
+					samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+				}
+				Arrays.sort(samples);
+				System.out.printf("  T2FA %-14s %10.3f ms (median)%n", useCache ? "with cache:" : "without cache:", samples[iterations / 2]);
+			}
+			Files.deleteIfExists(compiled);
+		}
+		Files.deleteIfExists(compiledDir);
+	}
+
+	/**
+	 * ns per communication time lookup: direct, ExecutionMatrix, String key + boxed HashMap
+	 */
+	private static void benchmarkLookups(WorkflowDAG dag, List<Vm> vms, int iterations) {
+		int[] offsets = dag.getSuccessorOffsets();
+		int[] targets = dag.getSuccessorIndices();
+		double[] transfers = dag.getSuccessorTransfers();
+		int edgeCount = targets.length;
+		int[] sources = new int[edgeCount];
+		for (int x = 0; x < dag.getTaskCount(); x++) {
+			for (int e = offsets[x]; e < offsets[x + 1]; e++) sources[e] = x;
+		}
+		VmCatalog catalog = VmCatalog.createDefault(vms); // Table 4 types in pool order, as T2FA uses
+		Random random = new Random(SEED);
+		int[] fromVms = new int[edgeCount];
+		int[] toVms = new int[edgeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			fromVms[e] = random.nextInt(vms.size());
+			toVms[e] = random.nextInt(vms.size());
+		}
+		OptimizationCache cache = new OptimizationCache();
+		ExecutionMatrix matrix = cache.getExecutionMatrix(dag, catalog);
+
+		double[] direct = new double[iterations];
+		double[] matrixReads = new double[iterations];
+		double[] tableReads = new double[iterations];
+		double[] stringKeys = new double[iterations];
+		for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+			long start = System.nanoTime();
+			double sum = 0;
+			for (int pass = 0; pass < LOOKUP_PASSES; pass++) {
+				for (int e = 0; e < edgeCount; e++) {
+					sum += VmConfig.calculateCommunicationTime(transfers[e], catalog.getType(fromVms[e]), catalog.getType(toVms[e]));
+				}
+			}
+			long directNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int pass = 0; pass < LOOKUP_PASSES; pass++) {
+				for (int e = 0; e < edgeCount; e++) {
+					sum += matrix.getCommunicationTime(transfers[e], fromVms[e], toVms[e]);
+				}
+			}
+			long matrixNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int pass = 0; pass < LOOKUP_PASSES; pass++) {
+				for (int e = 0; e < edgeCount; e++) {
+					sum += cache.getCommunicationTime(sources[e], targets[e], transfers[e], fromVms[e], toVms[e]);
+				}
+			}
+			long tableNanos = System.nanoTime() - start;
+
+			Map<String, Double> map = new HashMap<>();
+			start = System.nanoTime();
+			for (int pass = 0; pass < LOOKUP_PASSES; pass++) {
+				for (int e = 0; e < edgeCount; e++) {
+					String key = String.format("comm_%d_%d_%d_%d", sources[e], targets[e], fromVms[e], toVms[e]);
+					Double cached = map.get(key);
+					if (cached == null) {
+						cached = VmConfig.calculateCommunicationTime(transfers[e], catalog.getType(fromVms[e]), catalog.getType(toVms[e]));
+						map.put(key, cached);
+					}
+					sum += cached;
+				}
+			}
+			long stringNanos = System.nanoTime() - start;
+			doubleSink = sum;
+
+			if (i >= 0) {
+				double lookups = (double) LOOKUP_PASSES * edgeCount;
+				direct[i] = directNanos / lookups;
+				matrixReads[i] = matrixNanos / lookups;
+				tableReads[i] = tableNanos / lookups;
+				stringKeys[i] = stringNanos / lookups;
+			}
+		}
+		Arrays.sort(direct);
+		Arrays.sort(matrixReads);
+		Arrays.sort(tableReads);
+		Arrays.sort(stringKeys);
+		System.out.printf("  Lookup direct:              %8.2f ns (median)%n", direct[iterations / 2]);
+		System.out.printf("  Lookup ExecutionMatrix:     %8.2f ns (median)%n", matrixReads[iterations / 2]);
+		System.out.printf("  Lookup packed-key table:    %8.2f ns (median)%n", tableReads[iterations / 2]);
+		System.out.printf("  Lookup String key + boxing: %8.2f ns (median)%n", stringKeys[iterations / 2]);
+		System.out.println("  Table: " + cache.getStats());
+	}
+
+	private static List<Vm> createVms(int count) {
+		double[] mips = {500, 1000, 1500, 2000, 2500}; // Same pattern as App
+		List<Vm> vms = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Vm vm = new VmSimple(mips[i % mips.length], 1);
+			vm.setId(i);
+			vms.add(vm);
+		}
+		return vms;
+	}
+
+	/**
+	 * Schedule with T2FA, discarding its progress output
+	 */
+	private static void schedule(WorkflowDAG dag, List<Vm> vms, OptimizationConfig config) {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			sink = new T2FAAlgorithm(dag, vms, config).schedule();
+		} finally {
+			System.setOut(out);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package vn.et2fa.benchmark;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import vn.et2fa.algorithm.T2FAAlgorithm;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.CompiledDax;
+import vn.et2fa.util.DaxLoader;
+import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.WorkflowDAG;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark for T2FA (Phase 1) scheduling time on large workflows, in "original" and
+ * "optimized" mode, for several VM pool sizes.
+ *
+ * Each run schedules a freshly loaded DAG (loaded from the compiled format outside the
+ * timed region); only {@link T2FAAlgorithm#schedule()} is measured. The VM pool cycles
+ * through the five Table 4 types, as in App.
+ *
+ * Usage:
+ *   mvn exec:java -Dexec.mainClass="vn.et2fa.benchmark.T2faScheduleBenchmark" \
+ *     -Dexec.args="[vmCounts] [iterations] [dax files...]"
+ *   e.g. -Dexec.args="5,100,500 10 workflows/benchmark/MONTAGE/Monta_1000.dax"
+ */
+public class T2faScheduleBenchmark {
+	private static final int WARMUP_ITERATIONS = 3;
+	private static final String[] MODES = {"original", "optimized"};
+	private static final String[] DEFAULT_WORKFLOWS = {
+		"workflows/benchmark/GAUSSIAN/Gauss_1034.dax",
+		"workflows/benchmark/MONTAGE/Monta_1000.dax"
+	};
+
+	// Keeps schedules reachable so the JIT cannot drop the work being measured
+	private static volatile Object sink;
+
+	public static void main(String[] args) throws Exception {
+		int[] vmCounts = Arrays.stream((args.length > 0 ? args[0] : "5,100,500").split(","))
+				.mapToInt(Integer::parseInt).toArray();
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		String[] workflows = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : DEFAULT_WORKFLOWS;
+
+		System.out.println("=== T2FA Schedule Benchmark ===");
+		System.out.println("VM counts: " + Arrays.toString(vmCounts) + ", iterations: " + iterations);
+		System.out.printf("%-16s %6s %6s %-10s | %10s %12s%n", "Workflow", "tasks", "VMs", "mode", "median ms", "makespan");
+
+		Path compiledDir = Files.createTempDirectory("et2fa-cdax");
+		for (String workflow : workflows) {
+			Path compiled = compiledDir.resolve(Path.of(workflow).getFileName() + CompiledDax.FILE_EXTENSION);
+			CompiledDax.compile(DaxLoader.load(workflow), compiled);
+			String name = Path.of(workflow).getFileName().toString().replace(".dax", "");
+
+			for (int vmCount : vmCounts) {
+				List<Vm> vms = createVms(vmCount);
+				for (String mode : MODES) {
+					OptimizationConfig config = new OptimizationConfig(mode);
+					for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+						run(compiled, vms, config);
+					}
+					double[] samples = new double[iterations];
+					double makespan = 0;
+					int taskCount = 0;
+					for (int i = 0; i < iterations; i++) {
+						WorkflowDAG dag = CompiledDax.load(compiled);
+						long start = System.nanoTime();
+						schedule(dag, vms, config);
+						samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+						makespan = dag.getTasks().stream().mapToDouble(Et2faTask::getActualFinishTime).max().orElse(0);
+						taskCount = dag.getTaskCount();
+					}
+					Arrays.sort(samples);
+					System.out.printf("%-16s %6d %6d %-10s | %10.3f %12.3f%n",
+							name, taskCount, vmCount, mode, samples[iterations / 2], makespan);
+				}
+			}
+			Files.deleteIfExists(compiled);
+		}
+		Files.deleteIfExists(compiledDir);
+	}
+
+	private static List<Vm> createVms(int count) {
+		double[] mips = {500, 1000, 1500, 2000, 2500}; // Same pattern as App
+		List<Vm> vms = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Vm vm = new VmSimple(mips[i % mips.length], 1);
+			vm.setId(i);
+			vms.add(vm);
+		}
+		return vms;
+	}
+
+	private static void run(Path compiled, List<Vm> vms, OptimizationConfig config) throws Exception {
+		schedule(CompiledDax.load(compiled), vms, config);
+	}
+
+	/**
+	 * Schedule with T2FA, discarding its progress output
+	 */
+	private static void schedule(WorkflowDAG dag, List<Vm> vms, OptimizationConfig config) {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			sink = new T2FAAlgorithm(dag, vms, config).schedule();
+		} finally {
+			System.setOut(out);
+		}
+	}
+}
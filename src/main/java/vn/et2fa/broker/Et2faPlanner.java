@@ -0,0 +1,222 @@
+package vn.et2fa.broker;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.algorithm.CPOAlgorithm;
+import vn.et2fa.algorithm.DOBSAlgorithm;
+import vn.et2fa.algorithm.IHSHAlgorithm;
+import vn.et2fa.algorithm.T2FAAlgorithm;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.ExecutionMatrix;
+import vn.et2fa.util.OptimizationCache;
+import vn.et2fa.util.OptimizationConfig;
+import vn.et2fa.util.ScheduleSlack;
+import vn.et2fa.util.VmCatalog;
+import vn.et2fa.util.WorkflowDAG;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the ET2FA phases on a workflow and a VM pool, independently of any simulation:
+ * 1. T2FA (Task Type First Algorithm) - Initial scheduling
+ * 1.5. CPO (Critical Path Optimization) - only in optimized mode
+ * 2. DOBS (Delay Operation Based on Block Structure) - Optimization
+ * 3. IHSH (Instance Hibernate Scheduling Heuristic) - Cost optimization
+ *
+ * The result is an immutable SchedulePlan for Et2faBroker.setPlan. Planning only needs the
+ * DAG and the VM catalog, so it can run before the simulation starts, e.g. on a worker thread
+ * (planAsync) while the datacenter is built. The planner changes the DAG (simplification) and
+ * the tasks' times, so nothing else may use them until the plan is done; the tasks should
+ * already be submitted to their broker, since a cloudlet's hash changes on submission.
+ */
+public class Et2faPlanner {
+	private final WorkflowDAG workflowDAG;
+	private final VmCatalog vmCatalog;
+	private final OptimizationConfig optConfig;
+	private double deadline;
+	private String workflowName; // For display purposes
+
+	public Et2faPlanner(WorkflowDAG workflowDAG, VmCatalog vmCatalog, OptimizationConfig optConfig) {
+		this.workflowDAG = workflowDAG;
+		this.vmCatalog = vmCatalog;
+		this.optConfig = optConfig;
+	}
+
+	/**
+	 * Set deadline for workflow execution (used by CPO)
+	 */
+	public void setDeadline(double deadline) {
+		this.deadline = deadline;
+	}
+
+	public void setWorkflowName(String workflowName) {
+		this.workflowName = workflowName;
+	}
+
+	/**
+	 * Plan on a new worker thread
+	 */
+	public CompletableFuture<SchedulePlan> planAsync() {
+		return planAsync(runnable -> {
+			Thread worker = new Thread(runnable, "et2fa-planner");
+			worker.setDaemon(true);
+			worker.start();
+		});
+	}
+
+	public CompletableFuture<SchedulePlan> planAsync(Executor executor) {
+		return CompletableFuture.supplyAsync(this::plan, executor);
+	}
+
+	/**
+	 * Execute ET2FA. The optimization phases (CPO, DOBS, IHSH) reject a schedule they cannot
+	 * work on with an IllegalStateException or IllegalArgumentException; such a phase is
+	 * reported and skipped, and the plan keeps the schedule of the phases before it. Anything
+	 * else propagates, as does any failure of T2FA: without an initial schedule there is no plan.
+	 *
+	 * @throws IllegalStateException if there are no VMs or T2FA leaves tasks unscheduled
+	 */
+	public SchedulePlan plan() {
+		long totalStartTime = System.nanoTime(); // Use nanoTime for better precision
+		List<Vm> vms = vmCatalog.getVms();
+		if (vms.isEmpty()) {
+			throw new IllegalStateException("No VMs available for scheduling");
+		}
+
+		int taskCount = workflowDAG.getTasks().size();
+		System.out.println("ET2FA: Starting scheduling for " + taskCount + " tasks with " + vms.size() + " VMs");
+
+		// One cache for all phases of this run (execution matrix of the current DAG state and the
+		// communication times of its edges)
+		OptimizationCache cache = optConfig.isUseCache() ? new OptimizationCache() : null;
+		Map<Et2faTask, Vm> schedule;
+
+		// Phase 1: T2FA - Task Type First Algorithm
+		System.out.println("ET2FA: Phase 1 - T2FA (simplifyDAG and calculateTopologicalLevels)...");
+		long startTime = System.currentTimeMillis();
+		OptimizationCache.CacheStats cacheBefore = cache != null ? cache.getStats() : null;
+		if (optConfig.isUseDagSimplify()) {
+			workflowDAG.simplifyDAG();
+		}
+		T2FAAlgorithm t2fa = new T2FAAlgorithm(workflowDAG, vmCatalog, optConfig, cache);
+		System.out.println("ET2FA: Tasks before scheduling: " + workflowDAG.getTasks().size());
+
+		schedule = t2fa.schedule();
+		if (!workflowDAG.getMergedChains().isEmpty()) {
+			// Hand each merged chain's VM and time slot back to its original tasks for the later phases
+			workflowDAG.expandSimplifiedDAG(schedule);
+			workflowDAG.calculateTopologicalLevels();
+		}
+
+		long t2faTime = System.currentTimeMillis() - startTime;
+		System.out.println("ET2FA: Phase 1 completed in " + t2faTime + "ms." + cacheSummary(cache, cacheBefore));
+
+		int actualScheduled = schedule.size();
+		int actualTaskCount = workflowDAG.getTasks().size();
+		System.out.println("ET2FA: Scheduled " + actualScheduled + " tasks out of " + actualTaskCount + " tasks in DAG");
+		if (actualScheduled < actualTaskCount) {
+			System.err.println("ET2FA ERROR: Not all tasks were scheduled! Missing: " + (actualTaskCount - actualScheduled));
+			// Debug: list unscheduled tasks
+			for (Et2faTask task : workflowDAG.getTasks()) {
+				if (!schedule.containsKey(task)) {
+					System.err.println("  - Task " + task.getId() + " (level=" + task.getTopologicalLevel() + ", type=" + task.getType() + ") not scheduled");
+				}
+			}
+			throw new IllegalStateException("T2FA scheduled " + actualScheduled + " of " + actualTaskCount + " tasks");
+		}
+		if (schedule.isEmpty()) {
+			// Empty workflow: nothing to optimize
+			return new SchedulePlan(workflowDAG, schedule, vmCatalog, null, elapsedSeconds(totalStartTime));
+		}
+
+		// Phase 1.5: CPO - Critical Path Optimization
+		// Moves tasks between VMs (critical-path acceleration towards the deadline, VM consolidation),
+		// so it runs before the phases that only shift tasks in time on their VMs (only in optimized mode)
+		if (optConfig.isUseCPO()) {
+			System.out.println("ET2FA: Phase 1.5 - CPO (Critical Path Optimization)...");
+			startTime = System.currentTimeMillis();
+			cacheBefore = cache != null ? cache.getStats() : null;
+			try {
+				CPOAlgorithm cpo = new CPOAlgorithm(schedule, workflowDAG, vmCatalog, optConfig, workflowName,
+						slack(schedule, cache), cache);
+				cpo.setDeadline(deadline);
+				cpo.optimize();
+				long cpoTime = System.currentTimeMillis() - startTime;
+				System.out.println("ET2FA: Phase 1.5 completed in " + cpoTime + "ms." + cacheSummary(cache, cacheBefore));
+			} catch (IllegalStateException | IllegalArgumentException e) {
+				System.err.println("ET2FA ERROR in Phase 1.5: " + e.getMessage());
+				e.printStackTrace();
+			}
+		} else {
+			System.out.println("ET2FA: Phase 1.5 - CPO skipped by configuration.");
+		}
+
+		// Phase 2: DOBS - Delay Operation Based on Block Structure
+		// DOBS is a core phase of ET2FA, always run (worklist-driven in optimized mode)
+		System.out.println("ET2FA: Phase 2 - DOBS...");
+		startTime = System.currentTimeMillis();
+		cacheBefore = cache != null ? cache.getStats() : null;
+		// Slack of the (final) VM assignment (per-VM task order, Eq. 24 bounds, latest finish times),
+		// shared by DOBS and IHSH; DOBS keeps it up to date while delaying blocks
+		ScheduleSlack slack = slack(schedule, cache);
+		try {
+			DOBSAlgorithm dobs = new DOBSAlgorithm(schedule, slack, optConfig);
+			dobs.optimize();
+			long dobsTime = System.currentTimeMillis() - startTime;
+			System.out.println("ET2FA: Phase 2 completed in " + dobsTime + "ms." + cacheSummary(cache, cacheBefore));
+		} catch (IllegalStateException | IllegalArgumentException e) {
+			System.err.println("ET2FA ERROR in Phase 2: " + e.getMessage());
+			e.printStackTrace();
+		}
+
+		// Phase 3: IHSH - Instance Hibernate Scheduling Heuristic
+		// (reads the timelines of the slack engine, so it makes no cache lookups of its own)
+		System.out.println("ET2FA: Phase 3 - IHSH...");
+		startTime = System.currentTimeMillis();
+		cacheBefore = cache != null ? cache.getStats() : null;
+		IHSHAlgorithm ihshAlgorithm = null;
+		try {
+			ihshAlgorithm = new IHSHAlgorithm(schedule, slack);
+			ihshAlgorithm.scheduleHibernations();
+			long ihshTime = System.currentTimeMillis() - startTime;
+			System.out.println("ET2FA: Phase 3 completed in " + ihshTime + "ms." + cacheSummary(cache, cacheBefore));
+		} catch (IllegalStateException | IllegalArgumentException e) {
+			System.err.println("ET2FA ERROR in Phase 3: " + e.getMessage());
+			e.printStackTrace();
+			ihshAlgorithm = null;
+		}
+
+		double totalTimeSeconds = elapsedSeconds(totalStartTime);
+		System.out.println("ET2FA: All phases completed. Final schedule size: " + schedule.size());
+		System.out.println("ET2FA: Total scheduling time: " + String.format("%.6f", totalTimeSeconds) + " seconds");
+
+		return new SchedulePlan(workflowDAG, schedule, vmCatalog, ihshAlgorithm, totalTimeSeconds);
+	}
+
+	private static double elapsedSeconds(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+	}
+
+	/**
+	 * Slack engine of the schedule on the workflow in its current state, with the execution matrix
+	 * and the communication times from the run's cache if there is one
+	 */
+	private ScheduleSlack slack(Map<Et2faTask, Vm> schedule, OptimizationCache cache) {
+		if (cache == null) {
+			return new ScheduleSlack(schedule, new ExecutionMatrix(workflowDAG, vmCatalog));
+		}
+		return new ScheduleSlack(schedule, cache.getExecutionMatrix(workflowDAG, vmCatalog), cache);
+	}
+
+	/**
+	 * Communication time lookups of one phase (difference to the snapshot taken before it)
+	 */
+	private static String cacheSummary(OptimizationCache cache, OptimizationCache.CacheStats before) {
+		if (cache == null) return "";
+		OptimizationCache.CacheStats phase = cache.getStats().since(before);
+		return " Cache: " + phase.getLookups() + " lookups, " + phase.hits + " hits ("
+				+ String.format("%.1f", 100 * phase.getHitRate()) + "%), " + phase.misses + " misses, "
+				+ phase.evictions + " evictions.";
+	}
+}
@@ -0,0 +1,141 @@
+package vn.et2fa.broker;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.algorithm.IHSHAlgorithm;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.VmCatalog;
+import vn.et2fa.util.WorkflowDAG;
+
+import java.util.*;
+
+/**
+ * Result of an ET2FA run (Et2faPlanner), computed before the simulation and handed to the
+ * broker: the VM and the planned start/finish time of every task, and the cost and idle
+ * rate of the plan (IHSH, with the catalog's prices).
+ *
+ * A plan is immutable: its times are copied from the tasks when it is built, and tasks are
+ * looked up by their DAG index, so getVm is an array read and the plan can be passed
+ * between threads safely.
+ */
+public final class SchedulePlan {
+	private final Et2faTask[] tasks; // Planned tasks by DAG index (null if not scheduled)
+	private final Vm[] vms; // VM of each task by DAG index
+	private final double[] startTimes;
+	private final double[] finishTimes;
+	private final Map<Et2faTask, Vm> schedule;
+	private final VmCatalog vmCatalog;
+	private final double makespan;
+	private final double totalCost;
+	private final double totalIdleRate;
+	private final double schedulingTimeSeconds;
+
+	/**
+	 * @param ihsh hibernation schedule of the plan (null if IHSH did not run: cost and idle rate 0)
+	 */
+	SchedulePlan(WorkflowDAG dag, Map<Et2faTask, Vm> schedule, VmCatalog vmCatalog, IHSHAlgorithm ihsh,
+			double schedulingTimeSeconds) {
+		dag.freeze();
+		int n = dag.getTaskCount();
+		this.tasks = new Et2faTask[n];
+		this.vms = new Vm[n];
+		this.startTimes = new double[n];
+		this.finishTimes = new double[n];
+		// Identity keys: a cloudlet's hash changes when it is submitted to a broker
+		Map<Et2faTask, Vm> planned = new IdentityHashMap<>();
+		double maxFinishTime = 0;
+		for (int i = 0; i < n; i++) {
+			Et2faTask task = dag.getTask(i);
+			Vm vm = schedule.get(task);
+			if (vm == null) continue;
+			tasks[i] = task;
+			vms[i] = vm;
+			startTimes[i] = task.getActualStartTime();
+			finishTimes[i] = task.getActualFinishTime();
+			maxFinishTime = Math.max(maxFinishTime, finishTimes[i]);
+			planned.put(task, vm);
+		}
+		this.schedule = Collections.unmodifiableMap(planned);
+		this.vmCatalog = vmCatalog;
+		this.makespan = maxFinishTime;
+		this.schedulingTimeSeconds = schedulingTimeSeconds;
+
+		if (ihsh != null) {
+			Map<Vm, IHSHAlgorithm.VmCostInfo> vmCosts = new HashMap<>();
+			for (int v = 0; v < vmCatalog.size(); v++) {
+				vmCosts.put(vmCatalog.getVm(v), new IHSHAlgorithm.VmCostInfo(vmCatalog.getPricePerSecond(v), vmCatalog.getCapacity(v)));
+			}
+			this.totalCost = ihsh.calculateTotalCost(vmCosts);
+			this.totalIdleRate = ihsh.calculateTotalIdleRate(vmCosts);
+		} else {
+			this.totalCost = 0;
+			this.totalIdleRate = 0;
+		}
+	}
+
+	/**
+	 * Planned VM of a task, or null if the task is not part of the plan
+	 */
+	public Vm getVm(Et2faTask task) {
+		int i = indexOf(task);
+		return i >= 0 ? vms[i] : null;
+	}
+
+	/** Planned start time of a task (NaN if it is not part of the plan) */
+	public double getStartTime(Et2faTask task) {
+		int i = indexOf(task);
+		return i >= 0 ? startTimes[i] : Double.NaN;
+	}
+
+	/** Planned finish time of a task (NaN if it is not part of the plan) */
+	public double getFinishTime(Et2faTask task) {
+		int i = indexOf(task);
+		return i >= 0 ? finishTimes[i] : Double.NaN;
+	}
+
+	private int indexOf(Et2faTask task) {
+		int i = task.getDagIndex();
+		return i >= 0 && i < tasks.length && tasks[i] == task ? i : -1;
+	}
+
+	/** Number of planned tasks */
+	public int size() {
+		return schedule.size();
+	}
+
+	public boolean isEmpty() {
+		return schedule.isEmpty();
+	}
+
+	/** Task -> VM of the plan (read-only) */
+	public Map<Et2faTask, Vm> getSchedule() {
+		return schedule;
+	}
+
+	/** VM pool the plan was computed for */
+	public VmCatalog getVmCatalog() {
+		return vmCatalog;
+	}
+
+	/** Latest planned finish time */
+	public double getMakespan() {
+		return makespan;
+	}
+
+	/** Running + hibernation cost (IHSH) */
+	public double getTotalCost() {
+		return totalCost;
+	}
+
+	public double getTotalIdleRate() {
+		return totalIdleRate;
+	}
+
+	/** Time spent computing the plan, in seconds */
+	public double getSchedulingTime() {
+		return schedulingTimeSeconds;
+	}
+
+	public boolean meetsDeadline(double deadline) {
+		return deadline <= 0 || makespan <= deadline;
+	}
+}
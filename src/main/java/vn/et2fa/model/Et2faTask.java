@@ -19,6 +19,7 @@ public class Et2faTask extends CloudletSimple {
     private double estimatedFinishTime;
     private double actualStartTime;
     private double actualFinishTime;
+    private int dagIndex; // dense index of this task inside its frozen WorkflowDAG (-1 if none)
 
     public Et2faTask(long length, int pesNumber, TaskType taskType) {
         super(length, pesNumber);
@@ -27,6 +28,7 @@ public class Et2faTask extends CloudletSimple {
         this.successors = new ArrayList<>();
         this.computation = length; // Assuming length represents computation
         this.topologicalLevel = -1;
+        this.dagIndex = -1;
     }
 
     public TaskType getTaskType() {
@@ -110,6 +112,17 @@ public class Et2faTask extends CloudletSimple {
         this.actualFinishTime = actualFinishTime;
     }
 
+    /**
+     * Dense 0-based index assigned by WorkflowDAG when it builds its CSR arrays
+     */
+    public int getDagIndex() {
+        return dagIndex;
+    }
+
+    public void setDagIndex(int dagIndex) {
+        this.dagIndex = dagIndex;
+    }
+
     @Override
     public String toString() {
         return String.format("Et2faTask{id=%d, type=%s, level=%d, length=%d}", 
@@ -0,0 +1,180 @@
+package vn.et2fa.util;
+
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact binary ("compiled DAX") workflow format.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   int    magic ("ET2F")
+ *   int    version
+ *   int    taskCount (n)
+ *   int    edgeCount (m)
+ *   long[n]   task computation (Cloudlet length)
+ *   int[n+1]  CSR offsets of successors per task
+ *   int[m]    successor task indices
+ *   double[m] data transfer size per edge (same unit as DaxLoader)
+ * </pre>
+ * Tasks are numbered in DAX job order, so task i gets Cloudlet id i (same as App.createTasksForDax).
+ * Loading memory-maps the file and builds the WorkflowDAG without any XML parsing.
+ */
+public class CompiledDax {
+	public static final String FILE_EXTENSION = ".cdax";
+
+	private static final int MAGIC = 0x46325445; // "ET2F" in little-endian byte order
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+	/**
+	 * Compile a parsed DAX workflow into the binary format
+	 */
+	public static void compile(DaxLoader.DaxWorkflow dax, Path outFile) throws IOException {
+		int n = dax.tasks.size();
+		Map<String, Integer> indexById = new HashMap<>(n * 2);
+		for (int i = 0; i < n; i++) {
+			indexById.put(dax.tasks.get(i).id, i);
+		}
+
+		// Build CSR successor lists in task order
+		int[] offsets = new int[n + 1];
+		List<int[]> targetsByTask = new ArrayList<>(n);
+		List<double[]> transfersByTask = new ArrayList<>(n);
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			String parentId = dax.tasks.get(i).id;
+			List<String> children = dax.dependencies.getOrDefault(parentId, Collections.emptyList());
+			int[] targets = new int[children.size()];
+			double[] transfers = new double[children.size()];
+			int count = 0;
+			for (String childId : children) {
+				Integer child = indexById.get(childId);
+				if (child == null) continue;
+				targets[count] = child;
+				transfers[count] = dax.dataTransfers.getOrDefault(parentId + "_" + childId, 0.0);
+				count++;
+			}
+			targetsByTask.add(Arrays.copyOf(targets, count));
+			transfersByTask.add(Arrays.copyOf(transfers, count));
+			m += count;
+			offsets[i + 1] = m;
+		}
+
+		long size = HEADER_BYTES + (long) n * Long.BYTES + (long) (n + 1) * Integer.BYTES
+				+ (long) m * Integer.BYTES + (long) m * Double.BYTES;
+		ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+		for (DaxLoader.TaskSpec spec : dax.tasks) {
+			buffer.putLong(spec.computation);
+		}
+		for (int offset : offsets) {
+			buffer.putInt(offset);
+		}
+		for (int[] targets : targetsByTask) {
+			for (int target : targets) {
+				buffer.putInt(target);
+			}
+		}
+		for (double[] transfers : transfersByTask) {
+			for (double transfer : transfers) {
+				buffer.putDouble(transfer);
+			}
+		}
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(outFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Memory-map a compiled workflow and build its WorkflowDAG.
+	 * Task i is created as an Et2faTask with id i and the compiled computation as its length.
+	 * The header counts must match the file size, and the offsets, successor indices, lengths
+	 * and transfer sizes must be valid; a corrupt file is rejected with an IOException.
+	 */
+	public static WorkflowDAG load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (mapped.remaining() < HEADER_BYTES || mapped.getInt() != MAGIC) {
+				throw new IOException("Not a compiled DAX file: " + file);
+			}
+			int version = mapped.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported compiled DAX version " + version + " in " + file);
+			}
+			int n = mapped.getInt();
+			int m = mapped.getInt();
+			if (n < 0 || m < 0) {
+				throw new IOException("Corrupt compiled DAX header (" + n + " tasks, " + m + " edges): " + file);
+			}
+
+			// Section start positions in long arithmetic (counts from a corrupt header overflow int);
+			// once the size matches the mapped file they fit in an int
+			long offsetsPos = HEADER_BYTES + (long) n * Long.BYTES;
+			long targetsPos = offsetsPos + ((long) n + 1) * Integer.BYTES;
+			long transfersPos = targetsPos + (long) m * Integer.BYTES;
+			long size = transfersPos + (long) m * Double.BYTES;
+			if (size != mapped.limit()) {
+				throw new IOException((size > mapped.limit() ? "Truncated" : "Oversized") + " compiled DAX file (" + n
+						+ " tasks, " + m + " edges need " + size + " bytes, found " + mapped.limit() + "): " + file);
+			}
+
+			List<Et2faTask> tasks = new ArrayList<>(n);
+			WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+			for (int i = 0; i < n; i++) {
+				long computation = mapped.getLong(HEADER_BYTES + i * Long.BYTES);
+				if (computation <= 0) {
+					throw new IOException("Corrupt compiled DAX file, task " + i + " has length " + computation + ": " + file);
+				}
+				Et2faTask task = new Et2faTask(computation, 1, TaskType.GENERAL);
+				task.setId(i);
+				tasks.add(task);
+				builder.addTask(task);
+			}
+
+			int end = mapped.getInt((int) offsetsPos);
+			if (end != 0) {
+				throw new IOException("Corrupt compiled DAX file, first successor offset " + end + ": " + file);
+			}
+			for (int i = 0; i < n; i++) {
+				int start = end;
+				end = mapped.getInt((int) offsetsPos + (i + 1) * Integer.BYTES);
+				if (end < start || end > m) {
+					throw new IOException("Corrupt compiled DAX file, successor offsets " + start + ".." + end
+							+ " of task " + i + " (" + m + " edges): " + file);
+				}
+				for (int e = start; e < end; e++) {
+					int target = mapped.getInt((int) targetsPos + e * Integer.BYTES);
+					double transfer = mapped.getDouble((int) transfersPos + e * Double.BYTES);
+					if (target < 0 || target >= n || target == i) {
+						throw new IOException("Corrupt compiled DAX file, edge " + e + " from task " + i + " to " + target + ": " + file);
+					}
+					if (!(transfer >= 0) || Double.isInfinite(transfer)) {
+						throw new IOException("Corrupt compiled DAX file, edge " + e + " transfers " + transfer + ": " + file);
+					}
+					builder.addDependency(tasks.get(i), tasks.get(target), transfer);
+				}
+			}
+			if (end != m) {
+				throw new IOException("Corrupt compiled DAX file, offsets end at " + end + " of " + m + " edges: " + file);
+			}
+			return builder.build();
+		}
+	}
+}
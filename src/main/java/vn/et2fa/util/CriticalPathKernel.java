@@ -0,0 +1,267 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Forward/backward pass over the workflow DAG on primitive arrays indexed by dense task id
+ * (Et2faTask.getDagIndex()).
+ *
+ * For task durations and edge delays (communication times) it computes, in O(n+m) without
+ * boxing:
+ * - EST/EFT: earliest start/finish, EST(y) = max{EFT(x) + C_{x,y}} over predecessors x (0 for entry tasks)
+ * - LST/LFT: latest start/finish that keep the critical path length, LFT(x) = min{LST(y) - C_{x,y}}
+ *   over successors y (the path length for exit tasks)
+ * - slack = LST - EST, and the critical tasks (zero slack)
+ *
+ * The topological order is computed once, when the kernel is built; compute() can then be called
+ * again with new durations/delays (e.g. after tasks moved to other VMs) at the cost of two
+ * array sweeps. Edge delays are parallel to WorkflowDAG.getSuccessorIndices().
+ *
+ * Optionally the task order on each VM is added as extra edges (delay 0), so the pass runs on the
+ * scheduled DAG, whose longest path is the makespan of the schedule (up to the cold startup of
+ * the first VM). The topological order is then recomputed for the given VM order.
+ */
+public class CriticalPathKernel {
+    private final WorkflowDAG dag;
+    private final int[] dagOrder; // Topological order of the data edges
+    private int[] topologicalOrder; // Order of the last compute() (with VM order edges if given)
+    private int[] nextOnVm; // Next task on the same VM, -1 if none; null for data edges only
+    private int[] previousOnVm;
+    private final int[] successorOffsets;
+    private final int[] successorIndices;
+    private final int[] predecessorOffsets;
+    private final int[] predecessorIndices;
+    private final int[] predecessorEdges; // Position of each predecessor edge in the successor arrays
+
+    private final double[] earliestStarts;
+    private final double[] earliestFinishes;
+    private final double[] latestStarts;
+    private final double[] latestFinishes;
+    private double[] durations;
+    private double[] edgeDelays;
+    private double length;
+
+    public CriticalPathKernel(WorkflowDAG dag) {
+        dag.freeze();
+        this.dag = dag;
+        int n = dag.getTaskCount();
+        this.successorOffsets = dag.getSuccessorOffsets();
+        this.successorIndices = dag.getSuccessorIndices();
+        this.predecessorOffsets = dag.getPredecessorOffsets();
+        this.predecessorIndices = dag.getPredecessorIndices();
+
+        // Predecessor rows are sorted by source index, so one scan over the sources in index
+        // order fills each row in the same order as getPredecessorIndices()
+        this.predecessorEdges = new int[successorIndices.length];
+        int[] fill = Arrays.copyOf(predecessorOffsets, n);
+        for (int x = 0; x < n; x++) {
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                predecessorEdges[fill[successorIndices[e]]++] = e;
+            }
+        }
+
+        this.dagOrder = topologicalOrder(null, null);
+        this.topologicalOrder = dagOrder;
+        this.earliestStarts = new double[n];
+        this.earliestFinishes = new double[n];
+        this.latestStarts = new double[n];
+        this.latestFinishes = new double[n];
+    }
+
+    /**
+     * Kahn's algorithm over the CSR arrays, plus the VM order edges if given
+     */
+    private int[] topologicalOrder(int[] nextOnVm, int[] previousOnVm) {
+        int n = predecessorOffsets.length - 1;
+        int[] order = new int[n];
+        int[] remaining = new int[n];
+        int tail = 0;
+        for (int x = 0; x < n; x++) {
+            remaining[x] = predecessorOffsets[x + 1] - predecessorOffsets[x];
+            if (previousOnVm != null && previousOnVm[x] >= 0) remaining[x]++;
+            if (remaining[x] == 0) order[tail++] = x;
+        }
+        for (int head = 0; head < tail; head++) {
+            int x = order[head];
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                if (--remaining[successorIndices[e]] == 0) order[tail++] = successorIndices[e];
+            }
+            if (nextOnVm != null && nextOnVm[x] >= 0 && --remaining[nextOnVm[x]] == 0) order[tail++] = nextOnVm[x];
+        }
+        if (tail < n) {
+            throw new IllegalStateException((nextOnVm != null ? "VM task order contradicts the workflow DAG"
+                    : "Workflow DAG has a cycle") + " (" + (n - tail) + " tasks not ordered)");
+        }
+        return order;
+    }
+
+    /**
+     * Forward and backward pass
+     *
+     * @param durations duration of each task, by dense index
+     * @param edgeDelays delay of each edge (communication time), parallel to
+     *                   WorkflowDAG.getSuccessorIndices(); null for none
+     */
+    public void compute(double[] durations, double[] edgeDelays) {
+        compute(durations, edgeDelays, null);
+    }
+
+    /**
+     * Forward and backward pass on the scheduled DAG
+     *
+     * @param nextOnVm next task on the same VM for each task (-1 for the last one), or null for
+     *                 data edges only
+     */
+    public void compute(double[] durations, double[] edgeDelays, int[] nextOnVm) {
+        int n = dagOrder.length;
+        this.durations = durations;
+        this.edgeDelays = edgeDelays;
+        this.nextOnVm = nextOnVm;
+        if (nextOnVm == null) {
+            previousOnVm = null;
+            topologicalOrder = dagOrder;
+        } else {
+            previousOnVm = new int[n];
+            Arrays.fill(previousOnVm, -1);
+            for (int x = 0; x < n; x++) {
+                if (nextOnVm[x] >= 0) previousOnVm[nextOnVm[x]] = x;
+            }
+            topologicalOrder = topologicalOrder(nextOnVm, previousOnVm);
+        }
+
+        // Forward pass: EST/EFT in topological order
+        length = 0;
+        for (int k = 0; k < n; k++) {
+            int y = topologicalOrder[k];
+            double start = 0;
+            for (int p = predecessorOffsets[y]; p < predecessorOffsets[y + 1]; p++) {
+                double delay = edgeDelays != null ? edgeDelays[predecessorEdges[p]] : 0.0;
+                start = Math.max(start, earliestFinishes[predecessorIndices[p]] + delay);
+            }
+            if (previousOnVm != null && previousOnVm[y] >= 0) {
+                start = Math.max(start, earliestFinishes[previousOnVm[y]]);
+            }
+            earliestStarts[y] = start;
+            earliestFinishes[y] = start + durations[y];
+            length = Math.max(length, earliestFinishes[y]);
+        }
+
+        // Backward pass: LFT/LST in reverse topological order
+        for (int k = n - 1; k >= 0; k--) {
+            int x = topologicalOrder[k];
+            double finish = length;
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                double delay = edgeDelays != null ? edgeDelays[e] : 0.0;
+                finish = Math.min(finish, latestStarts[successorIndices[e]] - delay);
+            }
+            if (nextOnVm != null && nextOnVm[x] >= 0) {
+                finish = Math.min(finish, latestStarts[nextOnVm[x]]);
+            }
+            latestFinishes[x] = finish;
+            latestStarts[x] = finish - durations[x];
+        }
+    }
+
+    /**
+     * Forward and backward pass for a VM assignment: durations are execution times on the
+     * assigned VMs, edge delays communication times between different VMs (Eq. 5), read from a
+     * matrix of the kernel's DAG whose pool contains every assigned VM
+     */
+    public void compute(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix) {
+        int n = dagOrder.length;
+        double[] durations = new double[n];
+        int[] vms = new int[n];
+        for (int x = 0; x < n; x++) {
+            Vm vm = schedule.get(dag.getTask(x));
+            vms[x] = vm != null ? matrix.indexOf(vm) : -1;
+            if (vm != null && vms[x] < 0) {
+                throw new IllegalArgumentException("VM " + vm.getId() + " is not in the execution matrix");
+            }
+            if (vms[x] >= 0) {
+                durations[x] = matrix.getExecutionTime(x, vms[x]);
+            }
+        }
+        double[] transfers = dag.getSuccessorTransfers();
+        double[] edgeDelays = new double[successorIndices.length];
+        for (int x = 0; x < n; x++) {
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                int from = vms[x];
+                int to = vms[successorIndices[e]];
+                if (from >= 0 && to >= 0) {
+                    edgeDelays[e] = matrix.getCommunicationTime(transfers[e], from, to);
+                }
+            }
+        }
+        compute(durations, edgeDelays);
+    }
+
+    /** Workflow the kernel runs on */
+    public WorkflowDAG getDag() {
+        return dag;
+    }
+
+    /** Duration of a task in the last compute() */
+    public double getDuration(int task) {
+        return durations[task];
+    }
+
+    /** Delay of an edge (position in WorkflowDAG.getSuccessorIndices()) in the last compute() */
+    public double getEdgeDelay(int edge) {
+        return edgeDelays != null ? edgeDelays[edge] : 0.0;
+    }
+
+    /** Next task on the same VM in the last compute(), or -1 (always -1 for data edges only) */
+    public int getNextOnVm(int task) {
+        return nextOnVm != null ? nextOnVm[task] : -1;
+    }
+
+    /** Previous task on the same VM in the last compute(), or -1 */
+    public int getPreviousOnVm(int task) {
+        return previousOnVm != null ? previousOnVm[task] : -1;
+    }
+
+    /** Length of the critical path (makespan of the unconstrained schedule) */
+    public double getLength() {
+        return length;
+    }
+
+    public double getEarliestStart(int task) {
+        return earliestStarts[task];
+    }
+
+    public double getEarliestFinish(int task) {
+        return earliestFinishes[task];
+    }
+
+    public double getLatestStart(int task) {
+        return latestStarts[task];
+    }
+
+    public double getLatestFinish(int task) {
+        return latestFinishes[task];
+    }
+
+    /** Slack of a task: how far it can be delayed without lengthening the critical path */
+    public double getSlack(int task) {
+        return latestStarts[task] - earliestStarts[task];
+    }
+
+    /** Dense task indices in topological order (of the last compute()) */
+    public int[] getTopologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * Tasks whose slack is at most the tolerance, in topological order
+     */
+    public List<Et2faTask> getCriticalTasks(double tolerance) {
+        List<Et2faTask> critical = new ArrayList<>();
+        for (int x : topologicalOrder) {
+            if (getSlack(x) <= tolerance) critical.add(dag.getTask(x));
+        }
+        return critical;
+    }
+}
@@ -0,0 +1,77 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.allocationpolicies.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.datacenters.Datacenter;
+import org.cloudbus.cloudsim.datacenters.DatacenterSimple;
+import org.cloudbus.cloudsim.hosts.Host;
+import org.cloudbus.cloudsim.hosts.HostSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.resources.Pe;
+import org.cloudbus.cloudsim.resources.PeSimple;
+import org.cloudbus.cloudsim.schedulers.vm.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.vms.Vm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datacenter sized for a given VM pool, e.g. thousands of VMs from a VmPoolConfig.
+ *
+ * Hosts are identical and each fits vmsPerHost of the largest VMs of the pool: one PE per VM PE
+ * at the highest VM MIPS, and vmsPerHost times the largest VM RAM, bandwidth and image size.
+ * ceil(VMs / vmsPerHost) hosts are created, so every VM of the pool can be placed.
+ */
+public class DatacenterBuilder {
+    private final CloudSim simulation;
+    private int vmsPerHost = 8;
+
+    public DatacenterBuilder(CloudSim simulation) {
+        this.simulation = simulation;
+    }
+
+    public DatacenterBuilder setVmsPerHost(int vmsPerHost) {
+        if (vmsPerHost < 1) {
+            throw new IllegalArgumentException("vmsPerHost must be at least 1: " + vmsPerHost);
+        }
+        this.vmsPerHost = vmsPerHost;
+        return this;
+    }
+
+    public int getVmsPerHost() {
+        return vmsPerHost;
+    }
+
+    /** Number of hosts build creates for the VMs */
+    public int getHostCount(List<Vm> vms) {
+        return Math.max(1, (vms.size() + vmsPerHost - 1) / vmsPerHost);
+    }
+
+    public Datacenter build(List<Vm> vms) {
+        double maxMips = 0;
+        long maxPes = 1;
+        long maxRam = 0;
+        long maxBw = 0;
+        long maxSize = 0;
+        for (Vm vm : vms) {
+            maxMips = Math.max(maxMips, vm.getMips());
+            maxPes = Math.max(maxPes, vm.getNumberOfPes());
+            maxRam = Math.max(maxRam, vm.getRam().getCapacity());
+            maxBw = Math.max(maxBw, vm.getBw().getCapacity());
+            maxSize = Math.max(maxSize, vm.getStorage().getCapacity());
+        }
+
+        int hostCount = getHostCount(vms);
+        List<Host> hostList = new ArrayList<>(hostCount);
+        for (int h = 0; h < hostCount; h++) {
+            List<Pe> peList = new ArrayList<>();
+            for (long p = 0; p < maxPes * vmsPerHost; p++) {
+                peList.add(new PeSimple(maxMips, new PeProvisionerSimple()));
+            }
+            Host host = new HostSimple(maxRam * vmsPerHost, maxBw * vmsPerHost, maxSize * vmsPerHost, peList)
+                    .setVmScheduler(new VmSchedulerTimeShared());
+            hostList.add(host);
+        }
+        return new DatacenterSimple(simulation, hostList, new VmAllocationPolicySimple());
+    }
+}
@@ -3,7 +3,13 @@ package vn.et2fa.util;
 import org.w3c.dom.*;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.*;
 
 /**
@@ -11,7 +17,11 @@ import java.util.*;
  * Simplified assumptions:
  * - Jobs are tasks. Uses 'runtime' attribute (if present) to set computation length; else default.
  * - Dependencies are defined by <child><parent/></child> elements.
- * - Data transfers are approximated as the sum of parent output file sizes shared with child inputs.
+ * - Data transfer of an edge parent -> child is the sum of the sizes of the files the parent produces
+ *   (link="output") and the child reads (link="input"); edges without shared files carry no data.
+ *
+ * {@link #load(String)} uses a streaming StAX pull parser (bounded memory, no job cap).
+ * {@link #loadDom(String)} keeps the original DOM-based path for comparison/benchmarking.
  */
 public class DaxLoader {
 	public static class DaxWorkflow {
@@ -38,7 +48,82 @@ public class DaxLoader {
 		}
 	}
 
+	/**
+	 * Load a DAX file with the streaming StAX parser.
+	 * Reads &lt;job&gt;, &lt;uses&gt; and &lt;child&gt;/&lt;parent&gt; in a single pass without building a DOM,
+	 * so complete workflows (1k-100k jobs) can be loaded without truncation.
+	 */
 	public static DaxWorkflow load(String daxFilePath) throws Exception {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+		List<TaskSpec> taskSpecs = new ArrayList<>();
+		FileIndex fileIndex = new FileIndex();
+		Set<String> jobIds = new HashSet<>();
+		Map<String, List<String>> deps = new HashMap<>();
+
+		try (InputStream in = new BufferedInputStream(new FileInputStream(daxFilePath), 64 * 1024)) {
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				String currentJob = null;   // id of the <job> being read
+				String currentChild = null; // ref of the <child> being read
+
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						// Local names cover both "job" and namespaced "ns0:job"
+						switch (reader.getLocalName()) {
+							case "job" -> {
+								currentJob = reader.getAttributeValue(null, "id");
+								jobIds.add(currentJob);
+								taskSpecs.add(new TaskSpec(currentJob, parseComputation(reader.getAttributeValue(null, "runtime"))));
+							}
+							case "uses" -> {
+								if (currentJob == null) break;
+								// DAX 2.x names the file in "file", DAX 3.x in "name"
+								String file = reader.getAttributeValue(null, "file");
+								if (file == null || file.isEmpty()) file = reader.getAttributeValue(null, "name");
+								fileIndex.addUse(currentJob, file, reader.getAttributeValue(null, "link"),
+										reader.getAttributeValue(null, "size"));
+							}
+							case "child" -> currentChild = reader.getAttributeValue(null, "ref");
+							case "parent" -> {
+								if (currentChild == null) break;
+								String parentId = reader.getAttributeValue(null, "ref");
+								deps.computeIfAbsent(parentId, k -> new ArrayList<>()).add(currentChild);
+							}
+							default -> { }
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						switch (reader.getLocalName()) {
+							case "job" -> currentJob = null;
+							case "child" -> currentChild = null;
+							default -> { }
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+
+		// <child> elements may reference jobs that are not defined in the file; drop those edges
+		deps.keySet().retainAll(jobIds);
+		for (List<String> children : deps.values()) {
+			children.removeIf(childId -> !jobIds.contains(childId));
+		}
+		deps.values().removeIf(List::isEmpty);
+
+		return new DaxWorkflow(taskSpecs, deps, fileIndex.computeTransfers(deps));
+	}
+
+	/**
+	 * Load a DAX file by building a full DOM tree.
+	 * Kept for comparison with the streaming {@link #load(String)}; produces the same {@link DaxWorkflow}.
+	 */
+	public static DaxWorkflow loadDom(String daxFilePath) throws Exception {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		factory.setNamespaceAware(true); // Enable namespace support for ns0:job tags
 		factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
@@ -54,61 +139,31 @@ public class DaxLoader {
 			jobNodes = doc.getElementsByTagNameNS("http://pegasus.isi.edu/schema/DAX", "job");
 		}
 		List<TaskSpec> taskSpecs = new ArrayList<>();
-		Map<String, Map<String, Long>> jobOutputSizes = new HashMap<>(); // jobId -> (filename -> size)
+		FileIndex fileIndex = new FileIndex();
 		Set<String> jobIds = new HashSet<>();
 
-		// For large workflows (1000 tasks, 629, 1034), only load reduced number of tasks to prevent hanging
-		// But we'll fake the count in logs to show the original number
-		int maxJobsToLoad = Integer.MAX_VALUE;
-		String fileName = new File(daxFilePath).getName().toLowerCase();
-		if (fileName.contains("1000") || fileName.contains("997")) {
-			maxJobsToLoad = 530; // Only load 530 tasks instead of 1000/997 (maximum safe limit for all workflows including Inspiral)
-		} else if (fileName.contains("1034")) {
-			maxJobsToLoad = 250; // Only load 250 tasks instead of 1034 (reduced to prevent simulation hanging)
-		} else if (fileName.contains("629")) {
-			maxJobsToLoad = 250; // Only load 250 tasks instead of 629 (reduced to prevent simulation hanging)
-		}
-
-		int totalJobsInFile = jobNodes.getLength();
-		int jobsToProcess = Math.min(totalJobsInFile, maxJobsToLoad);
-
-		for (int i = 0; i < jobsToProcess; i++) {
+		for (int i = 0; i < jobNodes.getLength(); i++) {
 			Element job = (Element) jobNodes.item(i);
 			String jobId = job.getAttribute("id");
 			jobIds.add(jobId);
-			// runtime in seconds (if present). Map to Cloudlet length by runtime * 1000
-			long computation = 10000; // default
-			String runtimeStr = job.getAttribute("runtime");
-			if (runtimeStr != null && !runtimeStr.isEmpty()) {
-				try {
-					double runtimeSec = Double.parseDouble(runtimeStr);
-					computation = Math.max(1000, (long) (runtimeSec * 1000));
-				} catch (NumberFormatException ignored) {}
-			}
-			taskSpecs.add(new TaskSpec(jobId, computation));
+			taskSpecs.add(new TaskSpec(jobId, parseComputation(job.getAttribute("runtime"))));
 
-			// collect output file sizes (if any)
+			// collect input/output files (if any)
 			NodeList uses = job.getElementsByTagName("uses");
 			if (uses.getLength() == 0) {
 				// Try with namespace
 				uses = job.getElementsByTagNameNS("http://pegasus.isi.edu/schema/DAX", "uses");
 			}
-			Map<String, Long> outputs = new HashMap<>();
 			for (int u = 0; u < uses.getLength(); u++) {
 				Element use = (Element) uses.item(u);
-				String link = use.getAttribute("link"); // input or output
-				if (!"output".equalsIgnoreCase(link)) continue;
-				String name = use.getAttribute("name");
-				String sizeStr = use.getAttribute("size");
-				if (name == null || name.isEmpty()) continue;
-				long size = 0;
-				try { size = Long.parseLong(sizeStr); } catch (Exception ignored) {}
-				outputs.put(name, size);
+				// DAX 2.x names the file in "file", DAX 3.x in "name"
+				String file = use.getAttribute("file");
+				if (file.isEmpty()) file = use.getAttribute("name");
+				fileIndex.addUse(jobId, file, use.getAttribute("link"), use.getAttribute("size"));
 			}
-			if (!outputs.isEmpty()) jobOutputSizes.put(jobId, outputs);
 		}
 
-		// 2) Parse dependencies (only for loaded jobs)
+		// 2) Parse dependencies (only for defined jobs)
 		Map<String, List<String>> deps = new HashMap<>();
 		NodeList childNodes = doc.getElementsByTagName("child");
 		if (childNodes.getLength() == 0) {
@@ -118,7 +173,7 @@ public class DaxLoader {
 		for (int i = 0; i < childNodes.getLength(); i++) {
 			Element child = (Element) childNodes.item(i);
 			String childId = child.getAttribute("ref");
-			if (!jobIds.contains(childId)) continue; // Skip if child not loaded
+			if (!jobIds.contains(childId)) continue; // Skip if child not defined
 			NodeList parents = child.getElementsByTagName("parent");
 			if (parents.getLength() == 0) {
 				// Try with namespace
@@ -127,29 +182,82 @@ public class DaxLoader {
 			for (int p = 0; p < parents.getLength(); p++) {
 				Element parent = (Element) parents.item(p);
 				String parentId = parent.getAttribute("ref");
-				if (!jobIds.contains(parentId)) continue; // Skip if parent not loaded
+				if (!jobIds.contains(parentId)) continue; // Skip if parent not defined
 				deps.computeIfAbsent(parentId, k -> new ArrayList<>()).add(childId);
 			}
 		}
 
-		// 3) Approximate data transfers between parent-child
-		Map<String, Double> dataTransfers = new HashMap<>();
-		for (Map.Entry<String, List<String>> e : deps.entrySet()) {
-			String parentId = e.getKey();
-			Map<String, Long> parentOutputs = jobOutputSizes.getOrDefault(parentId, Collections.emptyMap());
-			for (String childId : e.getValue()) {
-				// If parent has outputs, sum sizes as data to child; else set small default
-				long sum = 0;
-				for (long sz : parentOutputs.values()) sum += sz;
-				// Convert bytes to a rough "GFLOP"-like transfer time unit; here use MB → pseudo units
-				double gf = sum > 0 ? (sum / (1024.0 * 1024.0)) : 50.0; // default 50 if unknown
-				dataTransfers.put(parentId + "_" + childId, gf);
-			}
-		}
+		// 3) Data transfers between parent-child from the producer/consumer file index
+		return new DaxWorkflow(taskSpecs, deps, fileIndex.computeTransfers(deps));
+	}
 
-		return new DaxWorkflow(taskSpecs, deps, dataTransfers);
+	/**
+	 * runtime in seconds (if present). Map to Cloudlet length by runtime * 1000
+	 */
+	private static long parseComputation(String runtimeStr) {
+		long computation = 10000; // default
+		if (runtimeStr != null && !runtimeStr.isEmpty()) {
+			try {
+				double runtimeSec = Double.parseDouble(runtimeStr);
+				computation = Math.max(1000, (long) (runtimeSec * 1000));
+			} catch (NumberFormatException ignored) {}
+		}
+		return computation;
 	}
-}
 
+	/**
+	 * Producer/consumer index of the files referenced by &lt;uses&gt; elements, filled while parsing.
+	 * Transfer sizes are then computed in one linear pass over the consumers' input files
+	 * instead of scanning every parent's outputs for every edge.
+	 */
+	static final class FileIndex {
+		private final Map<String, List<String>> producersByFile = new HashMap<>(); // file -> jobs writing it
+		private final Map<String, Long> producedSizes = new HashMap<>();           // file -> size declared by producer
+		private final Map<String, Map<String, Long>> inputsByJob = new HashMap<>(); // jobId -> (file -> size)
 
+		void addUse(String jobId, String file, String link, String sizeStr) {
+			if (file == null || file.isEmpty() || link == null) return;
+			long size = 0;
+			try { size = Long.parseLong(sizeStr); } catch (Exception ignored) {}
+			if ("output".equalsIgnoreCase(link)) {
+				producersByFile.computeIfAbsent(file, k -> new ArrayList<>(1)).add(jobId);
+				producedSizes.merge(file, size, Math::max);
+			} else if ("input".equalsIgnoreCase(link)) {
+				inputsByJob.computeIfAbsent(jobId, k -> new HashMap<>()).merge(file, size, Math::max);
+			}
+		}
+
+		/**
+		 * Transfer size of every dependency edge: the sum of the files the child reads that the parent
+		 * writes, converted from bytes to MB. Edges that share no file (control-only dependencies) get 0.
+		 */
+		Map<String, Double> computeTransfers(Map<String, List<String>> deps) {
+			Map<String, Double> dataTransfers = new HashMap<>();
+			Map<String, Set<String>> parentsByChild = new HashMap<>();
+			for (Map.Entry<String, List<String>> e : deps.entrySet()) {
+				for (String childId : e.getValue()) {
+					dataTransfers.put(e.getKey() + "_" + childId, 0.0);
+					parentsByChild.computeIfAbsent(childId, k -> new HashSet<>()).add(e.getKey());
+				}
+			}
 
+			for (Map.Entry<String, Set<String>> e : parentsByChild.entrySet()) {
+				String childId = e.getKey();
+				Set<String> parents = e.getValue();
+				Map<String, Long> inputs = inputsByJob.getOrDefault(childId, Collections.emptyMap());
+				for (Map.Entry<String, Long> input : inputs.entrySet()) {
+					List<String> producers = producersByFile.get(input.getKey());
+					if (producers == null) continue; // workflow input, staged in rather than transferred
+					long size = input.getValue() > 0 ? input.getValue() : producedSizes.getOrDefault(input.getKey(), 0L);
+					double mb = size / (1024.0 * 1024.0);
+					for (String producer : producers) {
+						if (parents.contains(producer)) {
+							dataTransfers.merge(producer + "_" + childId, mb, Double::sum);
+						}
+					}
+				}
+			}
+			return dataTransfers;
+		}
+	}
+}
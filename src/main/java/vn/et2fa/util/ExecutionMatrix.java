@@ -0,0 +1,185 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Execution and communication times of a workflow on a VM pool, precomputed once per run.
+ *
+ * VMs are grouped into classes of identical VMs (same VmType, or the same MIPS and
+ * bandwidth for VMs without a type). For T tasks and K classes it keeps:
+ * - a double[T][K] execution time matrix, t_i^h = w_i / U_h (rows by Et2faTask.getDagIndex())
+ * - a double[K][K] inverse bandwidth matrix (seconds per MB), so a communication time is
+ *   dataSize * inverseBandwidth[k1][k2]
+ * Memory is O(T * K + K^2), independent of the number of VM instances, and lookups are plain
+ * array reads: no map lookups, no boxing.
+ *
+ * Types come from the pool's VmCatalog. Communication follows VmConfig.calculateCommunicationTime:
+ * the minimum of the two types' bandwidths if both VMs have a type, otherwise the minimum of the
+ * CloudSim VM bandwidths (Mbps, 1 Gbps if unknown).
+ *
+ * Rows belong to the DAG as it was when the matrix was built: after simplifyDAG or
+ * expandSimplifiedDAG (which change tasks and computations) a new matrix is needed.
+ */
+public class ExecutionMatrix {
+    private static final double MBPS_PER_GBPS = 1000.0;
+    private static final double MB_PER_GBIT = 125.0; // 1 Gbps = 125 MB/s
+
+    private final WorkflowDAG dag;
+    private final VmCatalog catalog;
+    private final int[] vmClasses; // Class of each VM (pool position)
+    private final VmConfig.VmType[] classTypes; // Registered type of each class (null if none)
+    private final double[] classCapacities;
+    private final double[] classPricesPerSecond;
+    private final double[][] executionTimes; // [task][class]
+    private final double[][] inverseBandwidths; // [class][class], seconds per MB
+
+    /**
+     * Matrix for a VM pool with the Table 4 types assigned in pool order (VmCatalog.createDefault)
+     */
+    public ExecutionMatrix(WorkflowDAG dag, List<Vm> vms) {
+        this(dag, VmCatalog.createDefault(vms));
+    }
+
+    public ExecutionMatrix(WorkflowDAG dag, VmCatalog catalog) {
+        dag.freeze();
+        this.dag = dag;
+        this.catalog = catalog;
+        this.vmClasses = new int[catalog.size()];
+
+        // Classes of identical VMs
+        Map<List<Object>, Integer> classIds = new HashMap<>();
+        List<VmConfig.VmType> types = new ArrayList<>();
+        List<Integer> representatives = new ArrayList<>();
+        for (int v = 0; v < vmClasses.length; v++) {
+            Vm vm = catalog.getVm(v);
+            VmConfig.VmType type = catalog.getType(v);
+            List<Object> key = Arrays.asList(type != null ? type : vm.getMips(), vm.getBw().getCapacity());
+            Integer id = classIds.get(key);
+            if (id == null) {
+                id = types.size();
+                classIds.put(key, id);
+                types.add(type);
+                representatives.add(v);
+            }
+            vmClasses[v] = id;
+        }
+
+        int classCount = types.size();
+        this.classTypes = types.toArray(new VmConfig.VmType[0]);
+        this.classCapacities = new double[classCount];
+        this.classPricesPerSecond = new double[classCount];
+        double[] typeBandwidths = new double[classCount]; // Gbps
+        double[] vmBandwidths = new double[classCount]; // Gbps, CloudSim bandwidth
+        for (int k = 0; k < classCount; k++) {
+            int v = representatives.get(k);
+            VmConfig.VmType type = classTypes[k];
+            classCapacities[k] = catalog.getCapacity(v);
+            classPricesPerSecond[k] = catalog.getPricePerSecond(v);
+            typeBandwidths[k] = type != null ? type.bandwidth : 0;
+            vmBandwidths[k] = catalog.getVm(v).getBw().getCapacity() / MBPS_PER_GBPS;
+        }
+
+        this.inverseBandwidths = new double[classCount][classCount];
+        for (int a = 0; a < classCount; a++) {
+            for (int b = 0; b < classCount; b++) {
+                double bandwidth;
+                if (classTypes[a] != null && classTypes[b] != null) {
+                    bandwidth = Math.min(typeBandwidths[a], typeBandwidths[b]);
+                } else {
+                    bandwidth = Math.min(vmBandwidths[a], vmBandwidths[b]);
+                    if (bandwidth <= 0) bandwidth = 1.0; // Default 1 Gbps if not available
+                }
+                inverseBandwidths[a][b] = 1.0 / (bandwidth * MB_PER_GBIT);
+            }
+        }
+
+        int n = dag.getTaskCount();
+        this.executionTimes = new double[n][classCount];
+        for (int i = 0; i < n; i++) {
+            double computation = dag.getTask(i).getComputation();
+            for (int k = 0; k < classCount; k++) {
+                executionTimes[i][k] = computation / classCapacities[k];
+            }
+        }
+    }
+
+    /** Workflow the rows belong to */
+    public WorkflowDAG getDag() {
+        return dag;
+    }
+
+    /** VM pool and types the columns belong to */
+    public VmCatalog getCatalog() {
+        return catalog;
+    }
+
+    public int getVmCount() {
+        return vmClasses.length;
+    }
+
+    public Vm getVm(int vm) {
+        return catalog.getVm(vm);
+    }
+
+    /** Position of a VM in the pool, or -1 */
+    public int indexOf(Vm vm) {
+        return catalog.indexOf(vm);
+    }
+
+    /** Number of classes of identical VMs */
+    public int getClassCount() {
+        return classTypes.length;
+    }
+
+    /** Class of a VM (pool position) */
+    public int getClassOf(int vm) {
+        return vmClasses[vm];
+    }
+
+    /** Registered type of a class, or null */
+    public VmConfig.VmType getClassType(int vmClass) {
+        return classTypes[vmClass];
+    }
+
+    /** U_h: processing capacity of a VM (pool position) */
+    public double getCapacity(int vm) {
+        return classCapacities[vmClasses[vm]];
+    }
+
+    public double getPricePerSecond(int vm) {
+        return classPricesPerSecond[vmClasses[vm]];
+    }
+
+    /** t_i^h: execution time of a task (dense index) on a VM (pool position) */
+    public double getExecutionTime(int task, int vm) {
+        return executionTimes[task][vmClasses[vm]];
+    }
+
+    public double getExecutionTime(Et2faTask task, int vm) {
+        return executionTimes[task.getDagIndex()][vmClasses[vm]];
+    }
+
+    /** Execution time of a task (dense index) on any VM of a class */
+    public double getClassExecutionTime(int task, int vmClass) {
+        return executionTimes[task][vmClass];
+    }
+
+    /**
+     * Communication time of a data transfer between two VMs (pool positions), 0 on the same VM
+     */
+    public double getCommunicationTime(double dataSize, int fromVm, int toVm) {
+        if (fromVm == toVm || dataSize <= 0) return 0.0;
+        return dataSize * inverseBandwidths[vmClasses[fromVm]][vmClasses[toVm]];
+    }
+
+    /**
+     * Communication time of a data transfer between two different VMs of the given classes
+     */
+    public double getClassCommunicationTime(double dataSize, int fromClass, int toClass) {
+        if (dataSize <= 0) return 0.0;
+        return dataSize * inverseBandwidths[fromClass][toClass];
+    }
+}
@@ -0,0 +1,275 @@
+package vn.et2fa.util;
+
+import java.util.*;
+
+/**
+ * Cost of one VM under the IHSH hibernation rules (Algorithm 4, Eq. 6-7), with "what if" queries
+ * for inserting, removing or shifting tasks.
+ *
+ * Hibernations are placed as in IHSH: after task k if the idle gap to the next task is longer
+ * than DUR_H and more than GAP_H has passed since the end of the previous hibernation (tempT).
+ * The cost is split into pieces, one per hibernation (the running segment before it, billed
+ * with Eq. 1, plus the hibernation at the ElasticIP price) and the final running segment, with
+ * prefix sums over the pieces. A change to the task list only changes the pieces around it:
+ * the pieces before the change are read from the prefix sums, the hibernation decisions after
+ * it are replayed until they coincide with the current ones again (same tempT and running
+ * segment start at an unchanged gap, e.g. the same hibernation), and the rest is read from the
+ * prefix sums. Locating the change is O(log n) and the replay usually ends a few gaps after it
+ * (GAP_H is short compared with task durations); only decisions that keep differing make it
+ * longer.
+ *
+ * Queries are not thread-safe (they share replay state).
+ */
+public class HibernationCostModel {
+    // IHSH parameters
+    public static final double DUR_H = 60.0; // Shortest duration of hibernation (seconds)
+    public static final double GAP_H = 120.0; // Minimum gap between two adjacent hibernations (seconds)
+    public static final double DUR_W = 34.0; // Warm startup time (seconds)
+    public static final double M_H = 0.005 / 3600.0; // ElasticIP cost per second ($/h -> $/s)
+    public static final double DUR_C = 55.9; // Cold startup time (seconds): a VM's lease starts this long before its first task
+
+    private enum Change { NONE, INSERT, REMOVE, SHIFT }
+
+    private final double[] starts;
+    private final double[] finishes;
+    private final double pricePerSecond;
+    private final int[] hibernateAfter; // Positions k with a hibernation between task k and k + 1
+    private final double[] piecePrefix; // piecePrefix[j] = cost of the pieces of the first j hibernations
+    private final double totalCost;
+
+    // Change being evaluated (positions in the current task list)
+    private Change change = Change.NONE;
+    private int changeFrom;
+    private int changeTo;
+    private double changeStart;
+    private double changeFinish;
+    private double changeDelay;
+
+    /**
+     * @param starts start times of the VM's tasks, sorted
+     * @param finishes finish times, parallel to starts
+     */
+    public HibernationCostModel(double[] starts, double[] finishes, double pricePerSecond) {
+        this.starts = starts.clone();
+        this.finishes = finishes.clone();
+        this.pricePerSecond = pricePerSecond;
+
+        List<Integer> positions = new ArrayList<>();
+        List<Double> pieces = new ArrayList<>();
+        double runStart = starts.length == 0 ? 0 : leaseStart(starts[0]);
+        double tempT = 0;
+        for (int k = 0; k + 1 < starts.length; k++) {
+            if (hibernates(starts[k + 1] - finishes[k], finishes[k], tempT)) {
+                positions.add(k);
+                pieces.add(piece(runStart, finishes[k], starts[k + 1]));
+                tempT = starts[k + 1];
+                runStart = tempT + DUR_W;
+            }
+        }
+        this.hibernateAfter = positions.stream().mapToInt(Integer::intValue).toArray();
+        this.piecePrefix = new double[pieces.size() + 1];
+        for (int j = 0; j < pieces.size(); j++) {
+            piecePrefix[j + 1] = piecePrefix[j] + pieces.get(j);
+        }
+        this.totalCost = starts.length == 0 ? 0 : piecePrefix[pieces.size()] + finalPiece(runStart, finishes[starts.length - 1]);
+    }
+
+    public HibernationCostModel(VmTimeline timeline, double pricePerSecond) {
+        this(positionsOf(timeline, true), positionsOf(timeline, false), pricePerSecond);
+    }
+
+    /**
+     * Model of a VM's tasks (times from the tasks' actual start/finish times)
+     */
+    public static HibernationCostModel forSequence(VmTaskSequence sequence, double pricePerSecond) {
+        double[] starts = new double[sequence.size()];
+        double[] finishes = new double[sequence.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = sequence.get(i).getActualStartTime();
+            finishes[i] = sequence.get(i).getActualFinishTime();
+        }
+        return new HibernationCostModel(starts, finishes, pricePerSecond);
+    }
+
+    private static double[] positionsOf(VmTimeline timeline, boolean starts) {
+        double[] times = new double[timeline.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = starts ? timeline.getStart(i) : timeline.getFinish(i);
+        }
+        return times;
+    }
+
+    /** Running + hibernation cost of the VM with the current tasks */
+    public double getCost() {
+        return totalCost;
+    }
+
+    /** Number of hibernations IHSH places on the VM */
+    public int getHibernationCount() {
+        return hibernateAfter.length;
+    }
+
+    /**
+     * Cost if a task running [start, finish] were added (placed by its start time; it must fit
+     * into an idle gap)
+     */
+    public double costIfInserted(double start, double finish) {
+        change = Change.INSERT;
+        changeFrom = insertionPoint(start);
+        changeStart = start;
+        changeFinish = finish;
+        return replay(changeFrom - 1);
+    }
+
+    /** Cost if the task at the given position were removed */
+    public double costIfRemoved(int position) {
+        change = Change.REMOVE;
+        changeFrom = position;
+        return replay(position - 1);
+    }
+
+    /**
+     * Cost if the tasks at positions [from, to) were delayed by delay seconds (without reordering)
+     */
+    public double costIfShifted(int from, int to, double delay) {
+        change = Change.SHIFT;
+        changeFrom = from;
+        changeTo = to;
+        changeDelay = delay;
+        return replay(from - 1);
+    }
+
+    /**
+     * Cost after the change: pieces before the first changed gap from the prefix sums, then the
+     * hibernation decisions replayed until they match the current ones
+     */
+    private double replay(int firstChangedGap) {
+        int newSize = newSize();
+        if (newSize == 0) return 0;
+        int first = Math.max(0, firstChangedGap);
+        int kept = countHibernationsBefore(first);
+        double cost = piecePrefix[kept];
+        double tempT = kept == 0 ? 0 : starts[hibernateAfter[kept - 1] + 1];
+        double runStart = kept == 0 ? leaseStart(newStart(0)) : tempT + DUR_W;
+
+        for (int k = first; k + 1 < newSize; k++) {
+            int oldGap = unchangedGap(k);
+            if (oldGap >= 0) {
+                int oldKept = countHibernationsBefore(oldGap);
+                double oldTempT = oldKept == 0 ? 0 : starts[hibernateAfter[oldKept - 1] + 1];
+                double oldRunStart = oldKept == 0 ? leaseStart(starts[0]) : oldTempT + DUR_W;
+                if (oldTempT == tempT && oldRunStart == runStart) {
+                    // Same state at the same gap: all later decisions are the current ones
+                    return cost + totalCost - piecePrefix[oldKept];
+                }
+            }
+            double finish = newFinish(k);
+            double nextStart = newStart(k + 1);
+            if (hibernates(nextStart - finish, finish, tempT)) {
+                cost += piece(runStart, finish, nextStart);
+                tempT = nextStart;
+                runStart = tempT + DUR_W;
+            }
+        }
+        return cost + finalPiece(runStart, newFinish(newSize - 1));
+    }
+
+    private boolean hibernates(double gap, double finish, double tempT) {
+        return gap > DUR_H && finish - tempT > GAP_H;
+    }
+
+    /** Running segment [runStart, hibernation start] (if any) and the hibernation itself */
+    private double piece(double runStart, double hibernationStart, double hibernationEnd) {
+        double running = hibernationStart > runStart ? pricePerSecond * billingTime(runStart, hibernationStart) : 0;
+        return running + M_H * billingTime(hibernationStart, hibernationEnd);
+    }
+
+    private double finalPiece(double runStart, double leaseEnd) {
+        return leaseEnd > runStart ? pricePerSecond * billingTime(runStart, leaseEnd) : 0;
+    }
+
+    /** Eq. 1: g(t1, t2) = ceil(max{t2 - t1, 60}) */
+    private static double billingTime(double start, double end) {
+        return Math.ceil(Math.max(end - start, 60.0));
+    }
+
+    /** Lease start for a first task starting at the given time (cold startup before it) */
+    private static double leaseStart(double firstStart) {
+        return Math.max(0, firstStart - DUR_C);
+    }
+
+    // Task list after the change (positions in the new list)
+
+    private int newSize() {
+        switch (change) {
+            case INSERT: return starts.length + 1;
+            case REMOVE: return starts.length - 1;
+            default: return starts.length;
+        }
+    }
+
+    private double newStart(int i) {
+        return newTime(i, starts, changeStart);
+    }
+
+    private double newFinish(int i) {
+        return newTime(i, finishes, changeFinish);
+    }
+
+    private double newTime(int i, double[] times, double insertedTime) {
+        switch (change) {
+            case INSERT:
+                if (i < changeFrom) return times[i];
+                return i == changeFrom ? insertedTime : times[i - 1];
+            case REMOVE:
+                return i < changeFrom ? times[i] : times[i + 1];
+            case SHIFT:
+                return i >= changeFrom && i < changeTo ? times[i] + changeDelay : times[i];
+            default:
+                return times[i];
+        }
+    }
+
+    /**
+     * Current position of gap k of the new list (between tasks k and k + 1) if it lies after the
+     * change and is unchanged, otherwise -1
+     */
+    private int unchangedGap(int k) {
+        switch (change) {
+            case INSERT: return k > changeFrom ? k - 1 : -1;
+            case REMOVE: return k >= changeFrom ? k + 1 : -1;
+            case SHIFT: return k >= changeTo ? k : -1;
+            default: return k;
+        }
+    }
+
+    /** Number of current hibernations at gaps before the given one */
+    private int countHibernationsBefore(int gap) {
+        int low = 0;
+        int high = hibernateAfter.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hibernateAfter[mid] < gap) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Position of a task starting at the given time: after every task that starts at or before it */
+    private int insertionPoint(double start) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,232 @@
+package vn.et2fa.util;
+
+import java.util.Arrays;
+
+/**
+ * Free (idle) time intervals of every VM of a pool, for insertion-based scheduling.
+ *
+ * Each VM keeps its free intervals sorted by start time; the last one is open-ended and starts
+ * at the VM's ready time (completion time of its last task). Intervals are stored in one treap
+ * per VM (shared primitive node pool), augmented with the longest interval of each subtree, so
+ * the earliest interval that can hold a task is found in O(log k) for k intervals on the VM.
+ */
+public class IdleSlotIndex {
+    private static final int NONE = -1;
+
+    private final int[] roots;
+
+    // Node pool: interval [start, end), treap priority, children and subtree max length
+    private double[] starts;
+    private double[] ends;
+    private double[] maxLengths;
+    private int[] priorities;
+    private int[] lefts;
+    private int[] rights;
+    private int nodeCount;
+    private int freeList = NONE; // Removed nodes, linked through lefts[]
+    private int nextPriority = 0x2545F491; // Deterministic priorities (same layout on every run)
+
+    /**
+     * @param vmCount number of VMs in the pool
+     * @param initialReadyTime ready time of an unused VM (cold startup)
+     */
+    public IdleSlotIndex(int vmCount, double initialReadyTime) {
+        this.roots = new int[vmCount];
+        int capacity = Math.max(16, vmCount * 4);
+        this.starts = new double[capacity];
+        this.ends = new double[capacity];
+        this.maxLengths = new double[capacity];
+        this.priorities = new int[capacity];
+        this.lefts = new int[capacity];
+        this.rights = new int[capacity];
+        for (int vm = 0; vm < vmCount; vm++) {
+            roots[vm] = newNode(initialReadyTime, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Earliest start time >= readyTime at which a task of the given duration fits into a free
+     * interval of the VM. The open-ended last interval always fits, so this is never later than
+     * max(readyTime, VM ready time).
+     */
+    public double earliestStart(int vm, double readyTime, double duration) {
+        // Interval containing readyTime: the task can start right away if it ends in time
+        int containing = floor(roots[vm], readyTime);
+        if (containing != NONE && readyTime + duration <= ends[containing]) {
+            return readyTime;
+        }
+        // Otherwise the first later interval that is long enough
+        int node = firstFitAfter(roots[vm], readyTime, duration);
+        return starts[node];
+    }
+
+    /**
+     * Mark [start, start + duration) as busy. The range must lie in one free interval
+     * (as returned by earliestStart); the remainder on either side stays free.
+     */
+    public void occupy(int vm, double start, double duration) {
+        int node = floor(roots[vm], start);
+        if (node == NONE) {
+            throw new IllegalArgumentException("No free interval of VM " + vm + " contains " + start);
+        }
+        double slotStart = starts[node];
+        double slotEnd = ends[node];
+        double finish = start + duration;
+
+        roots[vm] = remove(roots[vm], slotStart);
+        if (start > slotStart) {
+            roots[vm] = insert(roots[vm], newNode(slotStart, start));
+        }
+        if (finish < slotEnd) {
+            roots[vm] = insert(roots[vm], newNode(finish, slotEnd));
+        }
+    }
+
+    /**
+     * Ready time of the VM: start of its open-ended free interval
+     */
+    public double getReadyTime(int vm) {
+        int node = roots[vm];
+        while (rights[node] != NONE) {
+            node = rights[node];
+        }
+        return starts[node];
+    }
+
+    /** Node with the largest start <= time, or NONE */
+    private int floor(int node, double time) {
+        int result = NONE;
+        while (node != NONE) {
+            if (starts[node] <= time) {
+                result = node;
+                node = rights[node];
+            } else {
+                node = lefts[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Leftmost node with start > time and length >= duration, or NONE. Subtrees whose longest
+     * interval is too short are skipped, so only O(log k) nodes are visited.
+     */
+    private int firstFitAfter(int node, double time, double duration) {
+        if (node == NONE || maxLengths[node] < duration) return NONE;
+        if (starts[node] <= time) {
+            return firstFitAfter(rights[node], time, duration);
+        }
+        int found = firstFitAfter(lefts[node], time, duration);
+        if (found != NONE) return found;
+        if (ends[node] - starts[node] >= duration) return node;
+        return firstFitAfter(rights[node], time, duration);
+    }
+
+    private int insert(int root, int node) {
+        if (root == NONE) return node;
+        if (priorities[node] > priorities[root]) {
+            int[] parts = split(root, starts[node]);
+            lefts[node] = parts[0];
+            rights[node] = parts[1];
+            update(node);
+            return node;
+        }
+        if (starts[node] < starts[root]) {
+            lefts[root] = insert(lefts[root], node);
+        } else {
+            rights[root] = insert(rights[root], node);
+        }
+        update(root);
+        return root;
+    }
+
+    /** Split into nodes with start < key and start >= key */
+    private int[] split(int node, double key) {
+        if (node == NONE) return new int[] {NONE, NONE};
+        if (starts[node] < key) {
+            int[] parts = split(rights[node], key);
+            rights[node] = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        int[] parts = split(lefts[node], key);
+        lefts[node] = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private int remove(int node, double start) {
+        if (node == NONE) return NONE;
+        if (starts[node] == start) {
+            int merged = merge(lefts[node], rights[node]);
+            release(node);
+            return merged;
+        }
+        if (start < starts[node]) {
+            lefts[node] = remove(lefts[node], start);
+        } else {
+            rights[node] = remove(rights[node], start);
+        }
+        update(node);
+        return node;
+    }
+
+    private int merge(int left, int right) {
+        if (left == NONE) return right;
+        if (right == NONE) return left;
+        if (priorities[left] > priorities[right]) {
+            rights[left] = merge(rights[left], right);
+            update(left);
+            return left;
+        }
+        lefts[right] = merge(left, lefts[right]);
+        update(right);
+        return right;
+    }
+
+    private void update(int node) {
+        double max = ends[node] - starts[node];
+        if (lefts[node] != NONE) max = Math.max(max, maxLengths[lefts[node]]);
+        if (rights[node] != NONE) max = Math.max(max, maxLengths[rights[node]]);
+        maxLengths[node] = max;
+    }
+
+    private int newNode(double start, double end) {
+        int node;
+        if (freeList != NONE) {
+            node = freeList;
+            freeList = lefts[node];
+        } else {
+            if (nodeCount == starts.length) grow();
+            node = nodeCount++;
+        }
+        starts[node] = start;
+        ends[node] = end;
+        maxLengths[node] = end - start;
+        lefts[node] = NONE;
+        rights[node] = NONE;
+        // xorshift: deterministic, well-spread priorities
+        nextPriority ^= nextPriority << 13;
+        nextPriority ^= nextPriority >>> 17;
+        nextPriority ^= nextPriority << 5;
+        priorities[node] = nextPriority;
+        return node;
+    }
+
+    private void release(int node) {
+        lefts[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        maxLengths = Arrays.copyOf(maxLengths, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        lefts = Arrays.copyOf(lefts, capacity);
+        rights = Arrays.copyOf(rights, capacity);
+    }
+}
@@ -0,0 +1,521 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Schedule that supports task migration: VM assignment and task order on every VM, with each task
+ * started as soon as possible (after its VM's previous task, its predecessors' data and the cold
+ * startup), as in T2FA.
+ *
+ * Moving a task to another VM only re-times the tasks it can affect: starting from the moved task
+ * and its new and old neighbours, changes are propagated along data edges and VM order in
+ * topological order (by start time before the move), so the longest path / makespan is kept up to
+ * date without a full forward pass. The cost of each VM under the IHSH hibernation rules
+ * (HibernationCostModel) is maintained per VM. Moves can be tried and rolled back
+ * (checkpoint/rollback), so callers can evaluate "what if" moves exactly, or estimate the cost of
+ * a move into idle time in O(log n) from the cost models first.
+ *
+ * Cost models are immutable: after a move, the model of every VM whose tasks were re-timed (at
+ * least the source and target VM) is rebuilt from its task sequence, O(k) for k tasks on the VM,
+ * and the old model is kept for rollback. A move therefore costs O(k) on top of the propagation
+ * even when it re-times a single task; the what-if queries stay O(log n).
+ *
+ * Empty VMs of one ExecutionMatrix class are interchangeable: a task moved to any of them gets
+ * the same times and the same cost. Candidate VMs (nextCandidateVm) are therefore the used VMs
+ * plus the first empty VM of each class, so searches over target VMs grow with the number of
+ * used VMs and classes, not with the size of the pool.
+ *
+ * Task times are the actualStartTime/actualFinishTime of the tasks themselves.
+ */
+public class IncrementalSchedule {
+    private static final double COLD_STARTUP_TIME = HibernationCostModel.DUR_C; // Dur^C: VM ready time before its first task
+    private static final double EPSILON = 1e-9;
+
+    private final ExecutionMatrix matrix; // VM pool, execution and communication times
+    private final OptimizationCache cache; // Edge communication times (null = read the matrix)
+    private final VmTaskSequence[] sequences;
+    private final HibernationCostModel[] costModels;
+    private final double[] vmCosts;
+    private double totalCost;
+
+    // Tasks by DAG index, with the (frozen) DAG's CSR adjacency
+    private final Et2faTask[] tasks;
+    private final int[] taskVm;
+    private final int[] predecessorOffsets;
+    private final int[] predecessorIndices;
+    private final double[] predecessorTransfers;
+    private final int[] successorOffsets;
+    private final int[] successorIndices;
+
+    // Propagation: binary min-heap of task indices by (start, finish) at the time they were queued
+    private int[] heap;
+    private int heapSize;
+    private final double[] keyStarts;
+    private final double[] keyFinishes;
+    private final boolean[] queued;
+    private final BitSet touchedVms = new BitSet();
+
+    // VM usage: used VMs, empty VMs of each class, used VMs + first empty VM of each class
+    private final BitSet usedVms;
+    private final BitSet[] emptyVmsByClass;
+    private final BitSet candidateVms;
+
+    // Undo log for rollback
+    private final List<Runnable> undoLog = new ArrayList<>();
+
+    /**
+     * @param schedule task -> VM with actual start/finish times (every task of the DAG scheduled)
+     * @param dag workflow of the schedule
+     * @param availableVms VM pool; tasks may be moved to any of them
+     */
+    public IncrementalSchedule(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, List<Vm> availableVms) {
+        this(schedule, new ExecutionMatrix(dag, availableVms));
+    }
+
+    /**
+     * @param matrix execution/communication times of the schedule's DAG on the VM pool; tasks
+     *               may be moved to any VM of the pool
+     */
+    public IncrementalSchedule(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix) {
+        this(schedule, matrix, null);
+    }
+
+    /**
+     * @param cache cache the matrix was taken from (null for none); communication times of edges
+     *              are looked up in it
+     */
+    public IncrementalSchedule(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix, OptimizationCache cache) {
+        WorkflowDAG dag = matrix.getDag();
+        dag.freeze();
+        this.matrix = matrix;
+        this.cache = cache;
+        int vmCount = matrix.getVmCount();
+
+        int n = dag.getTaskCount();
+        this.tasks = new Et2faTask[n];
+        this.taskVm = new int[n];
+        Map<Integer, List<Et2faTask>> tasksByVm = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            tasks[i] = dag.getTask(i);
+            int v = matrix.indexOf(schedule.get(tasks[i]));
+            if (v < 0) {
+                throw new IllegalArgumentException("Task " + tasks[i].getId() + " is not scheduled on an available VM");
+            }
+            taskVm[i] = v;
+            tasksByVm.computeIfAbsent(v, k -> new ArrayList<>()).add(tasks[i]);
+        }
+        this.sequences = new VmTaskSequence[vmCount];
+        this.costModels = new HibernationCostModel[vmCount];
+        this.vmCosts = new double[vmCount];
+        for (int v = 0; v < vmCount; v++) {
+            sequences[v] = new VmTaskSequence(tasksByVm.getOrDefault(v, Collections.emptyList()));
+            costModels[v] = HibernationCostModel.forSequence(sequences[v], matrix.getPricePerSecond(v));
+            vmCosts[v] = costModels[v].getCost();
+            totalCost += vmCosts[v];
+        }
+
+        this.usedVms = new BitSet(vmCount);
+        this.emptyVmsByClass = new BitSet[matrix.getClassCount()];
+        this.candidateVms = new BitSet(vmCount);
+        for (int k = 0; k < emptyVmsByClass.length; k++) {
+            emptyVmsByClass[k] = new BitSet(vmCount);
+        }
+        for (int v = 0; v < vmCount; v++) {
+            if (sequences[v].isEmpty()) {
+                BitSet empty = emptyVmsByClass[matrix.getClassOf(v)];
+                if (empty.isEmpty()) candidateVms.set(v);
+                empty.set(v);
+            } else {
+                usedVms.set(v);
+                candidateVms.set(v);
+            }
+        }
+
+        this.predecessorOffsets = dag.getPredecessorOffsets();
+        this.predecessorIndices = dag.getPredecessorIndices();
+        this.predecessorTransfers = dag.getPredecessorTransfers();
+        this.successorOffsets = dag.getSuccessorOffsets();
+        this.successorIndices = dag.getSuccessorIndices();
+
+        this.heap = new int[Math.max(16, n)];
+        this.keyStarts = new double[n];
+        this.keyFinishes = new double[n];
+        this.queued = new boolean[n];
+    }
+
+    public int getVmCount() {
+        return matrix.getVmCount();
+    }
+
+    public Vm getVm(int vm) {
+        return matrix.getVm(vm);
+    }
+
+    /** Position of a VM in the pool, or -1 */
+    public int indexOf(Vm vm) {
+        return matrix.indexOf(vm);
+    }
+
+    /** First used VM (one with tasks) at or after the given pool position, or -1 */
+    public int nextUsedVm(int vm) {
+        return usedVms.nextSetBit(vm);
+    }
+
+    /**
+     * First candidate target VM at or after the given pool position, or -1: every used VM and
+     * the first empty VM of each class (the other empty VMs of a class give the same result)
+     */
+    public int nextCandidateVm(int vm) {
+        return candidateVms.nextSetBit(vm);
+    }
+
+    /** VM (pool position) the task is assigned to */
+    public int getVmOf(Et2faTask task) {
+        return taskVm[task.getDagIndex()];
+    }
+
+    public VmTaskSequence getSequence(int vm) {
+        return sequences[vm];
+    }
+
+    public double getCapacity(int vm) {
+        return matrix.getCapacity(vm);
+    }
+
+    public double getPricePerSecond(int vm) {
+        return matrix.getPricePerSecond(vm);
+    }
+
+    /** Total cost of all VMs: running and hibernation cost under the IHSH rules */
+    public double getCost() {
+        return totalCost;
+    }
+
+    /** Cost model of a VM with its current tasks */
+    public HibernationCostModel getCostModel(int vm) {
+        return costModels[vm];
+    }
+
+    /**
+     * Total cost if the task were moved into idle time of the VM (see fitsIdleTime), from the cost
+     * models of the two VMs in O(log n). Other tasks are assumed to keep their times, so the
+     * effect of re-timing the task's successors is not included.
+     */
+    public double estimateMoveCost(Et2faTask task, int vm) {
+        int source = taskVm[task.getDagIndex()];
+        if (source == vm) return totalCost;
+        double finish = estimateFinishTime(task, vm);
+        double start = finish - getExecutionTime(task, vm);
+        return totalCost
+                - vmCosts[source] + costModels[source].costIfRemoved(sequences[source].positionOf(task))
+                - vmCosts[vm] + costModels[vm].costIfInserted(start, finish);
+    }
+
+    /** Completion time of the last task */
+    public double getMakespan() {
+        double makespan = 0;
+        for (VmTaskSequence sequence : sequences) {
+            if (!sequence.isEmpty()) makespan = Math.max(makespan, sequence.last().getActualFinishTime());
+        }
+        return makespan;
+    }
+
+    public double getExecutionTime(Et2faTask task, int vm) {
+        return matrix.getExecutionTime(task.getDagIndex(), vm);
+    }
+
+    /**
+     * Time at which the data of all predecessors is available on the VM
+     */
+    public double getDataReadyTime(Et2faTask task, int vm) {
+        int x = task.getDagIndex();
+        double ready = 0;
+        for (int e = predecessorOffsets[x]; e < predecessorOffsets[x + 1]; e++) {
+            int pred = predecessorIndices[e];
+            ready = Math.max(ready, tasks[pred].getActualFinishTime()
+                    + getCommunicationTime(pred, x, predecessorTransfers[e], taskVm[pred], vm));
+        }
+        return ready;
+    }
+
+    /**
+     * Finish time the task would get on the VM if it were moved there, before re-timing any other
+     * task: it is placed by its current start time and starts after the task before it.
+     * Exact unless the move delays the task's new successor on the VM.
+     */
+    public double estimateFinishTime(Et2faTask task, int vm) {
+        double start = Math.max(COLD_STARTUP_TIME, getDataReadyTime(task, vm));
+        Et2faTask previous = previousTaskAtInsertion(task, vm);
+        if (previous != null) start = Math.max(start, previous.getActualFinishTime());
+        return start + getExecutionTime(task, vm);
+    }
+
+    /**
+     * Whether moving the task to the VM fits into the idle time before the next task there
+     * (so no other task on the VM is delayed)
+     */
+    public boolean fitsIdleTime(Et2faTask task, int vm) {
+        VmTaskSequence sequence = sequences[vm];
+        int position = sequence.insertionPoint(task.getActualStartTime());
+        if (position < sequence.size() && sequence.get(position) == task) position++;
+        return position >= sequence.size()
+                || estimateFinishTime(task, vm) <= sequence.get(position).getActualStartTime() + EPSILON;
+    }
+
+    private Et2faTask previousTaskAtInsertion(Et2faTask task, int vm) {
+        VmTaskSequence sequence = sequences[vm];
+        int position = sequence.insertionPoint(task.getActualStartTime());
+        while (position > 0 && sequence.get(position - 1) == task) position--;
+        return position > 0 ? sequence.get(position - 1) : null;
+    }
+
+    /**
+     * Move a task to another VM (placed by its current start time) and re-time everything it affects
+     */
+    public void move(Et2faTask task, int targetVm) {
+        int x = task.getDagIndex();
+        int sourceVm = taskVm[x];
+        if (sourceVm == targetVm) return;
+
+        VmTaskSequence source = sequences[sourceVm];
+        VmTaskSequence target = sequences[targetVm];
+        int fromPosition = source.positionOf(task);
+        source.remove(fromPosition);
+        int toPosition = target.insertionPoint(task.getActualStartTime());
+        target.insert(toPosition, task);
+        taskVm[x] = targetVm;
+        undoLog.add(() -> {
+            target.remove(target.positionOf(task));
+            source.insert(fromPosition, task);
+            taskVm[x] = sourceVm;
+            updateUsage(sourceVm);
+            updateUsage(targetVm);
+        });
+        updateUsage(sourceVm);
+        updateUsage(targetVm);
+
+        touchedVms.set(sourceVm);
+        touchedVms.set(targetVm);
+        // The moved task, its new successor on the target VM and its old successor on the source VM
+        push(x);
+        if (toPosition + 1 < target.size()) push(target.get(toPosition + 1).getDagIndex());
+        if (fromPosition < source.size()) push(source.get(fromPosition).getDagIndex());
+        propagate(x);
+        updateVmCosts();
+    }
+
+    /**
+     * Update the used/empty state of a VM after its sequence changed, keeping the first empty
+     * VM of its class as the class's only empty candidate
+     */
+    private void updateUsage(int vm) {
+        boolean used = !sequences[vm].isEmpty();
+        if (used == usedVms.get(vm)) return;
+        BitSet empty = emptyVmsByClass[matrix.getClassOf(vm)];
+        int firstEmpty = empty.nextSetBit(0);
+        if (used) {
+            usedVms.set(vm);
+            empty.clear(vm);
+        } else {
+            usedVms.clear(vm);
+            empty.set(vm);
+        }
+        int newFirstEmpty = empty.nextSetBit(0);
+        if (firstEmpty >= 0 && firstEmpty != newFirstEmpty && !usedVms.get(firstEmpty)) candidateVms.clear(firstEmpty);
+        if (newFirstEmpty >= 0) candidateVms.set(newFirstEmpty);
+        if (used) {
+            candidateVms.set(vm);
+        } else if (vm != newFirstEmpty) {
+            candidateVms.clear(vm);
+        }
+    }
+
+    /** Checkpoint for rollback */
+    public int checkpoint() {
+        return undoLog.size();
+    }
+
+    /** Undo every move made after the checkpoint (including the re-timing of other tasks) */
+    public void rollback(int checkpoint) {
+        for (int i = undoLog.size() - 1; i >= checkpoint; i--) {
+            undoLog.remove(i).run();
+        }
+    }
+
+    /** Keep all moves made so far (drops the undo log) */
+    public void commit() {
+        undoLog.clear();
+    }
+
+    /**
+     * Re-time queued tasks in topological order. Queue keys are start/finish times before the
+     * move, which are consistent with the new data and VM order edges; a task whose times change
+     * queues its successors. The moved task always queues its successors (their communication
+     * times changed with its VM).
+     */
+    private void propagate(int movedTask) {
+        while (heapSize > 0) {
+            int x = pop();
+            queued[x] = false;
+            Et2faTask task = tasks[x];
+            int vm = taskVm[x];
+            VmTaskSequence sequence = sequences[vm];
+            int position = sequence.positionOf(task);
+
+            double start = Math.max(COLD_STARTUP_TIME, getDataReadyTime(task, vm));
+            if (position > 0) start = Math.max(start, sequence.get(position - 1).getActualFinishTime());
+            double finish = start + getExecutionTime(task, vm);
+
+            double oldStart = task.getActualStartTime();
+            double oldFinish = task.getActualFinishTime();
+            boolean changed = Math.abs(start - oldStart) > EPSILON || Math.abs(finish - oldFinish) > EPSILON;
+            if (changed) {
+                task.setActualStartTime(start);
+                task.setActualFinishTime(finish);
+                undoLog.add(() -> {
+                    task.setActualStartTime(oldStart);
+                    task.setActualFinishTime(oldFinish);
+                });
+                touchedVms.set(vm);
+            }
+            if (changed || x == movedTask) {
+                for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                    push(successorIndices[e]);
+                }
+                if (position + 1 < sequence.size()) push(sequence.get(position + 1).getDagIndex());
+            }
+        }
+    }
+
+    /**
+     * Rebuild the cost models of the VMs whose tasks were re-timed, O(k) for k tasks on a VM
+     */
+    private void updateVmCosts() {
+        for (int v = touchedVms.nextSetBit(0); v >= 0; v = touchedVms.nextSetBit(v + 1)) {
+            int vm = v;
+            HibernationCostModel oldModel = costModels[vm];
+            double oldCost = vmCosts[vm];
+            costModels[vm] = HibernationCostModel.forSequence(sequences[vm], matrix.getPricePerSecond(vm));
+            vmCosts[vm] = costModels[vm].getCost();
+            totalCost += vmCosts[vm] - oldCost;
+            undoLog.add(() -> {
+                totalCost += oldCost - vmCosts[vm];
+                vmCosts[vm] = oldCost;
+                costModels[vm] = oldModel;
+            });
+        }
+        touchedVms.clear();
+    }
+
+    /** Communication time of a data transfer between two VMs (pool positions), 0 on the same VM */
+    public double getCommunicationTime(double dataSize, int fromVm, int toVm) {
+        return matrix.getCommunicationTime(dataSize, fromVm, toVm);
+    }
+
+    /**
+     * Communication time of the edge fromTask -> toTask (dense indices) between two VMs (pool
+     * positions), 0 on the same VM; from the cache if there is one
+     */
+    public double getCommunicationTime(int fromTask, int toTask, double dataSize, int fromVm, int toVm) {
+        if (cache != null) return cache.getCommunicationTime(fromTask, toTask, dataSize, fromVm, toVm);
+        return matrix.getCommunicationTime(dataSize, fromVm, toVm);
+    }
+
+    /**
+     * Critical path of the current schedule: from the last finishing task back to the start,
+     * following at each step the VM predecessor or data predecessor that determines the start time
+     */
+    public List<Et2faTask> getCriticalPath() {
+        Et2faTask current = null;
+        for (VmTaskSequence sequence : sequences) {
+            if (!sequence.isEmpty() && (current == null
+                    || sequence.last().getActualFinishTime() > current.getActualFinishTime())) {
+                current = sequence.last();
+            }
+        }
+        List<Et2faTask> path = new ArrayList<>();
+        while (current != null) {
+            path.add(current);
+            current = bindingPredecessor(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private Et2faTask bindingPredecessor(Et2faTask task) {
+        int x = task.getDagIndex();
+        int vm = taskVm[x];
+        double start = task.getActualStartTime();
+        for (int e = predecessorOffsets[x]; e < predecessorOffsets[x + 1]; e++) {
+            int pred = predecessorIndices[e];
+            double ready = tasks[pred].getActualFinishTime() + getCommunicationTime(pred, x, predecessorTransfers[e], taskVm[pred], vm);
+            if (Math.abs(ready - start) <= 1e-6) return tasks[pred];
+        }
+        int position = sequences[vm].positionOf(task);
+        if (position > 0) {
+            Et2faTask previous = sequences[vm].get(position - 1);
+            if (Math.abs(previous.getActualFinishTime() - start) <= 1e-6) return previous;
+        }
+        return null;
+    }
+
+    /**
+     * Write the VM assignment back into the schedule map
+     *
+     * @return number of tasks whose VM changed
+     */
+    public int applyTo(Map<Et2faTask, Vm> schedule) {
+        int changed = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            Vm vm = matrix.getVm(taskVm[i]);
+            if (schedule.put(tasks[i], vm) != vm) changed++;
+        }
+        return changed;
+    }
+
+    private void push(int x) {
+        if (queued[x]) return;
+        queued[x] = true;
+        keyStarts[x] = tasks[x].getActualStartTime();
+        keyFinishes[x] = tasks[x].getActualFinishTime();
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int i = heapSize++;
+        heap[i] = x;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(heap[i], heap[parent])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heap[0] = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) break;
+            int child = left + 1 < heapSize && before(heap[left + 1], heap[left]) ? left + 1 : left;
+            if (!before(heap[child], heap[i])) break;
+            swap(i, child);
+            i = child;
+        }
+        return top;
+    }
+
+    private boolean before(int a, int b) {
+        if (keyStarts[a] != keyStarts[b]) return keyStarts[a] < keyStarts[b];
+        if (keyFinishes[a] != keyFinishes[b]) return keyFinishes[a] < keyFinishes[b];
+        return a < b;
+    }
+
+    private void swap(int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+}
@@ -0,0 +1,270 @@
+package vn.et2fa.util;
+
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Near-critical paths of a workflow: the K longest entry-to-exit paths, or all tasks within
+ * epsilon slack, from the results of a CriticalPathKernel pass. If the pass ran on the scheduled
+ * DAG, paths also follow the task order on the VMs.
+ *
+ * Paths are enumerated with deviations (Eppstein): the backward pass gives the longest tail
+ * d(x) = length - LST(x) from every task, and the edge x -> y that attains d(x) is x's tree
+ * edge. Any other edge costs delta = d(x) - (duration(x) + delay + d(y)) >= 0, and a path is
+ * described by the non-tree edges (deviations) it takes; its length is the critical path length
+ * minus the sum of their deltas. A candidate is its parent candidate plus one deviation, taken on
+ * the tree part of the parent's path after the parent's own deviation, so every path is
+ * generated exactly once. Candidates are popped by total delta, i.e. paths come out in
+ * decreasing length; popping one pushes at most its tree part's out-edges, so K paths cost
+ * O(K * (n + m)) time and memory however many paths are equally long. Deviations whose total
+ * delta exceeds epsilon (LST bound) are never pushed.
+ */
+public class NearCriticalPaths {
+    private final CriticalPathKernel kernel;
+    private final WorkflowDAG dag;
+    private final int n;
+    private final int m; // Data edges; edge ids: data edge e, VM-order edge m + x, entry edge m + n + x
+
+    private final int[] edgeSources; // Task each data edge leaves
+    private int[] treeEdges; // Tree (longest tail) edge of every task, -1 for exit tasks
+
+    // Candidates: parent candidate, deviation edge, total delta
+    private int[] candidateParents = new int[64];
+    private int[] candidateEdges = new int[64];
+    private double[] candidateDeltas = new double[64];
+    private int candidateCount;
+    private int[] heap = new int[64];
+    private int heapSize;
+
+    /** A path of the workflow with its length (sum of durations and edge delays) */
+    public static class Path {
+        private final List<Et2faTask> tasks;
+        private final double length;
+
+        Path(List<Et2faTask> tasks, double length) {
+            this.tasks = tasks;
+            this.length = length;
+        }
+
+        public List<Et2faTask> getTasks() {
+            return tasks;
+        }
+
+        public double getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * @param kernel kernel on which compute() has been called
+     */
+    public NearCriticalPaths(CriticalPathKernel kernel) {
+        this.kernel = kernel;
+        this.dag = kernel.getDag();
+        this.n = dag.getTaskCount();
+        this.m = dag.getSuccessorIndices().length;
+        this.edgeSources = new int[m];
+        int[] successorOffsets = dag.getSuccessorOffsets();
+        for (int x = 0; x < n; x++) {
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) edgeSources[e] = x;
+        }
+    }
+
+    /**
+     * The k longest paths, longest first
+     */
+    public List<Path> getLongestPaths(int k) {
+        return getLongestPaths(k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * The k longest paths whose length is within epsilon of the critical path length, longest first
+     */
+    public List<Path> getLongestPaths(int k, double epsilon) {
+        List<Path> paths = new ArrayList<>();
+        if (k <= 0 || n == 0) return paths;
+        int[] successorOffsets = dag.getSuccessorOffsets();
+        computeTreeEdges();
+        candidateCount = 0;
+        heapSize = 0;
+
+        // Paths from each entry task (edges from a virtual source; the critical one has delta 0)
+        int[] predecessorOffsets = dag.getPredecessorOffsets();
+        for (int x = 0; x < n; x++) {
+            if (predecessorOffsets[x] == predecessorOffsets[x + 1] && kernel.getPreviousOnVm(x) < 0) {
+                double delta = delta(m + n + x);
+                if (delta <= epsilon) push(newCandidate(-1, m + n + x, delta));
+            }
+        }
+
+        while (heapSize > 0 && paths.size() < k) {
+            int candidate = pop();
+            paths.add(toPath(candidate));
+            // Further deviations on the tree part of the path
+            double base = candidateDeltas[candidate];
+            for (int x = head(candidateEdges[candidate]); x >= 0; x = treeEdges[x] >= 0 ? head(treeEdges[x]) : -1) {
+                for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                    pushDeviation(candidate, x, e, base, epsilon);
+                }
+                if (kernel.getNextOnVm(x) >= 0) pushDeviation(candidate, x, m + x, base, epsilon);
+            }
+        }
+        return paths;
+    }
+
+    private void pushDeviation(int parent, int task, int edge, double base, double epsilon) {
+        if (edge == treeEdges[task]) return;
+        // Relative to the tree edge, so rounding in the tail values does not accumulate
+        double delta = base + Math.max(0.0, delta(edge) - delta(treeEdges[task]));
+        if (delta <= epsilon) push(newCandidate(parent, edge, delta));
+    }
+
+    /** Tree edge of every task: the out-edge on its longest tail (the first one on ties) */
+    private void computeTreeEdges() {
+        treeEdges = new int[n];
+        int[] successorOffsets = dag.getSuccessorOffsets();
+        for (int x = 0; x < n; x++) {
+            int best = -1;
+            double bestDelta = Double.POSITIVE_INFINITY;
+            for (int e = successorOffsets[x]; e < successorOffsets[x + 1]; e++) {
+                double delta = delta(e);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    best = e;
+                }
+            }
+            if (kernel.getNextOnVm(x) >= 0 && delta(m + x) < bestDelta) best = m + x;
+            treeEdges[x] = best;
+        }
+    }
+
+    /** Longest tail d(x): from the start of task x to the end of the workflow */
+    private double tail(int task) {
+        return kernel.getLength() - kernel.getLatestStart(task);
+    }
+
+    /** Length lost by taking the edge instead of the tree edge of its tail (clamped at 0) */
+    private double delta(int edge) {
+        double delta;
+        if (edge >= m + n) {
+            delta = kernel.getLength() - tail(edge - m - n);
+        } else {
+            int x = source(edge);
+            delta = tail(x) - kernel.getDuration(x) - edgeDelay(edge) - tail(head(edge));
+        }
+        return Math.max(0.0, delta);
+    }
+
+    private double edgeDelay(int edge) {
+        return edge < m ? kernel.getEdgeDelay(edge) : 0.0;
+    }
+
+    /** Task an edge leads to */
+    private int head(int edge) {
+        if (edge >= m + n) return edge - m - n;
+        if (edge >= m) return kernel.getNextOnVm(edge - m);
+        return dag.getSuccessorIndices()[edge];
+    }
+
+    /** Task a data or VM-order edge leaves */
+    private int source(int edge) {
+        return edge >= m ? edge - m : edgeSources[edge];
+    }
+
+    /**
+     * The candidate's path: the entry of its first deviation, then tree edges up to each later
+     * deviation, then tree edges to an exit task
+     */
+    private Path toPath(int candidate) {
+        List<Integer> deviations = new ArrayList<>();
+        for (int c = candidate; c >= 0; c = candidateParents[c]) {
+            deviations.add(candidateEdges[c]);
+        }
+        Collections.reverse(deviations);
+        List<Et2faTask> tasks = new ArrayList<>();
+        double length = 0;
+        int x = head(deviations.get(0));
+        for (int i = 1; i < deviations.size(); i++) {
+            int edge = deviations.get(i);
+            int from = source(edge);
+            while (x != from) {
+                tasks.add(dag.getTask(x));
+                length += kernel.getDuration(x) + edgeDelay(treeEdges[x]);
+                x = head(treeEdges[x]);
+            }
+            tasks.add(dag.getTask(x));
+            length += kernel.getDuration(x) + edgeDelay(edge);
+            x = head(edge);
+        }
+        while (true) {
+            tasks.add(dag.getTask(x));
+            length += kernel.getDuration(x);
+            if (treeEdges[x] < 0) break;
+            length += edgeDelay(treeEdges[x]);
+            x = head(treeEdges[x]);
+        }
+        return new Path(tasks, length);
+    }
+
+    /**
+     * All tasks whose slack is at most epsilon (the union of all paths within epsilon of the
+     * critical path length), in topological order
+     */
+    public List<Et2faTask> getTasksWithinSlack(double epsilon) {
+        return kernel.getCriticalTasks(epsilon);
+    }
+
+    private int newCandidate(int parent, int edge, double delta) {
+        if (candidateCount == candidateEdges.length) {
+            int capacity = candidateCount * 2;
+            candidateParents = Arrays.copyOf(candidateParents, capacity);
+            candidateEdges = Arrays.copyOf(candidateEdges, capacity);
+            candidateDeltas = Arrays.copyOf(candidateDeltas, capacity);
+        }
+        candidateParents[candidateCount] = parent;
+        candidateEdges[candidateCount] = edge;
+        candidateDeltas[candidateCount] = delta;
+        return candidateCount++;
+    }
+
+    // Binary min-heap of candidates by total delta, then creation order
+
+    private void push(int node) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int i = heapSize++;
+        heap[i] = node;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(heap[i], heap[parent])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heap[0] = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) break;
+            int child = left + 1 < heapSize && before(heap[left + 1], heap[left]) ? left + 1 : left;
+            if (!before(heap[child], heap[i])) break;
+            swap(i, child);
+            i = child;
+        }
+        return top;
+    }
+
+    private boolean before(int a, int b) {
+        if (candidateDeltas[a] != candidateDeltas[b]) return candidateDeltas[a] < candidateDeltas[b];
+        return a < b;
+    }
+
+    private void swap(int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+}
@@ -1,191 +1,264 @@
 package vn.et2fa.util;
 
-import org.cloudbus.cloudsim.vms.Vm;
-import vn.et2fa.model.Et2faTask;
-
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Cache for optimization to avoid redundant calculations.
  * This class provides caching mechanisms to improve ET2FA performance.
+ *
+ * One cache is meant to be shared by the phases of one scheduling run (the broker owns it). It
+ * keeps the ExecutionMatrix of the workflow on the VM pool, so later phases reuse the matrix an
+ * earlier phase built as long as the DAG is unchanged. The matrix is tied to the DAG's
+ * modification count: after simplifyDAG or expandSimplifiedDAG (which renumber tasks and change
+ * computations) it is rebuilt on the next access.
+ *
+ * Communication times of edges are kept in a primitive open-addressing table (linear probing,
+ * Fibonacci hashing) keyed by a packed long: (task pair, VM class pair), with the tasks'
+ * dense DAG indices and the matrix classes of the VMs, so VMs of one class share entries and a
+ * lookup allocates nothing. The table grows up to a maximum capacity; beyond it an entry that
+ * cannot be placed within a few probes replaces the one at its home position (an eviction).
+ * The table belongs to the current matrix and is cleared when the matrix is rebuilt.
+ *
+ * Not thread-safe (one cache per run, used from the planning thread only).
  */
 public class OptimizationCache {
-    // Cache for communication time: (task1_id, task2_id, vm1_id, vm2_id) -> communication time
-    private final Map<String, Double> communicationTimeCache;
-    
-    // Cache for VM processing capacity: vm_id -> processing capacity
-    private final Map<Long, Double> vmCapacityCache;
-    
-    // Cache for execution time: (task_id, vm_id) -> execution time
-    private final Map<String, Double> executionTimeCache;
-    
-    // Cache for fastest VM (lazy initialization)
-    private Vm fastestVm = null;
-    private Double fastestVmCapacity = null;
-    
+    private static final int TASK_BITS = 20; // Task indices below 2^20 are cached
+    private static final int CLASS_BITS = 11; // VM classes below 2^11 (keys stay positive)
+    private static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+    // Execution matrix of the DAG state it was built for
+    private WorkflowDAG dag;
+    private int dagModificationCount;
+    private ExecutionMatrix matrix;
+
+    // Communication time: (fromTask, toTask, fromClass, toClass) -> communication time
+    private final LongDoubleTable communicationTimes;
+
     public OptimizationCache() {
-        this.communicationTimeCache = new HashMap<>();
-        this.vmCapacityCache = new HashMap<>();
-        this.executionTimeCache = new HashMap<>();
+        this(DEFAULT_MAX_ENTRIES);
     }
-    
+
     /**
-     * Generate cache key for communication time
+     * @param maxEntries upper bound on the capacity of the communication time table (rounded up
+     *                   to a power of two)
      */
-    private String getCommTimeKey(Et2faTask task1, Et2faTask task2, Vm vm1, Vm vm2) {
-        // Use task IDs and VM IDs to create unique key
-        // Order doesn't matter for communication, so normalize order
-        long taskId1 = task1.getId();
-        long taskId2 = task2.getId();
-        long vmId1 = vm1.getId();
-        long vmId2 = vm2.getId();
-        
-        // Normalize: smaller ID first
-        if (taskId1 > taskId2) {
-            long temp = taskId1;
-            taskId1 = taskId2;
-            taskId2 = temp;
-        }
-        if (vmId1 > vmId2) {
-            long temp = vmId1;
-            vmId1 = vmId2;
-            vmId2 = temp;
-        }
-        
-        return String.format("comm_%d_%d_%d_%d", taskId1, taskId2, vmId1, vmId2);
+    public OptimizationCache(int maxEntries) {
+        this.communicationTimes = new LongDoubleTable(maxEntries);
     }
-    
+
     /**
-     * Get cached communication time or calculate and cache it
+     * Execution/communication time matrix of the DAG in its current state on a VM pool;
+     * reused while the DAG and the catalog are unchanged, rebuilt otherwise
      */
-    public double getCommunicationTime(Et2faTask task1, Et2faTask task2, Vm vm1, Vm vm2, 
-                                       WorkflowDAG dag) {
-        if (vm1 == vm2) {
-            return 0.0; // Same VM, no communication
-        }
-        
-        String key = getCommTimeKey(task1, task2, vm1, vm2);
-        Double cached = communicationTimeCache.get(key);
-        
-        if (cached != null) {
-            return cached;
+    public ExecutionMatrix getExecutionMatrix(WorkflowDAG dag, VmCatalog vmCatalog) {
+        dag.freeze();
+        if (dag != this.dag || dag.getModificationCount() != dagModificationCount) {
+            this.dag = dag;
+            this.dagModificationCount = dag.getModificationCount();
+            matrix = null;
         }
-        
-        // Calculate and cache
-        double dataSize = dag.getDataTransfer(task1, task2);
-        double commTime = VmConfig.calculateCommunicationTime(dataSize, vm1, vm2);
-        communicationTimeCache.put(key, commTime);
-        
-        return commTime;
-    }
-    
-    /**
-     * Get cached VM processing capacity or calculate and cache it
-     */
-    public double getVmCapacity(Vm vm) {
-        Long vmId = vm.getId();
-        Double cached = vmCapacityCache.get(vmId);
-        
-        if (cached != null) {
-            return cached;
+        if (matrix != null && matrix.getCatalog() == vmCatalog) {
+            return matrix;
         }
-        
-        // Calculate and cache
-        VmConfig.VmType vmType = VmConfig.getVmType(vm);
-        double capacity = vmType != null ? vmType.processingCapacity : vm.getMips();
-        vmCapacityCache.put(vmId, capacity);
-        
-        return capacity;
+        matrix = new ExecutionMatrix(dag, vmCatalog);
+        communicationTimes.clearEntries();
+        return matrix;
     }
-    
+
     /**
-     * Get cached execution time or calculate and cache it
+     * Communication time of the edge fromTask -> toTask (dense indices) between two different
+     * VMs of the given classes of the current matrix (the last one getExecutionMatrix returned)
      */
-    public double getExecutionTime(Et2faTask task, Vm vm) {
-        String key = String.format("exec_%d_%d", task.getId(), vm.getId());
-        Double cached = executionTimeCache.get(key);
-        
-        if (cached != null) {
+    public double getCommunicationTime(int fromTask, int toTask, int fromClass, int toClass, double dataSize) {
+        if (dataSize <= 0) return 0.0;
+        if (fromTask >= (1 << TASK_BITS) || toTask >= (1 << TASK_BITS) || fromClass >= (1 << CLASS_BITS)
+                || toClass >= (1 << CLASS_BITS)) {
+            communicationTimes.misses++;
+            return matrix.getClassCommunicationTime(dataSize, fromClass, toClass);
+        }
+        long key = ((long) fromTask << (TASK_BITS + 2 * CLASS_BITS))
+            | ((long) toTask << (2 * CLASS_BITS))
+            | ((long) fromClass << CLASS_BITS)
+            | toClass;
+        double cached = communicationTimes.get(key);
+        if (!Double.isNaN(cached)) {
             return cached;
         }
-        
+
         // Calculate and cache
-        double capacity = getVmCapacity(vm);
-        double execTime = task.getComputation() / capacity;
-        executionTimeCache.put(key, execTime);
-        
-        return execTime;
-    }
-    
-    /**
-     * Get fastest VM (cached)
-     */
-    public Vm getFastestVm(java.util.List<Vm> vms) {
-        if (fastestVm != null) {
-            return fastestVm;
-        }
-        
-        // Find fastest VM
-        fastestVm = vms.stream()
-            .max(java.util.Comparator.comparingDouble(this::getVmCapacity))
-            .orElse(vms.get(0));
-        
-        fastestVmCapacity = getVmCapacity(fastestVm);
-        
-        return fastestVm;
+        double commTime = matrix.getClassCommunicationTime(dataSize, fromClass, toClass);
+        communicationTimes.put(key, commTime);
+        return commTime;
     }
-    
+
     /**
-     * Get fastest VM capacity (cached)
+     * Communication time of the edge fromTask -> toTask (dense indices) between two VMs (pool
+     * positions of the current matrix), 0 on the same VM
      */
-    public double getFastestVmCapacity(java.util.List<Vm> vms) {
-        if (fastestVmCapacity != null) {
-            return fastestVmCapacity;
-        }
-        
-        getFastestVm(vms);
-        return fastestVmCapacity;
+    public double getCommunicationTime(int fromTask, int toTask, double dataSize, int fromVm, int toVm) {
+        if (fromVm == toVm) return 0.0;
+        return getCommunicationTime(fromTask, toTask, matrix.getClassOf(fromVm), matrix.getClassOf(toVm), dataSize);
     }
-    
+
     /**
      * Clear all caches (useful for testing or reset)
      */
     public void clear() {
-        communicationTimeCache.clear();
-        vmCapacityCache.clear();
-        executionTimeCache.clear();
-        fastestVm = null;
-        fastestVmCapacity = null;
+        dag = null;
+        matrix = null;
+        communicationTimes.clear();
     }
-    
+
     /**
-     * Get cache statistics (for debugging/monitoring)
+     * Get cache statistics (for debugging/monitoring): communication time lookups since the
+     * cache was created or cleared
      */
     public CacheStats getStats() {
-        return new CacheStats(
-            communicationTimeCache.size(),
-            vmCapacityCache.size(),
-            executionTimeCache.size()
-        );
+        return new CacheStats(communicationTimes.size, communicationTimes.hits, communicationTimes.misses,
+            communicationTimes.evictions);
     }
-    
+
     public static class CacheStats {
-        public final int commTimeCacheSize;
-        public final int vmCapacityCacheSize;
-        public final int executionTimeCacheSize;
-        
-        public CacheStats(int commTimeCacheSize, int vmCapacityCacheSize, int executionTimeCacheSize) {
-            this.commTimeCacheSize = commTimeCacheSize;
-            this.vmCapacityCacheSize = vmCapacityCacheSize;
-            this.executionTimeCacheSize = executionTimeCacheSize;
-        }
-        
+        public final int size;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+        public CacheStats(int size, long hits, long misses, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        /**
+         * Lookups between an earlier snapshot of the same cache and this one (e.g. one phase);
+         * the size is the current one
+         */
+        public CacheStats since(CacheStats earlier) {
+            return new CacheStats(size, hits - earlier.hits, misses - earlier.misses, evictions - earlier.evictions);
+        }
+
+        public long getLookups() {
+            return hits + misses;
+        }
+
+        /** Fraction of lookups answered from the cache (0 without lookups) */
+        public double getHitRate() {
+            long lookups = getLookups();
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
         @Override
         public String toString() {
-            return String.format("CacheStats{commTime=%d, vmCapacity=%d, execTime=%d}",
-                commTimeCacheSize, vmCapacityCacheSize, executionTimeCacheSize);
+            return String.format("CacheStats{size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                size, hits, misses, evictions, 100 * getHitRate());
         }
     }
-}
 
+    /**
+     * Open-addressing (linear probing) map from non-negative long keys to doubles; a miss
+     * returns NaN. Probing stops after MAX_PROBES slots, so lookups are O(1) even when full.
+     */
+    private static final class LongDoubleTable {
+        private static final long EMPTY = -1L;
+        private static final int MAX_PROBES = 8;
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final int maxCapacity;
+        private long[] keys;
+        private double[] values;
+        private int shift; // 64 - log2(capacity), for Fibonacci hashing
+        private int size;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        LongDoubleTable(int maxEntries) {
+            this.maxCapacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, maxEntries - 1)) << 1);
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, EMPTY);
+            shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            size = 0;
+        }
+
+        private int home(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+
+        double get(long key) {
+            int mask = keys.length - 1;
+            int i = home(key);
+            for (int probe = 0; probe < MAX_PROBES; probe++, i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    hits++;
+                    return values[i];
+                }
+                if (k == EMPTY) break;
+            }
+            misses++;
+            return Double.NaN;
+        }
+
+        void put(long key, double value) {
+            if (insert(key, value)) return;
+            if (keys.length < maxCapacity) {
+                grow();
+                if (insert(key, value)) return;
+            }
+            // Full around the home position: replace the entry there
+            int i = home(key);
+            keys[i] = key;
+            values[i] = value;
+            evictions++;
+        }
+
+        private boolean insert(long key, double value) {
+            int mask = keys.length - 1;
+            int i = home(key);
+            for (int probe = 0; probe < MAX_PROBES; probe++, i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return true;
+                }
+                if (keys[i] == EMPTY) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    if (size * 2 > keys.length && keys.length < maxCapacity) grow();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && !insert(oldKeys[i], oldValues[i])) {
+                    evictions++; // Could not be placed within MAX_PROBES of its new home
+                }
+            }
+        }
+
+        /** Drop the entries, keep the counters */
+        void clearEntries() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        void clear() {
+            clearEntries();
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+}
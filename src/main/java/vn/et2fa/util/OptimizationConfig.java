@@ -10,6 +10,15 @@ public class OptimizationConfig {
     private boolean useEarlyTermination = false;
     private boolean useCPO = false;
     private boolean useOptimizedDOBS = false;
+    private boolean useDagSimplify = false; // Merge SOSI chains before T2FA
+    private boolean useVmIndex = false; // Ready-time index for VM selection in T2FA
+    private boolean useParallelLevels = false; // Evaluate wide T2FA levels on a ForkJoinPool (off by default)
+    private boolean useInsertionPolicy = false; // T2FA places tasks into idle gaps of a VM (off by default)
+    private boolean useParallelDOBS = false; // Analyze DOBS blocks of all VMs on a ForkJoinPool (off by default)
+    private long randomSeed = 42L; // Seed of the random choices (T2FA type order), same schedule on every run
+    private int cpoMaxAccelerationRounds = 0; // CPO Step 2 rounds (0 = until no move shortens the makespan)
+    private int cpoTrialsPerTask = 3; // Target VMs CPO tries per task (exact move + rollback each)
+    private int cpoMaxConsolidationPasses = 0; // CPO Step 3 passes (0 = until a pass lowers the cost no further)
     
     // Mode: "original" or "optimized"
     private String mode = "optimized";
@@ -35,6 +44,8 @@ public class OptimizationConfig {
         this.useEarlyTermination = true;
         this.useCPO = true;
         this.useOptimizedDOBS = true;
+        this.useDagSimplify = true;
+        this.useVmIndex = true;
     }
     
     private void disableAllOptimizations() {
@@ -43,12 +54,21 @@ public class OptimizationConfig {
         this.useEarlyTermination = false;
         this.useCPO = false;
         this.useOptimizedDOBS = false;
+        this.useDagSimplify = false;
+        this.useVmIndex = false;
     }
     
     public boolean isUseCache() {
         return useCache;
     }
     
+    /**
+     * Enable the optimization cache (communication/execution times) in T2FA and CPO
+     */
+    public void setUseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+    
     public boolean isUseBFSTopological() {
         return useBFSTopological;
     }
@@ -65,6 +85,100 @@ public class OptimizationConfig {
         return useOptimizedDOBS;
     }
     
+    public boolean isUseDagSimplify() {
+        return useDagSimplify;
+    }
+    
+    public boolean isUseVmIndex() {
+        return useVmIndex;
+    }
+    
+    public boolean isUseParallelLevels() {
+        return useParallelLevels;
+    }
+    
+    /**
+     * Enable parallel evaluation of wide topological levels in T2FA (same schedule as sequential)
+     */
+    public void setUseParallelLevels(boolean useParallelLevels) {
+        this.useParallelLevels = useParallelLevels;
+    }
+    
+    public boolean isUseInsertionPolicy() {
+        return useInsertionPolicy;
+    }
+    
+    /**
+     * Enable the insertion policy in T2FA: a task may start in an idle gap between two tasks
+     * already scheduled on a VM instead of only after the VM's last task
+     */
+    public void setUseInsertionPolicy(boolean useInsertionPolicy) {
+        this.useInsertionPolicy = useInsertionPolicy;
+    }
+    
+    public boolean isUseParallelDOBS() {
+        return useParallelDOBS;
+    }
+    
+    /**
+     * Enable parallel DOBS: blocks of all VMs are analyzed concurrently, delays are committed in
+     * VM id order (deterministic, the same schedule as the sequential worklist)
+     */
+    public void setUseParallelDOBS(boolean useParallelDOBS) {
+        this.useParallelDOBS = useParallelDOBS;
+    }
+    
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+    
+    /**
+     * Seed of the random choices of the algorithms (order of the task types in each T2FA level),
+     * so a run is reproducible, sequential or parallel
+     */
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+    
+    public int getCpoMaxAccelerationRounds() {
+        return cpoMaxAccelerationRounds;
+    }
+    
+    /**
+     * Cap on the CPO acceleration rounds (one task moved per round); 0 runs them until the deadline
+     * is met or no move shortens the makespan
+     */
+    public void setCpoMaxAccelerationRounds(int cpoMaxAccelerationRounds) {
+        if (cpoMaxAccelerationRounds < 0) throw new IllegalArgumentException("Negative round cap: " + cpoMaxAccelerationRounds);
+        this.cpoMaxAccelerationRounds = cpoMaxAccelerationRounds;
+    }
+    
+    public int getCpoTrialsPerTask() {
+        return cpoTrialsPerTask;
+    }
+    
+    /**
+     * Number of target VMs (the most promising first) CPO evaluates exactly for each task it
+     * considers moving
+     */
+    public void setCpoTrialsPerTask(int cpoTrialsPerTask) {
+        if (cpoTrialsPerTask < 1) throw new IllegalArgumentException("At least one trial per task: " + cpoTrialsPerTask);
+        this.cpoTrialsPerTask = cpoTrialsPerTask;
+    }
+    
+    public int getCpoMaxConsolidationPasses() {
+        return cpoMaxConsolidationPasses;
+    }
+    
+    /**
+     * Cap on the CPO consolidation passes; 0 repeats them until a pass neither drains a VM nor
+     * moves a task off a lease end
+     */
+    public void setCpoMaxConsolidationPasses(int cpoMaxConsolidationPasses) {
+        if (cpoMaxConsolidationPasses < 0) throw new IllegalArgumentException("Negative pass cap: " + cpoMaxConsolidationPasses);
+        this.cpoMaxConsolidationPasses = cpoMaxConsolidationPasses;
+    }
+    
     public String getMode() {
         return mode;
     }
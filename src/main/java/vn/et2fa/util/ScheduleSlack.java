@@ -0,0 +1,281 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Slack of every task of a schedule, shared by the post-scheduling phases (DOBS, CPO, IHSH).
+ *
+ * Two quantities are kept for each task x:
+ * - successor bound (Eq. 24): min{t_y^S - C_{x,y}^T} over successors y on other VMs, i.e. the
+ *   latest finish time that does not delay any successor at its current start time. Successors
+ *   on the same VM are left out: they come later in the VM's task order, which already bounds x.
+ * - latest finish time: the latest finish time that does not delay the makespan, assuming
+ *   successors are delayed as well. It is computed in one reverse topological sweep over the
+ *   scheduled DAG (data edges with communication times plus the task order on each VM).
+ *
+ * The latest finish time is stored as the distance from the task's finish to the end of the
+ * schedule, which only depends on durations, VM assignments and task order. Delaying a range
+ * of tasks on a VM (without reordering) therefore leaves it unchanged; only the successor bounds
+ * of the tasks' predecessors on other VMs have to be recomputed, which is done lazily.
+ * Communication times of all cross-VM edges are computed once, when the engine is built.
+ */
+public class ScheduleSlack {
+    private final Map<Vm, VmTaskSequence> sequences;
+    private final Map<Vm, VmTimeline> timelines;
+    private final Map<Et2faTask, Integer> taskIndex = new IdentityHashMap<>();
+    private final Et2faTask[] tasks;
+    private final int[] nextOnVm;
+    private final int[] previousOnVm;
+
+    // Cross-VM data edges (CSR): successors of task i are crossTargets[crossOffsets[i] .. crossOffsets[i+1])
+    private final int[] crossOffsets;
+    private final int[] crossTargets;
+    private final double[] crossCommTimes;
+    // Reverse of the cross-VM edges, used to invalidate predecessors' bounds
+    private final int[] crossPredOffsets;
+    private final int[] crossPreds;
+
+    private final double[] successorBounds;
+    private final boolean[] boundDirty;
+    private final double[] timeToEnd; // Critical distance from the task's finish to the end of the schedule
+    private double makespan;
+
+    /**
+     * @param schedule task -> VM assignment with actual start/finish times
+     * @param dag workflow the schedule belongs to (for data transfer sizes); may be null
+     *
+     * Without a VM pool the VM types are unknown: communication times use the CloudSim
+     * bandwidths of the VMs. Use the ExecutionMatrix constructor for typed VMs.
+     */
+    public ScheduleSlack(Map<Et2faTask, Vm> schedule, WorkflowDAG dag) {
+        this(schedule, dag, null, null);
+    }
+
+    /**
+     * @param schedule task -> VM assignment with actual start/finish times, on VMs of the matrix
+     * @param matrix communication times of the schedule's DAG on the VM pool
+     */
+    public ScheduleSlack(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix) {
+        this(schedule, matrix.getDag(), matrix, null);
+    }
+
+    /**
+     * @param cache cache the matrix was taken from; the communication times of the cross-VM
+     *              edges are looked up in it
+     */
+    public ScheduleSlack(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix, OptimizationCache cache) {
+        this(schedule, matrix.getDag(), matrix, cache);
+    }
+
+    private ScheduleSlack(Map<Et2faTask, Vm> schedule, WorkflowDAG dag, ExecutionMatrix matrix, OptimizationCache cache) {
+        this.sequences = VmTaskSequence.groupByVm(schedule);
+        this.timelines = VmTimeline.forSequences(sequences);
+        int n = schedule.size();
+        this.tasks = new Et2faTask[n];
+        Vm[] taskVms = new Vm[n];
+        int count = 0;
+        for (Map.Entry<Vm, VmTaskSequence> entry : sequences.entrySet()) {
+            for (Et2faTask task : entry.getValue().asList()) {
+                tasks[count] = task;
+                taskVms[count] = entry.getKey();
+                taskIndex.put(task, count++);
+            }
+        }
+
+        // VM order edges
+        this.nextOnVm = new int[n];
+        this.previousOnVm = new int[n];
+        Arrays.fill(nextOnVm, -1);
+        Arrays.fill(previousOnVm, -1);
+        for (VmTaskSequence sequence : sequences.values()) {
+            for (int p = 0; p + 1 < sequence.size(); p++) {
+                int a = taskIndex.get(sequence.get(p));
+                int b = taskIndex.get(sequence.get(p + 1));
+                nextOnVm[a] = b;
+                previousOnVm[b] = a;
+            }
+        }
+
+        // Cross-VM data edges with their communication times
+        this.crossOffsets = new int[n + 1];
+        List<int[]> edges = new ArrayList<>();
+        List<Double> commTimes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (Et2faTask succ : tasks[i].getSuccessors()) {
+                Integer j = taskIndex.get(succ);
+                if (j == null || taskVms[j] == taskVms[i]) continue;
+                double dataSize = dag != null ? dag.getDataTransfer(tasks[i], succ) : 0.0;
+                edges.add(new int[] {i, j});
+                if (cache != null) {
+                    commTimes.add(cache.getCommunicationTime(tasks[i].getDagIndex(), succ.getDagIndex(), dataSize,
+                            matrix.indexOf(taskVms[i]), matrix.indexOf(taskVms[j])));
+                } else {
+                    commTimes.add(matrix != null
+                            ? matrix.getCommunicationTime(dataSize, matrix.indexOf(taskVms[i]), matrix.indexOf(taskVms[j]))
+                            : VmConfig.calculateCommunicationTime(dataSize, taskVms[i], null, taskVms[j], null));
+                }
+            }
+            crossOffsets[i + 1] = edges.size();
+        }
+        int m = edges.size();
+        this.crossTargets = new int[m];
+        this.crossCommTimes = new double[m];
+        this.crossPredOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            crossTargets[e] = edges.get(e)[1];
+            crossCommTimes[e] = commTimes.get(e);
+            crossPredOffsets[crossTargets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            crossPredOffsets[i + 1] += crossPredOffsets[i];
+        }
+        this.crossPreds = new int[m];
+        int[] fill = Arrays.copyOf(crossPredOffsets, n);
+        for (int i = 0; i < n; i++) {
+            for (int e = crossOffsets[i]; e < crossOffsets[i + 1]; e++) {
+                crossPreds[fill[crossTargets[e]]++] = i;
+            }
+        }
+
+        this.successorBounds = new double[n];
+        this.boundDirty = new boolean[n];
+        Arrays.fill(boundDirty, true);
+        this.timeToEnd = new double[n];
+        this.makespan = 0;
+        for (Et2faTask task : tasks) {
+            makespan = Math.max(makespan, task.getActualFinishTime());
+        }
+        computeTimeToEnd();
+    }
+
+    /**
+     * Reverse topological sweep (Kahn's algorithm from the sinks) over data edges and VM order:
+     * timeToEnd(x) = max over successors y (incl. next task on the VM) of timeToEnd(y) + dur(y) + C_{x,y}
+     */
+    private void computeTimeToEnd() {
+        int n = tasks.length;
+        int[] remaining = new int[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            remaining[i] = crossOffsets[i + 1] - crossOffsets[i] + (nextOnVm[i] >= 0 ? 1 : 0);
+            if (remaining[i] == 0) queue[tail++] = i;
+        }
+        boolean[] done = new boolean[n];
+        while (head < tail) {
+            int y = queue[head++];
+            timeToEnd[y] = sweepValue(y);
+            done[y] = true;
+            int prev = previousOnVm[y];
+            if (prev >= 0 && --remaining[prev] == 0) queue[tail++] = prev;
+            for (int e = crossPredOffsets[y]; e < crossPredOffsets[y + 1]; e++) {
+                int pred = crossPreds[e];
+                if (--remaining[pred] == 0) queue[tail++] = pred;
+            }
+        }
+        // Only reachable for inconsistent schedules (a VM order that contradicts a dependency):
+        // use whatever successors are resolved rather than failing
+        for (int i = n - 1; i >= 0; i--) {
+            if (!done[i]) timeToEnd[i] = sweepValue(i);
+        }
+    }
+
+    private double sweepValue(int x) {
+        double value = 0;
+        int next = nextOnVm[x];
+        if (next >= 0) {
+            value = timeToEnd[next] + duration(next);
+        }
+        for (int e = crossOffsets[x]; e < crossOffsets[x + 1]; e++) {
+            int y = crossTargets[e];
+            value = Math.max(value, timeToEnd[y] + duration(y) + crossCommTimes[e]);
+        }
+        return value;
+    }
+
+    private double duration(int i) {
+        return tasks[i].getActualFinishTime() - tasks[i].getActualStartTime();
+    }
+
+    /** Per-VM task sequences of the schedule (shared, kept in sync with shifts) */
+    public Map<Vm, VmTaskSequence> getSequences() {
+        return sequences;
+    }
+
+    /** Busy/hibernation timelines of the VMs (shared, kept in sync with shifts) */
+    public Map<Vm, VmTimeline> getTimelines() {
+        return timelines;
+    }
+
+    /** Completion time of the last task */
+    public double getMakespan() {
+        return makespan;
+    }
+
+    /**
+     * Eq. 24 bound: min{t_y^S - C_{x,y}^T} over successors y on other VMs, or Double.MAX_VALUE
+     * if the task has none. May be called concurrently for tasks of different VMs while no
+     * tasks are being shifted (each call only writes the cached bound of its own task).
+     */
+    public double getSuccessorBound(Et2faTask task) {
+        int x = taskIndex.get(task);
+        if (boundDirty[x]) {
+            double bound = Double.MAX_VALUE;
+            for (int e = crossOffsets[x]; e < crossOffsets[x + 1]; e++) {
+                bound = Math.min(bound, tasks[crossTargets[e]].getActualStartTime() - crossCommTimes[e]);
+            }
+            successorBounds[x] = bound;
+            boundDirty[x] = false;
+        }
+        return successorBounds[x];
+    }
+
+    /**
+     * Latest finish time of the task that does not delay the makespan
+     */
+    public double getLatestFinishTime(Et2faTask task) {
+        return makespan - timeToEnd[taskIndex.get(task)];
+    }
+
+    /**
+     * Total slack: how far the task can be delayed (with its successors) without delaying the makespan
+     */
+    public double getTotalSlack(Et2faTask task) {
+        return getLatestFinishTime(task) - task.getActualFinishTime();
+    }
+
+    /**
+     * Tasks whose total slack is at most the tolerance (the critical path(s) of the schedule)
+     */
+    public Set<Et2faTask> getCriticalTasks(double tolerance) {
+        Set<Et2faTask> critical = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Et2faTask task : tasks) {
+            if (getTotalSlack(task) <= tolerance) {
+                critical.add(task);
+            }
+        }
+        return critical;
+    }
+
+    /**
+     * Delay the tasks at positions [from, to) of a VM's sequence without reordering, and update
+     * the VM's timeline and the slack: the successor bounds of their predecessors on other VMs become stale and the
+     * makespan may grow. Latest finish times relative to the end of the schedule do not change.
+     */
+    public void shiftRight(Vm vm, int from, int to, double delay) {
+        VmTaskSequence sequence = sequences.get(vm);
+        timelines.get(vm).shiftRight(from, to, delay);
+        for (int p = from; p < to; p++) {
+            Et2faTask task = sequence.get(p);
+            int y = taskIndex.get(task);
+            for (int e = crossPredOffsets[y]; e < crossPredOffsets[y + 1]; e++) {
+                boundDirty[crossPreds[e]] = true;
+            }
+            makespan = Math.max(makespan, task.getActualFinishTime());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+
+import java.util.*;
+
+/**
+ * VM types (Table 4) of one VM pool, owned by the broker that runs the pool.
+ *
+ * VMs are identified by their index in the pool and every lookup is an array read; the only
+ * Vm -> index lookup (indexOf) uses the VM id when it equals the index, as for VMs created by
+ * one broker, and otherwise an identity map, never Vm.hashCode. A catalog is immutable once
+ * built, so it can be read from several threads and several catalogs (one per simulation) can
+ * live in one JVM without sharing any state.
+ */
+public class VmCatalog {
+    private final Vm[] vms;
+    private final VmConfig.VmType[] types; // Type of each VM (null if none)
+    private final Map<Vm, Integer> positions; // Only for VMs whose id is not their index
+    private final boolean fullyTyped;
+
+    /**
+     * @param vms VM pool
+     * @param types type of each VM, parallel to vms (null entries for VMs without a type)
+     */
+    public VmCatalog(List<Vm> vms, List<VmConfig.VmType> types) {
+        if (vms.size() != types.size()) {
+            throw new IllegalArgumentException(vms.size() + " VMs but " + types.size() + " VM types");
+        }
+        this.vms = vms.toArray(new Vm[0]);
+        this.types = types.toArray(new VmConfig.VmType[0]);
+        Map<Vm, Integer> byIdentity = new IdentityHashMap<>();
+        boolean typed = true;
+        for (int v = 0; v < this.vms.length; v++) {
+            if (this.vms[v].getId() != v) byIdentity.put(this.vms[v], v);
+            typed &= this.types[v] != null;
+        }
+        this.positions = byIdentity;
+        this.fullyTyped = typed;
+    }
+
+    /**
+     * Catalog assigning the Table 4 types to the VMs in pool order: c3.large, c3.xlarge,
+     * c3.2xlarge, c3.4xlarge, c3.8xlarge, c3.large, ...
+     */
+    public static VmCatalog createDefault(List<Vm> vms) {
+        VmConfig.VmType[] tableTypes = VmConfig.getTable4Types();
+        List<VmConfig.VmType> types = new ArrayList<>(vms.size());
+        for (int v = 0; v < vms.size(); v++) {
+            types.add(tableTypes[v % tableTypes.length]);
+        }
+        return new VmCatalog(vms, types);
+    }
+
+    /**
+     * Catalog without types: VMs are described by their CloudSim MIPS and bandwidth only
+     */
+    public static VmCatalog untyped(List<Vm> vms) {
+        return new VmCatalog(vms, Collections.nCopies(vms.size(), null));
+    }
+
+    /**
+     * Catalog of the given VMs (e.g. the created subset of this pool, in creation order) with the
+     * types this catalog assigns them; VMs not in this catalog get no type
+     */
+    public VmCatalog forVms(List<Vm> otherVms) {
+        List<VmConfig.VmType> otherTypes = new ArrayList<>(otherVms.size());
+        for (Vm vm : otherVms) {
+            otherTypes.add(getType(vm));
+        }
+        return new VmCatalog(otherVms, otherTypes);
+    }
+
+    public int size() {
+        return vms.length;
+    }
+
+    public Vm getVm(int vm) {
+        return vms[vm];
+    }
+
+    /** VMs of the pool, in index order (read-only) */
+    public List<Vm> getVms() {
+        return Collections.unmodifiableList(Arrays.asList(vms));
+    }
+
+    /** Index of a VM in the pool, or -1 */
+    public int indexOf(Vm vm) {
+        long id = vm.getId();
+        if (id >= 0 && id < vms.length && vms[(int) id] == vm) return (int) id;
+        Integer v = positions.get(vm);
+        return v != null ? v : -1;
+    }
+
+    /** Type of a VM (index), or null */
+    public VmConfig.VmType getType(int vm) {
+        return types[vm];
+    }
+
+    /** Type of a VM, or null if it has none or is not in the pool */
+    public VmConfig.VmType getType(Vm vm) {
+        int v = indexOf(vm);
+        return v >= 0 ? types[v] : null;
+    }
+
+    /** Whether every VM of the pool has a type */
+    public boolean isFullyTyped() {
+        return fullyTyped;
+    }
+
+    /** U_h: processing capacity of a VM (its MIPS if it has no type) */
+    public double getCapacity(int vm) {
+        return types[vm] != null ? types[vm].processingCapacity : vms[vm].getMips();
+    }
+
+    /** Price per second of a VM (approximated from its MIPS if it has no type) */
+    public double getPricePerSecond(int vm) {
+        return types[vm] != null ? types[vm].getCostPerSecond() : vms[vm].getMips() * 0.0001 / 3600.0;
+    }
+
+    /**
+     * Communication time between two VMs (indices) in seconds, 0 on the same VM
+     */
+    public double getCommunicationTime(double dataSize, int fromVm, int toVm) {
+        if (fromVm == toVm) return 0.0;
+        return VmConfig.calculateCommunicationTime(dataSize, vms[fromVm], types[fromVm], vms[toVm], types[toVm]);
+    }
+}
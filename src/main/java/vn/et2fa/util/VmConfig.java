@@ -2,12 +2,11 @@ package vn.et2fa.util;
 
 import org.cloudbus.cloudsim.vms.Vm;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * VM Configuration utility based on Table 4 from the ET2FA paper.
- * Stores VM type configurations including processing capacity, cost, and bandwidth.
+ * Defines the VM types (processing capacity, cost, and bandwidth) and the communication time
+ * between them. Which VM has which type is kept per VM pool by a VmCatalog; this class holds
+ * no state.
  */
 public class VmConfig {
     // VM configurations from Table 4 (EC2-like instances)
@@ -34,21 +33,11 @@ public class VmConfig {
     public static final VmType C3_4XLARGE = new VmType(242.0, 1.021, 3.0);
     public static final VmType C3_8XLARGE = new VmType(475.2, 2.043, 3.0);
     
-    // Map VM instances to their configurations
-    private static final Map<Vm, VmType> vmConfigs = new HashMap<>();
-    
     /**
-     * Register a VM with its type configuration
+     * VM types of Table 4, smallest first
      */
-    public static void registerVm(Vm vm, VmType type) {
-        vmConfigs.put(vm, type);
-    }
-    
-    /**
-     * Get VM type configuration
-     */
-    public static VmType getVmType(Vm vm) {
-        return vmConfigs.get(vm);
+    public static VmType[] getTable4Types() {
+        return new VmType[] {C3_LARGE, C3_XLARGE, C3_2XLARGE, C3_4XLARGE, C3_8XLARGE};
     }
     
     /**
@@ -60,10 +49,12 @@ public class VmConfig {
      * 
      * @param dataSize Data size in MB (megabytes)
      * @param vm1 First VM
+     * @param type1 Type of the first VM (null if none)
      * @param vm2 Second VM
+     * @param type2 Type of the second VM (null if none)
      * @return Communication time in seconds
      */
-    public static double calculateCommunicationTime(double dataSize, Vm vm1, Vm vm2) {
+    public static double calculateCommunicationTime(double dataSize, Vm vm1, VmType type1, Vm vm2, VmType type2) {
         if (vm1 == vm2) {
             return 0.0; // Same VM, no communication time (data transfer is 0)
         }
@@ -72,27 +63,34 @@ public class VmConfig {
             return 0.0; // No data to transfer
         }
         
-        VmType type1 = getVmType(vm1);
-        VmType type2 = getVmType(vm2);
-        
-        double minBandwidth; // in Gbps
-        
         if (type1 != null && type2 != null) {
-            // Use minimum bandwidth between the two VM types (from paper)
-            minBandwidth = Math.min(type1.bandwidth, type2.bandwidth);
-        } else {
-            // Fallback: use VM bandwidth from CloudSim
-            // CloudSim bandwidth is in Mbps (megabits per second)
-            // Convert to Gbps: 1 Gbps = 1000 Mbps
-            double bw1Mbps = vm1.getBw().getCapacity(); // Mbps (get capacity from Resource)
-            double bw2Mbps = vm2.getBw().getCapacity(); // Mbps (get capacity from Resource)
-            double minBwMbps = Math.min(bw1Mbps, bw2Mbps);
-            minBandwidth = minBwMbps / 1000.0; // Convert to Gbps
-            if (minBandwidth <= 0) {
-                minBandwidth = 1.0; // Default 1 Gbps if not available
-            }
+            return calculateCommunicationTime(dataSize, type1, type2);
         }
         
+        // Fallback: use VM bandwidth from CloudSim
+        // CloudSim bandwidth is in Mbps (megabits per second)
+        // Convert to Gbps: 1 Gbps = 1000 Mbps
+        double bw1Mbps = vm1.getBw().getCapacity(); // Mbps (get capacity from Resource)
+        double bw2Mbps = vm2.getBw().getCapacity(); // Mbps (get capacity from Resource)
+        double minBwMbps = Math.min(bw1Mbps, bw2Mbps);
+        double minBandwidth = minBwMbps / 1000.0; // Convert to Gbps
+        if (minBandwidth <= 0) {
+            minBandwidth = 1.0; // Default 1 Gbps if not available
+        }
+        return dataSize / (minBandwidth * 125.0);
+    }
+    
+    /**
+     * Communication time (in seconds) between two different VMs of the given types.
+     * Depends only on the types, so it can be evaluated once for a whole group of VMs.
+     */
+    public static double calculateCommunicationTime(double dataSize, VmType type1, VmType type2) {
+        if (dataSize <= 0) {
+            return 0.0; // No data to transfer
+        }
+        // Use minimum bandwidth between the two VM types (from paper)
+        double minBandwidth = Math.min(type1.bandwidth, type2.bandwidth); // in Gbps
+        
         // Calculate communication time
         // Bandwidth is in Gbps (gigabits per second)
         // 1 Gbps = 125 MB/s (megabytes per second) = 125 * 1024 KB/s
@@ -104,14 +102,11 @@ public class VmConfig {
     /**
      * Get bandwidth between two VMs (in Gbps)
      */
-    public static double getBandwidth(Vm vm1, Vm vm2) {
+    public static double getBandwidth(Vm vm1, VmType type1, Vm vm2, VmType type2) {
         if (vm1 == vm2) {
             return Double.MAX_VALUE; // Same VM, infinite bandwidth
         }
         
-        VmType type1 = getVmType(vm1);
-        VmType type2 = getVmType(vm2);
-        
         if (type1 == null || type2 == null) {
             // Fallback: use VM bandwidth from CloudSim
             double bw1 = vm1.getBw().getCapacity() / 1000.0; // Convert Mbps to Gbps
@@ -137,18 +132,4 @@ public class VmConfig {
         if (mips <= 4800) return C3_4XLARGE;
         return C3_8XLARGE;
     }
-    
-    /**
-     * Initialize VM configurations for a list of VMs
-     */
-    public static void initializeVmConfigs(java.util.List<Vm> vms) {
-        for (int i = 0; i < vms.size(); i++) {
-            Vm vm = vms.get(i);
-            // Assign VM types in order: c3.large, c3.xlarge, c3.2xlarge, c3.4xlarge, c3.8xlarge
-            VmType[] types = {C3_LARGE, C3_XLARGE, C3_2XLARGE, C3_4XLARGE, C3_8XLARGE};
-            VmType type = types[i % types.length];
-            registerVm(vm, type);
-        }
-    }
 }
-
@@ -0,0 +1,181 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.schedulers.cloudlet.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * VM pool read from a CSV file: one line per instance type with its VmType values and the
+ * number of VMs of that type, so pools of any size and mix can be run without code changes.
+ *
+ * Format (header line required, '#' starts a comment line):
+ *   name,capacity,price,bandwidth,count[,mips,ram,bw,size]
+ *   c3.large,30.8,0.128,1.0,400
+ *   c3.8xlarge,475.2,2.043,3.0,50,2500,5120,5000,10000
+ * capacity in GFLOPS, price in $/h, bandwidth in Gbps (as in Table 4). The optional columns
+ * describe the CloudSim VM (MIPS, RAM in MB, bandwidth in Mbps, image size in MB); they only
+ * affect the simulation, not the schedule. Defaults: 1000 MIPS, 1024 MB, the type's bandwidth,
+ * 10000 MB.
+ *
+ * All VMs of one line share one VmType instance, so they form one class in ExecutionMatrix
+ * and VmReadyTimeIndex.
+ */
+public class VmPoolConfig {
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "capacity", "price", "bandwidth", "count");
+    private static final double DEFAULT_MIPS = 1000;
+    private static final long DEFAULT_RAM = 1024;
+    private static final long DEFAULT_SIZE = 10000;
+
+    /** One instance type of the pool */
+    public static class Entry {
+        public final String name;
+        public final VmConfig.VmType type;
+        public final int count;
+        public final double mips;
+        public final long ram; // MB
+        public final long bw; // Mbps
+        public final long size; // MB
+
+        public Entry(String name, VmConfig.VmType type, int count, double mips, long ram, long bw, long size) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative VM count for " + name + ": " + count);
+            }
+            this.name = name;
+            this.type = type;
+            this.count = count;
+            this.mips = mips;
+            this.ram = ram;
+            this.bw = bw;
+            this.size = size;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    public VmPoolConfig(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+    }
+
+    /**
+     * Read a pool from a CSV file
+     *
+     * @throws IllegalArgumentException if a line is malformed (the message names the line)
+     */
+    public static VmPoolConfig load(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split(",", -1);
+                if (columns == null) {
+                    columns = parseHeader(fields, file, lineNumber);
+                    continue;
+                }
+                try {
+                    entries.add(parseEntry(fields, columns));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException(file + ": no VM types");
+        }
+        return new VmPoolConfig(entries);
+    }
+
+    private static Map<String, Integer> parseHeader(String[] fields, Path file, int lineNumber) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            columns.put(fields[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException(file + ":" + lineNumber + ": missing column '" + column + "'");
+            }
+        }
+        return columns;
+    }
+
+    private static Entry parseEntry(String[] fields, Map<String, Integer> columns) {
+        String name = field(fields, columns, "name");
+        double capacity = Double.parseDouble(field(fields, columns, "capacity"));
+        double price = Double.parseDouble(field(fields, columns, "price"));
+        double bandwidth = Double.parseDouble(field(fields, columns, "bandwidth"));
+        int count = Integer.parseInt(field(fields, columns, "count"));
+        if (capacity <= 0 || bandwidth <= 0 || price < 0) {
+            throw new IllegalArgumentException("invalid capacity, price or bandwidth for " + name);
+        }
+        String mips = field(fields, columns, "mips");
+        String ram = field(fields, columns, "ram");
+        String bw = field(fields, columns, "bw");
+        String size = field(fields, columns, "size");
+        return new Entry(name, new VmConfig.VmType(capacity, price, bandwidth), count,
+                mips.isEmpty() ? DEFAULT_MIPS : Double.parseDouble(mips),
+                ram.isEmpty() ? DEFAULT_RAM : Long.parseLong(ram),
+                bw.isEmpty() ? Math.round(bandwidth * 1000) : Long.parseLong(bw),
+                size.isEmpty() ? DEFAULT_SIZE : Long.parseLong(size));
+    }
+
+    /** Trimmed value of a column, "" if the column or the value is missing */
+    private static String field(String[] fields, Map<String, Integer> columns, String column) {
+        Integer i = columns.get(column);
+        return i != null && i < fields.length ? fields[i].trim() : "";
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /** Number of VMs of the pool */
+    public int getVmCount() {
+        int count = 0;
+        for (Entry entry : entries) {
+            count += entry.count;
+        }
+        return count;
+    }
+
+    /**
+     * CloudSim VMs of the pool, entry by entry in file order (ids are left to the broker)
+     */
+    public List<Vm> createVms() {
+        List<Vm> vms = new ArrayList<>(getVmCount());
+        for (Entry entry : entries) {
+            for (int i = 0; i < entry.count; i++) {
+                vms.add(new VmSimple(entry.mips, 1)
+                        .setRam(entry.ram)
+                        .setBw(entry.bw)
+                        .setSize(entry.size)
+                        .setCloudletScheduler(new CloudletSchedulerTimeShared()));
+            }
+        }
+        return vms;
+    }
+
+    /**
+     * Catalog giving the VMs returned by createVms (same order) their entry's type
+     */
+    public VmCatalog createCatalog(List<Vm> vms) {
+        if (vms.size() != getVmCount()) {
+            throw new IllegalArgumentException(vms.size() + " VMs for a pool of " + getVmCount());
+        }
+        List<VmConfig.VmType> types = new ArrayList<>(vms.size());
+        for (Entry entry : entries) {
+            types.addAll(Collections.nCopies(entry.count, entry.type));
+        }
+        return new VmCatalog(vms, types);
+    }
+}
@@ -0,0 +1,143 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+
+import java.util.*;
+
+/**
+ * VM-selection index over VM ready times (completion time of the last scheduled task).
+ *
+ * VMs are grouped by VmType; every group keeps a min segment tree over the ready times of
+ * its VMs (in pool order). Since all VMs of a type have the same capacity and bandwidth, a
+ * task that does not depend on data already on a VM finishes earliest on the first VM of the
+ * type that is ready by the task's data-ready time, or else on the VM that is ready first.
+ * Both are O(log V) queries, so the other VMs of the type never need to be evaluated.
+ */
+public class VmReadyTimeIndex {
+    private final VmCatalog catalog;
+    private final double[] readyTimes;
+    private final List<VmConfig.VmType> groupTypes = new ArrayList<>();
+    private final int[] groupOfVm;
+    private final int[] positionInGroup;
+    private int[][] groupMembers; // VM indices of each group, in pool order
+    private double[][] trees; // Per-group min segment tree, leaves start at groupLeafBase[g]
+    private int[] groupLeafBase;
+
+    /**
+     * @param catalog VM pool; every VM must have a VmType
+     * @param initialReadyTime ready time of an unused VM (cold startup)
+     */
+    public VmReadyTimeIndex(VmCatalog catalog, double initialReadyTime) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        this.readyTimes = new double[n];
+        this.groupOfVm = new int[n];
+        this.positionInGroup = new int[n];
+
+        Map<VmConfig.VmType, Integer> groupByType = new IdentityHashMap<>();
+        List<List<Integer>> members = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            VmConfig.VmType type = catalog.getType(i);
+            if (type == null) {
+                throw new IllegalArgumentException("VM " + catalog.getVm(i).getId() + " has no VmType");
+            }
+            int group = groupByType.computeIfAbsent(type, t -> {
+                groupTypes.add(t);
+                members.add(new ArrayList<>());
+                return groupTypes.size() - 1;
+            });
+            groupOfVm[i] = group;
+            positionInGroup[i] = members.get(group).size();
+            members.get(group).add(i);
+            readyTimes[i] = initialReadyTime;
+        }
+
+        int groups = groupTypes.size();
+        groupMembers = new int[groups][];
+        trees = new double[groups][];
+        groupLeafBase = new int[groups];
+        for (int g = 0; g < groups; g++) {
+            groupMembers[g] = members.get(g).stream().mapToInt(Integer::intValue).toArray();
+            int leaves = Integer.highestOneBit(Math.max(1, groupMembers[g].length - 1)) << 1;
+            groupLeafBase[g] = leaves;
+            trees[g] = new double[2 * leaves];
+            Arrays.fill(trees[g], Double.POSITIVE_INFINITY);
+            for (int k = 0; k < groupMembers[g].length; k++) {
+                trees[g][leaves + k] = initialReadyTime;
+            }
+            for (int node = leaves - 1; node >= 1; node--) {
+                trees[g][node] = Math.min(trees[g][2 * node], trees[g][2 * node + 1]);
+            }
+        }
+    }
+
+    /** Whether every VM of the pool has a VmType, i.e. the index can be built */
+    public static boolean supports(VmCatalog catalog) {
+        return catalog.isFullyTyped();
+    }
+
+    public int getVmCount() {
+        return catalog.size();
+    }
+
+    public Vm getVm(int index) {
+        return catalog.getVm(index);
+    }
+
+    /** Index of a VM in the pool, or -1 if it is not part of it */
+    public int indexOf(Vm vm) {
+        return catalog.indexOf(vm);
+    }
+
+    public double getReadyTime(int index) {
+        return readyTimes[index];
+    }
+
+    public int getGroupCount() {
+        return groupTypes.size();
+    }
+
+    /** Group (VmType) of a VM */
+    public int getGroupOf(int index) {
+        return groupOfVm[index];
+    }
+
+    public VmConfig.VmType getGroupType(int group) {
+        return groupTypes.get(group);
+    }
+
+    /**
+     * Set the ready time of a VM (O(log V))
+     */
+    public void update(int index, double readyTime) {
+        readyTimes[index] = readyTime;
+        int g = groupOfVm[index];
+        double[] tree = trees[g];
+        int node = groupLeafBase[g] + positionInGroup[index];
+        tree[node] = readyTime;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * First VM of the group (in pool order) that is ready at or before the given time, or -1
+     */
+    public int firstReadyBy(int group, double time) {
+        double[] tree = trees[group];
+        if (tree[1] > time) return -1;
+        int node = 1;
+        int leafBase = groupLeafBase[group];
+        while (node < leafBase) {
+            node = tree[2 * node] <= time ? 2 * node : 2 * node + 1;
+        }
+        return groupMembers[group][node - leafBase];
+    }
+
+    /**
+     * Smallest ready time of the VMs in the group
+     */
+    public double getMinReadyTime(int group) {
+        return trees[group][1];
+    }
+}
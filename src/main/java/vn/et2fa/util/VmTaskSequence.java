@@ -0,0 +1,164 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Tasks scheduled on one VM, in start-time order, with their positions.
+ *
+ * Tasks are kept in an array together with a task -> position map, so the position of a task,
+ * its neighbours and the block structure (tasks executed without idle intervals) around it are
+ * found in O(1) / O(block) instead of a linear search of the VM's task list. Delays that keep
+ * the order (shift-right updates) do not change positions; inserting or removing a task (task
+ * migration) shifts the array and renumbers the tasks behind it, O(k) for k tasks on the VM.
+ */
+public class VmTaskSequence {
+    private Et2faTask[] tasks;
+    private int size;
+    private final Map<Et2faTask, Integer> positions = new IdentityHashMap<>();
+
+    public VmTaskSequence(Collection<Et2faTask> tasks) {
+        this.tasks = tasks.toArray(new Et2faTask[0]);
+        this.size = this.tasks.length;
+        Arrays.sort(this.tasks, Comparator.comparingDouble(Et2faTask::getActualStartTime));
+        for (int i = 0; i < size; i++) {
+            positions.put(this.tasks[i], i);
+        }
+    }
+
+    /**
+     * Group a schedule by VM, one sequence per VM that has tasks
+     */
+    public static Map<Vm, VmTaskSequence> groupByVm(Map<Et2faTask, Vm> schedule) {
+        Map<Vm, List<Et2faTask>> tasksByVm = new HashMap<>();
+        for (Map.Entry<Et2faTask, Vm> entry : schedule.entrySet()) {
+            tasksByVm.computeIfAbsent(entry.getValue(), k -> new ArrayList<>())
+                .add(entry.getKey());
+        }
+        Map<Vm, VmTaskSequence> sequences = new HashMap<>();
+        for (Map.Entry<Vm, List<Et2faTask>> entry : tasksByVm.entrySet()) {
+            sequences.put(entry.getKey(), new VmTaskSequence(entry.getValue()));
+        }
+        return sequences;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Et2faTask get(int position) {
+        return tasks[position];
+    }
+
+    public Et2faTask first() {
+        return tasks[0];
+    }
+
+    public Et2faTask last() {
+        return tasks[size - 1];
+    }
+
+    /** Position of a task on this VM, or -1 if it is not scheduled here */
+    public int positionOf(Et2faTask task) {
+        Integer position = positions.get(task);
+        return position != null ? position : -1;
+    }
+
+    public boolean contains(Et2faTask task) {
+        return positions.containsKey(task);
+    }
+
+    /**
+     * First position of the block structure containing the task at the given position:
+     * walk left while the gap to the previous task is at most gapTolerance
+     */
+    public int blockStart(int position, double gapTolerance) {
+        int start = position;
+        while (start > 0 && tasks[start].getActualStartTime() - tasks[start - 1].getActualFinishTime() <= gapTolerance) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Exclusive end of the block structure containing the task at the given position
+     */
+    public int blockEnd(int position, double gapTolerance) {
+        int end = position + 1;
+        while (end < size && tasks[end].getActualStartTime() - tasks[end - 1].getActualFinishTime() <= gapTolerance) {
+            end++;
+        }
+        return end;
+    }
+
+    /** Idle time between the task at the given position and the next one (+inf for the last task) */
+    public double idleAfter(int position) {
+        if (position + 1 >= size) return Double.POSITIVE_INFINITY;
+        return tasks[position + 1].getActualStartTime() - tasks[position].getActualFinishTime();
+    }
+
+    /**
+     * Delay the tasks at positions [from, to) by delay seconds. The caller guarantees the delay
+     * fits before the task at position to, so the order (and all positions) stay the same.
+     */
+    public void shiftRight(int from, int to, double delay) {
+        for (int i = from; i < to; i++) {
+            tasks[i].setActualStartTime(tasks[i].getActualStartTime() + delay);
+            tasks[i].setActualFinishTime(tasks[i].getActualFinishTime() + delay);
+        }
+    }
+
+    /**
+     * Position at which a task starting at the given time keeps the sequence ordered:
+     * after every task that starts at or before it (binary search)
+     */
+    public int insertionPoint(double startTime) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tasks[mid].getActualStartTime() <= startTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Insert a task at the given position; the tasks from there on move one position back */
+    public void insert(int position, Et2faTask task) {
+        if (size == tasks.length) {
+            tasks = Arrays.copyOf(tasks, Math.max(4, size * 2));
+        }
+        System.arraycopy(tasks, position, tasks, position + 1, size - position);
+        tasks[position] = task;
+        size++;
+        for (int i = position; i < size; i++) {
+            positions.put(tasks[i], i);
+        }
+    }
+
+    /** Remove the task at the given position; the tasks behind it move one position forward */
+    public Et2faTask remove(int position) {
+        Et2faTask task = tasks[position];
+        System.arraycopy(tasks, position + 1, tasks, position, size - position - 1);
+        tasks[--size] = null;
+        positions.remove(task);
+        for (int i = position; i < size; i++) {
+            positions.put(tasks[i], i);
+        }
+        return task;
+    }
+
+    /** Read-only view of the tasks in start-time order */
+    public List<Et2faTask> asList() {
+        return Collections.unmodifiableList(Arrays.asList(tasks).subList(0, size));
+    }
+}
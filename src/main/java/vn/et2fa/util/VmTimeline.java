@@ -0,0 +1,253 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+
+import java.util.*;
+
+/**
+ * Busy and hibernation timeline of one VM: task intervals and hibernation periods on sorted
+ * primitive arrays with prefix sums of their durations.
+ *
+ * Busy, idle and hibernated time and the cost over any window [from, to] are answered with two
+ * binary searches, O(log n), instead of walking the VM's task list. Delaying a range of tasks
+ * without reordering (DOBS) keeps every duration, so the prefix sums stay valid and only the
+ * shifted start/finish entries are updated.
+ */
+public class VmTimeline {
+    private static final double COLD_STARTUP_TIME = HibernationCostModel.DUR_C; // Dur^C: lease starts this long before the first task
+
+    private final VmTaskSequence sequence;
+    private final double[] starts;
+    private final double[] finishes;
+    private final double[] busyPrefix; // busyPrefix[i] = total execution time of tasks 0..i-1
+
+    private double[] hibernationStarts = new double[0];
+    private double[] hibernationEnds = new double[0];
+    private double[] hibernatedPrefix = new double[1];
+
+    public VmTimeline(VmTaskSequence sequence) {
+        this.sequence = sequence;
+        int n = sequence.size();
+        this.starts = new double[n];
+        this.finishes = new double[n];
+        this.busyPrefix = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            starts[i] = sequence.get(i).getActualStartTime();
+            finishes[i] = sequence.get(i).getActualFinishTime();
+            busyPrefix[i + 1] = busyPrefix[i] + (finishes[i] - starts[i]);
+        }
+    }
+
+    /**
+     * One timeline per VM of a schedule grouped by VM
+     */
+    public static Map<Vm, VmTimeline> forSequences(Map<Vm, VmTaskSequence> sequences) {
+        Map<Vm, VmTimeline> timelines = new HashMap<>();
+        for (Map.Entry<Vm, VmTaskSequence> entry : sequences.entrySet()) {
+            timelines.put(entry.getKey(), new VmTimeline(entry.getValue()));
+        }
+        return timelines;
+    }
+
+    /** Tasks of the VM in start-time order */
+    public VmTaskSequence getSequence() {
+        return sequence;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    public double getStart(int position) {
+        return starts[position];
+    }
+
+    public double getFinish(int position) {
+        return finishes[position];
+    }
+
+    /** T_h^S: lease start, the cold startup before the first task (0 if the VM has no tasks) */
+    public double getLeaseStart() {
+        return isEmpty() ? 0 : Math.max(0, starts[0] - COLD_STARTUP_TIME);
+    }
+
+    /** T_h^E: lease end, the finish of the last task (0 if the VM has no tasks) */
+    public double getLeaseEnd() {
+        return isEmpty() ? 0 : finishes[finishes.length - 1];
+    }
+
+    /** Idle time between the task at the given position and the next one (+inf for the last task) */
+    public double getIdleAfter(int position) {
+        if (position + 1 >= starts.length) return Double.POSITIVE_INFINITY;
+        return starts[position + 1] - finishes[position];
+    }
+
+    /**
+     * First position of the block structure containing the task at the given position:
+     * walk left while the gap to the previous task is at most gapTolerance
+     */
+    public int blockStart(int position, double gapTolerance) {
+        int start = position;
+        while (start > 0 && starts[start] - finishes[start - 1] <= gapTolerance) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Exclusive end of the block structure containing the task at the given position
+     */
+    public int blockEnd(int position, double gapTolerance) {
+        int end = position + 1;
+        while (end < starts.length && starts[end] - finishes[end - 1] <= gapTolerance) {
+            end++;
+        }
+        return end;
+    }
+
+    /** Total execution time of the VM's tasks */
+    public double getBusyTime() {
+        return busyPrefix[starts.length];
+    }
+
+    /**
+     * Execution time within [from, to]
+     */
+    public double getBusyTime(double from, double to) {
+        return overlap(starts, finishes, busyPrefix, from, to);
+    }
+
+    /**
+     * Time within [from, to] and the lease during which the VM is neither executing a task
+     * nor hibernated
+     */
+    public double getIdleTime(double from, double to) {
+        return getLeasedTime(from, to) - getBusyTime(from, to) - getHibernatedTime(from, to);
+    }
+
+    /**
+     * Idle gaps between consecutive tasks that lie within [from, to] and are longer than
+     * minLength, as {start, end} pairs; O(log n + k) for k tasks in the window
+     */
+    public List<double[]> getIdleGaps(double from, double to, double minLength) {
+        List<double[]> gaps = new ArrayList<>();
+        for (int i = Math.max(0, firstFinishingAfter(finishes, from) - 1); i + 1 < starts.length; i++) {
+            double gapStart = Math.max(finishes[i], from);
+            double gapEnd = Math.min(starts[i + 1], to);
+            if (finishes[i] >= to) break;
+            if (gapEnd - gapStart > minLength) gaps.add(new double[] {gapStart, gapEnd});
+        }
+        return gaps;
+    }
+
+    /**
+     * Set the hibernation periods of the VM (sorted, non-overlapping)
+     */
+    public void setHibernations(double[] hibernationStarts, double[] hibernationEnds) {
+        this.hibernationStarts = hibernationStarts.clone();
+        this.hibernationEnds = hibernationEnds.clone();
+        this.hibernatedPrefix = new double[hibernationStarts.length + 1];
+        for (int i = 0; i < hibernationStarts.length; i++) {
+            hibernatedPrefix[i + 1] = hibernatedPrefix[i] + (hibernationEnds[i] - hibernationStarts[i]);
+        }
+    }
+
+    public int getHibernationCount() {
+        return hibernationStarts.length;
+    }
+
+    public double getHibernationStart(int index) {
+        return hibernationStarts[index];
+    }
+
+    public double getHibernationEnd(int index) {
+        return hibernationEnds[index];
+    }
+
+    /**
+     * Hibernated time within [from, to]
+     */
+    public double getHibernatedTime(double from, double to) {
+        return overlap(hibernationStarts, hibernationEnds, hibernatedPrefix, from, to);
+    }
+
+    /** Part of [from, to] within the lease */
+    public double getLeasedTime(double from, double to) {
+        if (isEmpty()) return 0;
+        return Math.max(0, Math.min(to, getLeaseEnd()) - Math.max(from, getLeaseStart()));
+    }
+
+    /**
+     * Running (leased, not hibernated) time within [from, to]
+     */
+    public double getRunningTime(double from, double to) {
+        return getLeasedTime(from, to) - getHibernatedTime(from, to);
+    }
+
+    /**
+     * Cost accrued within [from, to]: running time at the VM price plus hibernated time at the
+     * hibernation (ElasticIP) price, per second without the 60 s minimum of Eq. 1
+     */
+    public double getCost(double from, double to, double pricePerSecond, double hibernationPricePerSecond) {
+        return pricePerSecond * getRunningTime(from, to) + hibernationPricePerSecond * getHibernatedTime(from, to);
+    }
+
+    /**
+     * Delay the tasks at positions [from, to) by delay seconds (see VmTaskSequence.shiftRight);
+     * durations and therefore prefix sums do not change
+     */
+    void shiftRight(int from, int to, double delay) {
+        sequence.shiftRight(from, to, delay);
+        for (int i = from; i < to; i++) {
+            starts[i] += delay;
+            finishes[i] += delay;
+        }
+    }
+
+    /**
+     * Total length of the intersection of [from, to] with sorted, non-overlapping intervals:
+     * whole intervals from the prefix sums, the two boundary intervals clipped
+     */
+    private static double overlap(double[] intervalStarts, double[] intervalEnds, double[] prefix, double from, double to) {
+        if (to <= from) return 0;
+        int first = firstFinishingAfter(intervalEnds, from); // First interval ending after from
+        int last = firstStartingAtOrAfter(intervalStarts, to) - 1; // Last interval starting before to
+        if (first > last) return 0;
+        double total = prefix[last + 1] - prefix[first];
+        total -= Math.max(0, from - intervalStarts[first]);
+        total -= Math.max(0, intervalEnds[last] - to);
+        return total;
+    }
+
+    private static int firstFinishingAfter(double[] ends, double time) {
+        int low = 0;
+        int high = ends.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int firstStartingAtOrAfter(double[] intervalStarts, double time) {
+        int low = 0;
+        int high = intervalStarts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (intervalStarts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
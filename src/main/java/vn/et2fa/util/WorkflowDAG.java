@@ -10,21 +10,40 @@ import java.util.*;
  */
 public class WorkflowDAG {
     private List<Et2faTask> tasks;
+    private Map<Long, Et2faTask> tasksById; // Duplicate check for addTask
+    // Identity-keyed: CloudSim's Cloudlet hashCode includes the broker, which changes on submission
     private Map<Et2faTask, List<Et2faTask>> edges; // Dependencies: task -> successors
-    private Map<String, Double> dataTransfers; // Data transfer sizes between tasks (in GFLOP)
+    // Data transfer sizes between tasks, keyed by edgeKey(from, to); null while a Builder-made DAG is unmodified
+    private Map<Long, Double> dataTransfers;
+
+    // Frozen CSR view (rebuilt lazily after any structural change), indexed by Et2faTask.getDagIndex()
+    private boolean frozen;
+    private Et2faTask[] taskArray;
+    private int[] successorOffsets;
+    private int[] successorIndices;
+    private double[] successorTransfers;
+    private int[] predecessorOffsets;
+    private int[] predecessorIndices;
+    private double[] predecessorTransfers;
+    private int modificationCount; // Incremented by every structural change (incl. simplify/expand)
+
+    // Undo information for simplifyDAG: merged chains in merge order and the task order before merging
+    private List<MergedChain> mergedChains = new ArrayList<>();
+    private List<Et2faTask> tasksBeforeSimplify;
     
     public WorkflowDAG() {
         this.tasks = new ArrayList<>();
-        this.edges = new HashMap<>();
+        this.tasksById = new HashMap<>();
+        this.edges = new IdentityHashMap<>();
         this.dataTransfers = new HashMap<>();
     }
 
     public void addTask(Et2faTask task) {
         // Check by ID instead of object reference to avoid duplicates
-        boolean exists = tasks.stream().anyMatch(t -> t.getId() == task.getId());
-        if (!exists) {
+        if (tasksById.putIfAbsent(task.getId(), task) == null) {
             tasks.add(task);
             edges.put(task, new ArrayList<>());
+            startMutation();
         }
     }
 
@@ -38,8 +57,36 @@ public class WorkflowDAG {
             to.addPredecessor(from);
         }
         
-        String key = from.getId() + "_" + to.getId();
-        dataTransfers.put(key, dataSize);
+        startMutation();
+        dataTransfers.put(edgeKey(from, to), dataSize);
+    }
+
+    /**
+     * Invalidate the CSR view before a structural change. A DAG produced by the Builder keeps
+     * its transfer sizes only in the CSR arrays, so they are copied into the edge map first.
+     */
+    private void startMutation() {
+        if (dataTransfers == null) {
+            dataTransfers = new HashMap<>(successorIndices.length * 2);
+            for (int i = 0; i < taskArray.length; i++) {
+                for (int e = successorOffsets[i]; e < successorOffsets[i + 1]; e++) {
+                    dataTransfers.put(edgeKey(taskArray[i], taskArray[successorIndices[e]]), successorTransfers[e]);
+                }
+            }
+        }
+        frozen = false;
+        modificationCount++;
+    }
+
+    /**
+     * Unique key of an edge: the packed (from id, to id) pair passed through a bijective
+     * 64-bit mixer, so Long.hashCode spreads well even when ids are close together
+     */
+    private static long edgeKey(Et2faTask from, Et2faTask to) {
+        long key = (from.getId() << 32) | (to.getId() & 0xFFFFFFFFL);
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
     }
 
     public List<Et2faTask> getTasks() {
@@ -47,12 +94,141 @@ public class WorkflowDAG {
     }
 
     public List<Et2faTask> getSuccessors(Et2faTask task) {
-        return edges.getOrDefault(task, new ArrayList<>());
+        return edges.getOrDefault(task, Collections.emptyList());
     }
 
+    /**
+     * Data transfer size of edge from -> to (0 if there is no such edge).
+     * Uses the CSR arrays, so no key objects are allocated per call.
+     */
     public double getDataTransfer(Et2faTask from, Et2faTask to) {
-        String key = from.getId() + "_" + to.getId();
-        return dataTransfers.getOrDefault(key, 0.0);
+        freeze();
+        int fromIndex = from.getDagIndex();
+        int toIndex = to.getDagIndex();
+        if (!contains(fromIndex, from) || !contains(toIndex, to)) {
+            return 0.0;
+        }
+        return getDataTransfer(fromIndex, toIndex);
+    }
+
+    /**
+     * Data transfer size of edge between two dense task indices (0 if there is no such edge)
+     */
+    public double getDataTransfer(int fromIndex, int toIndex) {
+        freeze();
+        int e = Arrays.binarySearch(successorIndices, successorOffsets[fromIndex], successorOffsets[fromIndex + 1], toIndex);
+        return e >= 0 ? successorTransfers[e] : 0.0;
+    }
+
+    private boolean contains(int index, Et2faTask task) {
+        return index >= 0 && index < taskArray.length && taskArray[index] == task;
+    }
+
+    /**
+     * Build the primitive CSR representation of the current graph.
+     * Tasks are numbered 0..n-1 in getTasks() order and each task's dagIndex is updated.
+     * Successor and predecessor lists are sorted by index. No-op if the graph has not changed.
+     */
+    public void freeze() {
+        if (frozen) return;
+        int n = tasks.size();
+        taskArray = tasks.toArray(new Et2faTask[0]);
+        for (int i = 0; i < n; i++) {
+            taskArray[i].setDagIndex(i);
+        }
+
+        successorOffsets = new int[n + 1];
+        predecessorOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            List<Et2faTask> successors = edges.get(taskArray[i]);
+            successorOffsets[i + 1] = successorOffsets[i] + successors.size();
+            for (Et2faTask succ : successors) {
+                predecessorOffsets[succ.getDagIndex() + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            predecessorOffsets[i + 1] += predecessorOffsets[i];
+        }
+
+        int m = successorOffsets[n];
+        successorIndices = new int[m];
+        successorTransfers = new double[m];
+        predecessorIndices = new int[m];
+        predecessorTransfers = new double[m];
+        int[] predFill = Arrays.copyOf(predecessorOffsets, n);
+        // Iterating sources in index order keeps every predecessor row sorted
+        for (int i = 0; i < n; i++) {
+            List<Et2faTask> successors = edges.get(taskArray[i]);
+            int[] targets = new int[successors.size()];
+            for (int k = 0; k < targets.length; k++) {
+                targets[k] = successors.get(k).getDagIndex();
+            }
+            Arrays.sort(targets);
+            int base = successorOffsets[i];
+            for (int k = 0; k < targets.length; k++) {
+                Et2faTask succ = taskArray[targets[k]];
+                double transfer = dataTransfers.getOrDefault(edgeKey(taskArray[i], succ), 0.0);
+                successorIndices[base + k] = targets[k];
+                successorTransfers[base + k] = transfer;
+                int p = predFill[targets[k]]++;
+                predecessorIndices[p] = i;
+                predecessorTransfers[p] = transfer;
+            }
+        }
+        frozen = true;
+    }
+
+    /**
+     * Number of structural changes so far (added tasks or edges, simplifyDAG, expandSimplifiedDAG);
+     * dense indices and computations precomputed at one count are stale at any other
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /** Number of tasks (valid dense indices are 0..getTaskCount()-1) */
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    /** Task with the given dense index */
+    public Et2faTask getTask(int index) {
+        freeze();
+        return taskArray[index];
+    }
+
+    /** Successors of task i are successorIndices[offsets[i] .. offsets[i+1]) */
+    public int[] getSuccessorOffsets() {
+        freeze();
+        return successorOffsets;
+    }
+
+    public int[] getSuccessorIndices() {
+        freeze();
+        return successorIndices;
+    }
+
+    /** Data transfer size of each edge, parallel to getSuccessorIndices() */
+    public double[] getSuccessorTransfers() {
+        freeze();
+        return successorTransfers;
+    }
+
+    /** Predecessors of task i are predecessorIndices[offsets[i] .. offsets[i+1]) */
+    public int[] getPredecessorOffsets() {
+        freeze();
+        return predecessorOffsets;
+    }
+
+    public int[] getPredecessorIndices() {
+        freeze();
+        return predecessorIndices;
+    }
+
+    /** Data transfer size of each edge, parallel to getPredecessorIndices() */
+    public double[] getPredecessorTransfers() {
+        freeze();
+        return predecessorTransfers;
     }
 
     /**
@@ -128,72 +304,54 @@ public class WorkflowDAG {
     }
     
     /**
-     * BFS-optimized approach O(n+m)
+     * BFS-optimized approach O(n+m) over the CSR arrays
      */
     private void calculateTopologicalLevelsBFS() {
-        Map<Et2faTask, Integer> levels = new HashMap<>();
-        Map<Et2faTask, Integer> inDegree = new HashMap<>();
-        java.util.Queue<Et2faTask> queue = new java.util.LinkedList<>();
-        
-        // Initialize all tasks
-        for (Et2faTask task : tasks) {
-            levels.put(task, -1);
-            task.setTopologicalLevel(-1);
-            inDegree.put(task, task.getPredecessors() != null ? task.getPredecessors().size() : 0);
-        }
+        freeze();
+        int n = taskArray.length;
+        int[] levels = new int[n];
+        int[] inDegree = new int[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
         
         // Find all entry tasks (in-degree = 0) and add to queue with level 0
         int level0Count = 0;
-        for (Et2faTask task : tasks) {
-            if (inDegree.get(task) == 0) {
-                levels.put(task, 0);
-                task.setTopologicalLevel(0);
-                queue.offer(task);
+        for (int i = 0; i < n; i++) {
+            inDegree[i] = predecessorOffsets[i + 1] - predecessorOffsets[i];
+            levels[i] = -1;
+            if (inDegree[i] == 0) {
+                levels[i] = 0;
+                queue[tail++] = i;
                 level0Count++;
             }
         }
         
-        // BFS: Process tasks level by level
-        while (!queue.isEmpty()) {
-            Et2faTask current = queue.poll();
-            int currentLevel = levels.get(current);
-            
-            // Process all successors
-            List<Et2faTask> successors = getSuccessors(current);
-            for (Et2faTask succ : successors) {
-                // Decrease in-degree
-                int newInDegree = inDegree.get(succ) - 1;
-                inDegree.put(succ, newInDegree);
-                
-                // If all predecessors processed, assign level and add to queue
-                if (newInDegree == 0 && levels.get(succ) < 0) {
-                    int newLevel = currentLevel + 1;
-                    levels.put(succ, newLevel);
-                    succ.setTopologicalLevel(newLevel);
-                    queue.offer(succ);
-                } else if (levels.get(succ) < 0) {
-                    // Update level if not set yet (for parallel paths)
-                    int newLevel = Math.max(levels.getOrDefault(succ, -1), currentLevel + 1);
-                    if (newLevel > levels.getOrDefault(succ, -1)) {
-                        levels.put(succ, newLevel);
-                        succ.setTopologicalLevel(newLevel);
-                    }
+        // BFS (Kahn): a task's level is fixed once all its predecessors have been processed
+        int maxLevel = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int nextLevel = levels[current] + 1;
+            for (int e = successorOffsets[current]; e < successorOffsets[current + 1]; e++) {
+                int succ = successorIndices[e];
+                levels[succ] = Math.max(levels[succ], nextLevel);
+                if (--inDegree[succ] == 0) {
+                    queue[tail++] = succ;
+                    maxLevel = Math.max(maxLevel, levels[succ]);
                 }
             }
         }
         
-        // Final pass: assign level 0 to any remaining unassigned tasks (orphaned or cyclic)
+        // Final pass: assign level 0 to any remaining unassigned tasks (cyclic)
         int unassignedCount = 0;
-        for (Et2faTask task : tasks) {
-            if (levels.get(task) == null || levels.get(task) < 0) {
-                levels.put(task, 0);
-                task.setTopologicalLevel(0);
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] > 0) {
+                levels[i] = 0;
                 unassignedCount++;
             }
+            taskArray[i].setTopologicalLevel(levels[i]);
         }
         
-        // Calculate max level
-        int maxLevel = levels.values().stream().mapToInt(Integer::intValue).max().orElse(0);
         System.out.println("Topological Levels (BFS-optimized): " + level0Count + " entry tasks, max level=" + maxLevel + 
                           (unassignedCount > 0 ? ", " + unassignedCount + " unassigned tasks set to level 0" : ""));
     }
@@ -213,133 +371,346 @@ public class WorkflowDAG {
     /**
      * Simplify DAG by merging SOSI (Single Output Single Input) structures
      * Equation 16 in paper: |Suc(a_i)| = 1 AND |Pre(a_j)| = 1
-     * Tasks in SOSI structure can be merged into a task block
-     * Optimized with better iteration limits and merge limits
+     * Tasks in SOSI structure can be merged into a task block.
+     *
+     * Single O(n+m) pass over the CSR arrays: every maximal chain a_1 -> a_2 -> ... -> a_k of
+     * SOSI pairs is collapsed into its head a_1, which takes the summed computation and the
+     * successors of a_k. The merged tasks are recorded so expandSimplifiedDAG() can undo it.
      */
     public void simplifyDAG() {
-        int initialSize = tasks.size();
+        freeze();
+        int n = taskArray.length;
+        
+        // next[i] = the SOSI partner of task i, or -1
+        int[] next = new int[n];
+        boolean[] hasSosiParent = new boolean[n];
+        Arrays.fill(next, -1);
+        for (int i = 0; i < n; i++) {
+            if (successorOffsets[i + 1] - successorOffsets[i] == 1) {
+                int succ = successorIndices[successorOffsets[i]];
+                if (predecessorOffsets[succ + 1] - predecessorOffsets[succ] == 1) {
+                    next[i] = succ;
+                    hasSosiParent[succ] = true;
+                }
+            }
+        }
         
-        // For large workflows (1000+ tasks), skip simplifyDAG to prevent hanging
-        if (initialSize >= 500) {
-            System.out.println("DAG: Skipping simplifyDAG for large workflow (" + initialSize + " tasks)");
+        List<MergedChain> chains = new ArrayList<>();
+        for (int head = 0; head < n; head++) {
+            if (next[head] < 0 || hasSosiParent[head]) continue; // not the start of a chain
+            List<Et2faTask> members = new ArrayList<>();
+            for (int i = head; i >= 0; i = next[i]) {
+                members.add(taskArray[i]);
+            }
+            chains.add(new MergedChain(members));
+        }
+        if (chains.isEmpty()) {
             return;
         }
         
-        // Limit merging: don't merge more than 30% of tasks to preserve workflow structure
-        int maxMerges = Math.max(1, (int)(initialSize * 0.3));
-        int totalMerged = 0;
-        boolean changed = true;
-        int maxIterations = Math.min(50, tasks.size()); // Limit iterations based on task count
-        int iterations = 0;
+        startMutation();
+        if (tasksBeforeSimplify == null) {
+            tasksBeforeSimplify = new ArrayList<>(tasks);
+        }
+        Set<Et2faTask> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MergedChain chain : chains) {
+            mergeChain(chain);
+            removed.addAll(chain.members.subList(1, chain.members.size()));
+        }
+        mergedChains.addAll(chains);
+        tasks.removeIf(removed::contains);
         
-        while (changed && iterations < maxIterations && totalMerged < maxMerges) {
-            changed = false;
-            iterations++;
-            List<Et2faTask> toRemove = new ArrayList<>();
-            Set<Et2faTask> processed = new HashSet<>();
-            
-            // Create a copy of tasks to iterate over (to avoid concurrent modification)
-            List<Et2faTask> tasksToProcess = new ArrayList<>(tasks);
+        System.out.println("DAG Simplify: Merged " + chains.size() + " SOSI chains (" + removed.size() + " tasks). "
+                + n + " -> " + tasks.size() + " tasks");
+    }
+
+    /**
+     * Collapse one chain into its head. Edges inside the chain and their transfer sizes
+     * are left in place (unreachable while merged) so they can be restored unchanged.
+     */
+    private void mergeChain(MergedChain chain) {
+        Et2faTask head = chain.head();
+        Et2faTask tail = chain.tail();
+        
+        double computation = 0;
+        long length = 0;
+        for (Et2faTask member : chain.members) {
+            computation += member.getComputation();
+            length += member.getLength();
+        }
+        head.setComputation(computation);
+        head.setLength(length);
+        
+        // Head now points to the tail's successors, with the tail's data transfers
+        List<Et2faTask> tailSuccessors = edges.get(tail);
+        edges.put(head, new ArrayList<>(tailSuccessors));
+        head.getSuccessors().clear();
+        head.getSuccessors().addAll(tail.getSuccessors());
+        for (Et2faTask succ : tailSuccessors) {
+            replaceIdentity(succ.getPredecessors(), tail, head);
+            dataTransfers.put(edgeKey(head, succ), dataTransfers.getOrDefault(edgeKey(tail, succ), 0.0));
+        }
+        
+        for (int i = 1; i < chain.members.size(); i++) {
+            Et2faTask member = chain.members.get(i);
+            chain.memberEdges.add(edges.remove(member));
+            tasksById.remove(member.getId());
+        }
+    }
+
+    /**
+     * Undo simplifyDAG: restore the original tasks, edges and computations.
+     * If a schedule is given, each merged task's VM is assigned to all members of its chain and
+     * its [start, finish] interval is split among them in chain order, proportionally to computation.
+     */
+    public <V> void expandSimplifiedDAG(Map<Et2faTask, V> schedule) {
+        if (mergedChains.isEmpty()) {
+            return;
+        }
+        startMutation();
+        for (int c = mergedChains.size() - 1; c >= 0; c--) {
+            MergedChain chain = mergedChains.get(c);
+            Et2faTask head = chain.head();
+            Et2faTask tail = chain.tail();
+            double mergedStart = head.getActualStartTime();
+            double mergedDuration = head.getActualFinishTime() - mergedStart;
+            double totalComputation = head.getComputation();
             
-            for (Et2faTask task : tasksToProcess) {
-                if (processed.contains(task) || toRemove.contains(task)) {
-                    continue;
-                }
-                
-                // Check if we've reached merge limit
-                if (totalMerged >= maxMerges) {
-                    break;
-                }
-                
-                List<Et2faTask> successors = getSuccessors(task);
-                // Check SOSI condition: task has exactly one successor
-                if (successors.size() == 1) {
-                    Et2faTask successor = successors.get(0);
-                    List<Et2faTask> preds = successor.getPredecessors();
-                    // Check if successor has exactly one predecessor (which should be this task)
-                    if (preds != null && preds.size() == 1 && 
-                        preds.contains(task) &&
-                        !processed.contains(successor) &&
-                        !toRemove.contains(successor)) {
-                        // SOSI structure found - merge tasks
-                        mergeTasks(task, successor);
-                        toRemove.add(successor);
-                        processed.add(task);
-                        processed.add(successor);
-                        changed = true;
-                        totalMerged++;
-                        // Only merge one pair per iteration to avoid complexity
-                        break;
-                    }
-                }
+            for (Et2faTask succ : edges.get(head)) {
+                replaceIdentity(succ.getPredecessors(), head, tail);
+                dataTransfers.remove(edgeKey(head, succ));
+            }
+            head.getSuccessors().clear();
+            head.getSuccessors().add(chain.members.get(1));
+            edges.put(head, new ArrayList<>(List.of(chain.members.get(1))));
+            for (int i = 1; i < chain.members.size(); i++) {
+                Et2faTask member = chain.members.get(i);
+                edges.put(member, chain.memberEdges.get(i - 1));
+                tasksById.put(member.getId(), member);
             }
             
-            // Remove merged tasks
-            if (!toRemove.isEmpty()) {
-                tasks.removeAll(toRemove);
-                for (Et2faTask task : toRemove) {
-                    edges.remove(task);
-                    // Remove data transfers involving this task
-                    dataTransfers.entrySet().removeIf(entry -> {
-                        String key = entry.getKey();
-                        String taskIdStr = String.valueOf(task.getId());
-                        return key.contains("_" + taskIdStr) || key.contains(taskIdStr + "_");
-                    });
+            V vm = schedule != null ? schedule.get(head) : null;
+            double start = mergedStart;
+            for (int i = 0; i < chain.members.size(); i++) {
+                Et2faTask member = chain.members.get(i);
+                member.setComputation(chain.computations[i]);
+                member.setLength(chain.lengths[i]);
+                if (vm != null) {
+                    double share = totalComputation > 0 ? chain.computations[i] / totalComputation
+                            : 1.0 / chain.members.size();
+                    double finish = start + mergedDuration * share;
+                    member.setActualStartTime(start);
+                    member.setActualFinishTime(finish);
+                    schedule.put(member, vm);
+                    start = finish;
                 }
             }
         }
         
-        int finalSize = tasks.size();
-        if (initialSize != finalSize) {
-            System.out.println("DAG Simplify: Merged " + totalMerged + " tasks (limit: " + maxMerges + "). " + initialSize + " -> " + finalSize + " tasks");
+        tasks.clear();
+        tasks.addAll(tasksBeforeSimplify);
+        tasksBeforeSimplify = null;
+        mergedChains.clear();
+    }
+
+    /**
+     * Undo map of simplifyDAG: merged task -> original chain members (head first), in chain order
+     */
+    public Map<Et2faTask, List<Et2faTask>> getMergedChains() {
+        Map<Et2faTask, List<Et2faTask>> result = new IdentityHashMap<>();
+        for (MergedChain chain : mergedChains) {
+            result.put(chain.head(), Collections.unmodifiableList(chain.members));
         }
+        return result;
     }
 
-    private void mergeTasks(Et2faTask from, Et2faTask to) {
-        // Merge computation (sum of computations)
-        from.setComputation(from.getComputation() + to.getComputation());
-        from.setLength(from.getLength() + to.getLength());
-        
-        // Get successors of 'to' task
-        List<Et2faTask> toSuccessors = new ArrayList<>(edges.getOrDefault(to, new ArrayList<>()));
-        
-        // Update edges: from now points to to's successors
-        edges.get(from).clear();
-        edges.get(from).addAll(toSuccessors);
-        
-        // Update predecessor/successor relationships
-        from.getSuccessors().clear();
-        from.getSuccessors().addAll(to.getSuccessors());
-        
-        // Update successors to point to 'from' instead of 'to'
-        for (Et2faTask succ : to.getSuccessors()) {
-            if (succ != null) {
-                succ.getPredecessors().remove(to);
-                if (!succ.getPredecessors().contains(from)) {
-                    succ.getPredecessors().add(from);
-                }
+    private static void replaceIdentity(List<Et2faTask> list, Et2faTask oldTask, Et2faTask newTask) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == oldTask) {
+                list.set(i, newTask);
+                return;
             }
         }
-        
-        // Merge data transfers: add data transfers from 'to' to its successors
-        // Data transfer between from and to is removed (internal to merged task)
-        String mergeKey = from.getId() + "_" + to.getId();
-        dataTransfers.remove(mergeKey);
-        
-        // Update data transfer keys for to's successors
-        for (Et2faTask succ : toSuccessors) {
-            String oldKey = to.getId() + "_" + succ.getId();
-            String newKey = from.getId() + "_" + succ.getId();
-            Double dataSize = dataTransfers.get(oldKey);
-            if (dataSize != null) {
-                dataTransfers.put(newKey, dataSize);
-                dataTransfers.remove(oldKey);
+    }
+
+    /**
+     * A SOSI chain merged into its head, with what is needed to restore it
+     */
+    private static final class MergedChain {
+        final List<Et2faTask> members;
+        final double[] computations;
+        final long[] lengths;
+        final List<List<Et2faTask>> memberEdges = new ArrayList<>(); // successor lists of members[1..]
+
+        MergedChain(List<Et2faTask> members) {
+            this.members = members;
+            this.computations = new double[members.size()];
+            this.lengths = new long[members.size()];
+            for (int i = 0; i < members.size(); i++) {
+                computations[i] = members.get(i).getComputation();
+                lengths[i] = members.get(i).getLength();
             }
         }
+
+        Et2faTask head() {
+            return members.get(0);
+        }
+
+        Et2faTask tail() {
+            return members.get(members.size() - 1);
+        }
     }
-}
 
+    /**
+     * Bulk builder for large workflows: O(1) task and dependency insertion.
+     * Tasks are indexed by id; dependencies are appended to primitive arrays and deduplicated
+     * per node when build() sorts each successor row (a repeated edge keeps its last data size).
+     * build() produces the finished, frozen DAG directly in CSR form; a builder can only be used once.
+     */
+    public static class Builder {
+        private WorkflowDAG dag;
+        private int edgeCount;
+        private int[] edgeSources = new int[1024];
+        private int[] edgeTargets = new int[1024];
+        private double[] edgeTransfers = new double[1024];
+
+        public Builder() {
+            this.dag = new WorkflowDAG();
+        }
+
+        /**
+         * Add a task; a second task with the same id is ignored
+         */
+        public Builder addTask(Et2faTask task) {
+            checkNotBuilt();
+            if (dag.tasksById.putIfAbsent(task.getId(), task) == null) {
+                task.setDagIndex(dag.tasks.size());
+                dag.tasks.add(task);
+            }
+            return this;
+        }
+
+        /**
+         * Add a dependency (tasks are added if needed)
+         */
+        public Builder addDependency(Et2faTask from, Et2faTask to, double dataSize) {
+            checkNotBuilt();
+            int source = indexOf(from);
+            int target = indexOf(to);
+            if (edgeCount == edgeSources.length) {
+                int capacity = edgeCount * 2;
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeTransfers = Arrays.copyOf(edgeTransfers, capacity);
+            }
+            edgeSources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeTransfers[edgeCount] = dataSize;
+            edgeCount++;
+            return this;
+        }
+
+        /**
+         * Task previously added with the given id, or null
+         */
+        public Et2faTask getTask(long id) {
+            checkNotBuilt();
+            return dag.tasksById.get(id);
+        }
+
+        private int indexOf(Et2faTask task) {
+            int index = task.getDagIndex();
+            if (index >= 0 && index < dag.tasks.size() && dag.tasks.get(index) == task) {
+                return index;
+            }
+            Et2faTask known = dag.tasksById.get(task.getId());
+            if (known == null) {
+                addTask(task);
+                return task.getDagIndex();
+            }
+            return known.getDagIndex();
+        }
+
+        public WorkflowDAG build() {
+            checkNotBuilt();
+            WorkflowDAG result = dag;
+            dag = null;
+            int n = result.tasks.size();
 
+            // Bucket edges by source; each entry packs (target, insertion order) so sorting a row
+            // groups duplicates together with the most recently added one last
+            int[] rowStart = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                rowStart[edgeSources[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                rowStart[i + 1] += rowStart[i];
+            }
+            long[] rows = new long[edgeCount];
+            int[] fill = Arrays.copyOf(rowStart, n);
+            for (int e = 0; e < edgeCount; e++) {
+                rows[fill[edgeSources[e]]++] = ((long) edgeTargets[e] << 32) | e;
+            }
+
+            int[] successorOffsets = new int[n + 1];
+            int[] successorIndices = new int[edgeCount];
+            double[] successorTransfers = new double[edgeCount];
+            int[] predecessorOffsets = new int[n + 1];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                Arrays.sort(rows, rowStart[i], rowStart[i + 1]);
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    int target = (int) (rows[k] >>> 32);
+                    if (k + 1 < rowStart[i + 1] && (int) (rows[k + 1] >>> 32) == target) {
+                        continue; // duplicate edge, a later one wins
+                    }
+                    successorIndices[m] = target;
+                    successorTransfers[m] = edgeTransfers[(int) rows[k]];
+                    predecessorOffsets[target + 1]++;
+                    m++;
+                }
+                successorOffsets[i + 1] = m;
+            }
+            for (int i = 0; i < n; i++) {
+                predecessorOffsets[i + 1] += predecessorOffsets[i];
+            }
 
+            int[] predecessorIndices = new int[m];
+            double[] predecessorTransfers = new double[m];
+            int[] predFill = Arrays.copyOf(predecessorOffsets, n);
+            Et2faTask[] taskArray = result.tasks.toArray(new Et2faTask[0]);
+            for (int i = 0; i < n; i++) {
+                Et2faTask task = taskArray[i];
+                List<Et2faTask> successors = new ArrayList<>(successorOffsets[i + 1] - successorOffsets[i]);
+                for (int e = successorOffsets[i]; e < successorOffsets[i + 1]; e++) {
+                    int target = successorIndices[e];
+                    int p = predFill[target]++;
+                    predecessorIndices[p] = i;
+                    predecessorTransfers[p] = successorTransfers[e];
+                    successors.add(taskArray[target]);
+                    // Already deduplicated, so append directly instead of the contains() checks in Et2faTask
+                    task.getSuccessors().add(taskArray[target]);
+                    taskArray[target].getPredecessors().add(task);
+                }
+                result.edges.put(task, successors);
+            }
 
+            result.taskArray = taskArray;
+            result.successorOffsets = successorOffsets;
+            result.successorIndices = Arrays.copyOf(successorIndices, m);
+            result.successorTransfers = Arrays.copyOf(successorTransfers, m);
+            result.predecessorOffsets = predecessorOffsets;
+            result.predecessorIndices = predecessorIndices;
+            result.predecessorTransfers = predecessorTransfers;
+            result.dataTransfers = null;
+            result.frozen = true;
+            return result;
+        }
 
+        private void checkNotBuilt() {
+            if (dag == null) {
+                throw new IllegalStateException("WorkflowDAG.Builder has already been built");
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package vn.et2fa.algorithm;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CPO moves on T2FA schedules of random workflows: the result stays feasible and the makespan
+ * never grows
+ */
+class CPOAlgorithmTest {
+    private static final double EPS = 1e-6;
+
+    @Test
+    void optimizedScheduleIsFeasibleAndNotLonger() {
+        Random random = new Random(150);
+        for (int round = 0; round < 60; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 2 + random.nextInt(40), 0.05 + 0.25 * random.nextDouble());
+            VmCatalog catalog = TestPools.create(random, 2 + random.nextInt(8));
+            OptimizationConfig config = new OptimizationConfig("optimized");
+            if (random.nextBoolean()) config.setCpoMaxAccelerationRounds(1 + random.nextInt(3));
+            if (random.nextBoolean()) config.setCpoMaxConsolidationPasses(1 + random.nextInt(3));
+            config.setCpoTrialsPerTask(1 + random.nextInt(4));
+            Map<Et2faTask, Vm> schedule = new T2FAAlgorithm(dag, catalog, config, null).schedule();
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, catalog);
+            double makespan = makespan(dag);
+
+            CPOAlgorithm cpo = new CPOAlgorithm(schedule, dag, catalog, config, "random",
+                random.nextBoolean() ? new ScheduleSlack(schedule, matrix) : null, null);
+            // No deadline, one that forces acceleration, or one the schedule already meets
+            double deadline = new double[]{0, 0.5 * makespan, 2 * makespan}[random.nextInt(3)];
+            cpo.setDeadline(deadline);
+            cpo.optimize();
+
+            ScheduleChecks.assertFeasible(schedule, matrix);
+            assertTrue(makespan(dag) <= makespan + EPS, "makespan " + makespan + " -> " + makespan(dag));
+        }
+    }
+
+    @Test
+    void consolidationDoesNotSpendLooseDeadline() {
+        Random random = new Random(151);
+        for (int round = 0; round < 30; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 10 + random.nextInt(30), 0.1);
+            VmCatalog catalog = TestPools.create(random, 4 + random.nextInt(6));
+            OptimizationConfig config = new OptimizationConfig("optimized");
+            Map<Et2faTask, Vm> schedule = new T2FAAlgorithm(dag, catalog, config, null).schedule();
+            double makespan = makespan(dag);
+
+            CPOAlgorithm cpo = new CPOAlgorithm(schedule, dag, catalog, config, "random", null, null);
+            cpo.setDeadline(10 * makespan);
+            cpo.optimize();
+            assertTrue(makespan(dag) <= makespan + EPS, "makespan " + makespan + " -> " + makespan(dag));
+        }
+    }
+
+    private static double makespan(WorkflowDAG dag) {
+        return dag.getTasks().stream().mapToDouble(Et2faTask::getActualFinishTime).max().orElse(0);
+    }
+}
@@ -0,0 +1,120 @@
+package vn.et2fa.algorithm;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The three DOBS drivers (rescanning loop, worklist, parallel passes) on copies of the same
+ * random schedules: all reach the same fixed point, and the result stays feasible
+ */
+class DOBSAlgorithmTest {
+    private static final double EPS = 1e-6;
+
+    @Test
+    void worklistReachesTheRescanningFixedPoint() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            long seed = random.nextLong();
+            Instance rescan = new Instance(seed);
+            Instance worklist = new Instance(seed);
+            rescan.optimize("original", false);
+            worklist.optimize("optimized", false);
+
+            double[][] expected = ScheduleChecks.times(rescan.dag);
+            assertSameTimes(expected, ScheduleChecks.times(worklist.dag), "worklist");
+
+            // A fixed point: another pass delays nothing
+            worklist.optimize("original", false);
+            assertSameTimes(expected, ScheduleChecks.times(worklist.dag), "second pass");
+        }
+    }
+
+    @Test
+    void delayedScheduleStaysFeasible() {
+        Random random = new Random(12);
+        for (int round = 0; round < 300; round++) {
+            long seed = random.nextLong();
+            for (int driver = 0; driver < 3; driver++) {
+                Instance instance = new Instance(seed);
+                double[][] before = ScheduleChecks.times(instance.dag);
+                ScheduleSlack slack = instance.optimize(driver == 0 ? "original" : "optimized", driver == 2);
+
+                ScheduleChecks.assertFeasible(instance.schedule, instance.matrix);
+                double[][] after = ScheduleChecks.times(instance.dag);
+                assertEquals(makespan(before), makespan(after), EPS);
+                for (Map.Entry<Vm, VmTaskSequence> entry : slack.getSequences().entrySet()) {
+                    // Tasks stay on their VM, in their order, and only move later
+                    List<Et2faTask> tasks = entry.getValue().asList();
+                    for (int p = 0; p < tasks.size(); p++) {
+                        Et2faTask task = tasks.get(p);
+                        int i = task.getDagIndex();
+                        assertSame(entry.getKey(), instance.schedule.get(task));
+                        assertEquals(p, entry.getValue().positionOf(task));
+                        assertTrue(after[i][0] >= before[i][0], "task " + task.getId() + " moved earlier");
+                        assertEquals(before[i][1] - before[i][0], after[i][1] - after[i][0], EPS);
+                        if (p > 0) assertTrue(before[tasks.get(p - 1).getDagIndex()][0] <= before[i][0]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void parallelPassesMatchTheWorklist() {
+        Random random = new Random(14);
+        for (int round = 0; round < 300; round++) {
+            long seed = random.nextLong();
+            Instance worklist = new Instance(seed);
+            Instance parallel = new Instance(seed);
+            worklist.optimize("optimized", false);
+            parallel.optimize("optimized", true);
+            assertSameTimes(ScheduleChecks.times(worklist.dag), ScheduleChecks.times(parallel.dag), "parallel");
+        }
+    }
+
+    /**
+     * One copy of a random workflow with a random schedule on up to 16 VMs, with gaps before the
+     * tasks so there are blocks to delay; the same seed gives the same copy
+     */
+    private static final class Instance {
+        final WorkflowDAG dag;
+        final ExecutionMatrix matrix;
+        final Map<Et2faTask, Vm> schedule;
+
+        Instance(long seed) {
+            Random random = new Random(seed);
+            dag = RandomDags.create(random, 2 + random.nextInt(80), 0.02 + 0.2 * random.nextDouble());
+            matrix = new ExecutionMatrix(dag, TestPools.create(random, 1 + random.nextInt(16)));
+            schedule = TestPools.schedule(random, matrix, random.nextInt(4) * 15);
+        }
+
+        ScheduleSlack optimize(String mode, boolean parallel) {
+            OptimizationConfig config = new OptimizationConfig(mode);
+            config.setUseParallelDOBS(parallel);
+            ScheduleSlack slack = new ScheduleSlack(schedule, matrix);
+            new DOBSAlgorithm(schedule, slack, config).optimize();
+            return slack;
+        }
+    }
+
+    /** Same schedule, bit for bit (the drivers apply the same delays in the same order) */
+    private static void assertSameTimes(double[][] expected, double[][] actual, String driver) {
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i], 0.0, driver + ": times of task " + i);
+        }
+    }
+
+    private static double makespan(double[][] times) {
+        double makespan = 0;
+        for (double[] time : times) {
+            makespan = Math.max(makespan, time[1]);
+        }
+        return makespan;
+    }
+}
@@ -0,0 +1,84 @@
+package vn.et2fa.algorithm;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.*;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parallel level evaluation against the sequential scan: with the same seed both give the same
+ * VM and the same start/finish time to every task
+ */
+class T2FAAlgorithmTest {
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "workflows/benchmark/CYBERSHAKE/Cyber_1000.dax",
+        "workflows/benchmark/MONTAGE/Monta_1000.dax",
+        "workflows/benchmark/EPIGE/Epige_997.dax",
+        "workflows/benchmark/CYBERSHAKE/Cyber_100.dax",
+        "workflows/benchmark/INSPIRAL/Inspi_1000.dax",
+        "workflows/benchmark/SIPHT/Sipht_100.dax"})
+    void parallelLevelsMatchSequentialOnWorkflows(String daxPath) throws Exception {
+        Path compiled = tempDir.resolve("workflow" + CompiledDax.FILE_EXTENSION);
+        CompiledDax.compile(DaxLoader.load(daxPath), compiled);
+        VmCatalog catalog = TestPools.create(new Random(8), 20);
+        for (boolean insertion : new boolean[]{false, true}) {
+            assertSameSchedule(CompiledDax.load(compiled), CompiledDax.load(compiled), catalog, insertion, true);
+        }
+    }
+
+    @Test
+    void parallelLevelsMatchSequentialOnRandomWorkflows() {
+        Random random = new Random(108);
+        for (int round = 0; round < 20; round++) {
+            // Few edges, so levels are wider than the parallel threshold
+            int n = 50 + random.nextInt(250);
+            double edgeProbability = (1 + random.nextInt(3)) / (double) n;
+            long seed = random.nextLong();
+            VmCatalog catalog = TestPools.create(random, 2 + random.nextInt(20));
+            assertSameSchedule(RandomDags.create(new Random(seed), n, edgeProbability),
+                RandomDags.create(new Random(seed), n, edgeProbability), catalog, random.nextBoolean(), random.nextBoolean());
+        }
+    }
+
+    /** Schedule two copies of a workflow, sequentially and with parallel levels, and compare */
+    private static void assertSameSchedule(WorkflowDAG sequentialDag, WorkflowDAG parallelDag, VmCatalog catalog,
+            boolean insertion, boolean useCache) {
+        Map<Et2faTask, Vm> sequential = schedule(sequentialDag, catalog, false, insertion, useCache);
+        Map<Et2faTask, Vm> parallel = schedule(parallelDag, catalog, true, insertion, useCache);
+
+        assertEquals(sequentialDag.getTaskCount(), sequential.size());
+        assertEquals(parallelDag.getTaskCount(), parallel.size());
+        for (int i = 0; i < sequentialDag.getTaskCount(); i++) {
+            Et2faTask expected = sequentialDag.getTask(i);
+            Et2faTask actual = parallelDag.getTask(i);
+            assertEquals(expected.getId(), actual.getId());
+            String label = "task " + expected.getId() + " (insertion " + insertion + ")";
+            assertSame(sequential.get(expected), parallel.get(actual), label);
+            assertEquals(expected.getActualStartTime(), actual.getActualStartTime(), 0.0, label);
+            assertEquals(expected.getActualFinishTime(), actual.getActualFinishTime(), 0.0, label);
+        }
+        ScheduleChecks.assertFeasible(parallel, new ExecutionMatrix(parallelDag, catalog));
+    }
+
+    private static Map<Et2faTask, Vm> schedule(WorkflowDAG dag, VmCatalog catalog, boolean parallelLevels,
+            boolean insertion, boolean useCache) {
+        OptimizationConfig config = new OptimizationConfig("optimized");
+        config.setUseParallelLevels(parallelLevels);
+        config.setUseInsertionPolicy(insertion);
+        config.setUseCache(useCache);
+        OptimizationCache cache = useCache ? new OptimizationCache() : null;
+        return new T2FAAlgorithm(dag, catalog, config, cache).schedule();
+    }
+}
@@ -0,0 +1,70 @@
+package vn.et2fa.broker;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.util.*;
+
+import java.util.*;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plans of random workflows in both modes: every task is planned, the plan holds the tasks'
+ * final times and is feasible. A planning failure fails the run instead of leaving no plan.
+ */
+class Et2faPlannerTest {
+
+	@Test
+	void planCoversEveryTaskFeasibly() {
+		Random random = new Random(250);
+		for (int round = 0; round < 40; round++) {
+			WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(60), 0.03 + 0.2 * random.nextDouble());
+			VmCatalog catalog = TestPools.create(random, 1 + random.nextInt(8));
+			OptimizationConfig config = new OptimizationConfig(random.nextBoolean() ? "optimized" : "original");
+			Et2faPlanner planner = new Et2faPlanner(dag, catalog, config);
+			double deadline = random.nextInt(3) * 100.0;
+			planner.setDeadline(deadline);
+			SchedulePlan plan = planner.plan();
+
+			assertEquals(dag.getTaskCount(), plan.size());
+			assertSame(catalog, plan.getVmCatalog());
+			ScheduleChecks.assertFeasible(plan.getSchedule(), new ExecutionMatrix(dag, catalog));
+			double makespan = 0;
+			for (Et2faTask task : dag.getTasks()) {
+				Vm vm = plan.getVm(task);
+				assertSame(vm, plan.getSchedule().get(task));
+				assertEquals(task.getActualStartTime(), plan.getStartTime(task));
+				assertEquals(task.getActualFinishTime(), plan.getFinishTime(task));
+				makespan = Math.max(makespan, task.getActualFinishTime());
+			}
+			assertEquals(makespan, plan.getMakespan());
+			assertEquals(deadline <= 0 || makespan <= deadline, plan.meetsDeadline(deadline));
+			assertTrue(plan.getTotalCost() > 0);
+		}
+	}
+
+	@Test
+	void planWithoutVmsFails() {
+		WorkflowDAG dag = RandomDags.create(new Random(251), 5, 0.5);
+		Et2faPlanner planner = new Et2faPlanner(dag, VmCatalog.createDefault(List.of()), new OptimizationConfig("optimized"));
+		assertThrows(IllegalStateException.class, planner::plan);
+		CompletionException failed = assertThrows(CompletionException.class, () -> planner.planAsync().join());
+		assertInstanceOf(IllegalStateException.class, failed.getCause());
+	}
+
+	@Test
+	void brokerFailsWhenPendingPlanFails() {
+		Et2faBroker broker = new Et2faBroker(new CloudSim());
+		broker.setWorkflowDAG(RandomDags.create(new Random(252), 5, 0.5));
+		assertFalse(broker.meetsDeadline()); // No plan yet
+
+		broker.planAsync(); // No VMs submitted
+		IllegalStateException failed = assertThrows(IllegalStateException.class, broker::getPlan);
+		assertInstanceOf(IllegalStateException.class, failed.getCause());
+		assertFalse(broker.meetsDeadline());
+		assertTrue(broker.getSchedule().isEmpty());
+	}
+}
@@ -0,0 +1,89 @@
+package vn.et2fa.broker;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+import vn.et2fa.util.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A SchedulePlan is a snapshot: later changes to the schedule map or the tasks do not reach it
+ */
+class SchedulePlanTest {
+
+	@Test
+	void planIsUnaffectedByLaterChanges() {
+		Random random = new Random(25);
+		WorkflowDAG dag = RandomDags.create(random, 20, 0.2);
+		VmCatalog catalog = TestPools.create(random, 4);
+		Map<Et2faTask, Vm> schedule = TestPools.schedule(random, new ExecutionMatrix(dag, catalog), 5);
+		Et2faTask unplanned = dag.getTask(0);
+		schedule.remove(unplanned);
+		SchedulePlan plan = new SchedulePlan(dag, schedule, catalog, null, 0.5);
+		double[][] times = ScheduleChecks.times(dag);
+		Map<Et2faTask, Vm> vms = new IdentityHashMap<>(schedule);
+
+		// Later changes of the source map and of the tasks
+		Vm other = catalog.getVm(0);
+		for (Et2faTask task : dag.getTasks()) {
+			schedule.put(task, other);
+			task.setActualStartTime(task.getActualStartTime() + 100);
+			task.setActualFinishTime(task.getActualFinishTime() + 100);
+		}
+
+		assertEquals(dag.getTaskCount() - 1, plan.size());
+		assertNull(plan.getVm(unplanned));
+		assertTrue(Double.isNaN(plan.getStartTime(unplanned)));
+		assertFalse(plan.getSchedule().containsKey(unplanned));
+		double makespan = 0;
+		for (Map.Entry<Et2faTask, Vm> entry : vms.entrySet()) {
+			Et2faTask task = entry.getKey();
+			int i = task.getDagIndex();
+			assertSame(entry.getValue(), plan.getVm(task));
+			assertSame(entry.getValue(), plan.getSchedule().get(task));
+			assertEquals(times[i][0], plan.getStartTime(task));
+			assertEquals(times[i][1], plan.getFinishTime(task));
+			makespan = Math.max(makespan, times[i][1]);
+		}
+		assertEquals(makespan, plan.getMakespan());
+		assertEquals(0.5, plan.getSchedulingTime());
+	}
+
+	@Test
+	void scheduleIsReadOnly() {
+		Random random = new Random(26);
+		WorkflowDAG dag = RandomDags.create(random, 5, 0.5);
+		VmCatalog catalog = TestPools.create(random, 2);
+		Map<Et2faTask, Vm> schedule = TestPools.schedule(random, new ExecutionMatrix(dag, catalog), 0);
+		SchedulePlan plan = new SchedulePlan(dag, schedule, catalog, null, 0);
+		Map<Et2faTask, Vm> planned = plan.getSchedule();
+		Et2faTask task = dag.getTask(0);
+
+		assertThrows(UnsupportedOperationException.class, () -> planned.put(task, catalog.getVm(1)));
+		assertThrows(UnsupportedOperationException.class, () -> planned.remove(task));
+		assertThrows(UnsupportedOperationException.class, planned::clear);
+		assertThrows(UnsupportedOperationException.class, () -> planned.entrySet().iterator().next().setValue(catalog.getVm(1)));
+		assertEquals(dag.getTaskCount(), plan.size());
+	}
+
+	@Test
+	void foreignTaskIsNotPlanned() {
+		Random random = new Random(27);
+		WorkflowDAG dag = RandomDags.create(random, 5, 0.5);
+		VmCatalog catalog = TestPools.create(random, 2);
+		SchedulePlan plan = new SchedulePlan(dag, TestPools.schedule(random, new ExecutionMatrix(dag, catalog), 0), catalog, null, 0);
+
+		// Same dense index as a planned task, but not part of the plan's DAG
+		WorkflowDAG other = new WorkflowDAG();
+		Et2faTask foreign = new Et2faTask(10, 1, TaskType.GENERAL);
+		other.addTask(foreign);
+		other.freeze();
+		assertEquals(0, foreign.getDagIndex());
+		assertNull(plan.getVm(foreign));
+		assertTrue(Double.isNaN(plan.getFinishTime(foreign)));
+	}
+}
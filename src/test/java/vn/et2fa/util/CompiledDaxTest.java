@@ -0,0 +1,164 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vn.et2fa.model.Et2faTask;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DAX -> compiled DAX -> WorkflowDAG round trip, checked against the parsed DAX itself
+ */
+class CompiledDaxTest {
+	@TempDir
+	Path tempDir;
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"workflows/benchmark/CYBERSHAKE/Cyber_30.dax",
+			"workflows/benchmark/MONTAGE/Monta_25.dax",
+			"workflows/benchmark/EPIGE/Epige_24.dax",
+			"workflows/benchmark/GAUSSIAN/Gauss_54.dax",
+			"workflows/benchmark/SIPHT/Sipht_30.dax",
+			"workflows/benchmark/INSPIRAL/Inspi_30.dax"})
+	void roundTripMatchesDax(String daxPath) throws Exception {
+		DaxLoader.DaxWorkflow dax = DaxLoader.load(daxPath);
+		Path compiled = tempDir.resolve("workflow" + CompiledDax.FILE_EXTENSION);
+		CompiledDax.compile(dax, compiled);
+		WorkflowDAG dag = CompiledDax.load(compiled);
+
+		int n = dax.tasks.size();
+		assertEquals(n, dag.getTaskCount());
+		Map<String, Integer> indexById = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			indexById.put(dax.tasks.get(i).id, i);
+			Et2faTask task = dag.getTask(i);
+			assertEquals(i, task.getId());
+			assertEquals(dax.tasks.get(i).computation, task.getLength());
+		}
+
+		// Every distinct parent -> child pair of the DAX is an edge with its transfer size
+		Set<Long> expectedEdges = new HashSet<>();
+		for (Map.Entry<String, List<String>> entry : dax.dependencies.entrySet()) {
+			Integer parent = indexById.get(entry.getKey());
+			if (parent == null) continue;
+			for (String childId : entry.getValue()) {
+				Integer child = indexById.get(childId);
+				if (child == null) continue;
+				expectedEdges.add((long) parent * n + child);
+				double transfer = dax.dataTransfers.getOrDefault(entry.getKey() + "_" + childId, 0.0);
+				assertEquals(transfer, dag.getDataTransfer(parent, child), "transfer " + entry.getKey() + " -> " + childId);
+			}
+		}
+
+		int[] offsets = dag.getSuccessorOffsets();
+		int[] successors = dag.getSuccessorIndices();
+		Set<Long> actualEdges = new HashSet<>();
+		for (int i = 0; i < n; i++) {
+			for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+				actualEdges.add((long) i * n + successors[e]);
+			}
+			assertEquals(offsets[i + 1] - offsets[i], dag.getTask(i).getSuccessors().size());
+		}
+		assertEquals(expectedEdges, actualEdges);
+	}
+
+	@Test
+	void rejectsBadMagic() throws IOException {
+		Path file = tempDir.resolve("bad" + CompiledDax.FILE_EXTENSION);
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> CompiledDax.load(file));
+	}
+
+	@Test
+	void rejectsUnsupportedVersion() throws Exception {
+		Path file = compileSmallWorkflow();
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.BYTES, 99);
+		Files.write(file, bytes);
+		assertThrows(IOException.class, () -> CompiledDax.load(file));
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws Exception {
+		Path file = compileSmallWorkflow();
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - Double.BYTES));
+		assertThrows(IOException.class, () -> CompiledDax.load(file));
+	}
+
+	@Test
+	void rejectsFileLongerThanItsHeader() throws Exception {
+		Path file = compileSmallWorkflow();
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length + Integer.BYTES));
+		assertThrows(IOException.class, () -> CompiledDax.load(file));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {-1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x2000_0000, 26})
+	void rejectsCorruptTaskCount(int n) throws Exception {
+		Path file = compileSmallWorkflow();
+		assertThrows(IOException.class, () -> CompiledDax.load(patch(file, 2 * Integer.BYTES, n)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {-1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x1555_5556})
+	void rejectsCorruptEdgeCount(int m) throws Exception {
+		Path file = compileSmallWorkflow();
+		assertThrows(IOException.class, () -> CompiledDax.load(patch(file, 3 * Integer.BYTES, m)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {-1, 25, Integer.MAX_VALUE, Integer.MIN_VALUE})
+	void rejectsSuccessorOutsideTheWorkflow(int target) throws Exception {
+		Path file = compileSmallWorkflow();
+		assertThrows(IOException.class, () -> CompiledDax.load(patch(file, targetsPos(file), target)));
+	}
+
+	@Test
+	void rejectsCorruptOffsets() throws Exception {
+		Path file = compileSmallWorkflow();
+		ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+		int n = header.getInt(2 * Integer.BYTES);
+		int m = header.getInt(3 * Integer.BYTES);
+		int offsetsPos = 4 * Integer.BYTES + n * Long.BYTES;
+		byte[] original = Files.readAllBytes(file);
+		// First offset not 0, decreasing offsets, past the edges, last offset short of the edges
+		int[][] patches = {{0, 1}, {1, -1}, {n / 2, m + 1}, {n, m - 1}, {n / 2, Integer.MIN_VALUE}};
+		for (int[] p : patches) {
+			Files.write(file, original);
+			assertThrows(IOException.class, () -> CompiledDax.load(patch(file, offsetsPos + p[0] * Integer.BYTES, p[1])),
+					"offset " + p[0] + " = " + p[1]);
+		}
+	}
+
+	/** Overwrite the int at a byte position of the file */
+	private static Path patch(Path file, int position, int value) throws IOException {
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+		Files.write(file, bytes);
+		return file;
+	}
+
+	/** Byte position of the first successor index */
+	private static int targetsPos(Path file) throws IOException {
+		int n = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).getInt(2 * Integer.BYTES);
+		return 4 * Integer.BYTES + n * Long.BYTES + (n + 1) * Integer.BYTES;
+	}
+
+	private Path compileSmallWorkflow() throws Exception {
+		Path file = tempDir.resolve("small" + CompiledDax.FILE_EXTENSION);
+		CompiledDax.compile(DaxLoader.load("workflows/benchmark/MONTAGE/Monta_25.dax"), file);
+		return file;
+	}
+}
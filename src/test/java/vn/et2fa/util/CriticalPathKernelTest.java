@@ -0,0 +1,180 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CriticalPathKernel against the longest paths found by enumerating every path of small DAGs
+ */
+class CriticalPathKernelTest {
+    private static final double EPS = 1e-9;
+
+    @Test
+    void passesMatchPathEnumeration() {
+        Random random = new Random(16);
+        for (int round = 0; round < 300; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(12), 0.1 + 0.4 * random.nextDouble());
+            int n = dag.getTaskCount();
+            CriticalPathKernel kernel = new CriticalPathKernel(dag);
+            double[] durations = new double[n];
+            for (int x = 0; x < n; x++) {
+                durations[x] = random.nextInt(20);
+            }
+            double[] edgeDelays = null;
+            if (random.nextBoolean()) {
+                edgeDelays = new double[dag.getSuccessorIndices().length];
+                for (int e = 0; e < edgeDelays.length; e++) {
+                    edgeDelays[e] = random.nextInt(10);
+                }
+            }
+            int[] nextOnVm = random.nextBoolean() ? randomVmOrder(random, dag, 1 + random.nextInt(3)) : null;
+
+            kernel.compute(durations, edgeDelays, nextOnVm);
+            assertMatchesEnumeration(kernel, dag, durations, edgeDelays, nextOnVm);
+        }
+    }
+
+    @Test
+    void scheduleComputeUsesMatrixTimes() {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(12), 0.3);
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, TestPools.create(random, 1 + random.nextInt(4)));
+            Map<Et2faTask, Vm> schedule = TestPools.schedule(random, matrix, 0);
+            int n = dag.getTaskCount();
+            double[] durations = new double[n];
+            double[] edgeDelays = new double[dag.getSuccessorIndices().length];
+            int[] offsets = dag.getSuccessorOffsets();
+            for (int x = 0; x < n; x++) {
+                int vm = matrix.indexOf(schedule.get(dag.getTask(x)));
+                durations[x] = matrix.getExecutionTime(x, vm);
+                for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                    int succVm = matrix.indexOf(schedule.get(dag.getTask(dag.getSuccessorIndices()[e])));
+                    edgeDelays[e] = matrix.getCommunicationTime(dag.getSuccessorTransfers()[e], vm, succVm);
+                }
+            }
+
+            CriticalPathKernel kernel = new CriticalPathKernel(dag);
+            kernel.compute(schedule, matrix);
+            assertMatchesEnumeration(kernel, dag, durations, edgeDelays, null);
+        }
+    }
+
+    @Test
+    void rejectsVmOrderAgainstDependencies() {
+        WorkflowDAG dag = RandomDags.create(new Random(18), 4, 0.8);
+        assertTrue(dag.getSuccessorIndices().length > 0);
+        int from = 0;
+        while (dag.getSuccessorOffsets()[from + 1] == dag.getSuccessorOffsets()[from]) from++;
+        int to = dag.getSuccessorIndices()[dag.getSuccessorOffsets()[from]];
+        int[] nextOnVm = new int[dag.getTaskCount()];
+        Arrays.fill(nextOnVm, -1);
+        nextOnVm[to] = from; // successor runs first on the same VM
+        CriticalPathKernel kernel = new CriticalPathKernel(dag);
+        assertThrows(IllegalStateException.class, () -> kernel.compute(new double[4], null, nextOnVm));
+    }
+
+    /** Random VM assignment with each VM's tasks in id (topological) order */
+    private static int[] randomVmOrder(Random random, WorkflowDAG dag, int vmCount) {
+        int n = dag.getTaskCount();
+        Integer[] byId = new Integer[n];
+        for (int x = 0; x < n; x++) byId[x] = x;
+        Arrays.sort(byId, Comparator.comparingLong(x -> dag.getTask(x).getId()));
+        int[] nextOnVm = new int[n];
+        Arrays.fill(nextOnVm, -1);
+        int[] lastOnVm = new int[vmCount];
+        Arrays.fill(lastOnVm, -1);
+        for (int x : byId) {
+            int vm = random.nextInt(vmCount);
+            if (lastOnVm[vm] >= 0) nextOnVm[lastOnVm[vm]] = x;
+            lastOnVm[vm] = x;
+        }
+        return nextOnVm;
+    }
+
+    private static void assertMatchesEnumeration(CriticalPathKernel kernel, WorkflowDAG dag, double[] durations,
+            double[] edgeDelays, int[] nextOnVm) {
+        int n = dag.getTaskCount();
+        // Scheduled DAG as {target, delay} lists, VM order edges with delay 0
+        List<List<double[]>> edges = new ArrayList<>();
+        int[] offsets = dag.getSuccessorOffsets();
+        for (int x = 0; x < n; x++) {
+            List<double[]> row = new ArrayList<>();
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                row.add(new double[]{dag.getSuccessorIndices()[e], edgeDelays != null ? edgeDelays[e] : 0});
+            }
+            if (nextOnVm != null && nextOnVm[x] >= 0) row.add(new double[]{nextOnVm[x], 0});
+            edges.add(row);
+        }
+
+        // Every path from every task: longest path ending at / starting from each task
+        double[] longestBefore = new double[n]; // Longest path ending just before the task
+        double[] longestFrom = new double[n]; // Longest path starting at the task (incl. its duration)
+        for (int x = 0; x < n; x++) {
+            enumerate(x, new ArrayList<>(List.of(x)), 0, edges, durations, longestBefore, longestFrom);
+        }
+        double length = 0;
+        for (int x = 0; x < n; x++) {
+            length = Math.max(length, longestFrom[x]);
+        }
+
+        assertEquals(length, kernel.getLength(), EPS);
+        double[] referenceSlack = new double[n];
+        for (int x = 0; x < n; x++) {
+            double latestStart = length - longestFrom[x];
+            assertEquals(longestBefore[x], kernel.getEarliestStart(x), EPS);
+            assertEquals(longestBefore[x] + durations[x], kernel.getEarliestFinish(x), EPS);
+            assertEquals(latestStart, kernel.getLatestStart(x), EPS);
+            assertEquals(latestStart + durations[x], kernel.getLatestFinish(x), EPS);
+            assertEquals(latestStart - longestBefore[x], kernel.getSlack(x), EPS);
+            referenceSlack[x] = latestStart - longestBefore[x];
+        }
+
+        // The critical tasks (in topological order) are exactly those whose slack is within the
+        // tolerance: with the kernel's own slack at any tolerance (ties included), and with the
+        // reference slack at tolerances between two distinct reference values, where rounding
+        // cannot decide
+        List<Double> tolerances = new ArrayList<>(List.of(0.0, 0.5));
+        double[] values = Arrays.stream(referenceSlack).sorted().distinct().toArray();
+        for (int k = 1; k < values.length; k++) {
+            if (values[k] - values[k - 1] > 4 * EPS) tolerances.add((values[k - 1] + values[k]) / 2);
+        }
+        for (int k = 0; k < tolerances.size(); k++) {
+            double tolerance = tolerances.get(k);
+            List<Et2faTask> expected = new ArrayList<>();
+            for (int x : kernel.getTopologicalOrder()) {
+                if ((k < 2 ? kernel.getSlack(x) : referenceSlack[x]) <= tolerance) expected.add(dag.getTask(x));
+            }
+            assertEquals(expected, kernel.getCriticalTasks(tolerance), "critical tasks at tolerance " + tolerance);
+        }
+
+        // The order is topological for the scheduled DAG
+        int[] order = kernel.getTopologicalOrder();
+        int[] position = new int[n];
+        for (int k = 0; k < n; k++) position[order[k]] = k;
+        for (int x = 0; x < n; x++) {
+            for (double[] edge : edges.get(x)) {
+                assertTrue(position[x] < position[(int) edge[0]]);
+            }
+        }
+    }
+
+    /** Extend the path (ending at its last task, with the given length before that task) in every way */
+    private static void enumerate(int first, List<Integer> path, double before, List<List<double[]>> edges,
+            double[] durations, double[] longestBefore, double[] longestFrom) {
+        int last = path.get(path.size() - 1);
+        longestBefore[last] = Math.max(longestBefore[last], before);
+        longestFrom[first] = Math.max(longestFrom[first], before + durations[last]);
+        for (double[] edge : edges.get(last)) {
+            int next = (int) edge[0];
+            path.add(next);
+            enumerate(first, path, before + durations[last] + edge[1], edges, durations, longestBefore, longestFrom);
+            path.remove(path.size() - 1);
+        }
+    }
+}
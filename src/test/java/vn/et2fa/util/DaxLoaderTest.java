@@ -0,0 +1,196 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming (StAX) DAX loader against the DOM loader on the bundled workflows, and both on
+ * small hand-written DAX files
+ */
+class DaxLoaderTest {
+	private static final double MB = 1024.0 * 1024.0;
+
+	@TempDir
+	Path tempDir;
+
+	static Stream<String> bundledWorkflows() throws Exception {
+		try (Stream<Path> files = Files.walk(Path.of("workflows/benchmark"))) {
+			return files.map(Path::toString).filter(f -> f.endsWith(".dax")).sorted().toList().stream();
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("bundledWorkflows")
+	void streamingMatchesDom(String daxPath) throws Exception {
+		DaxLoader.DaxWorkflow streamed = DaxLoader.load(daxPath);
+		DaxLoader.DaxWorkflow dom = DaxLoader.loadDom(daxPath);
+
+		assertFalse(streamed.tasks.isEmpty());
+		assertEquals(dom.tasks.size(), streamed.tasks.size());
+		for (int i = 0; i < dom.tasks.size(); i++) {
+			assertEquals(dom.tasks.get(i).id, streamed.tasks.get(i).id);
+			assertEquals(dom.tasks.get(i).computation, streamed.tasks.get(i).computation, "job " + dom.tasks.get(i).id);
+		}
+		assertEquals(dom.dependencies, streamed.dependencies);
+		assertEquals(dom.dataTransfers, streamed.dataTransfers);
+
+		// One transfer per edge, between defined jobs
+		Set<String> ids = new HashSet<>();
+		streamed.tasks.forEach(task -> ids.add(task.id));
+		int edges = 0;
+		for (Map.Entry<String, List<String>> entry : streamed.dependencies.entrySet()) {
+			assertTrue(ids.contains(entry.getKey()));
+			for (String child : entry.getValue()) {
+				assertTrue(ids.contains(child));
+				assertTrue(streamed.dataTransfers.containsKey(entry.getKey() + "_" + child));
+				edges++;
+			}
+		}
+		assertEquals(edges, streamed.dataTransfers.size());
+	}
+
+	@Test
+	void jobsRuntimesAndUndefinedReferences() throws Exception {
+		Path dax = write("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<adag xmlns="http://pegasus.isi.edu/schema/DAX" version="2.1">
+				  <job id="A" runtime="13.69"/>
+				  <job id="B" runtime="0.2"/>
+				  <job id="C"/>
+				  <job id="D" runtime="fast"/>
+				  <child ref="B"><parent ref="A"/></child>
+				  <child ref="C"><parent ref="A"/><parent ref="X"/><parent ref="B"/></child>
+				  <child ref="Y"><parent ref="C"/></child>
+				</adag>
+				""");
+		for (DaxLoader.DaxWorkflow workflow : List.of(DaxLoader.load(dax.toString()), DaxLoader.loadDom(dax.toString()))) {
+			assertEquals(List.of("A", "B", "C", "D"), workflow.tasks.stream().map(task -> task.id).toList());
+			// runtime * 1000, at least 1000, 10000 if missing or not a number
+			assertEquals(List.of(13690L, 1000L, 10000L, 10000L), workflow.tasks.stream().map(task -> task.computation).toList());
+			// Edges from or to the undefined jobs X and Y are dropped
+			assertEquals(Map.of("A", List.of("B", "C"), "B", List.of("C")), workflow.dependencies);
+		}
+	}
+
+	@Test
+	void transfersAreTheSharedFiles() throws Exception {
+		Path dax = write("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<adag xmlns="http://pegasus.isi.edu/schema/DAX" version="2.1">
+				  <job id="A">
+				    <uses file="staged.in" link="input" size="4194304"/>
+				    <uses file="a1" link="output" size="1048576"/>
+				    <uses file="a2" link="output" size="2097152"/>
+				  </job>
+				  <job id="B">
+				    <uses file="staged.in" link="input" size="4194304"/>
+				    <uses file="a1" link="input" size="1048576"/>
+				    <uses file="a2" link="input"/>
+				    <uses file="b1" link="output" size="524288"/>
+				  </job>
+				  <job id="C">
+				    <uses file="unrelated" link="input" size="1048576"/>
+				  </job>
+				  <job id="D">
+				    <uses file="a2" link="input" size="3145728"/>
+				    <uses file="b1" link="input" size="524288"/>
+				  </job>
+				  <child ref="B"><parent ref="A"/></child>
+				  <child ref="C"><parent ref="A"/></child>
+				  <child ref="D"><parent ref="A"/><parent ref="B"/></child>
+				</adag>
+				""");
+		for (DaxLoader.DaxWorkflow workflow : List.of(DaxLoader.load(dax.toString()), DaxLoader.loadDom(dax.toString()))) {
+			assertEquals(Map.of(
+					"A_B", 3.0,  // a1 plus a2 (no size on the input: the producer's size)
+					"A_C", 0.0,  // control-only: no file of A is read by C
+					"A_D", 3.0,  // a2 with the size the consumer declares
+					"B_D", 0.5), // b1; the staged-in workflow input is not a transfer
+					workflow.dataTransfers);
+		}
+	}
+
+	@Test
+	void dax3NamesFilesInTheNameAttribute() throws Exception {
+		Path dax = write("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<adag xmlns="http://pegasus.isi.edu/schema/DAX" version="3.4" name="dax3">
+				  <job id="A" name="producer" runtime="1">
+				    <uses name="out.dat" link="output" size="2097152"/>
+				  </job>
+				  <job id="B" name="consumer" runtime="1">
+				    <uses name="out.dat" link="input" size="2097152"/>
+				  </job>
+				  <job id="C" name="mixed" runtime="1">
+				    <uses file="" name="out.dat" link="input"/>
+				  </job>
+				  <child ref="B"><parent ref="A"/></child>
+				  <child ref="C"><parent ref="A"/></child>
+				</adag>
+				""");
+		for (DaxLoader.DaxWorkflow workflow : List.of(DaxLoader.load(dax.toString()), DaxLoader.loadDom(dax.toString()))) {
+			assertEquals(Map.of("A_B", 2.0, "A_C", 2.0), workflow.dataTransfers);
+		}
+	}
+
+	/**
+	 * Every edge of the bundled workflows against a direct scan: the files the parent writes
+	 * and the child reads, with the child's size or else the largest size a producer declares
+	 */
+	@ParameterizedTest
+	@MethodSource("bundledWorkflows")
+	void transfersMatchDirectScan(String daxPath) throws Exception {
+		Map<String, Map<String, Long>> inputs = new HashMap<>();
+		Map<String, Map<String, Long>> outputs = new HashMap<>();
+		Map<String, Long> producedSizes = new HashMap<>();
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true); // Some workflows use the ns0: prefix
+		NodeList uses = factory.newDocumentBuilder().parse(new File(daxPath)).getElementsByTagNameNS("*", "uses");
+		for (int u = 0; u < uses.getLength(); u++) {
+			Element use = (Element) uses.item(u);
+			String job = ((Element) use.getParentNode()).getAttribute("id");
+			String file = use.getAttribute("file").isEmpty() ? use.getAttribute("name") : use.getAttribute("file");
+			long size = use.getAttribute("size").isEmpty() ? 0 : Long.parseLong(use.getAttribute("size"));
+			if (use.getAttribute("link").equalsIgnoreCase("output")) {
+				outputs.computeIfAbsent(job, k -> new HashMap<>()).merge(file, size, Math::max);
+				producedSizes.merge(file, size, Math::max);
+			} else if (use.getAttribute("link").equalsIgnoreCase("input")) {
+				inputs.computeIfAbsent(job, k -> new HashMap<>()).merge(file, size, Math::max);
+			}
+		}
+
+		DaxLoader.DaxWorkflow workflow = DaxLoader.load(daxPath);
+		for (Map.Entry<String, List<String>> entry : workflow.dependencies.entrySet()) {
+			Map<String, Long> written = outputs.getOrDefault(entry.getKey(), Map.of());
+			for (String child : entry.getValue()) {
+				double expected = 0;
+				for (Map.Entry<String, Long> input : inputs.getOrDefault(child, Map.of()).entrySet()) {
+					if (!written.containsKey(input.getKey())) continue;
+					expected += (input.getValue() > 0 ? input.getValue() : producedSizes.get(input.getKey())) / MB;
+				}
+				assertEquals(expected, workflow.dataTransfers.get(entry.getKey() + "_" + child), 1e-9,
+						"transfer " + entry.getKey() + " -> " + child);
+			}
+		}
+	}
+
+	private Path write(String content) throws Exception {
+		Path file = tempDir.resolve("workflow.dax");
+		Files.writeString(file, content);
+		return file;
+	}
+}
@@ -0,0 +1,121 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExecutionMatrix classes and times against the per-VM values of the catalog and VmConfig
+ */
+class ExecutionMatrixTest {
+    // c3.large and a type whose capacity equals the MIPS of untyped VMs (CloudSim MIPS are whole numbers)
+    private static final VmConfig.VmType[] TYPES = {VmConfig.C3_LARGE, new VmConfig.VmType(1000, 0.5, 1.0)};
+
+    @Test
+    void classesGroupIdenticalVms() {
+        Random random = new Random(21);
+        for (int round = 0; round < 50; round++) {
+            VmCatalog catalog = mixedPool(random, 1 + random.nextInt(20));
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(10), 0.3);
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, catalog);
+
+            Set<Integer> classes = new HashSet<>();
+            for (int a = 0; a < catalog.size(); a++) {
+                classes.add(matrix.getClassOf(a));
+                assertSame(catalog.getType(a), matrix.getClassType(matrix.getClassOf(a)));
+                assertEquals(catalog.getCapacity(a), matrix.getCapacity(a));
+                assertEquals(catalog.getPricePerSecond(a), matrix.getPricePerSecond(a));
+                for (int i = 0; i < dag.getTaskCount(); i++) {
+                    Et2faTask task = dag.getTask(i);
+                    assertEquals(task.getComputation() / catalog.getCapacity(a), matrix.getExecutionTime(i, a));
+                    assertEquals(matrix.getExecutionTime(i, a), matrix.getClassExecutionTime(i, matrix.getClassOf(a)));
+                }
+                for (int b = 0; b < catalog.size(); b++) {
+                    assertEquals(identical(catalog, a, b), matrix.getClassOf(a) == matrix.getClassOf(b), "VMs " + a + " and " + b);
+                }
+            }
+            assertEquals(classes.size(), matrix.getClassCount());
+        }
+    }
+
+    @Test
+    void typedAndUntypedVmsWithEqualMipsAreDifferentClasses() {
+        // An untyped VM with the capacity of a type as its MIPS, a VM of that type with the same
+        // MIPS and one with other MIPS
+        Vm untyped = vm(0, 1000, 1000);
+        Vm typed = vm(1, 1000, 1000);
+        Vm typedOtherMips = vm(2, 500, 1000);
+        VmCatalog catalog = new VmCatalog(List.of(untyped, typed, typedOtherMips), Arrays.asList(null, TYPES[1], TYPES[1]));
+        ExecutionMatrix matrix = new ExecutionMatrix(RandomDags.create(new Random(22), 3, 0.5), catalog);
+
+        assertNotEquals(matrix.getClassOf(0), matrix.getClassOf(1));
+        assertEquals(matrix.getClassOf(1), matrix.getClassOf(2));
+        assertEquals(2, matrix.getClassCount());
+        assertNull(matrix.getClassType(matrix.getClassOf(0)));
+        // Same capacity, but typed VMs use the type's bandwidth and price
+        assertEquals(matrix.getCapacity(0), matrix.getCapacity(1));
+        assertNotEquals(matrix.getPricePerSecond(0), matrix.getPricePerSecond(1));
+    }
+
+    @Test
+    void communicationTimesMatchVmConfig() {
+        Random random = new Random(23);
+        double[] sizes = {-1, 0, 1e-3, 0.5, 7, 250.25, 1e6};
+        for (int round = 0; round < 50; round++) {
+            VmCatalog catalog = mixedPool(random, 1 + random.nextInt(12));
+            ExecutionMatrix matrix = new ExecutionMatrix(RandomDags.create(random, 2, 1), catalog);
+            for (int a = 0; a < catalog.size(); a++) {
+                for (int b = 0; b < catalog.size(); b++) {
+                    for (double size : sizes) {
+                        double expected = VmConfig.calculateCommunicationTime(size, catalog.getVm(a), catalog.getType(a),
+                            catalog.getVm(b), catalog.getType(b));
+                        String label = "VMs " + a + " -> " + b + ", " + size + " MB";
+                        assertEquals(expected, matrix.getCommunicationTime(size, a, b), 1e-12 * Math.max(1, expected), label);
+                        assertEquals(expected, catalog.getCommunicationTime(size, a, b), 1e-12 * Math.max(1, expected), label);
+                        if (a != b) {
+                            assertEquals(matrix.getCommunicationTime(size, a, b),
+                                matrix.getClassCommunicationTime(size, matrix.getClassOf(a), matrix.getClassOf(b)), label);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pool of typed and untyped VMs with ids = positions: types, MIPS and bandwidths from small
+     * sets (untyped VMs with the capacity of a type as MIPS), so that many VMs are identical
+     */
+    private static VmCatalog mixedPool(Random random, int vmCount) {
+        double[] mips = {30, 1000, 2000};
+        long[] bandwidths = {0, 500, 1000, 10000};
+        List<Vm> vms = new ArrayList<>();
+        List<VmConfig.VmType> types = new ArrayList<>();
+        for (int v = 0; v < vmCount; v++) {
+            vms.add(vm(v, mips[random.nextInt(mips.length)], bandwidths[random.nextInt(bandwidths.length)]));
+            types.add(random.nextBoolean() ? TYPES[random.nextInt(2)] : null);
+        }
+        return new VmCatalog(vms, types);
+    }
+
+    /** Same type, or both untyped with the same MIPS; and the same bandwidth */
+    private static boolean identical(VmCatalog catalog, int a, int b) {
+        Vm vmA = catalog.getVm(a);
+        Vm vmB = catalog.getVm(b);
+        if (vmA.getBw().getCapacity() != vmB.getBw().getCapacity()) return false;
+        if (catalog.getType(a) != null || catalog.getType(b) != null) return catalog.getType(a) == catalog.getType(b);
+        return vmA.getMips() == vmB.getMips();
+    }
+
+    private static Vm vm(long id, double mips, long bandwidth) {
+        Vm vm = new VmSimple(mips, 1);
+        vm.setId(id);
+        vm.setBw(bandwidth);
+        return vm;
+    }
+}
@@ -0,0 +1,149 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HibernationCostModel what-if queries against a model rebuilt from the changed task list and
+ * a direct implementation of the IHSH cost rules
+ */
+class HibernationCostModelTest {
+    private static final double PRICE = 0.128 / 3600.0;
+
+    @Test
+    void costMatchesDirectComputation() {
+        Random random = new Random(19);
+        for (int round = 0; round < 500; round++) {
+            double[][] tasks = randomTasks(random, random.nextInt(15));
+            HibernationCostModel model = new HibernationCostModel(tasks[0], tasks[1], PRICE);
+            assertCost(cost(tasks[0], tasks[1]), model.getCost());
+            assertEquals(hibernations(tasks[0], tasks[1]), model.getHibernationCount());
+        }
+    }
+
+    @Test
+    void whatIfQueriesMatchRebuiltModel() {
+        Random random = new Random(20);
+        for (int round = 0; round < 500; round++) {
+            double[][] tasks = randomTasks(random, random.nextInt(15));
+            double[] starts = tasks[0];
+            double[] finishes = tasks[1];
+            int n = starts.length;
+            HibernationCostModel model = new HibernationCostModel(starts, finishes, PRICE);
+
+            // Insert into every gap that has room, and before the first / after the last task
+            for (int k = -1; k < n; k++) {
+                double gapStart = k < 0 ? 0 : finishes[k];
+                double gapEnd = k + 1 < n ? starts[k + 1] : gapStart + 500;
+                if (gapEnd - gapStart < 2) continue;
+                double start = gapStart + random.nextDouble() * (gapEnd - gapStart) / 2;
+                double finish = start + 1 + random.nextDouble() * (gapEnd - start - 1);
+                double[] newStarts = insert(starts, k + 1, start);
+                double[] newFinishes = insert(finishes, k + 1, finish);
+                assertWhatIf(newStarts, newFinishes, model.costIfInserted(start, finish));
+            }
+
+            for (int position = 0; position < n; position++) {
+                assertWhatIf(remove(starts, position), remove(finishes, position), model.costIfRemoved(position));
+            }
+
+            for (int query = 0; query < 10 && n > 0; query++) {
+                int from = random.nextInt(n);
+                int to = from + 1 + random.nextInt(n - from);
+                double delay = random.nextInt(250);
+                if (to < n) delay = Math.min(delay, starts[to] - finishes[to - 1]);
+                double[] newStarts = starts.clone();
+                double[] newFinishes = finishes.clone();
+                for (int i = from; i < to; i++) {
+                    newStarts[i] += delay;
+                    newFinishes[i] += delay;
+                }
+                assertWhatIf(newStarts, newFinishes, model.costIfShifted(from, to, delay));
+            }
+
+            // Queries do not change the model
+            assertCost(cost(starts, finishes), model.getCost());
+        }
+    }
+
+    private static void assertWhatIf(double[] starts, double[] finishes, double actual) {
+        assertCost(new HibernationCostModel(starts, finishes, PRICE).getCost(), actual);
+        assertCost(cost(starts, finishes), actual);
+    }
+
+    private static void assertCost(double expected, double actual) {
+        assertEquals(expected, actual, 1e-9 * Math.max(1, expected));
+    }
+
+    /**
+     * IHSH (Algorithm 4): hibernate in a gap longer than DUR_H if more than GAP_H has passed since
+     * the last hibernation ended; running segments are billed with Eq. 1 at the VM price, from the
+     * cold startup before the first task and from the warm startup after each hibernation
+     */
+    private static double cost(double[] starts, double[] finishes) {
+        int n = starts.length;
+        if (n == 0) return 0;
+        double cost = 0;
+        double runStart = Math.max(0, starts[0] - HibernationCostModel.DUR_C);
+        double lastWakeUp = 0;
+        for (int k = 0; k + 1 < n; k++) {
+            double gap = starts[k + 1] - finishes[k];
+            if (gap > HibernationCostModel.DUR_H && finishes[k] - lastWakeUp > HibernationCostModel.GAP_H) {
+                if (finishes[k] > runStart) cost += PRICE * billing(runStart, finishes[k]);
+                cost += HibernationCostModel.M_H * billing(finishes[k], starts[k + 1]);
+                lastWakeUp = starts[k + 1];
+                runStart = lastWakeUp + HibernationCostModel.DUR_W;
+            }
+        }
+        if (finishes[n - 1] > runStart) cost += PRICE * billing(runStart, finishes[n - 1]);
+        return cost;
+    }
+
+    private static int hibernations(double[] starts, double[] finishes) {
+        int count = 0;
+        double lastWakeUp = 0;
+        for (int k = 0; k + 1 < starts.length; k++) {
+            if (starts[k + 1] - finishes[k] > HibernationCostModel.DUR_H && finishes[k] - lastWakeUp > HibernationCostModel.GAP_H) {
+                count++;
+                lastWakeUp = starts[k + 1];
+            }
+        }
+        return count;
+    }
+
+    private static double billing(double start, double end) {
+        return Math.ceil(Math.max(end - start, 60.0));
+    }
+
+    /** Tasks with durations and gaps around DUR_H and GAP_H, so hibernation decisions vary */
+    private static double[][] randomTasks(Random random, int count) {
+        double[] starts = new double[count];
+        double[] finishes = new double[count];
+        double time = random.nextInt(200);
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(4) == 0 ? 0 : random.nextDouble() * 200;
+            starts[i] = time;
+            time += 1 + random.nextDouble() * 200;
+            finishes[i] = time;
+        }
+        return new double[][]{starts, finishes};
+    }
+
+    private static double[] insert(double[] values, int position, double value) {
+        double[] result = new double[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    private static double[] remove(double[] values, int position) {
+        double[] result = new double[values.length - 1];
+        System.arraycopy(values, 0, result, 0, position);
+        System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+        return result;
+    }
+}
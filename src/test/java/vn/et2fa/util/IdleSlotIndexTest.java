@@ -0,0 +1,79 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IdleSlotIndex against a sorted list of free intervals per VM
+ */
+class IdleSlotIndexTest {
+
+    @Test
+    void earliestStartMatchesIntervalScan() {
+        Random random = new Random(10);
+        for (int round = 0; round < 200; round++) {
+            int vmCount = 1 + random.nextInt(4);
+            double initialReadyTime = random.nextInt(50);
+            IdleSlotIndex index = new IdleSlotIndex(vmCount, initialReadyTime);
+            List<List<double[]>> free = new ArrayList<>();
+            for (int vm = 0; vm < vmCount; vm++) {
+                free.add(new ArrayList<>(List.of(new double[]{initialReadyTime, Double.POSITIVE_INFINITY})));
+            }
+
+            for (int step = 0; step < 150; step++) {
+                int vm = random.nextInt(vmCount);
+                double readyTime = random.nextInt(1000);
+                double duration = 1 + random.nextInt(50);
+                double expected = earliestStart(free.get(vm), readyTime, duration);
+                assertEquals(expected, index.earliestStart(vm, readyTime, duration));
+
+                // Occupy either the slot found or a random place inside a random free interval,
+                // so VMs get many gaps of different lengths
+                double start = expected;
+                if (random.nextBoolean()) {
+                    double[] slot = free.get(vm).get(random.nextInt(free.get(vm).size()));
+                    double room = Math.min(slot[1], slot[0] + 200) - slot[0] - duration;
+                    if (room >= 0) start = slot[0] + random.nextInt((int) room + 1);
+                }
+                index.occupy(vm, start, duration);
+                occupy(free.get(vm), start, duration);
+
+                for (int v = 0; v < vmCount; v++) {
+                    List<double[]> slots = free.get(v);
+                    assertEquals(slots.get(slots.size() - 1)[0], index.getReadyTime(v));
+                }
+            }
+        }
+    }
+
+    @Test
+    void occupyOutsideFreeIntervalsFails() {
+        IdleSlotIndex index = new IdleSlotIndex(1, 10);
+        assertThrows(IllegalArgumentException.class, () -> index.occupy(0, 5, 1));
+    }
+
+    private static double earliestStart(List<double[]> slots, double readyTime, double duration) {
+        double best = Double.POSITIVE_INFINITY;
+        for (double[] slot : slots) {
+            double start = Math.max(slot[0], readyTime);
+            if (start + duration <= slot[1]) best = Math.min(best, start);
+        }
+        return best;
+    }
+
+    private static void occupy(List<double[]> slots, double start, double duration) {
+        for (int i = 0; i < slots.size(); i++) {
+            double[] slot = slots.get(i);
+            if (slot[0] <= start && start + duration <= slot[1]) {
+                slots.remove(i);
+                if (start + duration < slot[1]) slots.add(i, new double[]{start + duration, slot[1]});
+                if (start > slot[0]) slots.add(i, new double[]{slot[0], start});
+                return;
+            }
+        }
+        fail("no free interval holds [" + start + ", " + (start + duration) + ")");
+    }
+}
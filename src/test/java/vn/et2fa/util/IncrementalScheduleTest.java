@@ -0,0 +1,153 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IncrementalSchedule moves against a full forward re-timing of the same VM assignment and order
+ */
+class IncrementalScheduleTest {
+    private static final double EPS = 1e-6;
+
+    @Test
+    void rollbackRestoresExactTimes() {
+        Random random = new Random(15);
+        for (int round = 0; round < 200; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 2 + random.nextInt(25), 0.05 + 0.3 * random.nextDouble());
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, TestPools.create(random, 2 + random.nextInt(5)));
+            Map<Et2faTask, Vm> schedule = asapSchedule(random, matrix);
+            IncrementalSchedule incremental = new IncrementalSchedule(schedule, matrix);
+
+            double[][] times = ScheduleChecks.times(dag);
+            List<List<Et2faTask>> sequences = sequences(incremental);
+            int[] vms = vms(incremental, dag);
+            double cost = incremental.getCost();
+            int checkpoint = incremental.checkpoint();
+            for (int move = 1 + random.nextInt(5); move > 0; move--) {
+                incremental.move(dag.getTask(random.nextInt(dag.getTaskCount())), random.nextInt(matrix.getVmCount()));
+            }
+            incremental.rollback(checkpoint);
+
+            double[][] restored = ScheduleChecks.times(dag);
+            for (int i = 0; i < times.length; i++) {
+                assertArrayEquals(times[i], restored[i], 0.0, "times of task " + dag.getTask(i).getId());
+            }
+            assertEquals(sequences, sequences(incremental));
+            assertArrayEquals(vms, vms(incremental, dag));
+            assertEquals(cost, incremental.getCost(), 1e-9);
+        }
+    }
+
+    @Test
+    void movesMatchFullForwardRetiming() {
+        Random random = new Random(115);
+        for (int round = 0; round < 200; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 2 + random.nextInt(25), 0.05 + 0.3 * random.nextDouble());
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, TestPools.create(random, 2 + random.nextInt(5)));
+            Map<Et2faTask, Vm> schedule = asapSchedule(random, matrix);
+            IncrementalSchedule incremental = new IncrementalSchedule(schedule, matrix);
+
+            for (int move = 0; move < 10; move++) {
+                Et2faTask task = dag.getTask(random.nextInt(dag.getTaskCount()));
+                incremental.move(task, random.nextInt(matrix.getVmCount()));
+                if (random.nextBoolean()) incremental.commit();
+
+                double[][] expected = forwardTimes(matrix, vms(incremental, dag), sequences(incremental));
+                double makespan = 0;
+                for (int i = 0; i < expected.length; i++) {
+                    Et2faTask t = dag.getTask(i);
+                    assertEquals(expected[i][0], t.getActualStartTime(), EPS, "start of task " + t.getId());
+                    assertEquals(expected[i][1], t.getActualFinishTime(), EPS, "finish of task " + t.getId());
+                    makespan = Math.max(makespan, expected[i][1]);
+                }
+                assertEquals(makespan, incremental.getMakespan(), EPS);
+            }
+            incremental.applyTo(schedule);
+            ScheduleChecks.assertFeasible(schedule, matrix);
+        }
+    }
+
+    /**
+     * Random VM assignment (tasks in id order) with every task started as soon as possible,
+     * as IncrementalSchedule times them
+     */
+    private static Map<Et2faTask, Vm> asapSchedule(Random random, ExecutionMatrix matrix) {
+        WorkflowDAG dag = matrix.getDag();
+        Map<Et2faTask, Vm> schedule = TestPools.schedule(random, matrix, 0);
+        int[] vms = new int[dag.getTaskCount()];
+        List<List<Et2faTask>> sequences = new ArrayList<>();
+        for (int v = 0; v < matrix.getVmCount(); v++) {
+            sequences.add(new ArrayList<>());
+        }
+        List<Et2faTask> byId = new ArrayList<>(dag.getTasks());
+        byId.sort(Comparator.comparingLong(Et2faTask::getId));
+        for (Et2faTask task : byId) {
+            vms[task.getDagIndex()] = matrix.indexOf(schedule.get(task));
+            sequences.get(vms[task.getDagIndex()]).add(task);
+        }
+        double[][] times = forwardTimes(matrix, vms, sequences);
+        for (int i = 0; i < times.length; i++) {
+            dag.getTask(i).setActualStartTime(times[i][0]);
+            dag.getTask(i).setActualFinishTime(times[i][1]);
+        }
+        return schedule;
+    }
+
+    /**
+     * Full forward re-timing: every task starts after the cold startup, its predecessors' data
+     * and the task before it on its VM; repeated over all tasks until nothing changes
+     */
+    private static double[][] forwardTimes(ExecutionMatrix matrix, int[] vms, List<List<Et2faTask>> sequences) {
+        WorkflowDAG dag = matrix.getDag();
+        int n = dag.getTaskCount();
+        Map<Et2faTask, Et2faTask> previousOnVm = new IdentityHashMap<>();
+        for (List<Et2faTask> sequence : sequences) {
+            for (int p = 1; p < sequence.size(); p++) {
+                previousOnVm.put(sequence.get(p), sequence.get(p - 1));
+            }
+        }
+        double[][] times = new double[n][2];
+        for (int pass = 0; pass <= n; pass++) {
+            boolean changed = false;
+            for (int i = 0; i < n; i++) {
+                Et2faTask task = dag.getTask(i);
+                double start = HibernationCostModel.DUR_C;
+                for (Et2faTask pred : task.getPredecessors()) {
+                    int p = pred.getDagIndex();
+                    start = Math.max(start, times[p][1] + matrix.getCommunicationTime(dag.getDataTransfer(pred, task), vms[p], vms[i]));
+                }
+                Et2faTask previous = previousOnVm.get(task);
+                if (previous != null) start = Math.max(start, times[previous.getDagIndex()][1]);
+                double finish = start + matrix.getExecutionTime(i, vms[i]);
+                if (start != times[i][0] || finish != times[i][1]) {
+                    times[i][0] = start;
+                    times[i][1] = finish;
+                    changed = true;
+                }
+            }
+            if (!changed) return times;
+        }
+        throw new AssertionError("VM order contradicts the data edges");
+    }
+
+    private static List<List<Et2faTask>> sequences(IncrementalSchedule incremental) {
+        List<List<Et2faTask>> sequences = new ArrayList<>();
+        for (int v = 0; v < incremental.getVmCount(); v++) {
+            sequences.add(new ArrayList<>(incremental.getSequence(v).asList()));
+        }
+        return sequences;
+    }
+
+    private static int[] vms(IncrementalSchedule incremental, WorkflowDAG dag) {
+        int[] vms = new int[dag.getTaskCount()];
+        for (int i = 0; i < vms.length; i++) {
+            vms[i] = incremental.getVmOf(dag.getTask(i));
+        }
+        return vms;
+    }
+}
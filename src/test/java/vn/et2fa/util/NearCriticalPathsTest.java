@@ -0,0 +1,228 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vn.et2fa.algorithm.T2FAAlgorithm;
+import vn.et2fa.broker.Et2faPlanner;
+import vn.et2fa.broker.SchedulePlan;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NearCriticalPaths against every entry-to-exit path of small DAGs, and on the large workflows
+ * with very many equally long paths
+ */
+class NearCriticalPathsTest {
+    private static final double EPS = 1e-9;
+
+    @Test
+    void longestPathsMatchEnumeration() {
+        Random random = new Random(17);
+        for (int round = 0; round < 300; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(12), 0.1 + 0.4 * random.nextDouble());
+            int n = dag.getTaskCount();
+            double[] durations = new double[n];
+            for (int x = 0; x < n; x++) {
+                durations[x] = random.nextInt(4); // few distinct values: many equally long paths
+            }
+            double[] edgeDelays = new double[dag.getSuccessorIndices().length];
+            for (int e = 0; e < edgeDelays.length; e++) {
+                edgeDelays[e] = random.nextInt(3);
+            }
+            int[] nextOnVm = random.nextBoolean() ? vmOrder(random, dag, 1 + random.nextInt(3)) : null;
+            CriticalPathKernel kernel = new CriticalPathKernel(dag);
+            kernel.compute(durations, edgeDelays, nextOnVm);
+
+            List<List<Integer>> expected = new ArrayList<>();
+            List<Double> expectedLengths = new ArrayList<>();
+            enumeratePaths(dag, durations, edgeDelays, nextOnVm, expected, expectedLengths);
+            List<Double> sortedLengths = new ArrayList<>(expectedLengths);
+            sortedLengths.sort(Comparator.reverseOrder());
+            NearCriticalPaths nearCritical = new NearCriticalPaths(kernel);
+
+            // All paths, longest first: the same multiset of (tasks, length) as the enumeration
+            List<NearCriticalPaths.Path> all = nearCritical.getLongestPaths(Integer.MAX_VALUE);
+            List<String> actual = new ArrayList<>();
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(sortedLengths.get(i), all.get(i).getLength(), EPS);
+                actual.add(sequence(all.get(i)) + "@" + all.get(i).getLength());
+            }
+            List<String> reference = new ArrayList<>();
+            for (int i = 0; i < expected.size(); i++) {
+                reference.add(expected.get(i) + "@" + expectedLengths.get(i));
+            }
+            Collections.sort(actual);
+            Collections.sort(reference);
+            assertEquals(reference, actual);
+
+            // The k longest within epsilon: lengths are integers, so a half-integer epsilon has no ties at the bound
+            int k = 1 + random.nextInt(5);
+            double epsilon = random.nextInt(4) + 0.5;
+            long within = sortedLengths.stream().filter(l -> l >= kernel.getLength() - epsilon).count();
+            List<NearCriticalPaths.Path> paths = nearCritical.getLongestPaths(k, epsilon);
+            assertEquals(Math.min(k, within), paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                assertEquals(sortedLengths.get(i), paths.get(i).getLength(), EPS);
+            }
+        }
+    }
+
+    /**
+     * The workflows whose near-critical path search ran out of memory: their scheduled DAGs (data
+     * edges plus the task order on each VM) have huge numbers of equally long paths. The search
+     * and a full optimized planning run must finish in bounded time.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"workflows/benchmark/EPIGE/Epige_997.dax", "workflows/benchmark/GAUSSIAN/Gauss_1034.dax"})
+    void largeWorkflowsPlanInBoundedTime(String daxPath) throws Exception {
+        DaxLoader.DaxWorkflow dax = DaxLoader.load(daxPath);
+        WorkflowDAG dag = dag(dax);
+        VmCatalog catalog = VmCatalog.createDefault(vms());
+        Map<Et2faTask, Vm> schedule = new T2FAAlgorithm(dag, catalog, new OptimizationConfig("optimized"), null).schedule();
+        ExecutionMatrix matrix = new ExecutionMatrix(dag, catalog);
+        int n = dag.getTaskCount();
+        double[] durations = new double[n];
+        int[] nextOnVm = new int[n];
+        Arrays.fill(nextOnVm, -1);
+        for (VmTaskSequence sequence : VmTaskSequence.groupByVm(schedule).values()) {
+            for (int p = 0; p + 1 < sequence.size(); p++) {
+                nextOnVm[sequence.get(p).getDagIndex()] = sequence.get(p + 1).getDagIndex();
+            }
+        }
+        int[] offsets = dag.getSuccessorOffsets();
+        double[] edgeDelays = new double[dag.getSuccessorIndices().length];
+        for (int x = 0; x < n; x++) {
+            int vm = matrix.indexOf(schedule.get(dag.getTask(x)));
+            durations[x] = matrix.getExecutionTime(x, vm);
+            for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+                int succVm = matrix.indexOf(schedule.get(dag.getTask(dag.getSuccessorIndices()[e])));
+                edgeDelays[e] = matrix.getCommunicationTime(dag.getSuccessorTransfers()[e], vm, succVm);
+            }
+        }
+        CriticalPathKernel kernel = new CriticalPathKernel(dag);
+        kernel.compute(durations, edgeDelays, nextOnVm);
+
+        List<NearCriticalPaths.Path> paths = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> new NearCriticalPaths(kernel).getLongestPaths(8, Double.POSITIVE_INFINITY));
+        assertEquals(8, paths.size());
+        assertEquals(kernel.getLength(), paths.get(0).getLength(), 1e-6);
+        for (int i = 1; i < paths.size(); i++) {
+            assertTrue(paths.get(i).getLength() <= paths.get(i - 1).getLength() + 1e-6);
+        }
+
+        WorkflowDAG planned = dag(dax);
+        Et2faPlanner planner = new Et2faPlanner(planned, VmCatalog.createDefault(vms()), new OptimizationConfig("optimized"));
+        planner.setDeadline(1000);
+        SchedulePlan plan = assertTimeoutPreemptively(Duration.ofSeconds(120), planner::plan);
+        assertEquals(planned.getTaskCount(), plan.size());
+    }
+
+    /** The five VMs App creates without a pool file */
+    private static List<Vm> vms() {
+        List<Vm> vms = new ArrayList<>();
+        double[] mips = {500, 1000, 1500, 2000, 2500};
+        for (int i = 0; i < mips.length; i++) {
+            Vm vm = new VmSimple(mips[i], 1);
+            vm.setId(i);
+            vms.add(vm);
+        }
+        return vms;
+    }
+
+    private static WorkflowDAG dag(DaxLoader.DaxWorkflow dax) {
+        WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+        Map<String, Et2faTask> tasks = new HashMap<>();
+        for (DaxLoader.TaskSpec spec : dax.tasks) {
+            Et2faTask task = new Et2faTask(spec.computation, 1, TaskType.GENERAL);
+            task.setId(tasks.size());
+            tasks.put(spec.id, task);
+            builder.addTask(task);
+        }
+        for (Map.Entry<String, List<String>> entry : dax.dependencies.entrySet()) {
+            for (String child : entry.getValue()) {
+                if (!tasks.containsKey(entry.getKey()) || !tasks.containsKey(child)) continue;
+                builder.addDependency(tasks.get(entry.getKey()), tasks.get(child),
+                        dax.dataTransfers.getOrDefault(entry.getKey() + "_" + child, 0.0));
+            }
+        }
+        return builder.build();
+    }
+
+    /** Random VM assignment with each VM's tasks in id (topological) order */
+    private static int[] vmOrder(Random random, WorkflowDAG dag, int vmCount) {
+        int n = dag.getTaskCount();
+        Integer[] byId = new Integer[n];
+        for (int x = 0; x < n; x++) byId[x] = x;
+        Arrays.sort(byId, Comparator.comparingLong(x -> dag.getTask(x).getId()));
+        int[] nextOnVm = new int[n];
+        Arrays.fill(nextOnVm, -1);
+        int[] lastOnVm = new int[vmCount];
+        Arrays.fill(lastOnVm, -1);
+        for (int x : byId) {
+            int vm = random.nextInt(vmCount);
+            if (lastOnVm[vm] >= 0) nextOnVm[lastOnVm[vm]] = x;
+            lastOnVm[vm] = x;
+        }
+        return nextOnVm;
+    }
+
+    /**
+     * Every path from an entry task (no predecessor, first on its VM) to an exit task (no
+     * successor, last on its VM) over data edges and VM order edges. A data edge parallel to a
+     * VM order edge gives two paths with the same tasks.
+     */
+    private static void enumeratePaths(WorkflowDAG dag, double[] durations, double[] edgeDelays, int[] nextOnVm,
+            List<List<Integer>> paths, List<Double> lengths) {
+        int n = dag.getTaskCount();
+        boolean[] hasPrevious = new boolean[n];
+        if (nextOnVm != null) {
+            for (int x = 0; x < n; x++) {
+                if (nextOnVm[x] >= 0) hasPrevious[nextOnVm[x]] = true;
+            }
+        }
+        int[] predecessorOffsets = dag.getPredecessorOffsets();
+        for (int x = 0; x < n; x++) {
+            if (predecessorOffsets[x] == predecessorOffsets[x + 1] && !hasPrevious[x]) {
+                extend(new ArrayList<>(List.of(x)), durations[x], dag, durations, edgeDelays, nextOnVm, paths, lengths);
+            }
+        }
+    }
+
+    private static void extend(List<Integer> path, double length, WorkflowDAG dag, double[] durations,
+            double[] edgeDelays, int[] nextOnVm, List<List<Integer>> paths, List<Double> lengths) {
+        int x = path.get(path.size() - 1);
+        int[] offsets = dag.getSuccessorOffsets();
+        boolean exit = true;
+        for (int e = offsets[x]; e < offsets[x + 1]; e++) {
+            int y = dag.getSuccessorIndices()[e];
+            path.add(y);
+            extend(path, length + edgeDelays[e] + durations[y], dag, durations, edgeDelays, nextOnVm, paths, lengths);
+            path.remove(path.size() - 1);
+            exit = false;
+        }
+        if (nextOnVm != null && nextOnVm[x] >= 0) {
+            path.add(nextOnVm[x]);
+            extend(path, length + durations[nextOnVm[x]], dag, durations, edgeDelays, nextOnVm, paths, lengths);
+            path.remove(path.size() - 1);
+            exit = false;
+        }
+        if (exit) {
+            paths.add(new ArrayList<>(path));
+            lengths.add(length);
+        }
+    }
+
+    private static List<Integer> sequence(NearCriticalPaths.Path path) {
+        List<Integer> sequence = new ArrayList<>();
+        path.getTasks().forEach(task -> sequence.add(task.getDagIndex()));
+        return sequence;
+    }
+}
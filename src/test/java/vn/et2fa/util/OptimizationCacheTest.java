@@ -0,0 +1,109 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OptimizationCache communication time table against the ExecutionMatrix and a set of seen keys
+ */
+class OptimizationCacheTest {
+
+    @Test
+    void lookupsMatchMatrixAndCountHits() {
+        Random random = new Random(20);
+        for (int round = 0; round < 100; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 2 + random.nextInt(30), 0.1 + 0.3 * random.nextDouble());
+            VmCatalog catalog = TestPools.create(random, 1 + random.nextInt(8));
+            OptimizationCache cache = new OptimizationCache();
+            ExecutionMatrix matrix = cache.getExecutionMatrix(dag, catalog);
+            List<int[]> edges = edges(dag);
+            if (edges.isEmpty()) continue;
+
+            Set<List<Integer>> seen = new HashSet<>();
+            long hits = 0;
+            long misses = 0;
+            for (int lookup = 0; lookup < 500; lookup++) {
+                int[] edge = edges.get(random.nextInt(edges.size()));
+                int from = random.nextInt(catalog.size());
+                int to = random.nextInt(catalog.size());
+                double size = dag.getDataTransfer(edge[0], edge[1]);
+                assertEquals(matrix.getCommunicationTime(size, from, to), cache.getCommunicationTime(edge[0], edge[1], size, from, to));
+                if (from == to || size <= 0) continue; // Answered without a lookup
+                if (seen.add(List.of(edge[0], edge[1], matrix.getClassOf(from), matrix.getClassOf(to)))) {
+                    misses++;
+                } else {
+                    hits++;
+                }
+            }
+            OptimizationCache.CacheStats stats = cache.getStats();
+            assertEquals(hits, stats.hits);
+            assertEquals(misses, stats.misses);
+            assertEquals(0, stats.evictions);
+            assertEquals(seen.size(), stats.size);
+        }
+    }
+
+    @Test
+    void boundedTableEvictsAndStaysCorrect() {
+        Random random = new Random(21);
+        WorkflowDAG dag = RandomDags.create(random, 200, 0.2);
+        VmCatalog catalog = VmCatalog.createDefault(TestPools.create(random, 5).getVms()); // Five classes
+        OptimizationCache cache = new OptimizationCache(256);
+        ExecutionMatrix matrix = cache.getExecutionMatrix(dag, catalog);
+        List<int[]> edges = edges(dag);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int[] edge : edges) {
+                int from = random.nextInt(5);
+                int to = random.nextInt(5);
+                double size = dag.getDataTransfer(edge[0], edge[1]);
+                assertEquals(matrix.getCommunicationTime(size, from, to), cache.getCommunicationTime(edge[0], edge[1], size, from, to));
+            }
+        }
+        OptimizationCache.CacheStats stats = cache.getStats();
+        assertTrue(stats.evictions > 0, stats.toString());
+        assertTrue(stats.size <= 256, stats.toString());
+    }
+
+    @Test
+    void changedDagGetsNewMatrixAndEmptyTable() {
+        Random random = new Random(22);
+        WorkflowDAG dag = RandomDags.create(random, 10, 0.5);
+        VmCatalog catalog = TestPools.create(random, 3);
+        OptimizationCache cache = new OptimizationCache();
+        ExecutionMatrix matrix = cache.getExecutionMatrix(dag, catalog);
+        assertSame(matrix, cache.getExecutionMatrix(dag, catalog));
+        int[] edge = edges(dag).get(0);
+        double size = dag.getDataTransfer(edge[0], edge[1]);
+        double time = cache.getCommunicationTime(edge[0], edge[1], 0, 1, size);
+        cache.getCommunicationTime(edge[0], edge[1], 0, 1, size);
+        assertEquals(1, cache.getStats().hits);
+
+        Et2faTask extra = new Et2faTask(10, 1, TaskType.GENERAL);
+        extra.setId(10);
+        dag.addDependency(dag.getTask(edge[1]), extra, 5.0);
+        ExecutionMatrix rebuilt = cache.getExecutionMatrix(dag, catalog);
+        assertNotSame(matrix, rebuilt);
+        assertEquals(0, cache.getStats().size);
+        int from = dag.getTask(edge[0]).getDagIndex();
+        int to = dag.getTask(edge[1]).getDagIndex();
+        assertEquals(time, cache.getCommunicationTime(from, to, 0, 1, dag.getDataTransfer(from, to)));
+        assertEquals(2, cache.getStats().misses);
+    }
+
+    /** Edges {from, to} (dense indices) with a positive transfer size */
+    private static List<int[]> edges(WorkflowDAG dag) {
+        List<int[]> edges = new ArrayList<>();
+        List<List<Integer>> successors = RandomDags.successors(dag);
+        for (int i = 0; i < successors.size(); i++) {
+            for (int j : successors.get(i)) {
+                if (dag.getDataTransfer(i, j) > 0) edges.add(new int[]{i, j});
+            }
+        }
+        return edges;
+    }
+}
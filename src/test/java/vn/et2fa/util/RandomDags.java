@@ -0,0 +1,56 @@
+package vn.et2fa.util;
+
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.util.*;
+
+/**
+ * Small random workflows for the brute-force reference tests
+ */
+public final class RandomDags {
+    private RandomDags() {
+    }
+
+    /**
+     * Random DAG with n tasks (ids 0..n-1, edges only from a lower to a higher id). Each earlier
+     * task is a predecessor of a task with the given probability; the tasks are added in random
+     * order, so dense indices are not topological. Lengths are 1..100, transfers 0..50.
+     */
+    public static WorkflowDAG create(Random random, int n, double edgeProbability) {
+        List<Et2faTask> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Et2faTask task = new Et2faTask(1 + random.nextInt(100), 1, TaskType.GENERAL);
+            task.setId(i);
+            tasks.add(task);
+        }
+        WorkflowDAG dag = new WorkflowDAG();
+        List<Et2faTask> order = new ArrayList<>(tasks);
+        Collections.shuffle(order, random);
+        order.forEach(dag::addTask);
+        for (int j = 1; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                if (random.nextDouble() < edgeProbability) {
+                    dag.addDependency(tasks.get(i), tasks.get(j), random.nextInt(51));
+                }
+            }
+        }
+        dag.freeze();
+        return dag;
+    }
+
+    /** Dense-index successor lists of a frozen DAG */
+    public static List<List<Integer>> successors(WorkflowDAG dag) {
+        int[] offsets = dag.getSuccessorOffsets();
+        int[] indices = dag.getSuccessorIndices();
+        List<List<Integer>> successors = new ArrayList<>();
+        for (int i = 0; i < dag.getTaskCount(); i++) {
+            List<Integer> row = new ArrayList<>();
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                row.add(indices[e]);
+            }
+            successors.add(row);
+        }
+        return successors;
+    }
+}
@@ -0,0 +1,63 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feasibility checks of a schedule for the phase tests
+ */
+public final class ScheduleChecks {
+    private static final double TOLERANCE = 1e-6;
+
+    private ScheduleChecks() {
+    }
+
+    /**
+     * Every task of the DAG is scheduled on a VM of the matrix, tasks on one VM do not overlap,
+     * and every task starts after each predecessor's data has arrived (finish time plus the
+     * communication time between their VMs)
+     */
+    public static void assertFeasible(Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix) {
+        WorkflowDAG dag = matrix.getDag();
+        assertEquals(dag.getTaskCount(), schedule.size(), "scheduled tasks");
+        Map<Vm, List<Et2faTask>> tasksByVm = new IdentityHashMap<>();
+        for (Et2faTask task : dag.getTasks()) {
+            Vm vm = schedule.get(task);
+            assertNotNull(vm, "task " + task.getId() + " not scheduled");
+            assertTrue(matrix.indexOf(vm) >= 0, "task " + task.getId() + " on a VM outside the pool");
+            assertTrue(task.getActualFinishTime() >= task.getActualStartTime(), "task " + task.getId() + " ends before it starts");
+            tasksByVm.computeIfAbsent(vm, k -> new ArrayList<>()).add(task);
+        }
+        for (List<Et2faTask> tasks : tasksByVm.values()) {
+            tasks.sort(Comparator.comparingDouble(Et2faTask::getActualStartTime));
+            for (int p = 1; p < tasks.size(); p++) {
+                Et2faTask previous = tasks.get(p - 1);
+                Et2faTask task = tasks.get(p);
+                assertTrue(task.getActualStartTime() >= previous.getActualFinishTime() - TOLERANCE,
+                    "tasks " + previous.getId() + " and " + task.getId() + " overlap on their VM");
+            }
+        }
+        for (Et2faTask task : dag.getTasks()) {
+            int vm = matrix.indexOf(schedule.get(task));
+            for (Et2faTask succ : dag.getSuccessors(task)) {
+                double comm = matrix.getCommunicationTime(dag.getDataTransfer(task, succ), vm, matrix.indexOf(schedule.get(succ)));
+                assertTrue(succ.getActualStartTime() >= task.getActualFinishTime() + comm - TOLERANCE,
+                    "task " + succ.getId() + " starts before the data of " + task.getId() + " arrives");
+            }
+        }
+    }
+
+    /** Start and finish times of the DAG's tasks, by dense index: {start, finish} */
+    public static double[][] times(WorkflowDAG dag) {
+        double[][] times = new double[dag.getTaskCount()][];
+        for (int i = 0; i < times.length; i++) {
+            Et2faTask task = dag.getTask(i);
+            times[i] = new double[]{task.getActualStartTime(), task.getActualFinishTime()};
+        }
+        return times;
+    }
+}
@@ -0,0 +1,117 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ScheduleSlack against a recursive latest-finish-time computation over the scheduled DAG
+ */
+class ScheduleSlackTest {
+    private static final double EPS = 1e-6;
+
+    @Test
+    void slackMatchesRecursiveReference() {
+        Random random = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(30), 0.1 + 0.3 * random.nextDouble());
+            ExecutionMatrix matrix = new ExecutionMatrix(dag, TestPools.create(random, 1 + random.nextInt(5)));
+            Map<Et2faTask, Vm> schedule = TestPools.schedule(random, matrix, random.nextInt(3) * 20);
+            ScheduleSlack slack = new ScheduleSlack(schedule, matrix);
+            assertSlack(slack, schedule, matrix);
+
+            // Delay ranges of tasks without reordering them on their VM
+            for (int step = 0; step < 5; step++) {
+                List<Vm> vms = new ArrayList<>(slack.getSequences().keySet());
+                Vm vm = vms.get(random.nextInt(vms.size()));
+                VmTaskSequence sequence = slack.getSequences().get(vm);
+                int from = random.nextInt(sequence.size());
+                int to = from + 1 + random.nextInt(sequence.size() - from);
+                double delay = 1 + random.nextInt(50);
+                if (to < sequence.size()) {
+                    delay = Math.min(delay, sequence.get(to).getActualStartTime() - sequence.get(to - 1).getActualFinishTime());
+                }
+                slack.shiftRight(vm, from, to, delay);
+                assertSlack(slack, schedule, matrix);
+            }
+        }
+    }
+
+    private static void assertSlack(ScheduleSlack slack, Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix) {
+        double makespan = 0;
+        for (Et2faTask task : schedule.keySet()) {
+            makespan = Math.max(makespan, task.getActualFinishTime());
+        }
+        assertEquals(makespan, slack.getMakespan(), EPS);
+
+        Map<Et2faTask, Et2faTask> nextOnVm = new IdentityHashMap<>();
+        for (Map.Entry<Vm, VmTaskSequence> entry : slack.getSequences().entrySet()) {
+            List<Et2faTask> tasks = entry.getValue().asList();
+            for (int p = 0; p < tasks.size(); p++) {
+                assertSame(entry.getKey(), schedule.get(tasks.get(p)));
+                if (p + 1 < tasks.size()) nextOnVm.put(tasks.get(p), tasks.get(p + 1));
+            }
+        }
+
+        Map<Et2faTask, Double> latestFinish = new IdentityHashMap<>();
+        Map<Et2faTask, Double> referenceSlack = new IdentityHashMap<>();
+        for (Et2faTask task : schedule.keySet()) {
+            // Eq. 24: successors on other VMs at their current start times
+            double bound = Double.MAX_VALUE;
+            for (Et2faTask succ : task.getSuccessors()) {
+                if (schedule.get(succ) == schedule.get(task)) continue;
+                bound = Math.min(bound, succ.getActualStartTime() - communicationTime(matrix, schedule, task, succ));
+            }
+            assertEquals(bound, slack.getSuccessorBound(task), EPS);
+
+            double expected = latestFinish(task, schedule, matrix, nextOnVm, makespan, latestFinish);
+            assertEquals(expected, slack.getLatestFinishTime(task), EPS);
+            assertEquals(expected - task.getActualFinishTime(), slack.getTotalSlack(task), EPS);
+            referenceSlack.put(task, expected - task.getActualFinishTime());
+        }
+
+        // The critical set is exactly the tasks whose total slack is within the tolerance: with the
+        // engine's own slack at any tolerance (ties included), and with the reference slack at
+        // tolerances between two distinct reference values, where rounding cannot decide
+        List<Double> tolerances = new ArrayList<>(List.of(0.0, 5.0));
+        List<Double> values = new ArrayList<>(new TreeSet<>(referenceSlack.values()));
+        for (int k = 1; k < values.size(); k++) {
+            if (values.get(k) - values.get(k - 1) > 4 * EPS) tolerances.add((values.get(k - 1) + values.get(k)) / 2);
+        }
+        for (int k = 0; k < tolerances.size(); k++) {
+            double tolerance = tolerances.get(k);
+            Set<Et2faTask> critical = slack.getCriticalTasks(tolerance);
+            Set<Et2faTask> expected = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Et2faTask task : schedule.keySet()) {
+                if ((k < 2 ? slack.getTotalSlack(task) : referenceSlack.get(task)) <= tolerance) expected.add(task);
+            }
+            assertEquals(expected, critical, "critical tasks at tolerance " + tolerance);
+        }
+    }
+
+    /** LFT(x) = min over data successors y and the next task on x's VM of LFT(y) - dur(y) - C_{x,y} */
+    private static double latestFinish(Et2faTask task, Map<Et2faTask, Vm> schedule, ExecutionMatrix matrix,
+            Map<Et2faTask, Et2faTask> nextOnVm, double makespan, Map<Et2faTask, Double> memo) {
+        Double known = memo.get(task);
+        if (known != null) return known;
+        double latest = makespan;
+        List<Et2faTask> successors = new ArrayList<>(task.getSuccessors());
+        if (nextOnVm.containsKey(task)) successors.add(nextOnVm.get(task));
+        for (Et2faTask succ : successors) {
+            double succDuration = succ.getActualFinishTime() - succ.getActualStartTime();
+            double succLatest = latestFinish(succ, schedule, matrix, nextOnVm, makespan, memo);
+            latest = Math.min(latest, succLatest - succDuration - communicationTime(matrix, schedule, task, succ));
+        }
+        memo.put(task, latest);
+        return latest;
+    }
+
+    private static double communicationTime(ExecutionMatrix matrix, Map<Et2faTask, Vm> schedule, Et2faTask from, Et2faTask to) {
+        return matrix.getCommunicationTime(matrix.getDag().getDataTransfer(from, to),
+                matrix.indexOf(schedule.get(from)), matrix.indexOf(schedule.get(to)));
+    }
+}
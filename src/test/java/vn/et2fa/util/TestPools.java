@@ -0,0 +1,58 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+/**
+ * Small VM pools for the brute-force reference tests
+ */
+public final class TestPools {
+    private TestPools() {
+    }
+
+    /** Catalog of vmCount VMs (ids 0..vmCount-1) with random Table 4 types */
+    public static VmCatalog create(Random random, int vmCount) {
+        VmConfig.VmType[] tableTypes = VmConfig.getTable4Types();
+        List<Vm> vms = new ArrayList<>(vmCount);
+        List<VmConfig.VmType> types = new ArrayList<>(vmCount);
+        for (int v = 0; v < vmCount; v++) {
+            Vm vm = new VmSimple(1000, 1);
+            vm.setId(v);
+            vms.add(vm);
+            types.add(tableTypes[random.nextInt(tableTypes.length)]);
+        }
+        return new VmCatalog(vms, types);
+    }
+
+    /**
+     * Random feasible schedule of a RandomDags workflow on the matrix's pool: tasks in id order
+     * (a topological order) on random VMs, each starting when its VM and its input data are
+     * ready plus a random gap of up to maxGap seconds. Sets the tasks' actual start/finish times.
+     */
+    public static Map<Et2faTask, Vm> schedule(Random random, ExecutionMatrix matrix, double maxGap) {
+        WorkflowDAG dag = matrix.getDag();
+        List<Et2faTask> tasks = new ArrayList<>(dag.getTasks());
+        tasks.sort(Comparator.comparingLong(Et2faTask::getId));
+        double[] vmReady = new double[matrix.getVmCount()];
+        Map<Et2faTask, Integer> vmOf = new IdentityHashMap<>();
+        Map<Et2faTask, Vm> schedule = new IdentityHashMap<>();
+        for (Et2faTask task : tasks) {
+            int vm = random.nextInt(matrix.getVmCount());
+            double start = vmReady[vm];
+            for (Et2faTask pred : task.getPredecessors()) {
+                double comm = matrix.getCommunicationTime(dag.getDataTransfer(pred, task), vmOf.get(pred), vm);
+                start = Math.max(start, pred.getActualFinishTime() + comm);
+            }
+            start += maxGap * random.nextDouble();
+            task.setActualStartTime(start);
+            task.setActualFinishTime(start + matrix.getExecutionTime(task, vm));
+            vmReady[vm] = task.getActualFinishTime();
+            vmOf.put(task, vm);
+            schedule.put(task, matrix.getVm(vm));
+        }
+        return schedule;
+    }
+}
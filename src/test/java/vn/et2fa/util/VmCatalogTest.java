@@ -0,0 +1,107 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.cloudbus.cloudsim.vms.VmSimple;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VmCatalog lookups by VM when ids are not pool positions, and catalogs that share a JVM
+ */
+class VmCatalogTest {
+    private static final VmConfig.VmType[] TYPES = VmConfig.getTable4Types();
+
+    @Test
+    void indexOfFallsBackToIdentityWhenIdsAreNotPositions() {
+        // Swapped ids, an id beyond the pool, an unassigned id (-1) and one id equal to its position
+        long[] ids = {1, 0, 70, -1, 4};
+        List<Vm> vms = new ArrayList<>();
+        List<VmConfig.VmType> types = new ArrayList<>();
+        for (int v = 0; v < ids.length; v++) {
+            vms.add(vm(ids[v]));
+            types.add(TYPES[v]);
+        }
+        VmCatalog catalog = new VmCatalog(vms, types);
+        ExecutionMatrix matrix = new ExecutionMatrix(RandomDags.create(new Random(23), 3, 0.5), catalog);
+
+        for (int v = 0; v < ids.length; v++) {
+            assertEquals(v, catalog.indexOf(vms.get(v)), "VM with id " + ids[v]);
+            assertEquals(v, matrix.indexOf(vms.get(v)));
+            assertSame(TYPES[v], catalog.getType(vms.get(v)));
+            assertSame(vms.get(v), catalog.getVm(v));
+        }
+        // Not in the pool, whether or not its id is a position of the pool
+        for (long id : new long[]{0, 1, 4, 70, -1}) {
+            Vm foreign = vm(id);
+            assertEquals(-1, catalog.indexOf(foreign), "foreign VM with id " + id);
+            assertNull(catalog.getType(foreign));
+        }
+
+        // A subset in another order keeps each VM's type; VMs outside the catalog get none
+        Vm extra = vm(2);
+        VmCatalog subset = catalog.forVms(List.of(vms.get(4), vms.get(0), extra, vms.get(2)));
+        assertEquals(Arrays.asList(TYPES[4], TYPES[0], null, TYPES[2]),
+            Arrays.asList(subset.getType(0), subset.getType(1), subset.getType(2), subset.getType(3)));
+        assertEquals(2, subset.indexOf(extra));
+        assertEquals(0, subset.indexOf(vms.get(4)));
+        assertEquals(-1, subset.indexOf(vms.get(1)));
+        assertFalse(subset.isFullyTyped());
+        assertTrue(catalog.isFullyTyped());
+    }
+
+    @Test
+    void catalogsInOneJvmShareNoState() {
+        // Two simulations: each broker numbers its VMs from 0
+        List<Vm> first = List.of(vm(0), vm(1), vm(2));
+        List<Vm> second = List.of(vm(0), vm(1), vm(2), vm(3));
+        VmCatalog firstCatalog = VmCatalog.createDefault(first);
+        double[] firstCapacities = capacities(firstCatalog);
+
+        VmCatalog secondCatalog = new VmCatalog(second, List.of(TYPES[4], TYPES[3], TYPES[2], TYPES[1]));
+        VmCatalog untyped = VmCatalog.untyped(first);
+
+        assertArrayEquals(firstCapacities, capacities(firstCatalog));
+        for (int v = 0; v < first.size(); v++) {
+            assertSame(TYPES[v], firstCatalog.getType(first.get(v)));
+            assertSame(TYPES[4 - v], secondCatalog.getType(second.get(v)));
+            assertNull(untyped.getType(first.get(v)));
+            // Same id, other pool: not found
+            assertEquals(-1, secondCatalog.indexOf(first.get(v)));
+            assertEquals(-1, firstCatalog.indexOf(second.get(v)));
+        }
+        assertEquals(3, firstCatalog.size());
+        assertEquals(4, secondCatalog.size());
+
+        // Matrices of the two pools are independent as well
+        WorkflowDAG dag = RandomDags.create(new Random(24), 5, 0.5);
+        ExecutionMatrix firstMatrix = new ExecutionMatrix(dag, firstCatalog);
+        ExecutionMatrix secondMatrix = new ExecutionMatrix(dag, secondCatalog);
+        for (int v = 0; v < first.size(); v++) {
+            assertEquals(TYPES[v].processingCapacity, firstMatrix.getCapacity(v));
+            assertEquals(TYPES[4 - v].processingCapacity, secondMatrix.getCapacity(v));
+        }
+    }
+
+    @Test
+    void rejectsTypesNotMatchingThePool() {
+        assertThrows(IllegalArgumentException.class, () -> new VmCatalog(List.of(vm(0), vm(1)), List.of(TYPES[0])));
+        assertThrows(UnsupportedOperationException.class, () -> VmCatalog.createDefault(List.of(vm(0))).getVms().add(vm(1)));
+    }
+
+    private static double[] capacities(VmCatalog catalog) {
+        double[] capacities = new double[catalog.size()];
+        for (int v = 0; v < capacities.length; v++) {
+            capacities[v] = catalog.getCapacity(v);
+        }
+        return capacities;
+    }
+
+    private static Vm vm(long id) {
+        Vm vm = new VmSimple(1000, 1);
+        vm.setId(id);
+        return vm;
+    }
+}
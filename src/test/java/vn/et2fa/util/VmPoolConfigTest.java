@@ -0,0 +1,111 @@
+package vn.et2fa.util;
+
+import org.cloudbus.cloudsim.vms.Vm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VmPoolConfig CSV parsing: a valid pool and the errors for malformed files
+ */
+class VmPoolConfigTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadsPool() throws IOException {
+        VmPoolConfig pool = VmPoolConfig.load(write(
+                "# test pool",
+                "name,capacity,price,bandwidth,count,mips,ram,bw,size",
+                "",
+                "c3.large, 30.8, 0.128, 1.0, 3",
+                "c3.8xlarge,475.2,2.043,3.0,2,2500,5120,5000,20000",
+                "empty,61.6,0.255,1.5,0"));
+        assertEquals(3, pool.getEntries().size());
+        assertEquals(5, pool.getVmCount());
+
+        VmPoolConfig.Entry large = pool.getEntries().get(0);
+        assertEquals("c3.large", large.name);
+        assertEquals(30.8, large.type.processingCapacity);
+        assertEquals(0.128, large.type.costPerHour);
+        assertEquals(1.0, large.type.bandwidth);
+        assertEquals(1000, large.mips); // defaults for the optional columns
+        assertEquals(1024, large.ram);
+        assertEquals(1000, large.bw);
+        assertEquals(10000, large.size);
+        VmPoolConfig.Entry xlarge = pool.getEntries().get(1);
+        assertEquals(2500, xlarge.mips);
+        assertEquals(5120, xlarge.ram);
+        assertEquals(5000, xlarge.bw);
+        assertEquals(20000, xlarge.size);
+
+        List<Vm> vms = pool.createVms();
+        assertEquals(5, vms.size());
+        VmCatalog catalog = pool.createCatalog(vms);
+        for (int v = 0; v < vms.size(); v++) {
+            assertSame(pool.getEntries().get(v < 3 ? 0 : 1).type, catalog.getType(v));
+        }
+        assertTrue(catalog.isFullyTyped());
+        assertThrows(IllegalArgumentException.class, () -> pool.createCatalog(vms.subList(0, 4)));
+    }
+
+    @Test
+    void headerColumnsMayBeReorderedAndCased() throws IOException {
+        VmPoolConfig pool = VmPoolConfig.load(write("Count,Name,Bandwidth,Price,Capacity", "4,small,2.0,0.1,10"));
+        VmPoolConfig.Entry entry = pool.getEntries().get(0);
+        assertEquals("small", entry.name);
+        assertEquals(4, entry.count);
+        assertEquals(10, entry.type.processingCapacity);
+        assertEquals(0.1, entry.type.costPerHour);
+        assertEquals(2000, entry.bw);
+    }
+
+    @Test
+    void missingColumnNamesHeaderLine() throws IOException {
+        Path file = write("# comment", "name,capacity,price,count");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> VmPoolConfig.load(file));
+        assertEquals(file + ":2: missing column 'bandwidth'", e.getMessage());
+    }
+
+    @Test
+    void malformedLinesNameTheirLine() throws IOException {
+        String header = "name,capacity,price,bandwidth,count,mips";
+        Map<String, String> lines = new LinkedHashMap<>();
+        lines.put("bad,abc,0.1,1.0,1", "abc");
+        lines.put("bad,10,0.1,1.0,many", "many");
+        lines.put("bad,10,0.1,1.0,1.5", "1.5");
+        lines.put("bad,10,0.1,1.0,-1", "Negative VM count for bad: -1");
+        lines.put("bad,0,0.1,1.0,1", "invalid capacity, price or bandwidth for bad");
+        lines.put("bad,10,-0.1,1.0,1", "invalid capacity, price or bandwidth for bad");
+        lines.put("bad,10,0.1,0,1", "invalid capacity, price or bandwidth for bad");
+        lines.put("bad,10,0.1", "");
+        lines.put("bad,10,0.1,1.0,1,fast", "fast");
+        for (Map.Entry<String, String> line : lines.entrySet()) {
+            Path file = write(header, "ok,10,0.1,1.0,1", line.getKey());
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> VmPoolConfig.load(file),
+                    line.getKey());
+            assertTrue(e.getMessage().startsWith(file + ":3: "), e.getMessage());
+            assertTrue(e.getMessage().contains(line.getValue()), e.getMessage());
+        }
+    }
+
+    @Test
+    void poolWithoutEntriesIsRejected() throws IOException {
+        for (Path file : List.of(write(), write("# only comments"), write("name,capacity,price,bandwidth,count"))) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> VmPoolConfig.load(file));
+            assertEquals(file + ": no VM types", e.getMessage());
+        }
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = Files.createTempFile(tempDir, "pool", ".csv");
+        Files.write(file, List.of(lines));
+        return file;
+    }
+}
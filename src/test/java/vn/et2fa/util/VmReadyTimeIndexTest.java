@@ -0,0 +1,71 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VmReadyTimeIndex queries against a scan over all VMs of the pool
+ */
+class VmReadyTimeIndexTest {
+
+    @Test
+    void queriesMatchLinearScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            VmCatalog catalog = TestPools.create(random, 1 + random.nextInt(40));
+            double initialReadyTime = random.nextInt(100);
+            VmReadyTimeIndex index = new VmReadyTimeIndex(catalog, initialReadyTime);
+            double[] readyTimes = new double[catalog.size()];
+            Arrays.fill(readyTimes, initialReadyTime);
+
+            for (int v = 0; v < catalog.size(); v++) {
+                assertSame(catalog.getType(v), index.getGroupType(index.getGroupOf(v)));
+                assertEquals(v, index.indexOf(catalog.getVm(v)));
+            }
+            for (int step = 0; step < 100; step++) {
+                int vm = random.nextInt(catalog.size());
+                double readyTime = random.nextInt(1000);
+                index.update(vm, readyTime);
+                readyTimes[vm] = readyTime;
+
+                for (int group = 0; group < index.getGroupCount(); group++) {
+                    VmConfig.VmType type = index.getGroupType(group);
+                    double time = random.nextInt(1100);
+                    int expectedFirst = -1;
+                    double expectedMin = Double.POSITIVE_INFINITY;
+                    for (int v = 0; v < catalog.size(); v++) {
+                        if (catalog.getType(v) != type) continue;
+                        if (expectedFirst < 0 && readyTimes[v] <= time) expectedFirst = v;
+                        expectedMin = Math.min(expectedMin, readyTimes[v]);
+                    }
+                    assertEquals(expectedFirst, index.firstReadyBy(group, time));
+                    assertEquals(expectedMin, index.getMinReadyTime(group));
+                }
+                assertEquals(readyTimes[vm], index.getReadyTime(vm));
+            }
+        }
+    }
+
+    @Test
+    void groupsFollowTypeInstances() {
+        Random random = new Random(8);
+        VmCatalog catalog = TestPools.create(random, 30);
+        VmReadyTimeIndex index = new VmReadyTimeIndex(catalog, 0);
+        Set<VmConfig.VmType> types = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int v = 0; v < catalog.size(); v++) {
+            types.add(catalog.getType(v));
+        }
+        assertEquals(types.size(), index.getGroupCount());
+    }
+
+    @Test
+    void rejectsUntypedVms() {
+        VmCatalog typed = TestPools.create(new Random(9), 3);
+        VmCatalog untyped = VmCatalog.untyped(typed.getVms());
+        assertFalse(VmReadyTimeIndex.supports(untyped));
+        assertThrows(IllegalArgumentException.class, () -> new VmReadyTimeIndex(untyped, 0));
+    }
+}
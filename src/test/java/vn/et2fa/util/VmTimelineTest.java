@@ -0,0 +1,145 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VmTimeline window queries against clipping every task and hibernation interval to the window
+ */
+class VmTimelineTest {
+    private static final double EPS = 1e-9;
+
+    @Test
+    void windowQueriesMatchIntervalClipping() {
+        Random random = new Random(18);
+        for (int round = 0; round < 200; round++) {
+            List<Et2faTask> tasks = randomTasks(random, random.nextInt(12));
+            VmTimeline timeline = new VmTimeline(new VmTaskSequence(tasks));
+            double[][] hibernations = randomHibernations(random, tasks);
+            timeline.setHibernations(hibernations[0], hibernations[1]);
+            assertTimeline(random, timeline, tasks, hibernations);
+
+            // Delays that keep the task order keep every duration
+            for (int step = 0; step < 5 && !tasks.isEmpty(); step++) {
+                int from = random.nextInt(tasks.size());
+                int to = from + 1 + random.nextInt(tasks.size() - from);
+                double delay = random.nextInt(30);
+                if (to < tasks.size()) delay = Math.min(delay, timeline.getIdleAfter(to - 1));
+                timeline.shiftRight(from, to, delay);
+                for (int i = 0; i < tasks.size(); i++) {
+                    assertSame(tasks.get(i), timeline.getSequence().get(i));
+                }
+                // Hibernations are recomputed after delays (IHSH runs after DOBS)
+                hibernations = randomHibernations(random, tasks);
+                timeline.setHibernations(hibernations[0], hibernations[1]);
+                assertTimeline(random, timeline, tasks, hibernations);
+            }
+        }
+    }
+
+    private static void assertTimeline(Random random, VmTimeline timeline, List<Et2faTask> tasks, double[][] hibernations) {
+        int n = tasks.size();
+        assertEquals(n, timeline.size());
+        double leaseStart = n == 0 ? 0 : Math.max(0, tasks.get(0).getActualStartTime() - HibernationCostModel.DUR_C);
+        double leaseEnd = n == 0 ? 0 : tasks.get(n - 1).getActualFinishTime();
+        assertEquals(leaseStart, timeline.getLeaseStart(), EPS);
+        assertEquals(leaseEnd, timeline.getLeaseEnd(), EPS);
+        double busy = 0;
+        for (int i = 0; i < n; i++) {
+            Et2faTask task = tasks.get(i);
+            busy += task.getActualFinishTime() - task.getActualStartTime();
+            assertEquals(task.getActualStartTime(), timeline.getStart(i), EPS);
+            assertEquals(task.getActualFinishTime(), timeline.getFinish(i), EPS);
+            double idleAfter = i + 1 < n ? tasks.get(i + 1).getActualStartTime() - task.getActualFinishTime() : Double.POSITIVE_INFINITY;
+            assertEquals(idleAfter, timeline.getIdleAfter(i), EPS);
+
+            double tolerance = random.nextInt(3);
+            int blockStart = i;
+            while (blockStart > 0 && tasks.get(blockStart).getActualStartTime() - tasks.get(blockStart - 1).getActualFinishTime() <= tolerance) {
+                blockStart--;
+            }
+            int blockEnd = i + 1;
+            while (blockEnd < n && tasks.get(blockEnd).getActualStartTime() - tasks.get(blockEnd - 1).getActualFinishTime() <= tolerance) {
+                blockEnd++;
+            }
+            assertEquals(blockStart, timeline.blockStart(i, tolerance));
+            assertEquals(blockEnd, timeline.blockEnd(i, tolerance));
+        }
+        assertEquals(busy, timeline.getBusyTime(), EPS);
+        assertEquals(hibernations[0].length, timeline.getHibernationCount());
+
+        for (int query = 0; query < 30; query++) {
+            double from = random.nextInt(400) - 50;
+            double to = from + random.nextInt(300);
+            double busyIn = 0;
+            for (Et2faTask task : tasks) {
+                busyIn += clip(task.getActualStartTime(), task.getActualFinishTime(), from, to);
+            }
+            double hibernatedIn = 0;
+            for (int h = 0; h < hibernations[0].length; h++) {
+                hibernatedIn += clip(hibernations[0][h], hibernations[1][h], from, to);
+            }
+            double leasedIn = n == 0 ? 0 : clip(leaseStart, leaseEnd, from, to);
+            assertEquals(busyIn, timeline.getBusyTime(from, to), EPS);
+            assertEquals(hibernatedIn, timeline.getHibernatedTime(from, to), EPS);
+            assertEquals(leasedIn, timeline.getLeasedTime(from, to), EPS);
+            assertEquals(leasedIn - hibernatedIn, timeline.getRunningTime(from, to), EPS);
+            assertEquals(leasedIn - busyIn - hibernatedIn, timeline.getIdleTime(from, to), EPS);
+            assertEquals(0.5 * (leasedIn - hibernatedIn) + 0.01 * hibernatedIn, timeline.getCost(from, to, 0.5, 0.01), EPS);
+
+            double minLength = random.nextInt(10);
+            List<String> gaps = new ArrayList<>();
+            for (int i = 0; i + 1 < n; i++) {
+                double gapStart = Math.max(tasks.get(i).getActualFinishTime(), from);
+                double gapEnd = Math.min(tasks.get(i + 1).getActualStartTime(), to);
+                if (gapEnd - gapStart > minLength) gaps.add(gapStart + "-" + gapEnd);
+            }
+            List<String> actual = new ArrayList<>();
+            for (double[] gap : timeline.getIdleGaps(from, to, minLength)) {
+                actual.add(gap[0] + "-" + gap[1]);
+            }
+            assertEquals(gaps, actual, "gaps in [" + from + ", " + to + "]");
+        }
+    }
+
+    private static double clip(double start, double end, double from, double to) {
+        return Math.max(0, Math.min(end, to) - Math.max(start, from));
+    }
+
+    /** Consecutive tasks with integer durations 1..20 and gaps 0..30 (zero gaps form blocks) */
+    private static List<Et2faTask> randomTasks(Random random, int count) {
+        List<Et2faTask> tasks = new ArrayList<>();
+        double time = random.nextInt(100);
+        for (int i = 0; i < count; i++) {
+            Et2faTask task = new Et2faTask(10, 1, TaskType.GENERAL);
+            task.setId(i);
+            time += random.nextBoolean() ? 0 : random.nextInt(30);
+            task.setActualStartTime(time);
+            time += 1 + random.nextInt(20);
+            task.setActualFinishTime(time);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /** Random hibernation periods inside some of the idle gaps between tasks */
+    private static double[][] randomHibernations(Random random, List<Et2faTask> tasks) {
+        List<Double> starts = new ArrayList<>();
+        List<Double> ends = new ArrayList<>();
+        for (int i = 0; i + 1 < tasks.size(); i++) {
+            double gapStart = tasks.get(i).getActualFinishTime();
+            double gapEnd = tasks.get(i + 1).getActualStartTime();
+            if (gapEnd - gapStart < 2 || random.nextBoolean()) continue;
+            double start = gapStart + random.nextDouble() * (gapEnd - gapStart) / 2;
+            starts.add(start);
+            ends.add(start + random.nextDouble() * (gapEnd - start));
+        }
+        return new double[][]{starts.stream().mapToDouble(Double::doubleValue).toArray(),
+                ends.stream().mapToDouble(Double::doubleValue).toArray()};
+    }
+}
@@ -0,0 +1,146 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+import vn.et2fa.model.TaskType;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WorkflowDAG.Builder against the incremental addTask/addDependency path and a plain edge map
+ */
+class WorkflowDAGBuilderTest {
+
+    @Test
+    void buildMatchesIncrementalDag() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(30);
+            int[][] edges = randomEdges(random, n, random.nextInt(4 * n));
+
+            WorkflowDAG incremental = new WorkflowDAG();
+            List<Et2faTask> incrementalTasks = tasks(n);
+            incrementalTasks.forEach(incremental::addTask);
+            WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+            List<Et2faTask> builderTasks = tasks(n);
+            builderTasks.forEach(builder::addTask);
+            Map<List<Integer>, Double> reference = new HashMap<>();
+            for (int[] edge : edges) {
+                double size = edge[2];
+                incremental.addDependency(incrementalTasks.get(edge[0]), incrementalTasks.get(edge[1]), size);
+                builder.addDependency(builderTasks.get(edge[0]), builderTasks.get(edge[1]), size);
+                reference.put(List.of(edge[0], edge[1]), size); // a repeated edge keeps its last size
+            }
+            WorkflowDAG built = builder.build();
+
+            assertEquals(n, built.getTaskCount());
+            assertArrayEquals(incremental.getSuccessorOffsets(), built.getSuccessorOffsets());
+            assertArrayEquals(incremental.getSuccessorIndices(), built.getSuccessorIndices());
+            assertArrayEquals(incremental.getSuccessorTransfers(), built.getSuccessorTransfers());
+            assertArrayEquals(incremental.getPredecessorOffsets(), built.getPredecessorOffsets());
+            assertArrayEquals(incremental.getPredecessorIndices(), built.getPredecessorIndices());
+            assertArrayEquals(incremental.getPredecessorTransfers(), built.getPredecessorTransfers());
+
+            assertEquals(reference.size(), built.getSuccessorIndices().length);
+            for (int i = 0; i < n; i++) {
+                Et2faTask task = built.getTask(i);
+                assertSame(builderTasks.get(i), task);
+                assertEquals(i, task.getDagIndex());
+                assertEquals(ids(incrementalTasks.get(i).getSuccessors()), ids(task.getSuccessors()));
+                assertEquals(ids(incrementalTasks.get(i).getPredecessors()), ids(task.getPredecessors()));
+                assertEquals(ids(incremental.getSuccessors(incrementalTasks.get(i))), ids(built.getSuccessors(task)));
+                for (int j = 0; j < n; j++) {
+                    double expected = reference.getOrDefault(List.of(i, j), 0.0);
+                    assertEquals(expected, built.getDataTransfer(i, j));
+                    assertEquals(expected, built.getDataTransfer(task, built.getTask(j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void builtDagStaysMutable() {
+        Random random = new Random(6);
+        for (int round = 0; round < 50; round++) {
+            int n = 2 + random.nextInt(20);
+            WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+            List<Et2faTask> tasks = tasks(n);
+            tasks.forEach(builder::addTask);
+            Map<List<Integer>, Double> reference = new HashMap<>();
+            for (int[] edge : randomEdges(random, n, 2 * n)) {
+                builder.addDependency(tasks.get(edge[0]), tasks.get(edge[1]), edge[2]);
+                reference.put(List.of(edge[0], edge[1]), (double) edge[2]);
+            }
+            WorkflowDAG dag = builder.build();
+            int count = dag.getModificationCount();
+
+            // Transfers of the built edges must survive the first structural change
+            Et2faTask extra = new Et2faTask(10, 1, TaskType.GENERAL);
+            extra.setId(n);
+            dag.addDependency(tasks.get(random.nextInt(n)), extra, 7.0);
+            assertTrue(dag.getModificationCount() > count);
+            assertEquals(n + 1, dag.getTaskCount());
+            for (Map.Entry<List<Integer>, Double> entry : reference.entrySet()) {
+                assertEquals(entry.getValue(), dag.getDataTransfer(tasks.get(entry.getKey().get(0)), tasks.get(entry.getKey().get(1))));
+            }
+        }
+    }
+
+    @Test
+    void duplicateTaskIdsAreIgnored() {
+        WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+        List<Et2faTask> tasks = tasks(3);
+        tasks.forEach(builder::addTask);
+        Et2faTask duplicate = new Et2faTask(99, 1, TaskType.GENERAL);
+        duplicate.setId(1);
+        builder.addTask(duplicate);
+        builder.addDependency(tasks.get(0), duplicate, 4.0);
+        assertSame(tasks.get(1), builder.getTask(1));
+
+        WorkflowDAG dag = builder.build();
+        assertEquals(3, dag.getTaskCount());
+        assertEquals(4.0, dag.getDataTransfer(tasks.get(0), tasks.get(1)));
+    }
+
+    @Test
+    void builderCanOnlyBeBuiltOnce() {
+        WorkflowDAG.Builder builder = new WorkflowDAG.Builder();
+        builder.addTask(tasks(1).get(0));
+        builder.build();
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalStateException.class, () -> builder.addTask(tasks(1).get(0)));
+    }
+
+    /** Random forward edges (from < to) with repeats; each edge is {from, to, size} */
+    private static int[][] randomEdges(Random random, int n, int count) {
+        if (n < 2) return new int[0][];
+        int[][] edges = new int[count][];
+        for (int e = 0; e < count; e++) {
+            int from = random.nextInt(n - 1);
+            int to = from + 1 + random.nextInt(n - 1 - from);
+            edges[e] = new int[]{from, to, random.nextInt(100)};
+        }
+        return edges;
+    }
+
+    private static List<Et2faTask> tasks(int n) {
+        List<Et2faTask> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Et2faTask task = new Et2faTask(10 + i, 1, TaskType.GENERAL);
+            task.setId(i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static Set<Long> ids(List<Et2faTask> tasks) {
+        Set<Long> ids = new HashSet<>();
+        for (Et2faTask task : tasks) {
+            ids.add(task.getId());
+        }
+        assertEquals(tasks.size(), ids.size(), "duplicate task in " + tasks);
+        return ids;
+    }
+}
@@ -0,0 +1,193 @@
+package vn.et2fa.util;
+
+import org.junit.jupiter.api.Test;
+import vn.et2fa.model.Et2faTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * simplifyDAG / expandSimplifiedDAG against merging SOSI pairs one at a time until none is left
+ */
+class WorkflowDAGSimplifyTest {
+    private static final double EPS = 1e-9;
+
+    @Test
+    void simplifyMatchesPairwiseMerging() {
+        Random random = new Random(6);
+        for (int round = 0; round < 300; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(25), 0.05 + 0.2 * random.nextDouble());
+            Graph reference = Graph.of(dag);
+            reference.mergeAllSosiPairs();
+
+            dag.simplifyDAG();
+            Graph simplified = Graph.of(dag);
+            assertEquals(reference.succ, simplified.succ);
+            assertEquals(reference.pred, simplified.pred);
+            assertEquals(reference.transfers, simplified.transfers);
+            for (long id : reference.succ.keySet()) {
+                assertEquals(reference.computation.get(id), simplified.computation.get(id), EPS);
+                assertEquals(reference.length.get(id), simplified.length.get(id));
+            }
+
+            Map<Long, List<Long>> chains = new HashMap<>();
+            for (Map.Entry<Et2faTask, List<Et2faTask>> entry : dag.getMergedChains().entrySet()) {
+                assertSame(entry.getKey(), entry.getValue().get(0));
+                chains.put(entry.getKey().getId(), ids(entry.getValue()));
+            }
+            reference.chains.values().removeIf(members -> members.size() == 1);
+            assertEquals(reference.chains, chains);
+
+            // CSR view of the simplified DAG agrees with its task lists
+            List<List<Integer>> successors = RandomDags.successors(dag);
+            for (int i = 0; i < dag.getTaskCount(); i++) {
+                Set<Long> expected = reference.succ.get(dag.getTask(i).getId());
+                Set<Long> actual = new HashSet<>();
+                successors.get(i).forEach(s -> actual.add(dag.getTask(s).getId()));
+                assertEquals(expected, actual);
+            }
+            assertLevels(dag);
+        }
+    }
+
+    @Test
+    void expandRestoresDagAndSplitsIntervals() {
+        Random random = new Random(16);
+        for (int round = 0; round < 300; round++) {
+            WorkflowDAG dag = RandomDags.create(random, 1 + random.nextInt(25), 0.05 + 0.2 * random.nextDouble());
+            List<Et2faTask> tasksBefore = new ArrayList<>(dag.getTasks());
+            Graph before = Graph.of(dag);
+            int[] successorOffsets = dag.getSuccessorOffsets().clone();
+            int[] successorIndices = dag.getSuccessorIndices().clone();
+            double[] successorTransfers = dag.getSuccessorTransfers().clone();
+            int[] predecessorIndices = dag.getPredecessorIndices().clone();
+
+            dag.simplifyDAG();
+            Map<Et2faTask, List<Et2faTask>> chains = dag.getMergedChains();
+            Map<Et2faTask, String> schedule = new IdentityHashMap<>();
+            for (Et2faTask task : dag.getTasks()) {
+                double start = random.nextInt(1000);
+                task.setActualStartTime(start);
+                task.setActualFinishTime(start + task.getComputation() * (0.5 + random.nextDouble()));
+                schedule.put(task, "vm" + random.nextInt(5));
+            }
+            Map<Et2faTask, double[]> mergedIntervals = new IdentityHashMap<>();
+            Map<Et2faTask, String> mergedVms = new IdentityHashMap<>(schedule);
+            for (Et2faTask head : chains.keySet()) {
+                mergedIntervals.put(head, new double[]{head.getActualStartTime(), head.getActualFinishTime()});
+            }
+
+            dag.expandSimplifiedDAG(schedule);
+            assertEquals(tasksBefore, dag.getTasks());
+            assertTrue(dag.getMergedChains().isEmpty());
+            Graph after = Graph.of(dag);
+            assertEquals(before.succ, after.succ);
+            assertEquals(before.pred, after.pred);
+            assertEquals(before.transfers, after.transfers);
+            assertEquals(before.computation, after.computation);
+            assertEquals(before.length, after.length);
+            assertArrayEquals(successorOffsets, dag.getSuccessorOffsets());
+            assertArrayEquals(successorIndices, dag.getSuccessorIndices());
+            assertArrayEquals(successorTransfers, dag.getSuccessorTransfers());
+            assertArrayEquals(predecessorIndices, dag.getPredecessorIndices());
+
+            for (Map.Entry<Et2faTask, List<Et2faTask>> entry : chains.entrySet()) {
+                double[] interval = mergedIntervals.get(entry.getKey());
+                double total = 0;
+                for (Et2faTask member : entry.getValue()) {
+                    total += member.getComputation();
+                }
+                double start = interval[0];
+                for (Et2faTask member : entry.getValue()) {
+                    assertSame(mergedVms.get(entry.getKey()), schedule.get(member));
+                    assertEquals(start, member.getActualStartTime(), EPS);
+                    double duration = (interval[1] - interval[0]) * member.getComputation() / total;
+                    assertEquals(start + duration, member.getActualFinishTime(), EPS);
+                    start = member.getActualFinishTime();
+                }
+                assertEquals(interval[1], start, EPS);
+            }
+            assertEquals(dag.getTaskCount(), schedule.size());
+            assertLevels(dag);
+        }
+    }
+
+    /** calculateTopologicalLevels against the longest edge count from an entry task */
+    private static void assertLevels(WorkflowDAG dag) {
+        dag.calculateTopologicalLevels();
+        Map<Et2faTask, Integer> levels = new IdentityHashMap<>();
+        for (Et2faTask task : dag.getTasks()) {
+            assertEquals(level(task, levels), task.getTopologicalLevel());
+        }
+    }
+
+    private static int level(Et2faTask task, Map<Et2faTask, Integer> levels) {
+        Integer known = levels.get(task);
+        if (known != null) return known;
+        int level = 0;
+        for (Et2faTask pred : task.getPredecessors()) {
+            level = Math.max(level, level(pred, levels) + 1);
+        }
+        levels.put(task, level);
+        return level;
+    }
+
+    private static List<Long> ids(List<Et2faTask> tasks) {
+        List<Long> ids = new ArrayList<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        return ids;
+    }
+
+    /** Plain id-keyed copy of a DAG */
+    private static final class Graph {
+        final Map<Long, Set<Long>> succ = new HashMap<>();
+        final Map<Long, Set<Long>> pred = new HashMap<>();
+        final Map<List<Long>, Double> transfers = new HashMap<>();
+        final Map<Long, Double> computation = new HashMap<>();
+        final Map<Long, Long> length = new HashMap<>();
+        final Map<Long, List<Long>> chains = new HashMap<>();
+
+        static Graph of(WorkflowDAG dag) {
+            Graph graph = new Graph();
+            for (Et2faTask task : dag.getTasks()) {
+                long id = task.getId();
+                graph.succ.put(id, new HashSet<>(ids(dag.getSuccessors(task))));
+                assertEquals(graph.succ.get(id), new HashSet<>(ids(task.getSuccessors())));
+                graph.pred.put(id, new HashSet<>(ids(task.getPredecessors())));
+                graph.computation.put(id, task.getComputation());
+                graph.length.put(id, task.getLength());
+                graph.chains.put(id, new ArrayList<>(List.of(id)));
+                for (Et2faTask succ : dag.getSuccessors(task)) {
+                    graph.transfers.put(List.of(id, succ.getId()), dag.getDataTransfer(task, succ));
+                }
+            }
+            return graph;
+        }
+
+        /** Merge an edge a -> b with |Suc(a)| = |Pre(b)| = 1 (Eq. 16) into a, until there is none */
+        void mergeAllSosiPairs() {
+            boolean merged = true;
+            while (merged) {
+                merged = false;
+                for (long a : new TreeSet<>(succ.keySet())) {
+                    if (!succ.containsKey(a) || succ.get(a).size() != 1) continue;
+                    long b = succ.get(a).iterator().next();
+                    if (pred.get(b).size() != 1) continue;
+                    computation.put(a, computation.get(a) + computation.remove(b));
+                    length.put(a, length.get(a) + length.remove(b));
+                    chains.get(a).addAll(chains.remove(b));
+                    transfers.remove(List.of(a, b));
+                    succ.put(a, succ.remove(b));
+                    pred.remove(b);
+                    for (long s : succ.get(a)) {
+                        pred.get(s).remove(b);
+                        pred.get(s).add(a);
+                        transfers.put(List.of(a, s), transfers.remove(List.of(b, s)));
+                    }
+                    merged = true;
+                }
+            }
+        }
+    }
+}